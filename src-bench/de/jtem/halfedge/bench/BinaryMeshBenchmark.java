@@ -0,0 +1,129 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.BinaryMesh;
+import de.jtem.halfedge.util.BinaryMesh.Column;
+import de.jtem.halfedge.util.BinaryMesh.Kind;
+
+/**
+ * Writing, mapping, traversing the mapped view, and materializing a binary 
+ * mesh file of a sphere with vertex positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class BinaryMeshBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds;
+	private Column
+		positions;
+	private File
+		file,
+		out;
+	private BinaryMesh
+		mesh;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		hds = Meshes.sphere(halfEdges);
+		positions = new Column("position", Kind.VERTEX, 3, new double[3 * hds.numVertices()]);
+		file = File.createTempFile("heds", ".bin");
+		out = File.createTempFile("heds", ".bin");
+		BinaryMesh.write(hds, file, positions);
+		mesh = BinaryMesh.map(file);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		mesh = null;
+		file.delete();
+		out.delete();
+	}
+	
+	@Benchmark
+	public Object write() throws IOException {
+		BinaryMesh.write(hds, out, positions);
+		return out;
+	}
+	
+	@Benchmark
+	public Object map() throws IOException {
+		return BinaryMesh.map(file);
+	}
+	
+	@Benchmark
+	public long traverse() {
+		long sum = 0;
+		for (int e = 0; e < mesh.numEdges(); e++) {
+			sum += mesh.getTargetVertex(mesh.getNextEdge(mesh.getOppositeEdge(e)));
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public Object toHalfEdgeDataStructure() {
+		return mesh.toHalfEdgeDataStructure(Meshes.create());
+	}
+	
+}
@@ -0,0 +1,106 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.CanonicalForm;
+import de.jtem.halfedge.util.MeshGenerators;
+
+/**
+ * The canonical form of generated surfaces, including the highly symmetric 
+ * torus and geodesic sphere, and the isomorphism to a shuffled copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class CanonicalFormBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	@Param({"grid", "torus", "genusSurface", "geodesicSphere", "randomTriangulation"})
+	public String surface;
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds,
+		shuffled;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		int side = Meshes.side(halfEdges);
+		if (surface.equals("grid")) {
+			hds = Meshes.grid(halfEdges);
+		} else if (surface.equals("torus")) {
+			hds = MeshGenerators.torus(Meshes.create(), side, side);
+		} else if (surface.equals("genusSurface")) {
+			hds = MeshGenerators.genusSurface(Meshes.create(), MeshGeneratorsBenchmark.GENUS, Math.max(side / 2, 5), Math.max(side, 3 * MeshGeneratorsBenchmark.GENUS + 2));
+		} else if (surface.equals("geodesicSphere")) {
+			hds = Meshes.sphere(halfEdges);
+		} else {
+			hds = MeshGenerators.randomTriangulation(Meshes.create(), Math.max(halfEdges / 6, 4), 0);
+		}
+		shuffled = Meshes.shuffle(hds.createCombinatoriallyEquivalentCopy(Meshes.create()), 0);
+	}
+	
+	@Benchmark
+	public Object canonicalForm() {
+		return CanonicalForm.of(hds);
+	}
+	
+	@Benchmark
+	public Object isomorphism() {
+		return CanonicalForm.isomorphism(hds, shuffled);
+	}
+	
+}
@@ -0,0 +1,183 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.EulerOps;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.JournalStore;
+
+/**
+ * Persisting a batch of edge flips on a sphere through a journal store 
+ * checkpoint compared with rewriting the whole snapshot, and reopening the store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class JournalBenchmark {
+
+	/**
+	 * A store of a sphere in a temporary directory, it is deleted after the trial.
+	 */
+	@State(Scope.Thread)
+	public static class Store {
+		
+		@Param({"1000", "10000", "100000", "1000000", "10000000"})
+		public int halfEdges;
+		@Param({"1000"})
+		public int flips;
+		
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+			hds;
+		File
+			directory;
+		JournalStore
+			store;
+		Random
+			rnd = new Random(1);
+		
+		@Setup(Level.Trial)
+		public void setupTrial() throws IOException {
+			hds = Meshes.sphere(halfEdges);
+			directory = File.createTempFile("journal", "");
+			directory.delete();
+			store = JournalStore.create(directory, hds);
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDownTrial() throws IOException {
+			store.close();
+			for (File f : directory.listFiles()) {
+				f.delete();
+			}
+			directory.delete();
+		}
+		
+		void flip() {
+			for (int i = 0; i < flips; i++) {
+				Edge.Naked e = hds.getEdge(rnd.nextInt(hds.numEdges()));
+				Vertex.Naked c = e.getNextEdge().getTargetVertex();
+				Vertex.Naked d = e.getOppositeEdge().getNextEdge().getTargetVertex();
+				if (c != d && HalfEdgeUtils.findEdgeBetweenVertices(d, c) == null) {
+					EulerOps.flipEdge(e);
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * A store with a batch of journaled edge flips before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Edited extends Store {
+		
+		@Setup(Level.Invocation)
+		public void setup() {
+			flip();
+		}
+		
+	}
+	
+	/**
+	 * A closed store with a checkpointed batch of edge flips in its journal.
+	 */
+	@State(Scope.Thread)
+	public static class Closed extends Store {
+		
+		@Override
+		@Setup(Level.Trial)
+		public void setupTrial() throws IOException {
+			super.setupTrial();
+			flip();
+			store.checkpoint();
+			store.close();
+			store = null;
+		}
+		
+		@Override
+		@TearDown(Level.Trial)
+		public void tearDownTrial() throws IOException {
+			for (File f : directory.listFiles()) {
+				f.delete();
+			}
+			directory.delete();
+		}
+		
+	}
+	
+	@Benchmark
+	public long checkpoint(Edited s) throws IOException {
+		s.store.checkpoint();
+		return s.store.getJournalSize();
+	}
+	
+	@Benchmark
+	public int compact(Edited s) throws IOException {
+		s.store.compact();
+		return s.store.getGeneration();
+	}
+	
+	@Benchmark
+	public Object open(Closed s) throws IOException {
+		JournalStore store = JournalStore.open(s.directory, Meshes.create());
+		store.close();
+		return store.getHalfEdgeDataStructure();
+	}
+	
+}
@@ -0,0 +1,152 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.util.MappedMesh;
+
+/**
+ * Face and vertex star traversals of a mapped sphere with a small resident 
+ * memory limit, in random order and after reordering. The chunk loads of the 
+ * traversals are reported as a secondary result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MappedMeshBenchmark {
+
+	/**
+	 * The chunk loads of an iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class ChunkLoads {
+		
+		public long
+			chunkLoads;
+		
+		@Setup(Level.Iteration)
+		public void reset() {
+			chunkLoads = 0;
+		}
+		
+	}
+	
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	@Param({"shuffled", "reordered"})
+	public String order;
+	@Param({"1024"})
+	public long residentKB;
+	
+	private File
+		directory;
+	private MappedMesh
+		mesh;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		directory = File.createTempFile("mapped", "");
+		directory.delete();
+		mesh = MappedMesh.copyOf(Meshes.shuffle(Meshes.sphere(halfEdges), 0), new File(directory, "shuffled"), 12);
+		if (order.equals("reordered")) {
+			MappedMesh reordered = mesh.reorder(new File(directory, "reordered"));
+			mesh.close();
+			mesh = reordered;
+		}
+		mesh.setMaxResidentBytes(residentKB << 10);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDownTrial() throws IOException {
+		mesh.close();
+		for (File d : directory.listFiles()) {
+			for (File f : d.listFiles()) {
+				f.delete();
+			}
+			d.delete();
+		}
+		directory.delete();
+	}
+	
+	@Benchmark
+	public long faces(ChunkLoads loads) {
+		long before = mesh.getNumChunkLoads(), sum = 0;
+		for (int f = 0; f < mesh.numFaces(); f++) {
+			int e0 = mesh.getBoundaryEdge(f), e = e0;
+			do {
+				sum += mesh.getTargetVertex(e);
+				e = mesh.getNextEdge(e);
+			} while (e != e0);
+		}
+		loads.chunkLoads += mesh.getNumChunkLoads() - before;
+		return sum;
+	}
+	
+	@Benchmark
+	public long vertexStars(ChunkLoads loads) {
+		long before = mesh.getNumChunkLoads(), sum = 0;
+		for (int v = 0; v < mesh.numVertices(); v++) {
+			int e0 = mesh.getIncomingEdge(v), e = e0;
+			do {
+				sum += mesh.getLeftFace(e);
+				e = mesh.getOppositeEdge(mesh.getNextEdge(e));
+			} while (e != e0);
+		}
+		loads.chunkLoads += mesh.getNumChunkLoads() - before;
+		return sum;
+	}
+	
+}
@@ -0,0 +1,143 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.ColumnCollector;
+import de.jtem.halfedge.util.FaceListBuilder;
+import de.jtem.halfedge.util.MeshFormats;
+
+/**
+ * Writing and reading OBJ, OFF, ASCII PLY, and binary PLY files of a sphere 
+ * with random vertex positions. Reading is measured without and with the bulk 
+ * build of the half-edge data structure. Divide the file size by the time for 
+ * the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class MeshFormatsBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	@Param({"obj", "off", "ascii.ply", "binary.ply"})
+	public String format;
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds;
+	private double[]
+		positions;
+	private File
+		file,
+		out;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		hds = Meshes.sphere(halfEdges);
+		Random rnd = new Random(0);
+		positions = new double[3 * hds.numVertices()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = rnd.nextDouble();
+		}
+		file = File.createTempFile("heds", "." + format);
+		out = File.createTempFile("heds", "." + format);
+		write(file);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		file.delete();
+		out.delete();
+	}
+	
+	private void write(File file) throws IOException {
+		if (format.equals("ascii.ply")) {
+			FileOutputStream stream = new FileOutputStream(file);
+			try {
+				MeshFormats.writePly(hds, positions, stream.getChannel(), false);
+			} finally {
+				stream.close();
+			}
+		} else {
+			MeshFormats.write(hds, positions, file);
+		}
+	}
+	
+	@Benchmark
+	public Object write() throws IOException {
+		write(out);
+		return out;
+	}
+	
+	@Benchmark
+	public Object read() throws IOException {
+		FaceListBuilder builder = new FaceListBuilder();
+		MeshFormats.read(file, builder, new ColumnCollector());
+		return builder;
+	}
+	
+	@Benchmark
+	public Object readAndBuild() throws IOException {
+		FaceListBuilder builder = new FaceListBuilder();
+		MeshFormats.read(file, builder, new ColumnCollector());
+		return builder.build(Meshes.create());
+	}
+	
+}
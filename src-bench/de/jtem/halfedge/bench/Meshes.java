@@ -0,0 +1,129 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.Random;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.MeshGenerators;
+
+/**
+ * Test meshes for the benchmarks. The size of a mesh is given as its 
+ * approximate number of half-edges.
+ */
+final class Meshes {
+
+	private Meshes() {
+	}
+	
+	static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> create() {
+		return new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+	}
+	
+	/**
+	 * Return the number of quads per side of a square grid with about the 
+	 * given number of half-edges.
+	 * @param halfEdges the number of half-edges
+	 * @return the side length
+	 */
+	static int side(int halfEdges) {
+		return Math.max(1, (int)Math.round(Math.sqrt(halfEdges / 4.0)));
+	}
+	
+	/**
+	 * Return the index of vertex (i, j) of a grid with the given side length.
+	 */
+	static int vertex(int side, int i, int j) {
+		return i * (side + 1) + j;
+	}
+	
+	/**
+	 * Create a square grid of quads, a disk with one boundary component.
+	 * @param halfEdges the approximate number of half-edges
+	 * @return the grid
+	 */
+	static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> grid(int halfEdges) {
+		int n = side(halfEdges);
+		return MeshGenerators.grid(create(), n, n);
+	}
+	
+	/**
+	 * Return the number of subdivision levels of a geodesic sphere with about 
+	 * the given number of half-edges.
+	 * @param halfEdges the number of half-edges
+	 * @return the number of levels
+	 */
+	static int levels(int halfEdges) {
+		return Math.max(0, (int)Math.round(Math.log(halfEdges / 60.0) / Math.log(4)));
+	}
+	
+	/**
+	 * Create a geodesic sphere, a closed triangulation of genus 0.
+	 * @param halfEdges the approximate number of half-edges
+	 * @return the sphere
+	 */
+	static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> sphere(int halfEdges) {
+		return MeshGenerators.geodesicSphere(create(), levels(halfEdges));
+	}
+	
+	/**
+	 * Return a random permutation of 0, ..., n - 1.
+	 */
+	static int[] shuffled(int n, Random rnd) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			int t = order[i]; order[i] = order[j]; order[j] = t;
+		}
+		return order;
+	}
+	
+	/**
+	 * Put the vertices, edges, and faces of the given mesh into random order.
+	 * @param hds the mesh
+	 * @param seed the seed of the random order
+	 * @return the mesh
+	 */
+	static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS shuffle(HEDS hds, long seed) {
+		Random rnd = new Random(seed);
+		hds.permute(shuffled(hds.numVertices(), rnd), shuffled(hds.numEdges(), rnd), shuffled(hds.numFaces(), rnd));
+		return hds;
+	}
+	
+}
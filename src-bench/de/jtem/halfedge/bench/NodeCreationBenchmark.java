@@ -0,0 +1,154 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.FaceListBuilder;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.MeshGenerators;
+
+/**
+ * Creation of nodes and faces in an empty half-edge data structure. Each 
+ * benchmark creates a square grid with the given number of half-edges or 
+ * its nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class NodeCreationBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	
+	private int
+		side;
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds,
+		vertexHds;
+	private List<Vertex.Naked>
+		vertices;
+	
+	@Setup(Level.Invocation)
+	public void setup() {
+		side = Meshes.side(halfEdges);
+		hds = Meshes.create();
+		vertexHds = Meshes.create();
+		vertices = vertexHds.addNewVertices((side + 1) * (side + 1));
+	}
+	
+	@Benchmark
+	public Object addNewVertices() {
+		return hds.addNewVertices((side + 1) * (side + 1));
+	}
+	
+	@Benchmark
+	public Object addNewEdges() {
+		return hds.addNewEdges(halfEdges);
+	}
+	
+	@Benchmark
+	public Object addNewFaces() {
+		return hds.addNewFaces(side * side);
+	}
+	
+	@Benchmark
+	public Object addNodesOneByOne() {
+		int nv = (side + 1) * (side + 1);
+		for (int i = 0; i < nv; i++) {
+			hds.addNewVertex();
+		}
+		for (int i = 0; i < halfEdges; i++) {
+			hds.addNewEdge();
+		}
+		for (int i = 0; i < side * side; i++) {
+			hds.addNewFace();
+		}
+		return hds;
+	}
+	
+	@Benchmark
+	public Object constructFaceByVertices() {
+		int n = side;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				HalfEdgeUtils.constructFaceByVertices(vertexHds, 
+					vertices.get(Meshes.vertex(n, i, j)), 
+					vertices.get(Meshes.vertex(n, i + 1, j)), 
+					vertices.get(Meshes.vertex(n, i + 1, j + 1)), 
+					vertices.get(Meshes.vertex(n, i, j + 1))
+				);
+			}
+		}
+		return vertexHds;
+	}
+	
+	@Benchmark
+	public Object faceListBuilder() {
+		int n = side;
+		FaceListBuilder b = new FaceListBuilder();
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				b.addFace(Meshes.vertex(n, i, j), Meshes.vertex(n, i + 1, j), Meshes.vertex(n, i + 1, j + 1), Meshes.vertex(n, i, j + 1));
+			}
+		}
+		return b.build(hds);
+	}
+	
+	@Benchmark
+	public Object gridGenerator() {
+		return MeshGenerators.grid(hds, side, side);
+	}
+	
+}
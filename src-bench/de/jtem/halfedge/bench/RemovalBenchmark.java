@@ -0,0 +1,138 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Removal of nodes and the following reindexing. Each invocation works on 
+ * a fresh grid, from which a fixed number of faces or edges spread over 
+ * the node lists is removed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class RemovalBenchmark {
+
+	/** The number of removed nodes per invocation */
+	public static final int
+		REMOVALS = 100;
+	
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds,
+		dirty;
+	private List<Face.Naked>
+		faces = new ArrayList<Face.Naked>();
+	private List<Edge.Naked>
+		edges = new ArrayList<Edge.Naked>();
+	
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		dirty = Meshes.grid(halfEdges);
+	}
+	
+	@Setup(Level.Invocation)
+	public void setup() {
+		hds = Meshes.grid(halfEdges);
+		faces.clear();
+		edges.clear();
+		int nf = hds.numFaces(), ne = hds.numEdges();
+		for (int i = 0; i < Math.min(REMOVALS, nf); i++) {
+			faces.add(hds.getFace((int)((long)i * nf / Math.min(REMOVALS, nf))));
+		}
+		for (int i = 0; i < Math.min(REMOVALS, ne); i++) {
+			edges.add(hds.getEdge((int)((long)i * ne / Math.min(REMOVALS, ne))));
+		}
+		// invalidate the indices of all faces
+		dirty.removeFace(dirty.getFace(0));
+		dirty.addNewFace();
+	}
+	
+	@Benchmark
+	public Object removeFaces() {
+		for (Face.Naked f : faces) {
+			hds.removeFace(f);
+		}
+		return hds;
+	}
+	
+	@Benchmark
+	public Object removeEdges() {
+		for (Edge.Naked e : edges) {
+			if (e.isValid()) {
+				hds.removeEdge(e);
+			}
+		}
+		return hds;
+	}
+	
+	@Benchmark
+	public int removeFacesAndReindex() {
+		for (Face.Naked f : faces) {
+			hds.removeFace(f);
+		}
+		return hds.getFace(0).getIndex();
+	}
+	
+	@Benchmark
+	public int reindex() {
+		return dirty.getFace(0).getIndex();
+	}
+	
+}
@@ -0,0 +1,144 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.Reordering;
+
+/**
+ * Traversal of the face cycles of a randomly ordered sphere before and after 
+ * reordering, and the cost of the reorderings themselves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ReorderBenchmark {
+
+	/**
+	 * A sphere in random order, or reordered with one of the reorderings.
+	 */
+	@State(Scope.Thread)
+	public static class Ordered {
+		
+		@Param({"1000", "10000", "100000", "1000000", "10000000"})
+		public int halfEdges;
+		@Param({"shuffled", "breadthFirst", "reverseCuthillMcKee"})
+		public String order;
+		
+		private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+			hds;
+		
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			hds = Meshes.shuffle(Meshes.sphere(halfEdges), 0);
+			if (order.equals("breadthFirst")) {
+				Reordering.breadthFirst(hds);
+			} else if (order.equals("reverseCuthillMcKee")) {
+				Reordering.reverseCuthillMcKee(hds);
+			}
+		}
+		
+	}
+	
+	/**
+	 * A sphere that is put into a new random order before each invocation.
+	 */
+	@State(Scope.Thread)
+	public static class Shuffled {
+		
+		@Param({"1000", "10000", "100000", "1000000", "10000000"})
+		public int halfEdges;
+		
+		private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+			hds;
+		private long
+			seed = 0;
+		
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			hds = Meshes.sphere(halfEdges);
+		}
+		
+		@Setup(Level.Invocation)
+		public void setup() {
+			Meshes.shuffle(hds, seed++);
+		}
+		
+	}
+	
+	@Benchmark
+	public long traverse(Ordered s) {
+		long sum = 0;
+		for (Face.Naked f : s.hds.getFaces()) {
+			Edge.Naked e0 = f.getBoundaryEdge(), e = e0;
+			do {
+				Edge.Naked o = e.getOppositeEdge();
+				sum += e.getTargetVertex().getIndex() + o.getTargetVertex().getIndex();
+				e = e.getNextEdge();
+			} while (e != e0);
+		}
+		return sum;
+	}
+	
+	@Benchmark
+	public Object breadthFirst(Shuffled s) {
+		return Reordering.breadthFirst(s.hds);
+	}
+	
+	@Benchmark
+	public Object reverseCuthillMcKee(Shuffled s) {
+		return Reordering.reverseCuthillMcKee(s.hds);
+	}
+	
+}
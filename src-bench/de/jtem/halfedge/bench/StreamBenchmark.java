@@ -0,0 +1,126 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Sequential and parallel streams over the node lists and the positive edges. 
+ * Compare the parallel with the sequential results to see the scaling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class StreamBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	
+	@Param({"false", "true"})
+	public boolean parallel;
+	
+	private static final ToLongFunction<Edge.Naked>
+		TARGET = new ToLongFunction<Edge.Naked>() {
+			@Override
+			public long applyAsLong(Edge.Naked e) {
+				return e.getTargetVertex().getIndex();
+			}
+		};
+	private static final ToLongFunction<Vertex.Naked>
+		INCOMING = new ToLongFunction<Vertex.Naked>() {
+			@Override
+			public long applyAsLong(Vertex.Naked v) {
+				return v.getIncomingEdge().getIndex();
+			}
+		};
+	private static final ToLongFunction<Face.Naked>
+		BOUNDARY = new ToLongFunction<Face.Naked>() {
+			@Override
+			public long applyAsLong(Face.Naked f) {
+				return f.getBoundaryEdge().getIndex();
+			}
+		};
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds;
+	
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		hds = Meshes.grid(halfEdges);
+	}
+	
+	@Benchmark
+	public long vertices() {
+		return (parallel ? hds.getVertices().parallelStream() : hds.getVertices().stream()).mapToLong(INCOMING).sum();
+	}
+	
+	@Benchmark
+	public long edges() {
+		return (parallel ? hds.getEdges().parallelStream() : hds.getEdges().stream()).mapToLong(TARGET).sum();
+	}
+	
+	@Benchmark
+	public long faces() {
+		return (parallel ? hds.getFaces().parallelStream() : hds.getFaces().stream()).mapToLong(BOUNDARY).sum();
+	}
+	
+	@Benchmark
+	public long positiveEdges() {
+		return StreamSupport.stream(hds.getPositiveEdges().spliterator(), parallel).mapToLong(TARGET).sum();
+	}
+	
+}
@@ -0,0 +1,208 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+
+/**
+ * The traversals of {@link HalfEdgeUtils}. Local traversals are applied to 
+ * all vertices, edges, or faces of the grid, so every benchmark visits the 
+ * whole mesh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TraversalBenchmark {
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int halfEdges;
+	
+	private HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>
+		hds;
+	private Edge.Naked
+		boundaryEdge;
+	
+	@Setup
+	public void setup() {
+		hds = Meshes.grid(halfEdges);
+		boundaryEdge = HalfEdgeUtils.boundaryEdges(hds).get(0);
+	}
+	
+	@Benchmark
+	public void incomingEdges(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.incomingEdges(v));
+		}
+	}
+	
+	@Benchmark
+	public void outgoingEdges(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.outgoingEdges(v));
+		}
+	}
+	
+	@Benchmark
+	public void neighboringVertices(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.neighboringVertices(v));
+		}
+	}
+	
+	@Benchmark
+	public void facesIncidentWithVertex(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.facesIncidentWithVertex(v));
+		}
+	}
+	
+	@Benchmark
+	public void isBoundaryVertex(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.isBoundaryVertex(v));
+		}
+	}
+	
+	@Benchmark
+	public void incomingBoundaryEdge(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.incomingBoundaryEdge(v));
+		}
+	}
+	
+	@Benchmark
+	public void isManifoldVertex(Blackhole bh) {
+		for (Vertex.Naked v : hds.getVertices()) {
+			bh.consume(HalfEdgeUtils.isManifoldVertex(v));
+		}
+	}
+	
+	@Benchmark
+	public void boundaryEdgesOfFace(Blackhole bh) {
+		for (Face.Naked f : hds.getFaces()) {
+			bh.consume(HalfEdgeUtils.boundaryEdges(f));
+		}
+	}
+	
+	@Benchmark
+	public void boundaryVerticesOfFace(Blackhole bh) {
+		for (Face.Naked f : hds.getFaces()) {
+			bh.consume(HalfEdgeUtils.boundaryVertices(f));
+		}
+	}
+	
+	@Benchmark
+	public void isInteriorFace(Blackhole bh) {
+		for (Face.Naked f : hds.getFaces()) {
+			bh.consume(HalfEdgeUtils.isInteriorFace(f));
+		}
+	}
+	
+	@Benchmark
+	public void isBoundaryEdge(Blackhole bh) {
+		for (Edge.Naked e : hds.getEdges()) {
+			bh.consume(HalfEdgeUtils.isBoundaryEdge(e));
+		}
+	}
+	
+	@Benchmark
+	public void isInteriorEdge(Blackhole bh) {
+		for (Edge.Naked e : hds.getEdges()) {
+			bh.consume(HalfEdgeUtils.isInteriorEdge(e));
+		}
+	}
+	
+	@Benchmark
+	public void findEdgeBetweenVertices(Blackhole bh) {
+		for (Edge.Naked e : hds.getEdges()) {
+			bh.consume(HalfEdgeUtils.findEdgeBetweenVertices(e.getStartVertex(), e.getTargetVertex()));
+		}
+	}
+	
+	@Benchmark
+	public void findEdgeBetweenFaces(Blackhole bh) {
+		for (Edge.Naked e : hds.getEdges()) {
+			if (e.getLeftFace() != null && e.getRightFace() != null) {
+				bh.consume(HalfEdgeUtils.findEdgeBetweenFaces(e.getLeftFace(), e.getRightFace()));
+			}
+		}
+	}
+	
+	@Benchmark
+	public Object boundaryEdges() {
+		return HalfEdgeUtils.boundaryEdges(hds);
+	}
+	
+	@Benchmark
+	public Object boundaryEdgesOfComponent() {
+		return HalfEdgeUtils.boundaryEdges(boundaryEdge);
+	}
+	
+	@Benchmark
+	public Object boundaryFaces() {
+		return HalfEdgeUtils.boundaryFaces(hds);
+	}
+	
+	@Benchmark
+	public Object boundaryVertices() {
+		return HalfEdgeUtils.boundaryVertices(hds);
+	}
+	
+	@Benchmark
+	public Object boundaryComponents() {
+		return HalfEdgeUtils.boundaryComponents(hds);
+	}
+	
+}
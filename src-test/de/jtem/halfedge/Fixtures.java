@@ -0,0 +1,148 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.util.Random;
+
+import org.junit.Assert;
+
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.HalfEdgeView;
+
+/**
+ * Shared fixtures of the tests.
+ */
+public final class Fixtures {
+
+	// Don't instatiate.
+	private Fixtures() {}
+	
+	/**
+	 * Create an empty half-edge data structure with naked nodes.
+	 * @return the half-edge data structure
+	 */
+	public static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> create() {
+		return new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+	}
+	
+	/**
+	 * Create an icosahedron with naked nodes.
+	 * @return the half-edge data structure
+	 */
+	public static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> icosahedron() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		return hds;
+	}
+	
+	/**
+	 * Return a random permutation of 0, ..., n - 1.
+	 * @param n the size of the permutation
+	 * @param rnd the random source
+	 * @return the permutation
+	 */
+	public static int[] shuffled(int n, Random rnd) {
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		for (int i = n - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			int t = order[i]; order[i] = order[j]; order[j] = t;
+		}
+		return order;
+	}
+	
+	/**
+	 * Permute the vertices, edges, and faces of hds randomly.
+	 * @param hds the half-edge data structure
+	 * @param seed the random seed
+	 * @return hds
+	 */
+	public static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS shuffle(HEDS hds, long seed) {
+		Random rnd = new Random(seed);
+		hds.permute(shuffled(hds.numVertices(), rnd), shuffled(hds.numEdges(), rnd), shuffled(hds.numFaces(), rnd));
+		return hds;
+	}
+	
+	/**
+	 * Assert that two views have the same numbers of nodes and the same edge links.
+	 * @param expected the expected view
+	 * @param actual the actual view
+	 */
+	public static void assertSameLinks(HalfEdgeView expected, HalfEdgeView actual) {
+		Assert.assertEquals(expected.numVertices(), actual.numVertices());
+		Assert.assertEquals(expected.numEdges(), actual.numEdges());
+		Assert.assertEquals(expected.numFaces(), actual.numFaces());
+		for (int e = 0; e < expected.numEdges(); e++) {
+			Assert.assertEquals(expected.getNextEdge(e), actual.getNextEdge(e));
+			Assert.assertEquals(expected.getPreviousEdge(e), actual.getPreviousEdge(e));
+			Assert.assertEquals(expected.getOppositeEdge(e), actual.getOppositeEdge(e));
+			Assert.assertEquals(expected.getTargetVertex(e), actual.getTargetVertex(e));
+			Assert.assertEquals(expected.getLeftFace(e), actual.getLeftFace(e));
+			Assert.assertEquals(expected.isPositive(e), actual.isPositive(e));
+		}
+	}
+	
+	/**
+	 * Describe the node counts, the edge links, and the vertex and face anchors of 
+	 * a half-edge data structure by indices, for comparisons of whole structures.
+	 * @param hds the half-edge data structure
+	 * @return the description
+	 */
+	public static String links(HalfEdgeDataStructure<?,?,?> hds) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(hds.numVertices() + " " + hds.numEdges() + " " + hds.numFaces() + "\n");
+		for (Edge<?,?,?> e : hds.getEdges()) {
+			sb.append(index(e.getNextEdge()) + " ");
+			sb.append(index(e.getPreviousEdge()) + " ");
+			sb.append(index(e.getOppositeEdge()) + " ");
+			sb.append(index(e.getTargetVertex()) + " ");
+			sb.append(index(e.getLeftFace()) + " ");
+			sb.append(e.isPositive() + "\n");
+		}
+		for (Vertex<?,?,?> v : hds.getVertices()) {
+			sb.append(index(v.getIncomingEdge()) + " ");
+		}
+		for (Face<?,?,?> f : hds.getFaces()) {
+			sb.append(index(f.getBoundaryEdge()) + " ");
+		}
+		return sb.toString();
+	}
+	
+	private static int index(Node<?,?,?> n) {
+		return n == null ? -1 : n.getIndex();
+	}
+	
+}
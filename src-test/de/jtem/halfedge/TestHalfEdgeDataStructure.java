@@ -64,6 +64,40 @@ public class TestHalfEdgeDataStructure  extends TestCase {
 		}
 	}
 
+	@Test
+	public void testAppendCombinatoriallyEquivalentCopy() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			h1 = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addIcosahedron(h1);
+		h1.removeFace(h1.getFace(3));
+		MyHDS h2 = new MyHDS();
+		HalfEdgeUtils.addCube(h2);
+		h2.appendCombinatoriallyEquivalentCopy(h1);
+		assertEquals(8 + 12, h2.numVertices());
+		assertEquals(24 + 60, h2.numEdges());
+		assertEquals(6 + 19, h2.numFaces());
+		assertTrue(HalfEdgeUtils.isValidSurface(h2));
+		for (Edge.Naked e1 : h1.getEdges()) {
+			MyEdge e2 = h2.getEdge(24 + e1.getIndex());
+			assertEquals(e1.getNextEdge().getIndex() + 24, e2.getNextEdge().getIndex());
+			assertEquals(e1.getPreviousEdge().getIndex() + 24, e2.getPreviousEdge().getIndex());
+			assertEquals(e1.getOppositeEdge().getIndex() + 24, e2.getOppositeEdge().getIndex());
+			assertEquals(e1.getTargetVertex().getIndex() + 8, e2.getTargetVertex().getIndex());
+			assertEquals(e1.getLeftFace() == null, e2.getLeftFace() == null);
+			if (e1.getLeftFace() != null) {
+				assertEquals(e1.getLeftFace().getIndex() + 6, e2.getLeftFace().getIndex());
+			}
+			assertEquals(e1.isPositive(), e2.isPositive());
+		}
+		for (Vertex.Naked v : h1.getVertices()) {
+			assertEquals(v.getIncomingEdge().getIndex() + 24, h2.getVertex(v.getIndex() + 8).getIncomingEdge().getIndex());
+		}
+		// append to itself
+		h2.appendCombinatoriallyEquivalentCopy(h2);
+		assertEquals(2 * 84, h2.numEdges());
+		assertTrue(HalfEdgeUtils.isValidSurface(h2));
+	}
+	
 	@Test
 	public void testReindexingVerticesGetIndex() throws Exception {
 		MyHDS hds = new MyHDS();
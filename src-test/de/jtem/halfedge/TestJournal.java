@@ -0,0 +1,182 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.EulerOps;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.MeshGenerators;
+import de.jtem.halfedge.util.Reordering;
+import de.jtem.halfedge.util.Subdivision;
+
+public class TestJournal extends TestCase {
+
+	private static long replay(byte[] log, HalfEdgeDataStructure<?,?,?> heds) throws IOException {
+		return Journal.replay(Channels.newChannel(new ByteArrayInputStream(log)), heds);
+	}
+	
+	@Test
+	public void testReplay() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		heds.getVertex(3).getIncomingEdge().getNextEdge().setLeftFace(null);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> base = heds.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Journal journal = new Journal(Channels.newChannel(out), false);
+		heds.setJournal(journal);
+		assertSame(journal, heds.getJournal());
+		assertSame(heds, journal.getHalfEdgeDataStructure());
+		
+		EulerOps.flipEdge(heds.getEdge(7));
+		EulerOps.splitEdge(heds.getEdge(20));
+		EulerOps.collapseEdge(heds.getEdge(0));
+		heds.removeFace(heds.getFace(4));
+		heds.getEdge(11).setIsPositive(!heds.getEdge(11).isPositive());
+		heds.addNewVertices(3);
+		heds.removeVertex(heds.getVertex(heds.numVertices() - 2));
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		EulerOps.splitEdge(heds.getEdge(30));
+		EulerOps.collapseEdge(heds.getEdge(40));
+		t.commit();
+		t = heds.beginTransaction();
+		EulerOps.flipEdge(heds.getEdge(9));
+		heds.removeEdge(heds.getEdge(2));
+		t.rollback();
+		Reordering r = Reordering.breadthFirst(heds);
+		heds.permute(r.getVertexOrder(), r.getEdgeOrder(), r.getFaceOrder());
+		heds.appendCombinatoriallyEquivalentCopy(base);
+		heds.getEdge(2).linkOppositeEdge(null);
+		journal.checkpoint();
+		assertTrue(journal.getNumRecords() > 0);
+		assertEquals(out.size(), journal.getNumBytes());
+		String expected = Fixtures.links(heds);
+		
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = base.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		assertEquals(out.size(), replay(out.toByteArray(), copy));
+		assertEquals(expected, Fixtures.links(copy));
+		assertEquals(expected, Fixtures.links(heds));
+		
+		// records after the last checkpoint and torn records are not replayed
+		int length = out.size();
+		heds.getEdge(5).linkNextEdge(null);
+		heds.clear();
+		journal.flush();
+		byte[] log = out.toByteArray();
+		for (int n : new int[] {log.length, log.length - 1, length + 1}) {
+			byte[] torn = new byte[n];
+			System.arraycopy(log, 0, torn, 0, n);
+			copy = base.createCombinatoriallyEquivalentCopy(Fixtures.create());
+			assertEquals(length, replay(torn, copy));
+			assertEquals(expected, Fixtures.links(copy));
+		}
+		journal.checkpoint();
+		copy = base.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		replay(out.toByteArray(), copy);
+		assertEquals(0, copy.numEdges());
+		
+		journal.close();
+		assertNull(heds.getJournal());
+		assertNull(journal.getHalfEdgeDataStructure());
+	}
+	
+	@Test
+	public void testBulkUpdate() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = MeshGenerators.grid(Fixtures.create(), 6, 5);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> base = heds.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Journal journal = new Journal(Channels.newChannel(out), false);
+		heds.setJournal(journal);
+		HalfEdgeUtils.triangulate(heds, false);
+		journal.checkpoint();
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = base.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		replay(out.toByteArray(), copy);
+		assertEquals(Fixtures.links(heds), Fixtures.links(copy));
+		
+		// the dual and the subdivision wire a new structure in parallel
+		for (int k = 0; k < 2; k++) {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> dst = Fixtures.create();
+			out = new ByteArrayOutputStream();
+			journal = new Journal(Channels.newChannel(out), false);
+			dst.setJournal(journal);
+			if (k == 0) {
+				HalfEdgeUtils.dual(heds, dst);
+			} else {
+				Subdivision.loop(heds, dst);
+			}
+			journal.checkpoint();
+			copy = Fixtures.create();
+			replay(out.toByteArray(), copy);
+			assertEquals(Fixtures.links(dst), Fixtures.links(copy));
+		}
+	}
+	
+	@Test
+	public void testInvalidJournal() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Journal journal = new Journal(Channels.newChannel(out), false);
+		heds.setJournal(journal);
+		try {
+			Fixtures.create().setJournal(journal);
+			fail();
+		} catch (RuntimeException e) {}
+		heds.beginTransaction();
+		try {
+			journal.checkpoint();
+			fail();
+		} catch (RuntimeException e) {}
+		heds.getTransaction().rollback();
+		heds.removeEdge(heds.getEdge(29));
+		journal.checkpoint();
+		try {
+			// the journal does not start at an empty structure
+			replay(out.toByteArray(), Fixtures.create());
+			fail();
+		} catch (IOException e) {}
+		try {
+			replay(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, Fixtures.create());
+			fail();
+		} catch (IOException e) {}
+	}
+	
+}
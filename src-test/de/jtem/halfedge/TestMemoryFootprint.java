@@ -0,0 +1,145 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.MeshGenerators;
+
+public class TestMemoryFootprint extends TestCase {
+
+	public static class DataVertex extends Vertex<DataVertex, DataEdge, DataFace> {
+		double[] position = new double[3];
+		int label = 0;
+	}
+	public static class DataEdge extends Edge<DataVertex, DataEdge, DataFace> {
+		DataEdge twin = null;
+	}
+	public static class DataFace extends Face<DataVertex, DataEdge, DataFace> {}
+	
+	/** 
+	 * The memory budget of meshes without user fields on a 64 bit virtual machine 
+	 * with compressed references: bytes per half-edge of the whole structure, and 
+	 * bytes per node object of each kind 
+	 */
+	private static final double
+		BYTES_PER_EDGE = 68;
+	private static final long
+		VERTEX_BYTES = 24,
+		EDGE_BYTES = 48,
+		FACE_BYTES = 24;
+	
+	@Test
+	public void testEmpty() {
+		MemoryFootprint m = Fixtures.create().memoryFootprint();
+		assertEquals(0, m.getVertexFootprint().getCount());
+		assertEquals(0, m.getNodeBytes());
+		assertEquals(0, m.getUserFieldBytes());
+		assertEquals(0, m.getAttributeBytes());
+		assertTrue(m.getListBytes() > 0);
+		assertEquals(m.getListBytes(), m.getTotalBytes());
+		assertEquals(0.0, m.getEdgeFootprint().getBytesPerNode());
+	}
+	
+	@Test
+	public void testNaked() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.grid(Fixtures.create(), 10, 20);
+		MemoryFootprint m = hds.memoryFootprint();
+		assertEquals(hds.numVertices(), m.getVertexFootprint().getCount());
+		assertEquals(hds.numEdges(), m.getEdgeFootprint().getCount());
+		assertEquals(hds.numFaces(), m.getFaceFootprint().getCount());
+		assertEquals(0, m.getUserFieldBytes());
+		assertEquals(0, m.getAttributeBytes());
+		assertEquals(m.getListBytes() + m.getNodeBytes(), m.getTotalBytes());
+		MemoryFootprint.Part edges = m.getEdgeFootprint();
+		assertEquals(0, edges.getNodeBytes() % hds.numEdges());
+		assertTrue(edges.getNodeBytes() / hds.numEdges() > m.getVertexFootprint().getNodeBytes() / hds.numVertices());
+		// regression bound on the per-node overhead, including the list entry
+		assertTrue(edges.toString(), edges.getBytesPerNode() <= 80);
+		assertTrue(m.getVertexFootprint().getBytesPerNode() <= 48);
+		assertTrue(m.getFaceFootprint().getBytesPerNode() <= 48);
+	}
+	
+	private static void assertBudget(String name, HalfEdgeDataStructure<?,?,?> hds) {
+		MemoryFootprint m = hds.memoryFootprint();
+		String message = name + ": " + m;
+		assertTrue(message, m.getTotalBytes() <= BYTES_PER_EDGE * hds.numEdges());
+		assertTrue(message, m.getVertexFootprint().getNodeBytes() <= VERTEX_BYTES * hds.numVertices());
+		assertTrue(message, m.getEdgeFootprint().getNodeBytes() <= EDGE_BYTES * hds.numEdges());
+		assertTrue(message, m.getFaceFootprint().getNodeBytes() <= FACE_BYTES * hds.numFaces());
+	}
+	
+	@Test
+	public void testBudget() {
+		assertBudget("grid", MeshGenerators.grid(Fixtures.create(), 50, 50));
+		assertBudget("torus", MeshGenerators.torus(Fixtures.create(), 50, 50));
+		assertBudget("genus 3", MeshGenerators.genusSurface(Fixtures.create(), 3, 25, 50));
+		assertBudget("geodesic sphere", MeshGenerators.geodesicSphere(Fixtures.create(), 4));
+		assertBudget("random triangulation", MeshGenerators.randomTriangulation(Fixtures.create(), 2000, 0));
+	}
+	
+	@Test
+	public void testUserFields() {
+		HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> hds = 
+			new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class);
+		HalfEdgeUtils.addIcosahedron(hds);
+		MemoryFootprint m = hds.memoryFootprint();
+		MemoryFootprint.Part vertices = m.getVertexFootprint();
+		assertTrue(vertices.getUserFieldBytes() > 0);
+		assertEquals(0, vertices.getUserFieldBytes() % hds.numVertices());
+		assertTrue(vertices.getAttributeBytes() >= hds.numVertices() * 3 * 8);
+		assertEquals(0, vertices.getAttributeBytes() % hds.numVertices());
+		assertTrue(m.getEdgeFootprint().getUserFieldBytes() > 0);
+		assertEquals(0, m.getFaceFootprint().getUserFieldBytes());
+		
+		// nodes are not attributes
+		for (DataEdge e : hds.getEdges()) {
+			e.twin = e.getOppositeEdge();
+		}
+		assertEquals(0, hds.memoryFootprint().getEdgeFootprint().getAttributeBytes());
+		
+		// shared attributes are counted once
+		long single = vertices.getAttributeBytes() / hds.numVertices();
+		double[] shared = new double[3];
+		for (DataVertex v : hds.getVertices()) {
+			v.position = shared;
+		}
+		assertEquals(single, hds.memoryFootprint().getVertexFootprint().getAttributeBytes());
+	}
+	
+}
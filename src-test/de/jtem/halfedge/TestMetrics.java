@@ -0,0 +1,134 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.HalfEdgeUtils;
+
+public class TestMetrics extends TestCase {
+
+	@Test
+	public void testRemovalWithDirtyIndices() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		Metrics m = new Metrics();
+		heds.setMetrics(m);
+		Vertex.Naked v = heds.getVertex(5);
+		heds.removeVertex(heds.getVertex(0));
+		// v is at position 4 of 11 now, its index is not updated yet
+		heds.removeVertex(v);
+		assertEquals(2, m.getRemovalCount());
+		assertEquals(11 + 6, m.getRemovalShiftedElements());
+		assertEquals(0, m.getReindexCount());
+		assertEquals(10, heds.numVertices());
+		assertFalse(heds.getVertices().contains(v));
+	}
+	
+	@Test
+	public void testCounters() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		Metrics m = new Metrics();
+		heds.setMetrics(m);
+		
+		heds.removeVertex(heds.getVertex(0));
+		assertEquals(1, m.getRemovalCount());
+		assertEquals(11, m.getRemovalShiftedElements());
+		assertEquals(0, m.getReindexCount());
+		heds.getVertex(0);
+		assertEquals(1, m.getReindexCount());
+		assertEquals(11, m.getReindexedElements());
+		heds.getVertex(1);
+		assertEquals(1, m.getReindexCount());
+		
+		Vertex.Naked v = heds.getVertex(1);
+		Edge.Naked e = v.getIncomingEdge();
+		assertEquals(0, m.getAnchorScanCount());
+		e.setTargetVertex(heds.getVertex(2));
+		assertNotNull(v.getIncomingEdge());
+		assertEquals(1, m.getAnchorScanCount());
+		assertTrue(m.getAnchorScannedElements() > 0);
+		assertTrue(m.getAnchorScannedElements() <= heds.numEdges());
+		
+		int degree = HalfEdgeUtils.incomingEdges(heds.getVertex(5)).size();
+		HalfEdgeUtils.neighboringVertices(heds.getVertex(5));
+		assertEquals(2, m.getTraversalCount());
+		assertEquals(2 * degree, m.getTraversedElements());
+		
+		Metrics.Snapshot s = m.snapshot();
+		m.reset();
+		assertEquals(0, m.getTraversalCount());
+		assertEquals(2, s.getTraversalCount());
+		assertEquals(1, s.getRemovalCount());
+		
+		heds.setMetrics(null);
+		heds.removeVertex(heds.getVertex(0));
+		heds.getVertex(0);
+		HalfEdgeUtils.boundaryEdges(heds);
+		assertEquals(0, m.getRemovalCount());
+		assertEquals(0, m.getReindexCount());
+		assertEquals(0, m.getTraversalCount());
+	}
+	
+	@Test
+	public void testJMX() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		Metrics m = new Metrics();
+		heds.setMetrics(m);
+		ObjectName name = m.register("test");
+		try {
+			m.register("test");
+			fail();
+		} catch (RuntimeException ex) {}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			assertTrue(server.isRegistered(name));
+			HalfEdgeUtils.boundaryVertices(heds);
+			assertEquals(1L, server.getAttribute(name, "TraversalCount"));
+			server.invoke(name, "reset", null, null);
+			assertEquals(0L, server.getAttribute(name, "TraversalCount"));
+		} finally {
+			m.unregister();
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+		m.unregister();
+	}
+	
+}
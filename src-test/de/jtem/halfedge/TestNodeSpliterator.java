@@ -0,0 +1,170 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.StreamSupport;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.MeshGenerators;
+
+public class TestNodeSpliterator extends TestCase {
+
+	private static final Consumer<Object>
+		IGNORE = new Consumer<Object>() {
+			@Override
+			public void accept(Object t) {
+			}
+		};
+	
+	@Test
+	public void testParallelStreams() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.grid(Fixtures.create(), 100, 70);
+		assertEquals(hds.numVertices(), hds.getVertices().parallelStream().count());
+		assertEquals(hds.numEdges(), hds.getEdges().parallelStream().distinct().count());
+		assertEquals(hds.numFaces(), hds.getFaces().parallelStream().count());
+		long indexSum = (long)hds.numEdges() * (hds.numEdges() - 1) / 2;
+		assertEquals(indexSum, hds.getEdges().parallelStream().mapToLong(new ToLongFunction<Edge.Naked>() {
+			@Override
+			public long applyAsLong(Edge.Naked e) {
+				return e.getIndex();
+			}
+		}).sum());
+		
+		int positive = 0, negative = 0;
+		for (Edge.Naked e : hds.getPositiveEdges()) {
+			assertTrue(e.isPositive());
+			positive++;
+		}
+		for (Edge.Naked e : hds.getNegativeEdges()) {
+			assertFalse(e.isPositive());
+			negative++;
+		}
+		assertEquals(hds.numEdges(), positive + negative);
+		assertEquals(positive, StreamSupport.stream(hds.getPositiveEdges().spliterator(), true).count());
+		assertEquals(negative, StreamSupport.stream(hds.getNegativeEdges().spliterator(), true).distinct().count());
+	}
+	
+	@Test
+	public void testSplitting() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.grid(Fixtures.create(), 10, 10);
+		Spliterator<Edge.Naked> s = hds.getEdges().spliterator();
+		assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.NONNULL));
+		assertEquals(hds.numEdges(), s.getExactSizeIfKnown());
+		Spliterator<Edge.Naked> prefix = s.trySplit();
+		assertEquals(hds.numEdges() / 2, prefix.getExactSizeIfKnown());
+		assertEquals(hds.numEdges() - hds.numEdges() / 2, s.getExactSizeIfKnown());
+		final int[] first = {-1};
+		prefix.tryAdvance(new Consumer<Edge.Naked>() {
+			@Override
+			public void accept(Edge.Naked e) {
+				first[0] = e.getIndex();
+			}
+		});
+		assertEquals(0, first[0]);
+		
+		Spliterator<Edge.Naked> positive = hds.getPositiveEdges().spliterator();
+		assertFalse(positive.hasCharacteristics(Spliterator.SIZED));
+		assertEquals(hds.numEdges() / 2, positive.estimateSize());
+		assertNotNull(positive.trySplit());
+		
+		assertNull(Fixtures.create().getVertices().spliterator().trySplit());
+	}
+	
+	@Test
+	public void testFailFast() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.grid(Fixtures.create(), 3, 3);
+		
+		Iterator<Vertex.Naked> vit = hds.getVertices().iterator();
+		vit.next();
+		hds.permute(new int[] {1, 0, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15}, null, null);
+		try {
+			vit.next();
+			fail("permutation was not detected");
+		} catch (ConcurrentModificationException e) {}
+		
+		Spliterator<Face.Naked> fs = hds.getFaces().spliterator();
+		fs.tryAdvance(IGNORE);
+		hds.addNewFace();
+		try {
+			fs.tryAdvance(IGNORE);
+			fail("addition was not detected");
+		} catch (ConcurrentModificationException e) {}
+		
+		try {
+			hds.getFaces().stream().forEach(new Consumer<Face.Naked>() {
+				@Override
+				public void accept(Face.Naked f) {
+					if (f.getIndex() == 0) {
+						f.getHalfEdgeDataStructure().removeFace(f.getHalfEdgeDataStructure().getFace(1));
+					}
+				}
+			});
+			fail("removal was not detected");
+		} catch (ConcurrentModificationException e) {}
+		
+		Iterator<Edge.Naked> eit = hds.getPositiveEdges().iterator();
+		eit.next();
+		hds.addNewEdge();
+		try {
+			eit.next();
+			fail("addition was not detected");
+		} catch (ConcurrentModificationException e) {}
+		
+		Spliterator<Edge.Naked> es = hds.getPositiveEdges().spliterator();
+		es.tryAdvance(IGNORE);
+		hds.removeEdge(hds.getEdge(hds.numEdges() - 1));
+		try {
+			es.forEachRemaining(IGNORE);
+			fail("removal was not detected");
+		} catch (ConcurrentModificationException e) {}
+		
+		// relinking during iteration is allowed
+		for (Edge.Naked e : hds.getPositiveEdges()) {
+			e.setIsPositive(!e.isPositive());
+		}
+		for (Edge.Naked e : hds.getEdges()) {
+			e.linkNextEdge(null);
+		}
+	}
+	
+}
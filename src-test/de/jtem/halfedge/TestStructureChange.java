@@ -0,0 +1,276 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.EulerOps;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.MeshGenerators;
+import de.jtem.halfedge.util.Subdivision;
+
+public class TestStructureChange extends TestCase {
+
+	private static class Recorder implements HalfEdgeListener<Vertex.Naked, Edge.Naked, Face.Naked> {
+		
+		List<StructureChange<Vertex.Naked, Edge.Naked, Face.Naked>>
+			changes = new ArrayList<StructureChange<Vertex.Naked, Edge.Naked, Face.Naked>>();
+		
+		@Override
+		public void structureChanged(StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> change) {
+			changes.add(change);
+		}
+		
+		StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> single() {
+			assertEquals(1, changes.size());
+			return changes.remove(0);
+		}
+		
+	}
+	
+	@Test
+	public void testCoalescing() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		Recorder r = new Recorder();
+		heds.addListener(r);
+		HalfEdgeUtils.addIcosahedron(heds);
+		assertFalse(r.changes.isEmpty());
+		r.changes.clear();
+		
+		// one event per call outside of batches
+		Edge.Naked e = heds.getEdge(0);
+		e.setIsPositive(!e.isPositive());
+		StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> c = r.single();
+		assertSame(heds, c.getHalfEdgeDataStructure());
+		assertEquals(Arrays.asList(e, e.getOppositeEdge()), c.getModifiedEdges());
+		assertTrue(c.getAddedEdges().isEmpty());
+		assertFalse(c.isReindexed());
+		
+		// one event per batch, each node once, removed nodes are not modified
+		heds.beginBatch();
+		heds.beginBatch();
+		Edge.Naked flipped = EulerOps.flipEdge(heds.getEdge(7));
+		Vertex.Naked v = EulerOps.splitEdge(heds.getEdge(20));
+		heds.endBatch();
+		Edge.Naked collapsed = heds.getEdge(3);
+		EulerOps.collapseEdge(collapsed);
+		assertTrue(r.changes.isEmpty());
+		heds.endBatch();
+		c = r.single();
+		assertEquals(Arrays.asList(v), c.getAddedVertices());
+		assertEquals(2, c.getAddedEdges().size());
+		assertTrue(c.getModifiedEdges().contains(flipped));
+		assertFalse(c.getModifiedEdges().contains(collapsed));
+		assertTrue(c.getRemovedEdges().contains(collapsed));
+		for (Edge.Naked m : c.getModifiedEdges()) {
+			assertTrue(m.isValid());
+			assertFalse(c.getAddedEdges().contains(m));
+		}
+		assertEquals(1, c.getRemovedVertices().size());
+		assertFalse(c.getRemovedFaces().isEmpty());
+		for (Face.Naked f : c.getRemovedFaces()) {
+			assertFalse(f.isValid());
+		}
+		assertTrue(c.isReindexed());
+		assertNull(c.getEdgeOrder());
+		try {
+			heds.endBatch();
+			fail();
+		} catch (RuntimeException ex) {}
+		
+		// nodes added and removed within a batch are not reported
+		heds.beginBatch();
+		heds.removeVertex(heds.addNewVertex());
+		heds.endBatch();
+		assertTrue(r.changes.isEmpty());
+		
+		// one event for a bulk operation
+		int nf = heds.numFaces();
+		heds.appendCombinatoriallyEquivalentCopy(heds);
+		c = r.single();
+		assertEquals(nf, c.getAddedFaces().size());
+		
+		heds.removeListener(r);
+		EulerOps.flipEdge(heds.getEdge(7));
+		assertTrue(r.changes.isEmpty());
+	}
+	
+	@Test
+	public void testTransaction() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		Recorder r = new Recorder();
+		heds.addListener(r);
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		Edge.Naked e = heds.getEdge(0);
+		EulerOps.collapseEdge(e);
+		heds.addNewFace();
+		assertTrue(r.changes.isEmpty());
+		t.commit();
+		StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> c = r.single();
+		assertTrue(c.getRemovedEdges().contains(e));
+		assertEquals(1, c.getAddedFaces().size());
+		assertTrue(c.isReindexed());
+		
+		t = heds.beginTransaction();
+		e = heds.getEdge(0);
+		EulerOps.collapseEdge(e);
+		Face.Naked f = heds.addNewFace();
+		t.rollback();
+		c = r.single();
+		// the restored nodes are valid again
+		assertTrue(e.isValid());
+		assertTrue(c.getRemovedEdges().isEmpty());
+		assertTrue(c.getAddedFaces().isEmpty());
+		assertFalse(f.isValid());
+		assertTrue(c.getModifiedEdges().contains(e));
+		assertFalse(c.isReindexed());
+	}
+	
+	@Test
+	public void testPermutation() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addTetrahedron(heds);
+		Recorder r = new Recorder();
+		heds.addListener(r);
+		heds.beginBatch();
+		heds.permute(new int[] {3, 2, 1, 0}, null, null);
+		heds.addNewVertex();
+		heds.permute(new int[] {4, 0, 1, 2, 3}, null, null);
+		heds.endBatch();
+		StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> c = r.single();
+		assertTrue(c.isReindexed());
+		assertTrue(Arrays.equals(new int[] {-1, 3, 2, 1, 0}, c.getVertexOrder()));
+		assertNull(c.getEdgeOrder());
+		assertNull(c.getFaceOrder());
+	}
+	
+	@Test
+	public void testModificationCounts() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		long v = heds.getVertexModificationCount();
+		long e = heds.getEdgeModificationCount();
+		long f = heds.getFaceModificationCount();
+		assertEquals(v, heds.getVertexModificationCount());
+		heds.getEdge(0).setIsPositive(!heds.getEdge(0).isPositive());
+		assertEquals(v, heds.getVertexModificationCount());
+		assertEquals(f, heds.getFaceModificationCount());
+		assertTrue(e != heds.getEdgeModificationCount());
+		e = heds.getEdgeModificationCount();
+		EulerOps.flipEdge(heds.getEdge(3));
+		assertTrue(v != heds.getVertexModificationCount());
+		assertTrue(e != heds.getEdgeModificationCount());
+		assertTrue(f != heds.getFaceModificationCount());
+		// reading does not modify
+		v = heds.getVertexModificationCount();
+		HalfEdgeUtils.isValidSurface(heds);
+		assertEquals(v, heds.getVertexModificationCount());
+		heds.addNewVertex();
+		assertTrue(v != heds.getVertexModificationCount());
+		heds.removeVertex(heds.getVertex(heds.numVertices() - 1));
+		// parallel bulk operations
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> dst = Fixtures.create();
+		Recorder r = new Recorder();
+		dst.addListener(r);
+		e = dst.getEdgeModificationCount();
+		Subdivision.loop(heds, dst);
+		assertTrue(e != dst.getEdgeModificationCount());
+		assertEquals(0, dst.getEdgeModificationCount() - dst.getEdgeModificationCount());
+		for (StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> c : r.changes) {
+			assertTrue(c.getModifiedEdges().isEmpty() || c.getModifiedEdges().size() == dst.numEdges());
+		}
+	}
+	
+	@Test
+	public void testBulkUpdate() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = MeshGenerators.grid(Fixtures.create(), 6, 5);
+		Recorder r = new Recorder();
+		heds.addListener(r);
+		int nf = heds.numFaces();
+		heds.beginBatch();
+		int numNew = HalfEdgeUtils.triangulate(heds, true);
+		heds.endBatch();
+		StructureChange<Vertex.Naked, Edge.Naked, Face.Naked> c = r.single();
+		assertEquals(numNew, c.getAddedFaces().size());
+		assertEquals(nf, c.getModifiedFaces().size());
+		assertEquals(4 * nf, c.getModifiedEdges().size());
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		
+		// the dual is wired in one event
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> dst = Fixtures.create();
+		dst.addListener(r);
+		HalfEdgeUtils.dual(heds, dst);
+		assertEquals(4, r.changes.size());
+		assertEquals(dst.numEdges(), r.changes.get(3).getModifiedEdges().size());
+		assertEquals(dst.numVertices(), r.changes.get(3).getModifiedVertices().size());
+		assertEquals(dst.numFaces(), r.changes.get(3).getModifiedFaces().size());
+		r.changes.clear();
+		
+		// no additions, removals, or transactions during a bulk update
+		heds.beginBulkUpdate();
+		try {
+			heds.beginBulkUpdate();
+			fail();
+		} catch (RuntimeException e) {}
+		try {
+			heds.addNewVertex();
+			fail();
+		} catch (RuntimeException e) {}
+		try {
+			heds.removeEdge(heds.getEdge(0));
+			fail();
+		} catch (RuntimeException e) {}
+		try {
+			heds.beginTransaction();
+			fail();
+		} catch (RuntimeException e) {}
+		Edge.Naked e = heds.getEdge(0);
+		e.setIsPositive(!e.isPositive());
+		assertTrue(r.changes.isEmpty());
+		heds.endBulkUpdate(null, Arrays.asList(e, e.getOppositeEdge()), null);
+		assertEquals(Arrays.asList(e, e.getOppositeEdge()), r.single().getModifiedEdges());
+		try {
+			heds.endBulkUpdate(null, null, null);
+			fail();
+		} catch (RuntimeException ex) {}
+	}
+	
+}
@@ -0,0 +1,115 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.util.EulerOps;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+
+public class TestTransaction extends TestCase {
+
+	@Test
+	public void testRollback() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		String before = Fixtures.links(heds);
+		Vertex.Naked v0 = heds.getVertex(0);
+		Edge.Naked e0 = heds.getEdge(0);
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		assertSame(t, heds.getTransaction());
+		EulerOps.flipEdge(heds.getEdge(7));
+		EulerOps.splitEdge(heds.getEdge(20));
+		EulerOps.collapseEdge(e0);
+		Vertex.Naked w = heds.addNewVertex();
+		assertFalse(e0.isValid());
+		assertTrue(t.size() > 0);
+		t.rollback();
+		assertFalse(t.isOpen());
+		assertNull(heds.getTransaction());
+		assertFalse(w.isValid());
+		assertTrue(e0.isValid());
+		assertSame(v0, heds.getVertex(0));
+		assertEquals(before, Fixtures.links(heds));
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		for (Vertex.Naked v : heds.getVertices()) {
+			assertEquals(5, HalfEdgeUtils.incomingEdges(v).size());
+		}
+	}
+	
+	@Test
+	public void testCommit() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		Edge.Naked e0 = heds.getEdge(0);
+		Vertex.Naked last = heds.getVertex(11);
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		Vertex.Naked b = EulerOps.collapseEdge(e0);
+		// removed nodes are not dropped before the commit
+		assertEquals(12, heds.numVertices());
+		assertEquals(60, heds.numEdges());
+		assertEquals(11, last.getIndex());
+		t.commit();
+		assertEquals(11, heds.numVertices());
+		assertEquals(54, heds.numEdges());
+		assertEquals(18, heds.numFaces());
+		assertEquals(10, last.getIndex());
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		assertSame(b, b.getIncomingEdge().getTargetVertex());
+		for (Edge.Naked e : heds.getEdges()) {
+			assertSame(e, heds.getEdge(e.getIndex()));
+		}
+		try {
+			t.rollback();
+			fail();
+		} catch (RuntimeException re) {}
+	}
+	
+	@Test
+	public void testOneTransactionAtATime() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.icosahedron();
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		try {
+			heds.beginTransaction();
+			fail();
+		} catch (RuntimeException re) {}
+		try {
+			heds.clear();
+			fail();
+		} catch (RuntimeException re) {}
+		t.commit();
+		heds.beginTransaction().rollback();
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.jfr;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.HalfEdgeUtils;
+
+public class TestMeshEvents extends TestCase {
+
+	@Test
+	public void testEvents() throws Exception {
+		assertTrue(EventHook.isAvailable());
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = Fixtures.create();
+		
+		File file = File.createTempFile("halfedge", ".jfr");
+		Recording r = new Recording();
+		try {
+			r.enable("de.jtem.halfedge.MeshOperation");
+			r.enable("de.jtem.halfedge.Reindex").withThreshold(null);
+			r.start();
+			assertTrue(HalfEdgeUtils.isValidSurface(heds));
+			heds.removeFace(heds.getFace(0));
+			heds.removeFace(heds.getFace(5));
+			assertFalse(HalfEdgeUtils.isValidSurface(Fixtures.create()));
+			assertEquals(2, HalfEdgeUtils.boundaryComponents(heds).size());
+			HalfEdgeUtils.fillAllHoles(heds);
+			HalfEdgeUtils.copy(heds, copy);
+			r.stop();
+			r.dump(file.toPath());
+		} finally {
+			r.close();
+		}
+		
+		Map<String, RecordedEvent> events = new HashMap<String, RecordedEvent>();
+		int reindex = 0;
+		try {
+			List<RecordedEvent> all = RecordingFile.readAllEvents(file.toPath());
+			for (RecordedEvent e : all) {
+				String type = e.getEventType().getName();
+				if ("de.jtem.halfedge.Reindex".equals(type)) {
+					assertEquals("face", e.getString("nodeType"));
+					reindex++;
+				} else if ("de.jtem.halfedge.MeshOperation".equals(type)) {
+					String key = e.getString("operation") + " " + e.getString("outcome");
+					events.put(key, e);
+				}
+			}
+		} finally {
+			file.delete();
+		}
+		assertTrue(reindex > 0);
+		assertEquals(12, events.get("isValidSurface valid").getInt("vertices"));
+		assertEquals(0, events.get("isValidSurface invalid").getInt("edges"));
+		assertEquals(2, events.get("boundaryComponents ok").getLong("result"));
+		RecordedEvent fill = events.get("fillAllHoles ok");
+		assertEquals(2, fill.getLong("result"));
+		assertEquals(20, fill.getInt("faces"));
+		assertEquals(60, events.get("copy ok").getInt("edges"));
+		assertFalse(fill.getDuration().isNegative());
+	}
+	
+}
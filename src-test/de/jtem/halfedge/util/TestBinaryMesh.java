@@ -0,0 +1,153 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.BinaryMesh.Column;
+import de.jtem.halfedge.util.BinaryMesh.Kind;
+
+public class TestBinaryMesh extends TestCase {
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.loop(hds, Fixtures.create());
+		hds.removeFace(hds.getFace(3));
+		hds.getEdge(5).setIsPositive(!hds.getEdge(5).isPositive());
+		double[] positions = new double[3 * hds.numVertices()];
+		for (int i = 0; i < positions.length; i++) positions[i] = i * 0.5;
+		double[] weights = new double[hds.numEdges()];
+		for (int i = 0; i < weights.length; i++) weights[i] = -i;
+		File file = File.createTempFile("heds", ".bin");
+		try {
+			BinaryMesh.write(hds, file, new Column("position", Kind.VERTEX, 3, positions), new Column("w\u00e4ight", Kind.EDGE, 1, weights));
+			BinaryMesh mesh = BinaryMesh.map(file);
+			Fixtures.assertSameLinks(HalfEdgeViews.of(hds), mesh);
+			for (Vertex.Naked v : hds.getVertices()) {
+				assertEquals(v.getIncomingEdge().getIndex(), mesh.getIncomingEdge(v.getIndex()));
+			}
+			assertEquals(2, mesh.getColumns().size());
+			Column c = mesh.getColumn("position");
+			assertEquals(Kind.VERTEX, c.getKind());
+			assertEquals(3, c.getDimension());
+			DoubleBuffer data = c.getData();
+			assertEquals(positions.length, data.remaining());
+			for (double p : positions) assertEquals(p, data.get());
+			assertEquals(weights[7], mesh.getColumn("w\u00e4ight").getData().get(7));
+			assertNull(mesh.getColumn("color"));
+			// materialize
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = mesh.toHalfEdgeDataStructure(Fixtures.create());
+			Fixtures.assertSameLinks(HalfEdgeViews.of(copy), mesh);
+			assertTrue(HalfEdgeUtils.isValidSurface(copy));
+			for (Face.Naked f : hds.getFaces()) {
+				assertEquals(f.getBoundaryEdge().getIndex(), copy.getFace(f.getIndex()).getBoundaryEdge().getIndex());
+			}
+			// an empty structure
+			BinaryMesh.write(Fixtures.create(), file);
+			assertEquals(0, BinaryMesh.map(file).numEdges());
+		} finally {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void testInvalidFiles() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addTetrahedron(hds);
+		File file = File.createTempFile("heds", ".bin");
+		try {
+			try {
+				BinaryMesh.write(hds, file, new Column("c", Kind.FACE, 2, new double[3]));
+				fail("wrote a column of wrong length");
+			} catch (IllegalArgumentException e) {}
+			BinaryMesh.write(hds, file);
+			// the next edge of edge 1 points past the last edge
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			raf.seek(4 * 8 + 4);
+			raf.writeInt(Integer.reverseBytes(hds.numEdges()));
+			raf.close();
+			try {
+				BinaryMesh.map(file);
+				fail("mapped a file with a corrupt link");
+			} catch (IOException e) {}
+			BinaryMesh.write(hds, file);
+			// the left face of the last edge is below -1
+			raf = new RandomAccessFile(file, "rw");
+			raf.seek(4 * 8 + 4 * (5 * hds.numEdges() - 1));
+			raf.writeInt(Integer.reverseBytes(-2));
+			raf.close();
+			try {
+				BinaryMesh.map(file);
+				fail("mapped a file with a corrupt face index");
+			} catch (IOException e) {}
+			BinaryMesh.write(hds, file);
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(raf.length() - 8);
+			raf.close();
+			try {
+				BinaryMesh.map(file);
+				fail("mapped a truncated file");
+			} catch (IOException e) {}
+		} finally {
+			file.delete();
+		}
+		ByteBuffer b = ByteBuffer.allocate(64);
+		try {
+			BinaryMesh.wrap(b);
+			fail("read a file without magic number");
+		} catch (IOException e) {}
+		b.order(java.nio.ByteOrder.LITTLE_ENDIAN).putInt(0, BinaryMesh.MAGIC).putInt(4, BinaryMesh.VERSION + 1);
+		try {
+			BinaryMesh.wrap(b);
+			fail("read an unsupported version");
+		} catch (IOException e) {}
+	}
+	
+}
@@ -0,0 +1,164 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestCanonicalForm extends TestCase {
+
+	private static void assertIsomorphism(HalfEdgeDataStructure<?,?,?> a, HalfEdgeDataStructure<?,?,?> b) {
+		CanonicalForm.Mapping m = CanonicalForm.isomorphism(a, b);
+		assertNotNull(m);
+		int[] vm = m.getVertexMap(), em = m.getEdgeMap(), fm = m.getFaceMap();
+		for (Edge<?,?,?> e : a.getEdges()) {
+			Edge<?,?,?> image = b.getEdge(em[e.getIndex()]);
+			assertSame(b.getEdge(em[e.getNextEdge().getIndex()]), image.getNextEdge());
+			assertSame(b.getEdge(em[e.getOppositeEdge().getIndex()]), image.getOppositeEdge());
+			assertSame(b.getVertex(vm[e.getTargetVertex().getIndex()]), image.getTargetVertex());
+			if (e.getLeftFace() == null) {
+				assertNull(image.getLeftFace());
+			} else {
+				assertSame(b.getFace(fm[e.getLeftFace().getIndex()]), image.getLeftFace());
+			}
+		}
+		assertEquals(a.numVertices(), distinct(vm));
+		assertEquals(a.numEdges(), distinct(em));
+		assertEquals(a.numFaces(), distinct(fm));
+	}
+	
+	private static int distinct(int[] map) {
+		boolean[] hit = new boolean[map.length];
+		int n = 0;
+		for (int i : map) {
+			if (!hit[i]) {
+				hit[i] = true;
+				n++;
+			}
+		}
+		return n;
+	}
+	
+	@Test
+	public void testPermutedCopies() {
+		HalfEdgeDataStructure<?,?,?>[] meshes = {
+			MeshGenerators.grid(Fixtures.create(), 7, 5),
+			MeshGenerators.torus(Fixtures.create(), 6, 6),
+			MeshGenerators.genusSurface(Fixtures.create(), 2, 6, 8),
+			MeshGenerators.geodesicSphere(Fixtures.create(), 2),
+			MeshGenerators.randomTriangulation(Fixtures.create(), 300, 3)
+		};
+		for (HalfEdgeDataStructure<?,?,?> hds : meshes) {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = Fixtures.shuffle(hds.createCombinatoriallyEquivalentCopy(Fixtures.create()), 17);
+			CanonicalForm a = CanonicalForm.of(hds), b = CanonicalForm.of(copy);
+			assertEquals(a, b);
+			assertEquals(a.getFingerprint(), b.getFingerprint());
+			assertEquals(a.hashCode(), b.hashCode());
+			assertIsomorphism(hds, copy);
+			assertIsomorphism(copy, hds);
+		}
+		for (int i = 0; i < meshes.length; i++) {
+			for (int j = i + 1; j < meshes.length; j++) {
+				assertFalse(CanonicalForm.of(meshes[i]).equals(CanonicalForm.of(meshes[j])));
+				assertNull(CanonicalForm.isomorphism(meshes[i], meshes[j]));
+			}
+		}
+	}
+	
+	@Test
+	public void testNonIsomorphic() {
+		// rotated grids are isomorphic, grids with different sides are not
+		assertIsomorphism(MeshGenerators.grid(Fixtures.create(), 3, 4), MeshGenerators.grid(Fixtures.create(), 4, 3));
+		CanonicalForm grid = CanonicalForm.of(MeshGenerators.grid(Fixtures.create(), 3, 4));
+		assertFalse(grid.equals(CanonicalForm.of(MeshGenerators.grid(Fixtures.create(), 2, 6))));
+		assertFalse(CanonicalForm.of(MeshGenerators.torus(Fixtures.create(), 3, 8)).equals(CanonicalForm.of(MeshGenerators.torus(Fixtures.create(), 4, 6))));
+		assertFalse(CanonicalForm.of(MeshGenerators.randomTriangulation(Fixtures.create(), 100, 1)).equals(
+			CanonicalForm.of(MeshGenerators.randomTriangulation(Fixtures.create(), 100, 2))));
+		assertEquals(CanonicalForm.of(MeshGenerators.randomTriangulation(Fixtures.create(), 100, 1)), 
+			CanonicalForm.of(MeshGenerators.randomTriangulation(Fixtures.create(), 100, 1)));
+		
+		// an isolated vertex makes a difference, a flipped edge too
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> a = MeshGenerators.geodesicSphere(Fixtures.create(), 1);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> b = MeshGenerators.geodesicSphere(Fixtures.create(), 1);
+		b.addNewVertex();
+		assertFalse(CanonicalForm.of(a).equals(CanonicalForm.of(b)));
+		assertNull(CanonicalForm.isomorphism(a, b));
+		a.addNewVertex();
+		assertIsomorphism(a, Fixtures.shuffle(b, 5));
+	}
+	
+	@Test
+	public void testComponents() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> a = Fixtures.create();
+		MeshGenerators.torus(a, 3, 4);
+		MeshGenerators.grid(a, 2, 2);
+		MeshGenerators.grid(a, 2, 2);
+		a.addNewFace();
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> b = Fixtures.create();
+		MeshGenerators.grid(b, 2, 2);
+		b.addNewFace();
+		MeshGenerators.torus(b, 4, 3);
+		MeshGenerators.grid(b, 2, 2);
+		assertEquals(CanonicalForm.of(a), CanonicalForm.of(b));
+		assertIsomorphism(a, Fixtures.shuffle(b, 11));
+		
+		assertEquals(CanonicalForm.of(Fixtures.create()), CanonicalForm.of(Fixtures.create()));
+		assertNotNull(CanonicalForm.isomorphism(Fixtures.create(), Fixtures.create()));
+	}
+	
+	@Test
+	public void testSharedVertex() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		Vertex.Naked v = hds.addNewVertex();
+		Edge.Naked e0 = hds.addNewEdge(), e1 = hds.addNewEdge(), e2 = hds.addNewEdge(), e3 = hds.addNewEdge();
+		e0.linkOppositeEdge(e1);
+		e2.linkOppositeEdge(e3);
+		e0.setTargetVertex(v);
+		e2.setTargetVertex(v);
+		try {
+			CanonicalForm.of(hds);
+			fail("a vertex shared by two components is not supported");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+}
@@ -0,0 +1,112 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestConnectedComponents extends TestCase {
+
+	@Test
+	public void testLabels() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addTetrahedron(heds);
+		HalfEdgeUtils.addNGon(heds, 5);
+		HalfEdgeUtils.addCube(heds);
+		Vertex.Naked isolated = heds.addNewVertex();
+		ConnectedComponents cc = ConnectedComponents.label(heds);
+		assertEquals(4, cc.getNumComponents());
+		assertEquals(4, ConnectedComponents.count(heds));
+		for (Edge.Naked e : heds.getEdges()) {
+			int l = cc.getEdgeLabels()[e.getIndex()];
+			assertEquals(l, cc.getEdgeLabels()[e.getNextEdge().getIndex()]);
+			assertEquals(l, cc.getEdgeLabels()[e.getOppositeEdge().getIndex()]);
+			assertEquals(l, cc.getVertexLabels()[e.getTargetVertex().getIndex()]);
+			if (e.getLeftFace() != null) {
+				assertEquals(l, cc.getFaceLabels()[e.getLeftFace().getIndex()]);
+			}
+		}
+		assertEquals(0, cc.getEdgeLabels()[0]);
+		assertEquals(1, cc.getEdgeLabels()[12]);
+		assertEquals(2, cc.getEdgeLabels()[heds.numEdges() - 1]);
+		assertEquals(3, cc.getVertexLabels()[isolated.getIndex()]);
+	}
+	
+	@Test
+	public void testSplit() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addIcosahedron(heds);
+		HalfEdgeUtils.addNGon(heds, 7);
+		HalfEdgeUtils.addDodecahedron(heds);
+		List<HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>> components = ConnectedComponents.split(heds);
+		assertEquals(3, components.size());
+		int[][] sizes = {{12, 60, 20}, {7, 14, 1}, {20, 60, 12}};
+		for (int i = 0; i < 3; i++) {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> c = components.get(i);
+			assertTrue(HalfEdgeUtils.isValidSurface(c));
+			assertEquals(sizes[i][0], c.numVertices());
+			assertEquals(sizes[i][1], c.numEdges());
+			assertEquals(sizes[i][2], c.numFaces());
+			assertEquals(1, ConnectedComponents.count(c));
+		}
+		assertEquals(0, HalfEdgeUtils.getGenus(components.get(2)));
+	}
+	
+	@Test
+	public void testManyComponents() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		int n = 1000;
+		for (int i = 0; i < n; i++) {
+			HalfEdgeUtils.addIcosahedron(heds);
+		}
+		// remove some vertices to make the indices dirty
+		heds.removeVertex(heds.getVertex(0));
+		ConnectedComponents cc = ConnectedComponents.label(heds);
+		assertEquals(n, cc.getNumComponents());
+		for (Edge.Naked e : heds.getEdges()) {
+			assertEquals(e.getIndex() / 60, cc.getEdgeLabels()[e.getIndex()]);
+		}
+	}
+
+}
@@ -0,0 +1,237 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import static de.jtem.halfedge.util.HalfEdgeUtils.findEdgeBetweenVertices;
+import static de.jtem.halfedge.util.HalfEdgeUtils.incomingEdges;
+import static de.jtem.halfedge.util.HalfEdgeUtils.isValidSurface;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Transaction;
+import de.jtem.halfedge.Vertex;
+
+public class TestEulerOps extends TestCase {
+
+	private static void assertSizes(HalfEdgeDataStructure<?,?,?> heds, int nv, int ne, int nf) {
+		assertEquals(nv, heds.numVertices());
+		assertEquals(ne, heds.numEdges());
+		assertEquals(nf, heds.numFaces());
+	}
+	
+	@Test
+	public void testFlipEdge() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addOctahedron(heds);
+		Vertex.Naked v0 = heds.getVertex(0);
+		Vertex.Naked v1 = heds.getVertex(1);
+		Edge.Naked e = findEdgeBetweenVertices(v0, v1);
+		Vertex.Naked c = e.getNextEdge().getTargetVertex();
+		Vertex.Naked d = e.getOppositeEdge().getNextEdge().getTargetVertex();
+		EulerOps.flipEdge(e);
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 6, 24, 8);
+		assertNull(findEdgeBetweenVertices(v0, v1));
+		assertSame(e, findEdgeBetweenVertices(d, c));
+		assertEquals(3, incomingEdges(v0).size());
+		assertEquals(5, incomingEdges(c).size());
+		// flipping again restores the original edge
+		EulerOps.flipEdge(e);
+		assertTrue(isValidSurface(heds));
+		assertSame(e, findEdgeBetweenVertices(v1, v0));
+		// boundary edges cannot be flipped
+		heds.removeFace(e.getLeftFace());
+		try {
+			EulerOps.flipEdge(e);
+			fail();
+		} catch (IllegalArgumentException iae) {}
+	}
+	
+	@Test
+	public void testSplitEdgeAndFace() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addCube(heds);
+		Edge.Naked e = heds.getEdge(0);
+		Vertex.Naked v = EulerOps.splitEdge(e);
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 9, 26, 6);
+		assertSame(v, e.getTargetVertex());
+		assertEquals(2, incomingEdges(v).size());
+		assertEquals(5, HalfEdgeUtils.boundaryEdges(e.getLeftFace()).size());
+		Edge.Naked n = EulerOps.splitFace(e, e.getNextEdge().getNextEdge().getNextEdge());
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 9, 28, 7);
+		assertEquals(3, HalfEdgeUtils.boundaryEdges(n.getLeftFace()).size());
+		assertEquals(4, HalfEdgeUtils.boundaryEdges(n.getRightFace()).size());
+		try {
+			EulerOps.splitFace(n, n.getNextEdge());
+			fail();
+		} catch (IllegalArgumentException iae) {}
+		assertTrue(isValidSurface(heds));
+		assertEquals(0, HalfEdgeUtils.getGenus(heds));
+	}
+	
+	@Test
+	public void testSplitBoundaryEdge() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		Face.Naked f = HalfEdgeUtils.addNGon(heds, 5);
+		EulerOps.splitEdge(f.getBoundaryEdge().getOppositeEdge());
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 6, 12, 1);
+		assertEquals(6, HalfEdgeUtils.boundaryEdges(f).size());
+	}
+	
+	@Test
+	public void testCollapseEdge() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		Edge.Naked e = heds.getEdge(0);
+		Vertex.Naked b = e.getTargetVertex();
+		assertSame(b, EulerOps.collapseEdge(e));
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 11, 54, 18);
+		assertEquals(6, incomingEdges(b).size());
+		assertFalse(e.isValid());
+		// collapse as long as the link condition allows it
+		int collapsed = 0;
+		for (boolean progress = true; progress;) {
+			progress = false;
+			for (Edge.Naked x : heds.getEdges()) {
+				try {
+					EulerOps.collapseEdge(x);
+				} catch (IllegalArgumentException iae) {
+					assertTrue(isValidSurface(heds));
+					continue;
+				}
+				assertTrue(isValidSurface(heds));
+				collapsed++;
+				progress = true;
+				break;
+			}
+		}
+		assertTrue(collapsed > 0);
+		assertEquals(0, HalfEdgeUtils.getGenus(heds));
+		assertEquals(heds.numEdges() / 2 + 2, heds.numVertices() + heds.numFaces());
+	}
+	
+	@Test
+	public void testCollapseInTransaction() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = MeshGenerators.geodesicSphere(Fixtures.create(), 3);
+		int nv = heds.numVertices(), ne = heds.numEdges(), nf = heds.numFaces();
+		Edge.Naked last = heds.getEdge(ne - 1);
+		Transaction<Vertex.Naked, Edge.Naked, Face.Naked> t = heds.beginTransaction();
+		int collapsed = 0;
+		for (int i = 0; i < ne; i += 37) {
+			Edge.Naked x = heds.getEdge(i);
+			if (!x.isValid() || x == last || x.getOppositeEdge() == last) {
+				continue;
+			}
+			try {
+				EulerOps.collapseEdge(x);
+				collapsed++;
+			} catch (IllegalArgumentException iae) {}
+		}
+		assertTrue(collapsed > 10);
+		// the removed nodes stay in the lists until the commit, nothing is shifted
+		assertSizes(heds, nv, ne, nf);
+		assertSame(last, heds.getEdge(ne - 1));
+		assertEquals(ne - 1, last.getIndex());
+		t.commit();
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, nv - collapsed, ne - 6 * collapsed, nf - 2 * collapsed);
+		assertEquals(ne - 6 * collapsed - 1, last.getIndex());
+		assertEquals(0, HalfEdgeUtils.getGenus(heds));
+	}
+	
+	@Test
+	public void testCollapseTetrahedron() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addTetrahedron(heds);
+		EulerOps.collapseEdge(heds.getEdge(0));
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 3, 6, 2);
+		try {
+			EulerOps.collapseEdge(heds.getEdge(0));
+			fail();
+		} catch (IllegalArgumentException iae) {}
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 3, 6, 2);
+	}
+
+	@Test
+	public void testCollapseBoundaryTriangle() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addNGon(heds, 3);
+		try {
+			EulerOps.collapseEdge(heds.getEdge(0));
+			fail();
+		} catch (IllegalArgumentException iae) {}
+		assertTrue(isValidSurface(heds));
+		heds = Fixtures.create();
+		HalfEdgeUtils.addNGon(heds, 6);
+		EulerOps.collapseEdge(heds.getEdge(0));
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 5, 10, 1);
+	}
+	
+	@Test
+	public void testSplitVertexAndCollapse() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> heds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(heds);
+		Vertex.Naked v = heds.getVertex(0);
+		List<Edge.Naked> star = incomingEdges(v);
+		Edge.Naked n = EulerOps.splitVertex(star.get(0), star.get(2));
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 13, 62, 20);
+		assertSame(v, n.getTargetVertex());
+		assertEquals(3, incomingEdges(n.getStartVertex()).size());
+		assertEquals(4, incomingEdges(v).size());
+		EulerOps.collapseEdge(n);
+		assertTrue(isValidSurface(heds));
+		assertSizes(heds, 12, 60, 20);
+		assertEquals(5, incomingEdges(v).size());
+		try {
+			EulerOps.splitVertex(star.get(1), star.get(1));
+			fail();
+		} catch (IllegalArgumentException iae) {}
+	}
+	
+}
@@ -0,0 +1,96 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestHalfEdgeViews extends TestCase {
+
+	@Test
+	public void testDualView() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addCube(hds);
+		HalfEdgeView dual = HalfEdgeViews.dual(hds);
+		assertTrue(HalfEdgeUtils.isValidSurface(dual, true));
+		assertEquals(0, HalfEdgeUtils.getGenus(dual));
+		Fixtures.assertSameLinks(HalfEdgeViews.of(HalfEdgeUtils.dual(hds, Fixtures.create())), dual);
+		// vertex traversal of the dual is face traversal of the original
+		Traversal t1 = Traversal.vertices(dual);
+		Traversal t2 = Traversal.faces(hds);
+		t1.bfs(0);
+		t2.bfs(0);
+		for (int i = 0; i < 6; i++) {
+			assertEquals(t2.getDistances()[i], t1.getDistances()[i]);
+		}
+		// the view follows modifications
+		HalfEdgeUtils.triangulate(hds);
+		assertEquals(12, dual.numVertices());
+		assertTrue(HalfEdgeUtils.isValidSurface(dual, true));
+		// boundary
+		hds.clear();
+		HalfEdgeUtils.addNGon(hds, 6);
+		dual = HalfEdgeViews.dual(hds);
+		assertTrue(HalfEdgeUtils.isValidSurface(dual, true));
+		Fixtures.assertSameLinks(HalfEdgeViews.of(HalfEdgeUtils.dual(hds, Fixtures.create())), dual);
+	}
+	
+	@Test
+	public void testReverseView() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		HalfEdgeUtils.addNGon(hds, 5);
+		HalfEdgeView view = HalfEdgeViews.of(hds);
+		HalfEdgeView reverse = HalfEdgeViews.reverse(hds);
+		assertTrue(HalfEdgeUtils.isValidSurface(view, true));
+		assertTrue(HalfEdgeUtils.isValidSurface(reverse, true));
+		assertEquals(HalfEdgeUtils.getGenus(hds), HalfEdgeUtils.getGenus(reverse));
+		Fixtures.assertSameLinks(view, HalfEdgeViews.reverse(reverse));
+		for (Edge.Naked e : hds.getEdges()) {
+			assertEquals(e.getStartVertex().getIndex(), reverse.getTargetVertex(e.getIndex()));
+		}
+		assertTrue(HalfEdgeUtils.isValidSurface(HalfEdgeViews.dual(reverse), true));
+		// broken links are reported
+		hds.getEdge(0).linkNextEdge(null);
+		assertFalse(HalfEdgeUtils.isValidSurface(reverse));
+	}
+	
+}
@@ -53,6 +53,28 @@ import de.jtem.halfedge.Vertex;
 
 public class TestHalfedgeUtils  extends TestCase{
 
+	public static class DataVertex extends Vertex<DataVertex, DataEdge, DataFace> {
+		int data = 0;
+		@Override
+		public void copyData(DataVertex v) {
+			data = v.data;
+		}
+	}
+	public static class DataEdge extends Edge<DataVertex, DataEdge, DataFace> {
+		int data = 0;
+		@Override
+		public void copyData(DataEdge e) {
+			data = e.data;
+		}
+	}
+	public static class DataFace extends Face<DataVertex, DataEdge, DataFace> {
+		int data = 0;
+		@Override
+		public void copyData(DataFace f) {
+			data = f.data;
+		}
+	}
+
 //	@Test
 //	public void testNeighboringVertices() {
 //		fail("Not yet implemented");
@@ -247,4 +269,144 @@ public class TestHalfedgeUtils  extends TestCase{
 	}
 
 
+	@Test
+	public void testTriangulate() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);	
+		addDodecahedron(heds);
+		addIcosahedron(heds);
+		assertEquals(24, HalfEdgeUtils.triangulate(heds));
+		assertEquals(56, heds.numFaces());
+		assertEquals(2 * (30 + 24 + 30), heds.numEdges());
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		for (Face.Naked f : heds.getFaces()) {
+			assertEquals(3, boundaryEdges(f).size());
+		}
+		// a strip keeps vertex degrees low, a fan does not 
+		heds.clear();
+		Vertex.Naked v0 = addNGon(heds, 10).getBoundaryEdge().getStartVertex();
+		HalfEdgeUtils.triangulate(heds, true);
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		for (Vertex.Naked v : heds.getVertices()) {
+			assertTrue(incomingEdges(v).size() <= 4);
+		}
+		heds.clear();
+		v0 = addNGon(heds, 10).getBoundaryEdge().getStartVertex();
+		HalfEdgeUtils.triangulate(heds, false);
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+		assertEquals(9, incomingEdges(v0).size());
+		// large enough to run in parallel
+		heds.clear();
+		for (int i = 0; i < 40000; i++) {
+			addNGon(heds, 5);
+		}
+		assertEquals(80000, HalfEdgeUtils.triangulate(heds, true));
+		assertEquals(120000, heds.numFaces());
+		assertTrue(HalfEdgeUtils.isValidSurface(heds));
+	}
+
+	@Test
+	public void testDual() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		addCube(heds);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			dual = HalfEdgeUtils.dual(heds, new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class));
+		assertTrue(HalfEdgeUtils.isValidSurface(dual));
+		assertEquals(6, dual.numVertices());
+		assertEquals(8, dual.numFaces());
+		for (Vertex.Naked v : dual.getVertices()) {
+			assertEquals(4, incomingEdges(v).size());
+		}
+		for (Edge.Naked e : heds.getEdges()) {
+			Edge.Naked d = dual.getEdge(e.getIndex());
+			assertEquals(e.getLeftFace().getIndex(), d.getTargetVertex().getIndex());
+			assertEquals(e.getRightFace().getIndex(), d.getStartVertex().getIndex());
+			assertEquals(e.getStartVertex().getIndex(), d.getLeftFace().getIndex());
+			assertEquals(e.isPositive(), d.isPositive());
+		}
+		// the dual of the dual reverses all edges
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			dual2 = HalfEdgeUtils.dual(dual, new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class));
+		for (Edge.Naked e : heds.getEdges()) {
+			Edge.Naked d = dual2.getEdge(e.getIndex());
+			assertEquals(e.getStartVertex().getIndex(), d.getTargetVertex().getIndex());
+			assertEquals(e.getRightFace().getIndex(), d.getLeftFace().getIndex());
+		}
+		// holes become vertices
+		heds.clear();
+		addNGon(heds, 5);
+		dual.clear();
+		HalfEdgeUtils.dual(heds, dual);
+		assertTrue(HalfEdgeUtils.isValidSurface(dual));
+		assertEquals(2, dual.numVertices());
+		assertEquals(5, dual.numFaces());
+		assertEquals(0, HalfEdgeUtils.getGenus(dual));
+	}
+
+	@Test
+	public void testCopy() {
+		HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> 
+			src = new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class),
+			dst = new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class);
+		// large enough to copy the data in parallel
+		for (int i = 0; i < 4000; i++) {
+			addIcosahedron(src);
+		}
+		for (DataVertex v : src.getVertices()) v.data = v.getIndex();
+		for (DataEdge e : src.getEdges()) e.data = -e.getIndex();
+		for (DataFace f : src.getFaces()) f.data = 2 * f.getIndex();
+		addTetrahedron(dst);
+		assertEquals(4, HalfEdgeUtils.copy(src, dst, true));
+		assertTrue(HalfEdgeUtils.isValidSurface(dst));
+		for (DataVertex v : src.getVertices()) {
+			assertEquals(v.data, dst.getVertex(4 + v.getIndex()).data);
+		}
+		for (DataEdge e : src.getEdges()) {
+			assertEquals(e.data, dst.getEdge(12 + e.getIndex()).data);
+		}
+		for (DataFace f : src.getFaces()) {
+			assertEquals(f.data, dst.getFace(4 + f.getIndex()).data);
+		}
+		// without data
+		dst.clear();
+		assertEquals(0, HalfEdgeUtils.copy(src, dst, false));
+		assertEquals(0, dst.getVertex(7).data);
+		assertEquals(0, HalfEdgeUtils.copy(src, new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class)));
+	}
+
+	@Test
+	public void testExtractSubmesh() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class),
+			sub = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		addIcosahedron(heds);
+		Vertex.Naked v0 = heds.getVertex(0);
+		Submesh s = HalfEdgeUtils.extractSubmesh(heds, HalfEdgeUtils.facesIncidentWithVertex(v0), sub);
+		assertTrue(HalfEdgeUtils.isValidSurface(sub, true));
+		assertEquals(6, sub.numVertices());
+		assertEquals(20, sub.numEdges());
+		assertEquals(5, sub.numFaces());
+		assertEquals(5, HalfEdgeUtils.boundaryEdges(sub).size());
+		for (Edge.Naked e : sub.getEdges()) {
+			Edge.Naked p = heds.getEdge(s.getEdgeMap()[e.getIndex()]);
+			assertEquals(p.getTargetVertex().getIndex(), s.getVertexMap()[e.getTargetVertex().getIndex()]);
+			assertEquals(p.getOppositeEdge().getIndex(), s.getEdgeMap()[e.getOppositeEdge().getIndex()]);
+			if (e.getLeftFace() != null) {
+				assertEquals(p.getLeftFace().getIndex(), s.getFaceMap()[e.getLeftFace().getIndex()]);
+				assertEquals(p.getNextEdge().getIndex(), s.getEdgeMap()[e.getNextEdge().getIndex()]);
+			}
+		}
+		// the whole surface
+		sub.clear();
+		s = HalfEdgeUtils.extractSubmesh(heds, heds.getFaces(), sub);
+		assertTrue(HalfEdgeUtils.isValidSurface(sub, true));
+		assertEquals(60, sub.numEdges());
+		assertEquals(0, HalfEdgeUtils.boundaryEdges(sub).size());
+		try {
+			HalfEdgeUtils.extractSubmesh(heds, heds.getFaces(), sub);
+			fail("target not empty");
+		} catch (RuntimeException e) {}
+	}
+
 }
@@ -0,0 +1,136 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestJournalStore extends TestCase {
+
+	private File
+		directory;
+	
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("journal", "");
+		directory.delete();
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		directory.delete();
+	}
+	
+	private static void assertSameStructure(HalfEdgeDataStructure<?,?,?> expected, HalfEdgeDataStructure<?,?,?> actual) {
+		Fixtures.assertSameLinks(HalfEdgeViews.of(expected), HalfEdgeViews.of(actual));
+		for (int i = 0; i < expected.numVertices(); i++) {
+			assertEquals(expected.getVertex(i).getIncomingEdge().getIndex(), actual.getVertex(i).getIncomingEdge().getIndex());
+		}
+		for (int i = 0; i < expected.numFaces(); i++) {
+			assertEquals(expected.getFace(i).getBoundaryEdge().getIndex(), actual.getFace(i).getBoundaryEdge().getIndex());
+		}
+	}
+	
+	private static String[] files(File directory) {
+		String[] names = directory.list();
+		Arrays.sort(names);
+		return names;
+	}
+	
+	@Test
+	public void testCheckpointAndCompact() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.loop(hds, Fixtures.create());
+		JournalStore store = JournalStore.create(directory, hds);
+		assertSame(store.getJournal(), hds.getJournal());
+		assertEquals(0, store.getGeneration());
+		long empty = store.getJournalSize();
+		
+		EulerOps.flipEdge(hds.getEdge(17));
+		EulerOps.collapseEdge(hds.getEdge(40));
+		EulerOps.splitEdge(hds.getEdge(3));
+		store.checkpoint();
+		assertTrue(store.getJournalSize() > empty);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> expected = hds.createCombinatoriallyEquivalentCopy(Fixtures.create());
+		// not checkpointed
+		EulerOps.flipEdge(hds.getEdge(5));
+		store.getJournal().flush();
+		
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = Fixtures.create();
+		JournalStore reopened = JournalStore.open(directory, copy);
+		assertSameStructure(expected, copy);
+		assertTrue(HalfEdgeUtils.isValidSurface(copy));
+		EulerOps.flipEdge(copy.getEdge(5));
+		reopened.close();
+		assertNull(copy.getJournal());
+		
+		copy = Fixtures.create();
+		reopened = JournalStore.open(directory, copy);
+		assertSameStructure(hds, copy);
+		reopened.compact();
+		assertEquals(1, reopened.getGeneration());
+		assertEquals(Arrays.asList("journal-1.log", "snapshot-1.bin"), Arrays.asList(files(directory)));
+		EulerOps.splitEdge(copy.getEdge(0));
+		reopened.close();
+		
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> last = Fixtures.create();
+		reopened = JournalStore.open(directory, last);
+		assertSameStructure(copy, last);
+		try {
+			JournalStore.open(directory, last);
+			fail();
+		} catch (RuntimeException e) {}
+		reopened.close();
+	}
+	
+}
@@ -0,0 +1,192 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestMappedMesh extends TestCase {
+
+	private File
+		directory;
+	
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+	
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("mapped", "");
+		directory.delete();
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		delete(directory);
+	}
+	
+	@Test
+	public void testCopyAndReopen() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.loop(hds, Fixtures.create());
+		hds = Subdivision.loop(hds, Fixtures.create());
+		hds.removeFace(hds.getFace(0));
+		File meshDirectory = new File(directory, "mesh");
+		MappedMesh mesh = MappedMesh.copyOf(hds, meshDirectory, 10);
+		mesh.setMaxResidentBytes(3 * 4096);
+		mesh.setMaxDirtyChunks(2);
+		Fixtures.assertSameLinks(HalfEdgeViews.of(hds), mesh);
+		assertTrue(mesh.getNumResidentChunks() <= 3);
+		assertTrue(mesh.getNumChunkLoads() > 8);
+		assertTrue(HalfEdgeUtils.isValidSurface(mesh));
+		mesh.close();
+		mesh = MappedMesh.open(meshDirectory);
+		Fixtures.assertSameLinks(HalfEdgeViews.of(hds), mesh);
+		for (Vertex.Naked v : hds.getVertices()) {
+			assertEquals(v.getIncomingEdge().getIndex(), mesh.getIncomingEdge(v.getIndex()));
+		}
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = mesh.toHalfEdgeDataStructure(Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(copy));
+		assertEquals(HalfEdgeUtils.getGenus(hds), HalfEdgeUtils.getGenus(copy));
+		mesh.close();
+		try {
+			mesh.addVertices(1);
+			fail("modified a closed mesh");
+		} catch (IllegalStateException e) {}
+	}
+	
+	@Test
+	public void testEdits() throws Exception {
+		MappedMesh mesh = MappedMesh.create(directory, 10);
+		int v0 = mesh.addVertices(3);
+		int e0 = mesh.addEdges(6);
+		int f = mesh.addFaces(1);
+		for (int i = 0; i < 3; i++) {
+			int inner = e0 + i, outer = e0 + 3 + i;
+			mesh.linkOppositeEdge(inner, outer);
+			mesh.linkNextEdge(inner, e0 + (i + 1) % 3);
+			mesh.linkNextEdge(e0 + 3 + (i + 1) % 3, outer);
+			mesh.setTargetVertex(inner, v0 + i);
+			mesh.setTargetVertex(outer, v0 + (i + 2) % 3);
+			mesh.setLeftFace(inner, f);
+		}
+		assertTrue(HalfEdgeUtils.isValidSurface(mesh, true));
+		assertEquals(e0, mesh.getBoundaryEdge(f));
+		assertEquals(e0, mesh.getIncomingEdge(v0));
+		assertTrue(mesh.isPositive(3) != mesh.isPositive(0));
+		mesh.linkNextEdge(0, 2);
+		assertEquals(-1, mesh.getPreviousEdge(1));
+		assertEquals(-1, mesh.getNextEdge(1));
+		assertEquals(0, mesh.getPreviousEdge(2));
+		try {
+			mesh.setTargetVertex(0, 3);
+			fail("linked a vertex that does not exist");
+		} catch (IndexOutOfBoundsException e) {}
+		mesh.close();
+	}
+	
+	@Test
+	public void testReorder() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.loop(hds, Fixtures.create());
+		hds = Subdivision.loop(hds, Fixtures.create());
+		hds.removeFace(hds.getFace(5));
+		java.util.Random rnd = new java.util.Random(1);
+		int[][] orders = new int[3][];
+		int[] sizes = {hds.numVertices(), hds.numEdges(), hds.numFaces()};
+		for (int k = 0; k < 3; k++) {
+			orders[k] = new int[sizes[k]];
+			for (int i = 0; i < sizes[k]; i++) orders[k][i] = i;
+			for (int i = sizes[k] - 1; i > 0; i--) {
+				int j = rnd.nextInt(i + 1), t = orders[k][i];
+				orders[k][i] = orders[k][j];
+				orders[k][j] = t;
+			}
+		}
+		hds.permute(orders[0], orders[1], orders[2]);
+		MappedMesh mesh = MappedMesh.copyOf(hds, new File(directory, "shuffled"), 10);
+		MappedMesh reordered = mesh.reorder(new File(directory, "reordered"));
+		// same order as the in-memory reordering
+		Reordering.breadthFirst(hds);
+		Fixtures.assertSameLinks(HalfEdgeViews.of(hds), reordered);
+		assertEquals(0, new File(directory, "reordered").listFiles(new java.io.FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(".tmp");
+			}
+		}).length);
+		mesh.close();
+		reordered.close();
+	}
+		@Test
+	public void testPagerKeepsChunkInUse() throws Exception {
+		directory.mkdirs();
+		MappedIntColumn.Pager pager = new MappedIntColumn.Pager(2);
+		MappedIntColumn a = new MappedIntColumn(new File(directory, "a.col"), 4, pager);
+		MappedIntColumn b = new MappedIntColumn(new File(directory, "b.col"), 4, pager);
+		a.set(0, 1);
+		b.set(0, 2);
+		// the last chunk of a column is reused without a lookup in the pager
+		a.set(1, 3);
+		b.set(16, 4);
+		assertEquals(3, pager.getNumLoads());
+		assertEquals(2, pager.getNumResident());
+		// the first chunk of b is evicted, not the one of a that was used since
+		assertEquals(3, a.get(1));
+		assertEquals(3, pager.getNumLoads());
+		assertEquals(2, b.get(0));
+		assertEquals(4, pager.getNumLoads());
+		a.close(true);
+		b.close(true);
+	}
+	
+}
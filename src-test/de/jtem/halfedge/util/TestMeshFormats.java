@@ -0,0 +1,262 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+import de.jtem.halfedge.util.BinaryMesh.Kind;
+
+public class TestMeshFormats extends TestCase {
+
+	private static ReadableByteChannel channel(String s) {
+		return Channels.newChannel(new ByteArrayInputStream(s.getBytes()));
+	}
+	
+	private static void assertSameFaces(HalfEdgeDataStructure<?,?,?> expected, HalfEdgeDataStructure<?,?,?> actual) {
+		assertEquals(expected.numVertices(), actual.numVertices());
+		assertEquals(expected.numEdges(), actual.numEdges());
+		assertEquals(expected.numFaces(), actual.numFaces());
+		for (int i = 0; i < expected.numFaces(); i++) {
+			Edge<?,?,?> e = expected.getFace(i).getBoundaryEdge();
+			Edge<?,?,?> a = actual.getFace(i).getBoundaryEdge();
+			do {
+				assertEquals(e.getTargetVertex().getIndex(), a.getTargetVertex().getIndex());
+				e = e.getNextEdge();
+				a = a.getNextEdge();
+			} while (e != expected.getFace(i).getBoundaryEdge());
+			assertSame(a, actual.getFace(i).getBoundaryEdge());
+		}
+	}
+	
+	@Test
+	public void testRoundTrip() throws Exception {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.catmullClark(hds, Fixtures.create());
+		hds.removeFace(hds.getFace(11));
+		Random rnd = new Random(0);
+		double[] positions = new double[3 * hds.numVertices()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = rnd.nextGaussian() * Math.pow(10, rnd.nextInt(10) - 5);
+		}
+		for (int format = 0; format < 4; format++) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			switch (format) {
+			case 0: MeshFormats.writeObj(hds, positions, Channels.newChannel(out)); break;
+			case 1: MeshFormats.writeOff(hds, positions, Channels.newChannel(out)); break;
+			default: MeshFormats.writePly(hds, positions, Channels.newChannel(out), format == 3);
+			}
+			ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(out.toByteArray()));
+			FaceListBuilder builder = new FaceListBuilder();
+			ColumnCollector columns = new ColumnCollector();
+			switch (format) {
+			case 0: MeshFormats.readObj(in, builder, columns); break;
+			case 1: MeshFormats.readOff(in, builder, columns); break;
+			default: MeshFormats.readPly(in, builder, columns);
+			}
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> copy = builder.build(Fixtures.create());
+			assertTrue(HalfEdgeUtils.isValidSurface(copy));
+			assertSameFaces(hds, copy);
+			double[] read = columns.getValues(Kind.VERTEX, "position", copy.numVertices());
+			for (int i = 0; i < positions.length; i++) {
+				assertEquals(positions[i], read[i]);
+			}
+		}
+	}
+	
+	@Test
+	public void testObj() throws Exception {
+		String obj = 
+			"# a quad and a triangle\n" +
+			"mtllib none.mtl\n" +
+			"v 0 0 0\n" +
+			"v 1 0 0 0.5 0.5 0.5\n" +
+			"\n" +
+			"  v 1 1 0\n" +
+			"v 0 1 0\r\n" +
+			"v 2 0 0\n" +
+			"vt 0.25 0.75\n" +
+			"vt 1e-1 -2.5E+1\n" +
+			"vn 0 0 1\n" +
+			"usemtl x\n" +
+			"f 1/1/1 2/2/1 3//1 4 # comment\n" +
+			"f -4/-1 -1/-2 -3/1\n";
+		FaceListBuilder builder = new FaceListBuilder();
+		ColumnCollector columns = new ColumnCollector();
+		MeshFormats.readObj(channel(obj), builder, columns);
+		assertEquals(5, builder.numVertices());
+		assertEquals(2, builder.numFaces());
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = builder.build(Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(hds));
+		assertEquals(7 + 5, hds.numEdges());
+		assertEquals(1.0, columns.getValues(Kind.VERTEX, "position", 5)[6]);
+		double[] colors = columns.getValues(Kind.VERTEX, "color", 5);
+		assertEquals(0.5, colors[3]);
+		assertTrue(Double.isNaN(colors[0]));
+		double[] uv = columns.getValues(Kind.EDGE, "uv", hds.numEdges());
+		// edge 1 of the quad ends at vertex 2 with texture coordinate 2
+		assertEquals(2, hds.getEdge(1).getTargetVertex().getIndex() + 1);
+		assertEquals(0.1, uv[2]);
+		assertEquals(-25.0, uv[3]);
+		// edge 4 is the first edge of the triangle, ending at vertex 2 with texture coordinate 2
+		assertEquals(1, hds.getEdge(4).getTargetVertex().getIndex());
+		assertEquals(0.1, uv[8]);
+		assertTrue(Double.isNaN(uv[6]));
+		assertEquals(1.0, columns.getValues(Kind.EDGE, "normal", hds.numEdges())[5]);
+		try {
+			MeshFormats.readObj(channel("v 0 0 0\nf 1 2 3\n"), new FaceListBuilder(), null);
+			fail("read a face with undefined vertices");
+		} catch (IOException e) {}
+	}
+	
+	@Test
+	public void testOffAndPly() throws Exception {
+		String off = 
+			"COFF\n" +
+			"# comment\n" +
+			"4 2 5\n" +
+			"0 0 0 1 0 0 1\n" +
+			"1 0 0 0 1 0 1\n" +
+			"0 1 0\n" +
+			"1 1 0 0 0 1 1\n" +
+			"3 0 1 2 0.5 0.5 0.5\n" +
+			"3 2 1 3\n";
+		FaceListBuilder builder = new FaceListBuilder();
+		ColumnCollector columns = new ColumnCollector();
+		MeshFormats.readOff(channel(off), builder, columns);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = builder.build(Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(hds));
+		assertEquals(10, hds.numEdges());
+		assertEquals(4, columns.getColumns(4, 10, 2).get(1).getDimension());
+		assertEquals(0.5, columns.getValues(Kind.FACE, "color", 2)[2]);
+		assertTrue(Double.isNaN(columns.getValues(Kind.FACE, "color", 2)[3]));
+		String ply = 
+			"ply\n" +
+			"format ascii 1.0\n" +
+			"comment two triangles\n" +
+			"element vertex 4\n" +
+			"property float x\n" +
+			"property float y\n" +
+			"property float z\n" +
+			"property uchar red\n" +
+			"property uchar green\n" +
+			"property uchar blue\n" +
+			"property float quality\n" +
+			"element face 2\n" +
+			"property list uchar int vertex_indices\n" +
+			"property int flags\n" +
+			"element edge 1\n" +
+			"property int vertex1\n" +
+			"property int vertex2\n" +
+			"end_header\n" +
+			"0 0 0 255 0 0 0.5\n" +
+			"1 0 0 0 255 0 0.5\n" +
+			"0 1 0 0 0 255 0.5\n" +
+			"1 1 0 0 0 0 0.25\n" +
+			"3 0 1 2 7\n" +
+			"3 2 1 3 8\n" +
+			"1 2\n";
+		builder.clear();
+		columns = new ColumnCollector();
+		MeshFormats.readPly(channel(ply), builder, columns);
+		assertEquals(2, builder.numFaces());
+		assertEquals(4, builder.numVertices());
+		assertEquals(255.0, columns.getValues(Kind.VERTEX, "color", 4)[8]);
+		assertEquals(0.25, columns.getValues(Kind.VERTEX, "quality", 4)[3]);
+		assertEquals(8.0, columns.getValues(Kind.FACE, "flags", 2)[1]);
+		try {
+			MeshFormats.readPly(channel("ply\nformat binary_big_endian 1.0\nend_header\n"), builder, null);
+			fail("read big-endian PLY");
+		} catch (IOException e) {}
+	}
+	
+	@Test
+	public void testFaceListBuilder() throws Exception {
+		FaceListBuilder builder = new FaceListBuilder();
+		builder.addFace(0, 1, 2);
+		builder.ensureVertices(5);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = builder.build(Fixtures.create());
+		assertEquals(5, hds.numVertices());
+		assertEquals(6, hds.numEdges());
+		for (Edge.Naked e : hds.getEdges()) {
+			assertTrue(e.getIndex() < 3 ? e.getLeftFace() != null : e.getLeftFace() == null);
+			assertEquals(e.getIndex() < 3, e.getOppositeEdge().getIndex() >= 3);
+		}
+		// two faces around a vertex that touch only at that vertex
+		builder.clear();
+		builder.addFace(0, 1, 2);
+		builder.addFace(0, 3, 4);
+		hds = builder.build(Fixtures.create());
+		assertEquals(12, hds.numEdges());
+		for (Edge.Naked e : hds.getEdges()) {
+			assertSame(e, e.getNextEdge().getPreviousEdge());
+			assertSame(e.getTargetVertex(), e.getNextEdge().getOppositeEdge().getTargetVertex());
+		}
+		builder.clear();
+		builder.addFace(0, 1, 2);
+		builder.addFace(0, 1, 3);
+		try {
+			builder.build(Fixtures.create());
+			fail("built a surface with inconsistent orientation");
+		} catch (IllegalArgumentException e) {}
+		builder.clear();
+		builder.addFace(0, 1, 2);
+		builder.addFace(1, 0, 3);
+		builder.addFace(1, 0, 4);
+		try {
+			builder.build(Fixtures.create());
+			fail("built a surface with three faces at one edge");
+		} catch (IllegalArgumentException e) {}
+		try {
+			builder.addFace(0, 1);
+			fail("added a face with two vertices");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+}
@@ -0,0 +1,160 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestMeshGenerators extends TestCase {
+
+	private static void assertValid(HalfEdgeDataStructure<?,?,?> hds) {
+		assertTrue(HalfEdgeUtils.isValidSurface(hds, true));
+		assertTrue(HalfEdgeUtils.isValidSurface(HalfEdgeViews.of(hds), true));
+	}
+	
+	@Test
+	public void testGrid() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addTetrahedron(hds);
+		MeshGenerators.grid(hds, 3, 5);
+		assertEquals(4 + 4 * 6, hds.numVertices());
+		assertEquals(12 + 4 * 15 + 2 * 8, hds.numEdges());
+		assertEquals(4 + 15, hds.numFaces());
+		assertValid(hds);
+		assertEquals(1, HalfEdgeUtils.boundaryComponents(hds).size());
+		// quad (i, j) has the corners (i, j), (i, j + 1), (i + 1, j + 1), (i + 1, j)
+		Face.Naked f = hds.getFace(4 + 1 * 5 + 2);
+		List<Vertex.Naked> corners = HalfEdgeUtils.boundaryVertices(f);
+		int first = corners.indexOf(hds.getVertex(4 + 1 * 6 + 2));
+		int[] expected = {4 + 1 * 6 + 2, 4 + 1 * 6 + 3, 4 + 2 * 6 + 3, 4 + 2 * 6 + 2};
+		for (int k = 0; k < 4; k++) {
+			assertEquals(expected[k], corners.get((first + k) % 4).getIndex());
+		}
+		
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> strip = MeshGenerators.grid(Fixtures.create(), 1, 1);
+		assertValid(strip);
+		assertEquals(8, strip.numEdges());
+		try {
+			MeshGenerators.grid(Fixtures.create(), 0, 1);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	@Test
+	public void testTorus() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.torus(Fixtures.create(), 3, 4);
+		assertEquals(12, hds.numVertices());
+		assertEquals(48, hds.numEdges());
+		assertValid(hds);
+		assertEquals(1, HalfEdgeUtils.getGenus(hds));
+		for (Vertex.Naked v : hds.getVertices()) {
+			assertEquals(4, HalfEdgeUtils.incomingEdges(v).size());
+		}
+		try {
+			MeshGenerators.torus(Fixtures.create(), 2, 4);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	@Test
+	public void testGenusSurface() {
+		for (int g = 0; g <= 4; g++) {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.genusSurface(Fixtures.create(), g, 5, 3 * g + 2);
+			assertValid(hds);
+			assertEquals(g, HalfEdgeUtils.getGenus(hds));
+			assertTrue(HalfEdgeUtils.boundaryEdges(hds).isEmpty());
+		}
+		try {
+			MeshGenerators.genusSurface(Fixtures.create(), 2, 5, 7);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	@Test
+	public void testGeodesicSphere() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.geodesicSphere(Fixtures.create(), 3);
+		assertEquals(20 * 64 + 20, MeshGenerators.geodesicSphere(HalfEdgeUtils.addIcosahedron(Fixtures.create()).getHalfEdgeDataStructure(), 3).numFaces());
+		assertEquals(20, MeshGenerators.geodesicSphere(Fixtures.create(), 0).numFaces());
+		assertEquals(10 * 64 + 2, hds.numVertices());
+		assertEquals(20 * 64, hds.numFaces());
+		assertValid(hds);
+		assertEquals(0, HalfEdgeUtils.getGenus(hds));
+		int degree5 = 0;
+		for (Vertex.Naked v : hds.getVertices()) {
+			int d = HalfEdgeUtils.incomingEdges(v).size();
+			assertTrue(d == 5 || d == 6);
+			if (d == 5) degree5++;
+		}
+		assertEquals(12, degree5);
+	}
+	
+	@Test
+	public void testRandomTriangulation() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.randomTriangulation(Fixtures.create(), 1000, 42);
+		assertEquals(1000, hds.numVertices());
+		assertEquals(6 * 1000 - 12, hds.numEdges());
+		assertEquals(2 * 1000 - 4, hds.numFaces());
+		assertValid(hds);
+		assertEquals(0, HalfEdgeUtils.getGenus(hds));
+		for (Edge.Naked e : hds.getEdges()) {
+			assertNotNull(e.getLeftFace());
+			assertEquals(3, HalfEdgeUtils.boundaryEdges(e.getLeftFace()).size());
+			assertSame(e, HalfEdgeUtils.findEdgeBetweenVertices(e.getStartVertex(), e.getTargetVertex()));
+		}
+		for (Vertex.Naked v : hds.getVertices()) {
+			assertSame(v, v.getIncomingEdge().getTargetVertex());
+		}
+		// deterministic for a seed
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> same = MeshGenerators.randomTriangulation(Fixtures.create(), 1000, 42);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> other = MeshGenerators.randomTriangulation(Fixtures.create(), 1000, 43);
+		boolean differs = false;
+		for (int i = 0; i < hds.numEdges(); i++) {
+			assertEquals(hds.getEdge(i).getNextEdge().getIndex(), same.getEdge(i).getNextEdge().getIndex());
+			assertEquals(hds.getEdge(i).getTargetVertex().getIndex(), same.getEdge(i).getTargetVertex().getIndex());
+			differs |= hds.getEdge(i).getTargetVertex().getIndex() != other.getEdge(i).getTargetVertex().getIndex();
+		}
+		assertTrue(differs);
+		assertValid(MeshGenerators.randomTriangulation(Fixtures.create(), 4, 0));
+	}
+	
+}
@@ -0,0 +1,140 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataEdge;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataFace;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataVertex;
+
+public class TestPartition extends TestCase {
+
+	private static HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> create() {
+		return new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class);
+	}
+	
+	@Test
+	public void testPartition() throws Exception {
+		HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> hds = create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		for (int i = 0; i < 3; i++) {
+			hds = Subdivision.loop(hds, create());
+		}
+		final Partition<DataVertex, DataEdge, DataFace> partition = Partition.create(hds, 5);
+		assertEquals(5, partition.getNumPatches());
+		int[] owned = new int[hds.numFaces()];
+		for (int p = 0; p < 5; p++) {
+			HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> patch = partition.getPatch(p);
+			Submesh map = partition.getLocalToGlobal(p);
+			int numOwned = 0, numHalo = 0;
+			for (DataFace f : patch.getFaces()) {
+				int global = map.getFaceMap()[f.getIndex()];
+				assertEquals(f.getIndex(), partition.getLocalFace(p, global));
+				if (partition.isHaloFace(p, f.getIndex())) {
+					numHalo++;
+					continue;
+				}
+				numOwned++;
+				owned[global]++;
+				// the one-ring of every vertex of an owned face is in the patch
+				for (DataVertex v : HalfEdgeUtils.boundaryVertices(hds.getFace(global))) {
+					for (DataFace g : HalfEdgeUtils.facesIncidentWithVertex(v)) {
+						assertTrue(partition.getLocalFace(p, g.getIndex()) >= 0);
+					}
+				}
+			}
+			assertEquals(1280 / 5, numOwned);
+			assertTrue(numHalo > 0);
+			assertEquals(-1, partition.getLocalVertex(p, Integer.MAX_VALUE));
+		}
+		for (int i = 0; i < owned.length; i++) {
+			assertEquals(1, owned[i]);
+		}
+		// process the patches in parallel, write the results back
+		Thread[] threads = new Thread[5];
+		for (int p = 0; p < 5; p++) {
+			final int patch = p;
+			threads[p] = new Thread() {
+				@Override
+				public void run() {
+					Submesh map = partition.getLocalToGlobal(patch);
+					for (DataVertex v : partition.getPatch(patch).getVertices()) {
+						v.data = map.getVertexMap()[v.getIndex()] + (partition.isHaloVertex(patch, v.getIndex()) ? -1000000 : 1000000);
+					}
+					for (DataFace f : partition.getPatch(patch).getFaces()) {
+						f.data = patch;
+					}
+				}
+			};
+			threads[p].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		partition.merge();
+		for (DataVertex v : hds.getVertices()) {
+			assertEquals(v.getIndex() + 1000000, v.data);
+		}
+		for (DataFace f : hds.getFaces()) {
+			assertEquals(partition.getFacePatches()[f.getIndex()], f.data);
+		}
+		// edits that keep the numbers of nodes are detected
+		Partition<DataVertex, DataEdge, DataFace> flipped = Partition.create(hds, 2);
+		for (DataEdge e : flipped.getPatch(1).getEdges()) {
+			if (e.getLeftFace() != null && e.getRightFace() != null) {
+				EulerOps.flipEdge(e);
+				break;
+			}
+		}
+		try {
+			flipped.merge();
+			fail("merged a modified patch");
+		} catch (RuntimeException ex) {}
+		flipped = Partition.create(hds, 2);
+		EulerOps.flipEdge(hds.getEdge(hds.numEdges() / 2));
+		try {
+			flipped.merge();
+			fail("merged into a modified parent");
+		} catch (RuntimeException ex) {}
+		try {
+			Partition.create(hds, 0);
+			fail("no patches");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+}
@@ -0,0 +1,181 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestQueryCache extends TestCase {
+
+	private static class CountingQuery implements QueryCache.Query<int[]> {
+		
+		int
+			computed = 0;
+		final long
+			bytes;
+		
+		CountingQuery(long bytes) {
+			this.bytes = bytes;
+		}
+		@Override
+		public int[] compute(HalfEdgeDataStructure<?,?,?> hds) {
+			computed++;
+			return new int[] {hds.numVertices()};
+		}
+		@Override
+		public long estimateBytes(int[] value) {
+			return bytes;
+		}
+		
+	}
+	
+	@Test
+	public void testStandardQueries() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.genusSurface(Fixtures.create(), 2, 6, 8);
+		MeshGenerators.grid(hds, 3, 3);
+		QueryCache cache = new QueryCache(hds);
+		assertEquals(1, cache.get(QueryCache.BOUNDARY_LOOPS).size());
+		assertEquals(HalfEdgeUtils.getGenus(hds), (int)cache.get(QueryCache.GENUS));
+		int[] valences = cache.get(QueryCache.VALENCES);
+		for (Vertex.Naked v : hds.getVertices()) {
+			assertEquals(HalfEdgeUtils.incomingEdges(v).size(), valences[v.getIndex()]);
+		}
+		QueryCache.Adjacency adjacency = cache.get(QueryCache.VERTEX_ADJACENCY);
+		assertEquals(hds.numVertices(), adjacency.size());
+		assertEquals(valences[0], adjacency.getDegree(0));
+		// the traversals do not share their search state
+		Traversal t1 = adjacency.traversal(), t2 = adjacency.traversal();
+		t1.bfs(0);
+		t2.bfs(1);
+		assertEquals(0, t1.getDistances()[0]);
+		assertEquals(1, t2.getDistances()[0]);
+		assertEquals(2, cache.get(QueryCache.COMPONENTS).getNumComponents());
+		assertEquals(CanonicalForm.of(hds), cache.get(QueryCache.CANONICAL_FORM));
+		assertEquals(6, cache.size());
+		assertEquals(6, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertTrue(cache.getBytes() > 4 * hds.numVertices());
+		
+		assertSame(valences, cache.get(QueryCache.VALENCES));
+		assertEquals(1, cache.getHitCount());
+	}
+	
+	@Test
+	public void testInvalidation() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.torus(Fixtures.create(), 3, 4);
+		QueryCache cache = new QueryCache(hds);
+		CountingQuery q = new CountingQuery(100);
+		int[] v = cache.get(q);
+		assertSame(v, cache.get(q));
+		assertTrue(cache.contains(q));
+		assertEquals(1, q.computed);
+		assertEquals(1, cache.get(QueryCache.GENUS).intValue());
+		
+		// reading data does not invalidate
+		HalfEdgeUtils.boundaryVertices(hds.getFace(0));
+		hds.getVertex(0).getIncomingEdge();
+		assertSame(v, cache.get(q));
+		
+		hds.addNewVertex();
+		assertFalse(cache.contains(q));
+		int[] w = cache.get(q);
+		assertEquals(2, q.computed);
+		assertEquals(v[0] + 1, w[0]);
+		assertEquals(2, cache.getInvalidationCount());
+		assertEquals(1, cache.size());
+		
+		Edge.Naked e = hds.getEdge(0);
+		e.linkNextEdge(null);
+		cache.get(q);
+		assertEquals(3, q.computed);
+		
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getBytes());
+		cache.get(q);
+		assertEquals(4, q.computed);
+		assertEquals(5, cache.getMissCount());
+		assertEquals(2, cache.getHitCount());
+		cache.resetStatistics();
+		assertEquals(0, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+	}
+	
+	@Test
+	public void testEviction() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = MeshGenerators.grid(Fixtures.create(), 2, 2);
+		QueryCache cache = new QueryCache(hds, 250);
+		CountingQuery a = new CountingQuery(100), b = new CountingQuery(100), c = new CountingQuery(100);
+		cache.get(a);
+		cache.get(b);
+		cache.get(a);
+		cache.get(c);
+		// b was least recently used
+		assertEquals(2, cache.size());
+		assertEquals(200, cache.getBytes());
+		assertEquals(1, cache.getEvictionCount());
+		assertTrue(cache.contains(a));
+		assertFalse(cache.contains(b));
+		assertTrue(cache.contains(c));
+		
+		// too large values are returned but not cached
+		CountingQuery huge = new CountingQuery(1000);
+		assertNotNull(cache.get(huge));
+		assertFalse(cache.contains(huge));
+		assertEquals(2, cache.size());
+		assertEquals(200, cache.getBytes());
+		assertEquals(1, cache.getEvictionCount());
+		assertTrue(cache.contains(a));
+		assertTrue(cache.contains(c));
+		
+		cache.get(a);
+		cache.get(b);
+		cache.setMaxBytes(100);
+		assertEquals(1, cache.size());
+		assertTrue(cache.contains(b));
+		try {
+			cache.setMaxBytes(-1);
+			fail();
+		} catch (IllegalArgumentException e) {}
+	}
+	
+}
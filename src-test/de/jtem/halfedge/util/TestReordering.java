@@ -0,0 +1,126 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataEdge;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataFace;
+import de.jtem.halfedge.util.TestHalfedgeUtils.DataVertex;
+
+public class TestReordering extends TestCase {
+
+	private static HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> create() {
+		HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> hds = 
+			new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class);
+		HalfEdgeUtils.addIcosahedron(hds);
+		hds = Subdivision.loop(hds, new HalfEdgeDataStructure<DataVertex, DataEdge, DataFace>(DataVertex.class, DataEdge.class, DataFace.class));
+		// open a hole
+		hds.removeFace(hds.getFace(7));
+		for (DataVertex v : hds.getVertices()) v.data = v.getIndex();
+		for (DataEdge e : hds.getEdges()) e.data = e.getIndex();
+		for (DataFace f : hds.getFaces()) f.data = f.getIndex();
+		return hds;
+	}
+	
+	@Test
+	public void testPermute() throws Exception {
+		HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> hds = create();
+		Random rnd = new Random(1);
+		List<DataEdge> edges = new ArrayList<DataEdge>(hds.getEdges());
+		int[] edgeOrder = Fixtures.shuffled(hds.numEdges(), rnd);
+		hds.permute(Fixtures.shuffled(hds.numVertices(), rnd), edgeOrder, null);
+		for (int i = 0; i < edgeOrder.length; i++) {
+			assertSame(edges.get(edgeOrder[i]), hds.getEdge(i));
+			assertEquals(i, hds.getEdge(i).getIndex());
+		}
+		for (DataFace f : hds.getFaces()) {
+			assertEquals(f.data, f.getIndex());
+		}
+		assertTrue(HalfEdgeUtils.isValidSurface(hds));
+		try {
+			hds.permute(new int[] {0, 0}, null, null);
+			fail("permute accepted an invalid permutation");
+		} catch (IllegalArgumentException e) {}
+	}
+	
+	@Test
+	public void testReorder() throws Exception {
+		for (int method = 0; method < 2; method++) {
+			HalfEdgeDataStructure<DataVertex, DataEdge, DataFace> hds = create();
+			Random rnd = new Random(method);
+			hds.permute(Fixtures.shuffled(hds.numVertices(), rnd), Fixtures.shuffled(hds.numEdges(), rnd), Fixtures.shuffled(hds.numFaces(), rnd));
+			int[] vData = new int[hds.numVertices()];
+			for (DataVertex v : hds.getVertices()) vData[v.getIndex()] = v.data;
+			int genus = HalfEdgeUtils.getGenus(hds);
+			Reordering r = method == 0 ? Reordering.breadthFirst(hds) : Reordering.reverseCuthillMcKee(hds);
+			assertTrue(HalfEdgeUtils.isValidSurface(hds));
+			assertEquals(genus, HalfEdgeUtils.getGenus(hds));
+			// the orders remap external attributes
+			int[] inverse = r.getInverseVertexOrder();
+			for (DataVertex v : hds.getVertices()) {
+				assertEquals(v.data, vData[r.getVertexOrder()[v.getIndex()]]);
+				assertEquals(v.getIndex(), inverse[r.getVertexOrder()[v.getIndex()]]);
+			}
+			// the interior edges of a face are contiguous and in face order
+			int e = 0;
+			for (DataFace f : hds.getFaces()) {
+				List<DataEdge> boundary = HalfEdgeUtils.boundaryEdges(f);
+				for (DataEdge be : boundary) {
+					assertEquals(e++, be.getIndex());
+				}
+				for (DataEdge be : boundary) {
+					if (be.getRightFace() == null) e++;
+				}
+			}
+			assertEquals(hds.numEdges(), e);
+			// vertices in first touch order
+			int v = 0;
+			for (DataEdge ee : hds.getEdges()) {
+				if (ee.getTargetVertex().getIndex() == v) v++;
+				assertTrue(ee.getTargetVertex().getIndex() < v);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,159 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.Fixtures;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestSubdivision extends TestCase {
+
+	private static int euler(HalfEdgeDataStructure<?,?,?> hds) {
+		return hds.numVertices() - hds.numEdges() / 2 + hds.numFaces();
+	}
+	
+	@Test
+	public void testCatmullClark() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> cube = Fixtures.create();
+		HalfEdgeUtils.addCube(cube);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> r = Subdivision.catmullClark(cube, Fixtures.create());
+		assertEquals(8 + 12 + 6, r.numVertices());
+		assertEquals(96, r.numEdges());
+		assertEquals(24, r.numFaces());
+		assertTrue(HalfEdgeUtils.isValidSurface(r, true));
+		for (Face.Naked f : r.getFaces()) {
+			assertEquals(4, HalfEdgeUtils.boundaryEdges(f).size());
+		}
+		// boundary
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> pentagon = Fixtures.create();
+		HalfEdgeUtils.addNGon(pentagon, 5);
+		r = Subdivision.catmullClark(pentagon, Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(r, true));
+		assertEquals(11, r.numVertices());
+		assertEquals(5, r.numFaces());
+		assertEquals(10, HalfEdgeUtils.boundaryEdges(r).size());
+		assertEquals(1, euler(r));
+	}
+	
+	@Test
+	public void testLoop() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		// the last rounds are large enough to run in parallel
+		for (int i = 0; i < 6; i++) {
+			int v = hds.numVertices(), e = hds.numEdges(), f = hds.numFaces();
+			hds = Subdivision.loop(hds, Fixtures.create());
+			assertEquals(v + e / 2, hds.numVertices());
+			assertEquals(4 * e, hds.numEdges());
+			assertEquals(4 * f, hds.numFaces());
+		}
+		assertTrue(HalfEdgeUtils.isValidSurface(hds, true));
+		assertEquals(2, euler(hds));
+		try {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> cube = Fixtures.create();
+			HalfEdgeUtils.addCube(cube);
+			Subdivision.loop(cube, Fixtures.create());
+			fail("subdivided a quad mesh");
+		} catch (RuntimeException e) {}
+		try {
+			Subdivision.loop(hds, hds);
+			fail("target was not empty");
+		} catch (RuntimeException e) {}
+	}
+	
+	@Test
+	public void testSqrt3() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addOctahedron(hds);
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> r = Subdivision.sqrt3(hds, Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(r, true));
+		assertEquals(6 + 8, r.numVertices());
+		assertEquals(24, r.numFaces());
+		// every old edge is flipped, so old vertices are not adjacent anymore
+		for (Vertex.Naked v : r.getVertices()) {
+			int valence = HalfEdgeUtils.incomingEdges(v).size();
+			assertEquals(v.getIndex() < 6 ? 4 : 6, valence);
+		}
+		// two rounds on a mesh with boundary
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> square = Fixtures.create();
+		HalfEdgeUtils.addNGon(square, 4);
+		r = Subdivision.sqrt3(Subdivision.sqrt3(square, Fixtures.create()), Fixtures.create());
+		assertTrue(HalfEdgeUtils.isValidSurface(r, true));
+		assertEquals(4, HalfEdgeUtils.boundaryEdges(r).size());
+		assertEquals(1, euler(r));
+	}
+	
+	@Test
+	public void testStencils() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> hds = Fixtures.create();
+		HalfEdgeUtils.addIcosahedron(hds);
+		double[] data = new double[2 * hds.numVertices()];
+		for (int i = 0; i < data.length; i += 2) {
+			data[i] = 1.0;
+			data[i + 1] = i;
+		}
+		double[][] results = {
+			Subdivision.catmullClark(hds, data, 2),
+			Subdivision.loop(hds, data, 2),
+			Subdivision.sqrt3(hds, data, 2)
+		};
+		assertEquals(2 * (12 + 30 + 20), results[0].length);
+		assertEquals(2 * (12 + 30), results[1].length);
+		assertEquals(2 * (12 + 20), results[2].length);
+		for (double[] r : results) {
+			// affine combinations preserve constants
+			for (int i = 0; i < r.length; i += 2) {
+				assertEquals(1.0, r[i], 1E-12);
+			}
+		}
+		// the face point of face 0 is its centroid
+		double c = 0;
+		for (Edge.Naked e : HalfEdgeUtils.boundaryEdges(hds.getFace(0))) {
+			c += data[2 * e.getTargetVertex().getIndex() + 1] / 3;
+		}
+		assertEquals(c, results[2][2 * 12 + 1], 1E-12);
+		assertEquals(c, results[0][2 * (12 + 30) + 1], 1E-12);
+		try {
+			Subdivision.loop(hds, new double[5], 2);
+			fail("wrong column size");
+		} catch (RuntimeException e) {}
+	}
+	
+}
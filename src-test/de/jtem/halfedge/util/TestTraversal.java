@@ -0,0 +1,141 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+public class TestTraversal extends TestCase {
+
+	@Test
+	public void testVertexDistances() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addIcosahedron(heds);
+		Traversal t = Traversal.vertices(heds);
+		assertEquals(12, t.bfs(0));
+		int[] d = t.getDistances();
+		int[] expected = {0, 1, 1, 1, 1, 1, 2, 2, 2, 2, 2, 3};
+		for (int i = 0; i < 12; i++) {
+			assertEquals(expected[i], d[i]);
+			assertEquals(5, t.getDegree(i));
+		}
+		int[] p = t.getParents();
+		assertEquals(-1, p[0]);
+		for (int i = 1; i < 12; i++) {
+			assertEquals(d[i] - 1, d[p[i]]);
+			assertNotNull(HalfEdgeUtils.findEdgeBetweenVertices(heds.getVertex(p[i]), heds.getVertex(i)));
+		}
+		// 1-ring
+		assertEquals(6, t.bfs(new int[] {0}, 1, null, null));
+		assertEquals(-1, t.getDistances()[11]);
+		// multiple seeds
+		assertEquals(12, t.bfs(0, 11));
+		for (int i = 0; i < 12; i++) {
+			assertTrue(t.getDistances()[i] <= 1);
+		}
+	}
+	
+	@Test
+	public void testFilters() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addCube(heds);
+		Traversal t = Traversal.faces(heds);
+		assertEquals(6, t.bfs(0));
+		assertEquals(2, t.getDistances()[5]);
+		Traversal.Filter notFive = new Traversal.Filter() {
+			@Override
+			public boolean accept(int node, int distance) {
+				return node != 5;
+			}
+		};
+		assertEquals(5, t.bfs(new int[] {0}, Integer.MAX_VALUE, notFive, null));
+		assertEquals(-1, t.getDistances()[5]);
+		Traversal.Filter atFour = new Traversal.Filter() {
+			@Override
+			public boolean accept(int node, int distance) {
+				return node == 4;
+			}
+		};
+		t.dfs(new int[] {0}, null, atFour);
+		assertTrue(t.isStopped());
+		assertEquals(4, t.getOrder()[t.getNumVisited() - 1]);
+		assertEquals(6, t.dfs(0));
+		assertFalse(t.isStopped());
+		for (int i = 1; i < 6; i++) {
+			assertEquals(t.getDistances()[t.getParents()[i]] + 1, t.getDistances()[i]);
+		}
+	}
+	
+	@Test
+	public void testEdges() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		HalfEdgeUtils.addNGon(heds, 6);
+		HalfEdgeUtils.addNGon(heds, 4);
+		Traversal t = Traversal.edges(heds);
+		assertEquals(12, t.bfs(0));
+		assertEquals(1, t.getDistances()[heds.getEdge(0).getOppositeEdge().getIndex()]);
+		assertEquals(-1, t.getDistances()[12]);
+		assertEquals(20, t.dfs(0, 12));
+	}
+	
+	@Test
+	public void testLargeFrontier() {
+		HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> 
+			heds = new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+		for (int i = 0; i < 1000; i++) {
+			HalfEdgeUtils.addIcosahedron(heds);
+		}
+		Traversal t = Traversal.edges(heds);
+		int[] seeds = new int[heds.numEdges() / 2];
+		int n = 0;
+		for (Edge.Naked e : heds.getPositiveEdges()) {
+			seeds[n++] = e.getIndex();
+		}
+		assertEquals(heds.numEdges(), t.bfs(seeds));
+		for (Edge.Naked e : heds.getEdges()) {
+			int d = t.getDistances()[e.getIndex()];
+			assertEquals(e.isPositive() ? 0 : 1, d);
+		}
+		assertEquals(heds.numEdges() / 2, t.bfs(seeds, 0, null, null));
+	}
+
+}
@@ -94,6 +94,7 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 	final public F getLeftFace() {
 		if (leftFace != null && leftFace.getHalfEdgeDataStructure() == null) {
 			// face has been removed.
+			beforeChange();
 			leftFace = null;
 		}
 		assert leftFace == null || leftFace.getHalfEdgeDataStructure() == this.getHalfEdgeDataStructure();
@@ -121,11 +122,22 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 	 */
 	final public void setLeftFace(F f) {
 		checkHalfEdgeDataStructure(f);
+		beforeChange();
+		if (hds != null && hds.journal != null) {
+			hds.journal.write(Journal.SET_LEFT_FACE, this, f);
+		}
+		if (hds != null) {
+			hds.modifyEdges(self, null, null, null);
+			hds.modifyFaces(leftFace, f);
+		}
 		this.leftFace = f;
 		if (leftFace != null) {
 			assert this == self;
 			leftFace.setBoundaryEdge(self);
 		}
+		if (hds != null) {
+			hds.afterModification();
+		}
 	}
 
 	/**
@@ -148,6 +160,13 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 		if (this.nextEdge == nextEdge) {
 			return;
 		}
+		if (hds.transaction != null) {
+			hds.transaction.save(this, this.nextEdge, nextEdge, nextEdge == null ? null : nextEdge.previousEdge);
+		}
+		hds.modifyEdges(self, this.nextEdge, nextEdge, nextEdge == null ? null : nextEdge.previousEdge);
+		if (hds.journal != null) {
+			hds.journal.write(Journal.LINK_NEXT, this, nextEdge);
+		}
 		if (this.nextEdge != null) {
 			assert this == this.nextEdge.previousEdge;
 			this.nextEdge.previousEdge = null;
@@ -160,6 +179,7 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 			nextEdge.previousEdge = self;
 		}
 		this.nextEdge = nextEdge;
+		hds.afterModification();
 	}
 	
 	/**
@@ -172,6 +192,13 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 		if (this.previousEdge == previousEdge) {
 			return;
 		}
+		if (hds.transaction != null) {
+			hds.transaction.save(this, this.previousEdge, previousEdge, previousEdge == null ? null : previousEdge.nextEdge);
+		}
+		hds.modifyEdges(self, this.previousEdge, previousEdge, previousEdge == null ? null : previousEdge.nextEdge);
+		if (hds.journal != null) {
+			hds.journal.write(Journal.LINK_PREVIOUS, this, previousEdge);
+		}
 		if (this.previousEdge != null) {
 			assert this == this.previousEdge.nextEdge;
 			this.previousEdge.nextEdge = null;
@@ -184,6 +211,7 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 			previousEdge.nextEdge = self;
 		}
 		this.previousEdge = previousEdge;
+		hds.afterModification();
 	}
 	
 	/**
@@ -210,6 +238,13 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 		if (this == oppositeEdge) {
 			throw new RuntimeException("Opposite edge cannot be this edge.");
 		}
+		if (hds.transaction != null) {
+			hds.transaction.save(this, this.oppositeEdge, oppositeEdge, oppositeEdge == null ? null : oppositeEdge.oppositeEdge);
+		}
+		hds.modifyEdges(self, this.oppositeEdge, oppositeEdge, oppositeEdge == null ? null : oppositeEdge.oppositeEdge);
+		if (hds.journal != null) {
+			hds.journal.write(Journal.LINK_OPPOSITE, this, oppositeEdge);
+		}
 		if (this.oppositeEdge != null) {
 			this.oppositeEdge.oppositeEdge = null;
 		}
@@ -222,6 +257,7 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 			oppositeEdge.isPositive = ! isPositive;
 		}
 		this.oppositeEdge = oppositeEdge;
+		hds.afterModification();
 	}
 
 	/**
@@ -241,6 +277,7 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 	final public V getTargetVertex() {
 		if (targetVertex != null && targetVertex.getHalfEdgeDataStructure() == null) {
 			// vertex has been removed
+			beforeChange();
 			targetVertex = null;
 			return targetVertex;
 		}
@@ -257,11 +294,22 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 	 */
 	final public void setTargetVertex(V v) {
 		checkHalfEdgeDataStructure(v);
+		beforeChange();
+		if (hds != null && hds.journal != null) {
+			hds.journal.write(Journal.SET_TARGET, this, v);
+		}
+		if (hds != null) {
+			hds.modifyEdges(self, null, null, null);
+			hds.modifyVertices(targetVertex, v);
+		}
 		this.targetVertex = v;
 		if (targetVertex != null) {
 			assert this == self;
 			targetVertex.setIncomingEdge(self);
 		}
+		if (hds != null) {
+			hds.afterModification();
+		}
 	}
 	
 	
@@ -293,10 +341,23 @@ abstract public class Edge <V extends Vertex<V, E, F>,
 	 * @param signature true for positive, false for negative.
 	 */	
 	final public void setIsPositive(boolean signature) {
+		beforeChange();
+		if (oppositeEdge != null) {
+			oppositeEdge.beforeChange();
+		}
+		if (hds != null && hds.journal != null) {
+			hds.journal.setIsPositive(this, signature);
+		}
+		if (hds != null) {
+			hds.modifyEdges(self, oppositeEdge, null, null);
+		}
 		this.isPositive = signature;
 		if (oppositeEdge != null) {
 			oppositeEdge.isPositive = !signature;
 		}
+		if (hds != null) {
+			hds.afterModification();
+		}
 	}
 
 	
@@ -0,0 +1,159 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+/**
+ * Hook for the flight recorder events of long-running operations and reindexing. 
+ * The flight recorder implementation in {@link de.jtem.halfedge.jfr} is loaded once, 
+ * on runtimes without <code>jdk.jfr</code> the hook does nothing and allocates nothing.
+ * Library code never refers to <code>jdk.jfr</code> types directly.
+ * <p>
+ * Typical use:<br>
+ * <br>
+ * {@code EventHook.Operation event = EventHook.beginOperation("myOperation");}<br>
+ * {@code String outcome = EventHook.FAILED;}<br>
+ * {@code try {}<br>
+ * {@code     ... operate on heds ...}<br>
+ * {@code     outcome = EventHook.OK;}<br>
+ * <code>} finally {</code><br>
+ * {@code     event.end(heds, outcome, 0);}<br>
+ * <code>}</code><br>
+ */
+public abstract class EventHook {
+
+	/** Outcomes of operations that complete normally or throw an exception */
+	public static final String
+		OK = "ok",
+		FAILED = "failed";
+	
+	private static final EventHook
+		hook = load();
+	
+	/**
+	 * A running operation.
+	 */
+	public static interface Operation {
+		
+		/**
+		 * End the operation and record it if the recording requires it.
+		 * @param hds the half-edge data structure that was operated on, its sizes are recorded
+		 * @param outcome the outcome of the operation
+		 * @param result an operation specific count
+		 */
+		void end(HalfEdgeDataStructure<?, ?, ?> hds, String outcome, long result);
+		
+	}
+	
+	/**
+	 * A running reindexing of a node list.
+	 */
+	public static interface Reindex {
+		
+		/**
+		 * End the reindexing and record it if the recording requires it.
+		 * @param start the first index that was reindexed
+		 * @param elements the number of reindexed nodes
+		 */
+		void end(int start, int elements);
+		
+	}
+	
+	private static final class NoHook extends EventHook implements Operation, Reindex {
+		@Override
+		protected Operation operation(String name) {
+			return this;
+		}
+		@Override
+		protected Reindex reindex(String nodeType) {
+			return this;
+		}
+		@Override
+		public void end(HalfEdgeDataStructure<?, ?, ?> hds, String outcome, long result) {
+		}
+		@Override
+		public void end(int start, int elements) {
+		}
+	}
+	
+	protected EventHook() {}
+	
+	private static EventHook load() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return (EventHook)Class.forName("de.jtem.halfedge.jfr.FlightRecorderHook").getDeclaredConstructor().newInstance();
+		} catch (Throwable t) {
+			// no flight recorder in this runtime
+			return new NoHook();
+		}
+	}
+	
+	/**
+	 * Start an operation.
+	 * @param name the name of the operation
+	 * @return the running operation
+	 */
+	public static Operation beginOperation(String name) {
+		return hook.operation(name);
+	}
+	
+	/**
+	 * Start the reindexing of a node list.
+	 * @param nodeType the node type, vertex, edge, or face
+	 * @return the running reindexing
+	 */
+	static Reindex beginReindex(String nodeType) {
+		return hook.reindex(nodeType);
+	}
+	
+	/**
+	 * Return whether the events are delivered to the flight recorder.
+	 * @return false if the runtime has no flight recorder
+	 */
+	public static boolean isAvailable() {
+		return !(hook instanceof NoHook);
+	}
+	
+	/**
+	 * @param name the name of the operation
+	 * @return a new operation event
+	 */
+	protected abstract Operation operation(String name);
+	
+	/**
+	 * @param nodeType the node type
+	 * @return a new reindex event
+	 */
+	protected abstract Reindex reindex(String nodeType);
+	
+}
@@ -49,7 +49,7 @@ public abstract class Face <V extends Vertex<V, E, F>,
 							E extends Edge<V, E, F>, 
 							F extends Face<V, E, F>   > extends Node<V, E, F> {
 
-	private E boundaryEdge = null;
+	E boundaryEdge = null;
 		
 	/**
 	 * A face class with no further properties or functionality.
@@ -71,19 +71,37 @@ public abstract class Face <V extends Vertex<V, E, F>,
 			return boundaryEdge;
 		}
 		// look for a boundary edge.
+		beforeChange();
+		Metrics m = hds.metrics;
+		long t = m == null ? 0 : System.nanoTime();
+		int scanned = 0;
 		for (E e : hds.getEdges()) {
 			assert e != null;
+			scanned++;
 			if (this == e.getLeftFace()) {
 				boundaryEdge = e;
+				if (hds.journal != null) {
+					hds.journal.write(Journal.SET_BOUNDARY, this, e);
+				}
+				if (m != null) {
+					m.anchorScanned(scanned, System.nanoTime() - t);
+				}
 				return boundaryEdge;
 			}
 		}
 		boundaryEdge = null;
+		if (hds.journal != null) {
+			hds.journal.write(Journal.SET_BOUNDARY, this, null);
+		}
+		if (m != null) {
+			m.anchorScanned(scanned, System.nanoTime() - t);
+		}
 		return boundaryEdge;
 	}
 
 	final void setBoundaryEdge(E e) {
 		checkHalfEdgeDataStructure(e);
+		beforeChange();
 		this.boundaryEdge = e;
 	};
 	
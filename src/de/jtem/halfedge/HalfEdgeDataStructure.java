@@ -33,10 +33,14 @@ package de.jtem.halfedge;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import de.jtem.halfedge.util.HalfEdgeUtils;
+import de.jtem.halfedge.util.HalfEdgeView;
 
 /**
  * Class representing a half-edge data structure.
@@ -58,15 +62,42 @@ public class HalfEdgeDataStructure <
 	Class<E> eClass = null;	
 	Class<F> fClass = null;
 	
-	List<V> vertexList = new ArrayList<V>();
-	List<F> faceList = new ArrayList<F>();
-	List<E> edgeList = new ArrayList<E>();	
+	NodeList<V> vertexList = new NodeList<V>();
+	NodeList<F> faceList = new NodeList<F>();
+	NodeList<E> edgeList = new NodeList<E>();	
 	
 	boolean
 		vertexIndicesDirty = false,
 		edgeIndicesDirty = false,
 		faceIndicesDirty = false;
 	
+	Transaction<V, E, F>
+		transaction = null;
+	Journal
+		journal = null;
+	Metrics
+		metrics = null;
+	List<HalfEdgeListener<V, E, F>>
+		listeners = new CopyOnWriteArrayList<HalfEdgeListener<V, E, F>>();
+	StructureChange<V, E, F>
+		changes = null;
+	int
+		batchDepth = 0;
+	boolean
+		bulkUpdate = false;
+	Journal
+		bulkJournal = null;
+	StructureChange<V, E, F>
+		bulkChanges = null;
+	boolean
+		vertexModified = false,
+		edgeModified = false,
+		faceModified = false;
+	long
+		vertexModificationCount = 0,
+		edgeModificationCount = 0,
+		faceModificationCount = 0;
+	
 	/**
 	 * Instantiate a new half-edge data structure with given 
 	 * vertex, edge, and face classes.
@@ -119,37 +150,411 @@ public class HalfEdgeDataStructure <
 		FF extends Face<VV,EE,FF>, 
 		HEDS extends HalfEdgeDataStructure<VV,EE,FF>
 	> HEDS createCombinatoriallyEquivalentCopy(HEDS heds) {
-		heds.vertexList.clear();
-		heds.edgeList.clear();
-		heds.faceList.clear();
-		
-		heds.addNewVertices(numVertices());
-		heds.addNewEdges(numEdges());
-		heds.addNewFaces(numFaces());
-		for (E e : edgeList) {
-			E eNext = e.getNextEdge();
-			E eOpp = e.getOppositeEdge();
-			F f = e.getLeftFace();
-			V v = e.getTargetVertex();
-			EE ee = heds.getEdge(e.getIndex());
-			ee.setIsPositive(e.isPositive());
-			if (eNext != null) {
-				ee.linkNextEdge(heds.getEdge(eNext.getIndex()));
+		EventHook.Operation event = EventHook.beginOperation("createCombinatoriallyEquivalentCopy");
+		String outcome = EventHook.FAILED;
+		try {
+			heds.clear();
+			heds.appendCombinatoriallyEquivalentCopy(this);
+			outcome = EventHook.OK;
+			return heds;
+		} finally {
+			event.end(heds, outcome, 0);
+		}
+	}
+	
+	
+	
+	/**
+	 * Open a transaction on this half-edge data structure. 
+	 * <p>
+	 * Until the transaction is {@linkplain Transaction#commit() committed} or 
+	 * {@linkplain Transaction#rollback() rolled back}, the previous state of every node 
+	 * that is modified, added, or removed is recorded, so that a rollback restores the 
+	 * state at the beginning of the transaction in time proportional to the number of modified nodes.
+	 * <p>
+	 * Removed nodes are invalidated immediately, but they stay in the node lists and 
+	 * no indices are changed until the transaction is committed. The sizes returned by 
+	 * {@link #numVertices()}, {@link #numEdges()}, {@link #numFaces()}, and the lists 
+	 * returned by {@link #getVertices()}, {@link #getEdges()}, {@link #getFaces()} include 
+	 * these nodes while the transaction is open.
+	 * <p>
+	 * Typical use:<br>
+	 * <br>
+	 * {@code Transaction<V,E,F> t = heds.beginTransaction();}<br>
+	 * {@code try {}<br>
+	 * {@code     ... modify heds ...}<br>
+	 * {@code     t.commit();}<br>
+	 * <code>} finally {</code><br>
+	 * {@code     if (t.isOpen()) t.rollback();}<br>
+	 * <code>}</code><br>
+	 * 
+	 * @return the new transaction
+	 * @throws RuntimeException if a transaction is already open
+	 */
+	public synchronized final Transaction<V, E, F> beginTransaction() throws RuntimeException {
+		if (transaction != null) {
+			throw new RuntimeException("A transaction is already open on " + this + ".");
+		}
+		if (bulkUpdate) {
+			throw new RuntimeException("Cannot begin a transaction during a bulk update of " + this + ".");
+		}
+		transaction = new Transaction<V, E, F>(this);
+		if (journal != null) {
+			journal.write(Journal.BEGIN);
+		}
+		return transaction;
+	}
+	
+	/**
+	 * Return the open transaction of this half-edge data structure.
+	 * @return the transaction, or <code>null</code> if no transaction is open
+	 */
+	public final Transaction<V, E, F> getTransaction() {
+		return transaction;
+	}
+	
+	/**
+	 * Attach a journal that records all subsequent structural modifications of this 
+	 * half-edge data structure, or detach the current journal. The journal is not flushed 
+	 * or closed on detach. 
+	 * @param journal the journal or <code>null</code> to detach the current journal
+	 * @throws RuntimeException if a transaction is open or the journal is attached 
+	 * to another half-edge data structure
+	 * @see Journal
+	 */
+	public synchronized final void setJournal(Journal journal) throws RuntimeException {
+		if (transaction != null) {
+			throw new RuntimeException("Cannot attach or detach a journal while a transaction is open on " + this + ".");
+		}
+		if (bulkUpdate) {
+			throw new RuntimeException("Cannot attach or detach a journal during a bulk update of " + this + ".");
+		}
+		if (journal != null && journal.hds != null && journal.hds != this) {
+			throw new RuntimeException("The journal is attached to " + journal.hds + ".");
+		}
+		if (this.journal != null) {
+			this.journal.hds = null;
+		}
+		this.journal = journal;
+		if (journal != null) {
+			journal.hds = this;
+		}
+	}
+	
+	/**
+	 * Return the attached journal of this half-edge data structure.
+	 * @return the journal, or <code>null</code> if no journal is attached
+	 */
+	public final Journal getJournal() {
+		return journal;
+	}
+	
+	/**
+	 * Attach metrics that count the reindexing, anchor scans, and removals of this 
+	 * half-edge data structure, and the traversals of {@link HalfEdgeUtils} on it. 
+	 * One instance may be attached to several structures.
+	 * @param metrics the metrics or <code>null</code> to detach the current metrics
+	 * @see Metrics
+	 */
+	public final void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Return the attached metrics of this half-edge data structure.
+	 * @return the metrics, or <code>null</code> if no metrics are attached
+	 */
+	public final Metrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Register a listener for the structural changes of this half-edge data structure. 
+	 * Changes are coalesced and reported once per batch, see {@link StructureChange}. 
+	 * Without listeners, changes are not recorded.
+	 * @param listener the listener
+	 */
+	public synchronized final void addListener(HalfEdgeListener<V, E, F> listener) {
+		if (changes == null && bulkChanges == null) {
+			changes = new StructureChange<V, E, F>(this);
+		}
+		listeners.add(listener);
+	}
+	
+	/**
+	 * Remove a listener.
+	 * @param listener the listener
+	 */
+	public synchronized final void removeListener(HalfEdgeListener<V, E, F> listener) {
+		listeners.remove(listener);
+		if (listeners.isEmpty()) {
+			changes = null;
+			bulkChanges = null;
+		}
+	}
+	
+	/**
+	 * Start a batch of modifications. The listeners are notified once when the outermost 
+	 * batch ends, and not before a transaction that is open at that time ends. Batches can be nested.
+	 * <p>
+	 * Typical use:<br>
+	 * <br>
+	 * {@code heds.beginBatch();}<br>
+	 * {@code try {}<br>
+	 * {@code     ... modify heds ...}<br>
+	 * <code>} finally {</code><br>
+	 * {@code     heds.endBatch();}<br>
+	 * <code>}</code><br>
+	 */
+	public synchronized final void beginBatch() {
+		batchDepth++;
+	}
+	
+	/**
+	 * End a batch of modifications. Notifies the listeners when the outermost batch ends 
+	 * and no transaction is open.
+	 * @throws RuntimeException if no batch is open
+	 */
+	public synchronized final void endBatch() throws RuntimeException {
+		if (batchDepth == 0) {
+			throw new RuntimeException("No batch is open on " + this + ".");
+		}
+		batchDepth--;
+		afterModification();
+	}
+	
+	/**
+	 * Start a bulk update of the links of existing nodes, e.g., from several threads. 
+	 * A bulk update is a batch in which the link methods do not record to the journal or 
+	 * the listeners, so they take no locks. The modified nodes are recorded in one step by 
+	 * {@link #endBulkUpdate(List, List, List)}. Nodes must not be added or removed and no 
+	 * transaction can be opened during a bulk update.
+	 * <p>
+	 * Typical use:<br>
+	 * <br>
+	 * {@code heds.beginBulkUpdate();}<br>
+	 * {@code try {}<br>
+	 * {@code     ... link the nodes in parallel ...}<br>
+	 * <code>} finally {</code><br>
+	 * {@code     heds.endBulkUpdate(vertices, edges, faces);}<br>
+	 * <code>}</code><br>
+	 * @throws RuntimeException if a transaction or a bulk update is open
+	 */
+	public synchronized final void beginBulkUpdate() throws RuntimeException {
+		if (transaction != null) {
+			throw new RuntimeException("Cannot begin a bulk update while a transaction is open on " + this + ".");
+		}
+		if (bulkUpdate) {
+			throw new RuntimeException("A bulk update is already open on " + this + ".");
+		}
+		beginBatch();
+		bulkUpdate = true;
+		bulkJournal = journal;
+		bulkChanges = changes;
+		journal = null;
+		changes = null;
+	}
+	
+	/**
+	 * End a bulk update. Records the links of the given edges and the incoming and boundary 
+	 * edges of the given vertices and faces in the journal, reports the nodes as modified to 
+	 * the listeners, and ends the batch. The lists must contain all nodes whose links have 
+	 * been changed, the old and new targets and left faces included. 
+	 * @param vertices the modified vertices or <code>null</code>
+	 * @param edges the modified edges or <code>null</code>
+	 * @param faces the modified faces or <code>null</code>
+	 * @throws RuntimeException if no bulk update is open
+	 */
+	public synchronized final void endBulkUpdate(List<? extends Vertex<?,?,?>> vertices, List<? extends Edge<?,?,?>> edges, List<? extends Face<?,?,?>> faces) throws RuntimeException {
+		if (!bulkUpdate) {
+			throw new RuntimeException("No bulk update is open on " + this + ".");
+		}
+		bulkUpdate = false;
+		journal = bulkJournal;
+		if (bulkChanges != null) {
+			changes = bulkChanges;
+		}
+		bulkJournal = null;
+		bulkChanges = null;
+		if (vertices != null && !vertices.isEmpty()) {
+			modifyVertices(null, null);
+			if (journal != null) {
+				for (Vertex<?,?,?> v : vertices) {
+					journal.write(Journal.SET_INCOMING, v, v.incomingEdge);
+				}
 			}
-			if (eOpp != null) {
-				ee.linkOppositeEdge(heds.getEdge(eOpp.getIndex()));
+			if (changes != null) changes.modified(vertices);
+		}
+		if (edges != null && !edges.isEmpty()) {
+			modifyEdges(null, null, null, null);
+			if (journal != null) {
+				for (Edge<?,?,?> e : edges) {
+					journal.edge(e);
+				}
 			}
-			if (f != null) {
-				ee.setLeftFace(heds.getFace(f.getIndex()));
+			if (changes != null) changes.modified(edges);
+		}
+		if (faces != null && !faces.isEmpty()) {
+			modifyFaces(null, null);
+			if (journal != null) {
+				for (Face<?,?,?> f : faces) {
+					journal.write(Journal.SET_BOUNDARY, f, f.boundaryEdge);
+				}
 			}
-			if (v != null) {
-				ee.setTargetVertex(heds.getVertex(v.getIndex()));
+			if (changes != null) changes.modified(faces);
+		}
+		endBatch();
+	}
+	
+	/**
+	 * Throw if a bulk update is open, in which additions and removals would not be recorded.
+	 */
+	private void checkNoBulkUpdate() throws RuntimeException {
+		if (bulkUpdate) {
+			throw new RuntimeException("Cannot add or remove nodes during a bulk update of " + this + ".");
+		}
+	}
+	
+	/**
+	 * Return a number that changes whenever vertices have been added, removed, or permuted, 
+	 * or the incoming edge of a vertex has changed, since the previous call. Caches of vertex 
+	 * data can compare it with the number they were built with. The counters are not synchronized.
+	 * @return the vertex modification count
+	 */
+	public final long getVertexModificationCount() {
+		if (vertexModified) {
+			vertexModified = false;
+			vertexModificationCount++;
+		}
+		return vertexModificationCount;
+	}
+	
+	/**
+	 * Return a number that changes whenever edges have been added, removed, or permuted, 
+	 * or the links of an edge have changed, since the previous call.
+	 * @see #getVertexModificationCount()
+	 * @return the edge modification count
+	 */
+	public final long getEdgeModificationCount() {
+		if (edgeModified) {
+			edgeModified = false;
+			edgeModificationCount++;
+		}
+		return edgeModificationCount;
+	}
+	
+	/**
+	 * Return a number that changes whenever faces have been added, removed, or permuted, 
+	 * or the boundary edge of a face has changed, since the previous call.
+	 * @see #getVertexModificationCount()
+	 * @return the face modification count
+	 */
+	public final long getFaceModificationCount() {
+		if (faceModified) {
+			faceModified = false;
+			faceModificationCount++;
+		}
+		return faceModificationCount;
+	}
+	
+	/**
+	 * Record vertices that are about to be modified. The flag is tested first 
+	 * so that concurrent modifications do not write to the same cache line.
+	 */
+	final void modifyVertices(Node<?, ?, ?> v1, Node<?, ?, ?> v2) {
+		if (!vertexModified) vertexModified = true;
+		if (changes != null) changes.modified(v1, v2, null, null);
+	}
+	
+	final void modifyEdges(Node<?, ?, ?> e1, Node<?, ?, ?> e2, Node<?, ?, ?> e3, Node<?, ?, ?> e4) {
+		if (!edgeModified) edgeModified = true;
+		if (changes != null) changes.modified(e1, e2, e3, e4);
+	}
+	
+	final void modifyFaces(Node<?, ?, ?> f1, Node<?, ?, ?> f2) {
+		if (!faceModified) faceModified = true;
+		if (changes != null) changes.modified(f1, f2, null, null);
+	}
+	
+	/**
+	 * Notify the listeners unless a batch or a transaction is open.
+	 */
+	final void afterModification() {
+		if (changes != null && batchDepth == 0 && transaction == null) {
+			StructureChange<V, E, F> c = changes;
+			changes = new StructureChange<V, E, F>(this);
+			if (c.seal()) {
+				for (HalfEdgeListener<V, E, F> l : listeners) {
+					l.structureChanged(c);
+				}
 			}
 		}
-		return heds;
 	}
 	
+	/**
+	 * Permute the vertex, edge, and face lists in place. After the call, the node with 
+	 * index i is the node that had index order[i] before. Links are not changed.
+	 * 
+	 * @param vertexOrder the new vertex order, or null to keep the order
+	 * @param edgeOrder the new edge order, or null to keep the order
+	 * @param faceOrder the new face order, or null to keep the order
+	 * @throws IllegalArgumentException if an order is not a permutation of the node indices
+	 * @throws RuntimeException if a transaction is open
+	 */
+	public synchronized final void permute(int[] vertexOrder, int[] edgeOrder, int[] faceOrder) throws IllegalArgumentException, RuntimeException {
+		if (transaction != null) {
+			throw new RuntimeException("Cannot permute " + this + " while a transaction is open.");
+		}
+		checkPermutation(vertexOrder, vertexList.size());
+		checkPermutation(edgeOrder, edgeList.size());
+		checkPermutation(faceOrder, faceList.size());
+		if (vertexIndicesDirty) reindexVertices(0);
+		if (edgeIndicesDirty) reindexEdges(0);
+		if (faceIndicesDirty) reindexFaces(0);
+		if (journal != null) {
+			journal.permute(vertexOrder, edgeOrder, faceOrder);
+		}
+		if (vertexOrder != null) modifyVertices(null, null);
+		if (edgeOrder != null) modifyEdges(null, null, null, null);
+		if (faceOrder != null) modifyFaces(null, null);
+		if (changes != null) {
+			changes.permuted(StructureChange.VERTEX, vertexOrder);
+			changes.permuted(StructureChange.EDGE, edgeOrder);
+			changes.permuted(StructureChange.FACE, faceOrder);
+		}
+		permute(vertexList, vertexOrder);
+		permute(edgeList, edgeOrder);
+		permute(faceList, faceOrder);
+		afterModification();
+	}
+	
+	private static void checkPermutation(int[] order, int n) throws IllegalArgumentException {
+		if (order == null) {
+			return;
+		}
+		if (order.length != n) {
+			throw new IllegalArgumentException("Permutation has length " + order.length + ", expected " + n + ".");
+		}
+		boolean[] seen = new boolean[n];
+		for (int i : order) {
+			if (i < 0 || i >= n || seen[i]) {
+				throw new IllegalArgumentException("Not a permutation of 0.." + (n - 1) + ".");
+			}
+			seen[i] = true;
+		}
+	}
 	
+	private static <N extends Node<?,?,?>> void permute(List<N> nodeList, int[] order) {
+		if (order == null) {
+			return;
+		}
+		List<N> old = new ArrayList<N>(nodeList);
+		for (int i = 0; i < order.length; i++) {
+			N n = old.get(order[i]);
+			nodeList.set(i, n);
+			n.setIndex(i);
+		}
+	}
 	
 	/**
 	 * Return edge class of this half-edge data structure.
@@ -182,6 +587,7 @@ public class HalfEdgeDataStructure <
 	 * @throws RuntimeException if an instance of the vertex class cannot be instantiated
 	 */
 	public synchronized final V addNewVertex() throws RuntimeException{
+		checkNoBulkUpdate();
 		V vertex = null;
 		try {
 			vertex = getVertexClass().newInstance();
@@ -191,6 +597,14 @@ public class HalfEdgeDataStructure <
 		vertex.setIndex(vertexList.size());
 		vertexList.add(vertex);
 		vertex.setHalfEdgeDataStructure(this);
+		if (journal != null) {
+			journal.add(Journal.ADD_VERTICES);
+		}
+		modifyVertices(null, null);
+		if (changes != null) {
+			changes.added(vertex);
+			afterModification();
+		}
 		return vertex;
 	}
 	
@@ -200,10 +614,16 @@ public class HalfEdgeDataStructure <
 	 * @return the list (with size n) of new vertices
 	 * @throws RuntimeException if instances of the vertex class cannot be instantiated
 	 */
-	public final List<V> addNewVertices(int n) throws RuntimeException {
+	public synchronized final List<V> addNewVertices(int n) throws RuntimeException {
+		ensureCapacity(vertexList, n);
 		List<V> l= new ArrayList<V>(n);
-		for (int i = 0; i < n; i++) {
-			l.add(this.addNewVertex());
+		beginBatch();
+		try {
+			for (int i = 0; i < n; i++) {
+				l.add(this.addNewVertex());
+			}
+		} finally {
+			endBatch();
 		}
 		return l;
 	}
@@ -214,6 +634,7 @@ public class HalfEdgeDataStructure <
 	 * @throws RuntimeException if an instance of the edge class cannot be instantiated
 	 */
 	public synchronized final E addNewEdge(){
+		checkNoBulkUpdate();
 		E edge = null;
 		try {
 			edge = getEdgeClass().newInstance();
@@ -224,6 +645,14 @@ public class HalfEdgeDataStructure <
 		edge.setIndex(edgeList.size());
 		edgeList.add(edge);
 		edge.setHalfEdgeDataStructure(this);
+		if (journal != null) {
+			journal.add(Journal.ADD_EDGES);
+		}
+		modifyEdges(null, null, null, null);
+		if (changes != null) {
+			changes.added(edge);
+			afterModification();
+		}
 		return edge;
 	}
 	
@@ -233,10 +662,16 @@ public class HalfEdgeDataStructure <
 	 * @return the list (with size n) of new edges
 	 * @throws RuntimeException if instances of the edge class cannot be instantiated
 	 */
-	public final List<E> addNewEdges(int n) throws RuntimeException {
+	public synchronized final List<E> addNewEdges(int n) throws RuntimeException {
+		ensureCapacity(edgeList, n);
 		List<E> l= new ArrayList<E>(n);
-		for (int i = 0; i < n; i++) {
-			l.add(this.addNewEdge());
+		beginBatch();
+		try {
+			for (int i = 0; i < n; i++) {
+				l.add(this.addNewEdge());
+			}
+		} finally {
+			endBatch();
 		}
 		return l;
 	}
@@ -247,6 +682,7 @@ public class HalfEdgeDataStructure <
 	 * @throws RuntimeException if an instance of the face class cannot be instantiated
 	 */
 	public synchronized final F addNewFace(){
+		checkNoBulkUpdate();
 		F face = null;
 		try {
 			face = getFaceClass().newInstance();
@@ -256,6 +692,14 @@ public class HalfEdgeDataStructure <
 		face.setIndex(faceList.size());
 		faceList.add(face);
 		face.setHalfEdgeDataStructure(this);
+		if (journal != null) {
+			journal.add(Journal.ADD_FACES);
+		}
+		modifyFaces(null, null);
+		if (changes != null) {
+			changes.added(face);
+			afterModification();
+		}
 		return face;
 	}
 
@@ -265,14 +709,236 @@ public class HalfEdgeDataStructure <
 	 * @return the list (with size n) of new faces
 	 * @throws RuntimeException if instances of the face class cannot be instantiated
 	 */
-	public final List<F> addNewFaces(int n) throws RuntimeException {
+	public synchronized final List<F> addNewFaces(int n) throws RuntimeException {
+		ensureCapacity(faceList, n);
 		List<F> l= new ArrayList<F>(n);
-		for (int i = 0; i < n; i++) {
-			l.add(this.addNewFace());
+		beginBatch();
+		try {
+			for (int i = 0; i < n; i++) {
+				l.add(this.addNewFace());
+			}
+		} finally {
+			endBatch();
 		}
 		return l;
 	}
 	
+	/**
+	 * Remove a node from its list. The position of the node is its index if the indices 
+	 * are valid, otherwise it is found with one scan of the list.
+	 * @return the number of nodes shifted by the removal, or -1 if the node is not in the list
+	 */
+	private static int removeNode(List<? extends Node<?,?,?>> nodeList, Node<?,?,?> node, boolean indicesDirty) {
+		int i = indicesDirty ? nodeList.indexOf(node) : node.index;
+		if (i < 0) {
+			return -1;
+		}
+		assert nodeList.get(i) == node;
+		nodeList.remove(i);
+		return nodeList.size() - i;
+	}
+	
+	private static void ensureCapacity(List<?> nodeList, int n) {
+		if (nodeList instanceof ArrayList<?>) {
+			((ArrayList<?>)nodeList).ensureCapacity(nodeList.size() + n);
+		}
+	}
+	
+	/**
+	 * Append a combinatorially equivalent copy of src to this half-edge data structure.
+	 * <p>
+	 * The node with index i in src is copied to the node with index i + n, where n is the number 
+	 * of nodes of the same kind in this half-edge data structure before the call. All nodes are 
+	 * allocated in one step, then the links of the copies are written directly in one pass over 
+	 * the edges of src, without the checks and unlinking of the link methods. 
+	 * The vertices and faces of the copies keep the incoming and boundary edges of src where these 
+	 * are valid. Node data are not copied, see {@link de.jtem.halfedge.util.HalfEdgeUtils#copy(HalfEdgeDataStructure, HalfEdgeDataStructure, boolean)}.
+	 * <p>
+	 * src may be this half-edge data structure.
+	 * 
+	 * @param src the half-edge data structure to copy
+	 * @throws RuntimeException if a transaction is open on src
+	 */
+	public synchronized final void appendCombinatoriallyEquivalentCopy(HalfEdgeDataStructure<?,?,?> src) throws RuntimeException {
+		if (src.transaction != null) {
+			throw new RuntimeException("Cannot copy " + src + " while a transaction is open.");
+		}
+		if (src.vertexIndicesDirty) src.reindexVertices(0);
+		if (src.edgeIndicesDirty) src.reindexEdges(0);
+		if (src.faceIndicesDirty) src.reindexFaces(0);
+		int nv = src.numVertices();
+		int ne = src.numEdges();
+		int nf = src.numFaces();
+		int vOffset = numVertices();
+		int eOffset = numEdges();
+		int fOffset = numFaces();
+		beginBatch();
+		try {
+			addNewVertices(nv);
+			addNewEdges(ne);
+			addNewFaces(nf);
+			for (int i = 0; i < ne; i++) {
+				copyLinks(src.edgeList.get(i), edgeList.get(eOffset + i), src, vOffset, eOffset, fOffset);
+			}
+			if (journal != null) {
+				journalCopy(vOffset, eOffset, fOffset);
+			}
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Append a combinatorially equivalent copy of an index based view to this half-edge data structure.
+	 * The vertex and face anchors are the first incoming and boundary edges in index order.
+	 * @see #appendCombinatoriallyEquivalentCopy(HalfEdgeView, int[], int[])
+	 * @param src the view to copy
+	 */
+	public final void appendCombinatoriallyEquivalentCopy(HalfEdgeView src) {
+		appendCombinatoriallyEquivalentCopy(src, null, null);
+	}
+	
+	/**
+	 * Append a combinatorially equivalent copy of an index based view to this half-edge data structure.
+	 * <p>
+	 * As in {@link #appendCombinatoriallyEquivalentCopy(HalfEdgeDataStructure)} the node with index i 
+	 * in src is copied to the node with index i + n, where n is the number of nodes of the same kind 
+	 * before the call, and the links are written directly. The incoming edges of the vertices and the 
+	 * boundary edges of the faces can be given as edge indices of src, -1 entries and <code>null</code> 
+	 * arrays select the first incoming or boundary edge in index order.
+	 * 
+	 * @param src the view to copy
+	 * @param incomingEdges the incoming edge index for each vertex of src or <code>null</code>
+	 * @param boundaryEdges the boundary edge index for each face of src or <code>null</code>
+	 * @throws IllegalArgumentException if an anchor array has the wrong length
+	 */
+	public synchronized final void appendCombinatoriallyEquivalentCopy(HalfEdgeView src, int[] incomingEdges, int[] boundaryEdges) throws IllegalArgumentException {
+		int nv = src.numVertices();
+		int ne = src.numEdges();
+		int nf = src.numFaces();
+		if (incomingEdges != null && incomingEdges.length != nv) {
+			throw new IllegalArgumentException("Expected " + nv + " incoming edges, got " + incomingEdges.length);
+		}
+		if (boundaryEdges != null && boundaryEdges.length != nf) {
+			throw new IllegalArgumentException("Expected " + nf + " boundary edges, got " + boundaryEdges.length);
+		}
+		int vOffset = numVertices();
+		int eOffset = numEdges();
+		int fOffset = numFaces();
+		beginBatch();
+		try {
+			addNewVertices(nv);
+			addNewEdges(ne);
+			addNewFaces(nf);
+			for (int i = 0; i < ne; i++) {
+				copyLinks(src, i, edgeList.get(eOffset + i), vOffset, eOffset, fOffset);
+			}
+			if (incomingEdges != null) {
+				for (int i = 0; i < nv; i++) {
+					if (incomingEdges[i] >= 0) {
+						vertexList.get(vOffset + i).incomingEdge = edgeList.get(eOffset + incomingEdges[i]);
+					}
+				}
+			}
+			if (boundaryEdges != null) {
+				for (int i = 0; i < nf; i++) {
+					if (boundaryEdges[i] >= 0) {
+						faceList.get(fOffset + i).boundaryEdge = edgeList.get(eOffset + boundaryEdges[i]);
+					}
+				}
+			}
+			if (journal != null) {
+				journalCopy(vOffset, eOffset, fOffset);
+			}
+		} finally {
+			endBatch();
+		}
+	}
+	
+	/**
+	 * Record the directly written links and anchors of the nodes from the given offsets on.
+	 */
+	private void journalCopy(int vOffset, int eOffset, int fOffset) {
+		for (int i = eOffset; i < edgeList.size(); i++) {
+			journal.edge(edgeList.get(i));
+		}
+		for (int i = vOffset; i < vertexList.size(); i++) {
+			V v = vertexList.get(i);
+			journal.write(Journal.SET_INCOMING, v, v.incomingEdge);
+		}
+		for (int i = fOffset; i < faceList.size(); i++) {
+			F f = faceList.get(i);
+			journal.write(Journal.SET_BOUNDARY, f, f.boundaryEdge);
+		}
+	}
+	
+	/**
+	 * Write the links of edge e of src to its copy ee.
+	 */
+	private void copyLinks(HalfEdgeView src, int e, E ee, int vOffset, int eOffset, int fOffset) {
+		ee.isPositive = src.isPositive(e);
+		int next = src.getNextEdge(e);
+		if (next >= 0) {
+			ee.nextEdge = edgeList.get(eOffset + next);
+		}
+		int previous = src.getPreviousEdge(e);
+		if (previous >= 0) {
+			ee.previousEdge = edgeList.get(eOffset + previous);
+		}
+		int opposite = src.getOppositeEdge(e);
+		if (opposite >= 0) {
+			ee.oppositeEdge = edgeList.get(eOffset + opposite);
+		}
+		int target = src.getTargetVertex(e);
+		if (target >= 0) {
+			V v = vertexList.get(vOffset + target);
+			ee.targetVertex = v;
+			if (v.incomingEdge == null) {
+				v.incomingEdge = ee;
+			}
+		}
+		int left = src.getLeftFace(e);
+		if (left >= 0) {
+			F f = faceList.get(fOffset + left);
+			ee.leftFace = f;
+			if (f.boundaryEdge == null) {
+				f.boundaryEdge = ee;
+			}
+		}
+	}
+	
+	/**
+	 * Write the links of e to its copy ee. Kept separate from the loop so that it is compiled early.
+	 */
+	private void copyLinks(Edge<?,?,?> e, E ee, HalfEdgeDataStructure<?,?,?> src, int vOffset, int eOffset, int fOffset) {
+		ee.isPositive = e.isPositive;
+		if (e.nextEdge != null) {
+			ee.nextEdge = edgeList.get(eOffset + e.nextEdge.index);
+		}
+		if (e.previousEdge != null) {
+			ee.previousEdge = edgeList.get(eOffset + e.previousEdge.index);
+		}
+		if (e.oppositeEdge != null) {
+			ee.oppositeEdge = edgeList.get(eOffset + e.oppositeEdge.index);
+		}
+		// removed vertices and faces are unlinked lazily
+		if (e.targetVertex != null && e.targetVertex.hds == src) {
+			V v = vertexList.get(vOffset + e.targetVertex.index);
+			ee.targetVertex = v;
+			// keep the incoming edge of src, any incoming edge if that is not valid
+			if (v.incomingEdge == null || e.targetVertex.incomingEdge == e) {
+				v.incomingEdge = ee;
+			}
+		}
+		if (e.leftFace != null && e.leftFace.hds == src) {
+			F f = faceList.get(fOffset + e.leftFace.index);
+			ee.leftFace = f;
+			if (f.boundaryEdge == null || e.leftFace.boundaryEdge == e) {
+				f.boundaryEdge = ee;
+			}
+		}
+	}
+	
 	/**
 	 * Remove a face from this halfedge data structure. 
 	 * Does nothing if <code>face</code> is <code>null</code>. Otherwise it is 
@@ -290,16 +956,45 @@ public class HalfEdgeDataStructure <
 		if (face == null) {
 			return;
 		}
+		checkNoBulkUpdate();
 		if (this != face.getHalfEdgeDataStructure()) {
 			throw new RuntimeException(face + " is null or does not belong to " + this + ".");
 		}
-		if (faceList.remove(face)) {
-			face.setBoundaryEdge(null);
-			face.setHalfEdgeDataStructure(null);
-			faceIndicesDirty = true;
-			return;
+		// the unlinking is implied by the removal record
+		Journal j = journal;
+		if (j != null) {
+			j.write(Journal.REMOVE_FACE, face);
+			journal = null;
+		}
+		modifyFaces(null, null);
+		if (changes != null) {
+			if (transaction == null) {
+				changes.removed(face, StructureChange.FACE, faceList.get(faceList.size() - 1) != face);
+			} else {
+				changes.removed(face);
+			}
+		}
+		beginBatch();
+		try {
+			if (transaction != null) {
+				transaction.remove(face);
+				return;
+			}
+			int shifted = removeNode(faceList, face, faceIndicesDirty);
+			if (shifted >= 0) {
+				if (metrics != null) {
+					metrics.removed(shifted);
+				}
+				face.setBoundaryEdge(null);
+				face.setHalfEdgeDataStructure(null);
+				faceIndicesDirty = true;
+				return;
+			}
+			assert false;
+		} finally {
+			journal = j;
+			endBatch();
 		}
-		assert false;
 	}
 	
 	/**
@@ -320,20 +1015,49 @@ public class HalfEdgeDataStructure <
 		if (edge == null) {
 			return;
 		}
+		checkNoBulkUpdate();
 		if (this != edge.getHalfEdgeDataStructure()) {
 			throw new RuntimeException(edge + " does not belong to " + this + ".");
 		}
-		if (edgeList.remove(edge)) {
-			edge.setLeftFace(null);
-			edge.setTargetVertex(null);
-			edge.linkOppositeEdge(null);
-			edge.linkNextEdge(null);
-			edge.linkPreviousEdge(null);
-			edge.setHalfEdgeDataStructure(null);
-			edgeIndicesDirty = true;
-			return;
+		// the unlinking is implied by the removal record
+		Journal j = journal;
+		if (j != null) {
+			j.write(Journal.REMOVE_EDGE, edge);
+			journal = null;
+		}
+		modifyEdges(null, null, null, null);
+		if (changes != null) {
+			if (transaction == null) {
+				changes.removed(edge, StructureChange.EDGE, edgeList.get(edgeList.size() - 1) != edge);
+			} else {
+				changes.removed(edge);
+			}
+		}
+		beginBatch();
+		try {
+			if (transaction != null) {
+				transaction.remove(edge);
+				return;
+			}
+			int shifted = removeNode(edgeList, edge, edgeIndicesDirty);
+			if (shifted >= 0) {
+				if (metrics != null) {
+					metrics.removed(shifted);
+				}
+				edge.setLeftFace(null);
+				edge.setTargetVertex(null);
+				edge.linkOppositeEdge(null);
+				edge.linkNextEdge(null);
+				edge.linkPreviousEdge(null);
+				edge.setHalfEdgeDataStructure(null);
+				edgeIndicesDirty = true;
+				return;
+			}
+			assert false;
+		} finally {
+			journal = j;
+			endBatch();
 		}
-		assert false;
 	}
 	
 
@@ -355,16 +1079,45 @@ public class HalfEdgeDataStructure <
 	public synchronized final void removeVertex(Vertex<?,?,?> vertex){
 		if (vertex == null)
 			return;
+		checkNoBulkUpdate();
 		if (this != vertex.getHalfEdgeDataStructure()) {
 			throw new RuntimeException(vertex + " does not belong to " + this + ".");
 		}
-		if (vertexList.remove(vertex)){
-			vertex.setIncomingEdge(null);
-			vertex.setHalfEdgeDataStructure(null);
-			vertexIndicesDirty = true;
-			return;
+		// the unlinking is implied by the removal record
+		Journal j = journal;
+		if (j != null) {
+			j.write(Journal.REMOVE_VERTEX, vertex);
+			journal = null;
+		}
+		modifyVertices(null, null);
+		if (changes != null) {
+			if (transaction == null) {
+				changes.removed(vertex, StructureChange.VERTEX, vertexList.get(vertexList.size() - 1) != vertex);
+			} else {
+				changes.removed(vertex);
+			}
+		}
+		beginBatch();
+		try {
+			if (transaction != null) {
+				transaction.remove(vertex);
+				return;
+			}
+			int shifted = removeNode(vertexList, vertex, vertexIndicesDirty);
+			if (shifted >= 0) {
+				if (metrics != null) {
+					metrics.removed(shifted);
+				}
+				vertex.setIncomingEdge(null);
+				vertex.setHalfEdgeDataStructure(null);
+				vertexIndicesDirty = true;
+				return;
+			}
+			assert false;
+		} finally {
+			journal = j;
+			endBatch();
 		}
-		assert false;
 	}
 	
 	
@@ -401,33 +1154,72 @@ public class HalfEdgeDataStructure <
 	
 	private final <N extends Node<V,E,F>> N getNode(List<N> nodeList, int index) throws IndexOutOfBoundsException {
 		N n = nodeList.get(index);
-		assert n != null && this == n.getHalfEdgeDataStructure();
+		assert n != null && (this == n.getHalfEdgeDataStructure() || transaction != null);
 		return n;
 	}
 	
 	
 	synchronized void reindexVertices(int start) {
+		EventHook.Reindex event = EventHook.beginReindex("vertex");
+		Metrics m = metrics;
+		long t = m == null ? 0 : System.nanoTime();
+		int n = vertexList.size() - start;
+		int first = start;
 		Iterator<V> it = vertexList.listIterator(start);
 		while (it.hasNext()) {
 			it.next().setIndex(start++);
 		}
 		vertexIndicesDirty = false;
+		if (m != null) {
+			m.reindexed(n, System.nanoTime() - t);
+		}
+		event.end(first, n);
 	}
 	
 	synchronized void reindexEdges(int start) {
+		EventHook.Reindex event = EventHook.beginReindex("edge");
+		Metrics m = metrics;
+		long t = m == null ? 0 : System.nanoTime();
+		int n = edgeList.size() - start;
+		int first = start;
 		Iterator<E> it = edgeList.listIterator(start);
 		while (it.hasNext()) {
 			it.next().setIndex(start++);
 		}
 		edgeIndicesDirty = false;
+		if (m != null) {
+			m.reindexed(n, System.nanoTime() - t);
+		}
+		event.end(first, n);
 	}
 	
 	synchronized void reindexFaces(int start) {
+		EventHook.Reindex event = EventHook.beginReindex("face");
+		Metrics m = metrics;
+		long t = m == null ? 0 : System.nanoTime();
+		int n = faceList.size() - start;
+		int first = start;
 		Iterator<F> it = faceList.listIterator(start);
 		while (it.hasNext()) {
 			it.next().setIndex(start++);
 		}
 		faceIndicesDirty = false;
+		if (m != null) {
+			m.reindexed(n, System.nanoTime() - t);
+		}
+		event.end(first, n);
+	}
+	
+	
+	/**
+	 * Estimate the memory used by this half-edge data structure, split into the node lists, 
+	 * the node objects, the fields of user subclasses of the node classes, and the 
+	 * attribute objects referenced by those fields. This walks all nodes once.
+	 * @return the memory footprint
+	 * @see MemoryFootprint
+	 */
+	public synchronized final MemoryFootprint memoryFootprint() {
+		return new MemoryFootprint(vertexList, edgeList, faceList);
 	}
 	
 	
@@ -456,7 +1248,10 @@ public class HalfEdgeDataStructure <
 	}
 	
 	/**
-	 * Return the face list.
+	 * Return the face list. Its iterators and spliterators fail fast with a 
+	 * {@link ConcurrentModificationException} if faces are added, removed, or permuted 
+	 * during iteration, changes of links are allowed. The spliterators are sized and split 
+	 * in halves, so parallel streams over the list scale with the number of processors.
 	 * @return an unmodifiable view of the face list
 	 */
 	public final List<F> getFaces(){
@@ -464,7 +1259,10 @@ public class HalfEdgeDataStructure <
 	}
 	
 	/**
-	 * Return the vertex list.
+	 * Return the vertex list. Its iterators and spliterators fail fast with a 
+	 * {@link ConcurrentModificationException} if vertices are added, removed, or permuted 
+	 * during iteration, changes of links are allowed. The spliterators are sized and split 
+	 * in halves, so parallel streams over the list scale with the number of processors.
 	 * @return an unmodifiable view of the vertex list
 	 */
 	public final List<V> getVertices(){
@@ -472,7 +1270,10 @@ public class HalfEdgeDataStructure <
 	}
 	
 	/**
-	 * Return the edge list.
+	 * Return the edge list. Its iterators and spliterators fail fast with a 
+	 * {@link ConcurrentModificationException} if edges are added, removed, or permuted 
+	 * during iteration, changes of links are allowed. The spliterators are sized and split 
+	 * in halves, so parallel streams over the list scale with the number of processors.
 	 * @return an unmodifiable view of the edge list
 	 */
 	public final List<E> getEdges(){
@@ -487,6 +1288,8 @@ public class HalfEdgeDataStructure <
 			actIntex = -1;
 		private E
 			nextEdge = null;
+		private final int
+			expectedVersion = edgeList.version();
 				
 		public SignatureEdgeIterator(boolean signature) {
 			this.signature = signature;
@@ -494,6 +1297,9 @@ public class HalfEdgeDataStructure <
 		}
 		
 		private E getNextEdge(){
+			if (edgeList.version() != expectedVersion) {
+				throw new ConcurrentModificationException();
+			}
 			while (++actIntex < edgeList.size()){
 				E edge = edgeList.get(actIntex);
 				if (edge.isPositive() == signature)
@@ -526,7 +1332,14 @@ public class HalfEdgeDataStructure <
 	 * If you want to loop over those edges in the edge list for which 
 	 * {@link Edge#isPositive} returns {@code true}, you may do like this:<br>
 	 * <br>
-	 * {@code for (E e : mySuface.getPositiveEdges()) { ... }}
+	 * {@code for (E e : mySuface.getPositiveEdges()) { ... }}<br>
+	 * <br>
+	 * or in parallel:<br>
+	 * <br>
+	 * {@code StreamSupport.stream(mySurface.getPositiveEdges().spliterator(), true)}<br>
+	 * <br>
+	 * The iterators and spliterators fail fast like those of {@link #getEdges()}. The spliterators 
+	 * split the edge list in halves, their size estimate is half of the range.
 	 * @return the {@link Iterable}
 	 */
 	public final Iterable<E> getPositiveEdges(){
@@ -535,6 +1348,10 @@ public class HalfEdgeDataStructure <
 			public Iterator<E> iterator() {
 				return new SignatureEdgeIterator(true);
 			}
+			@Override
+			public Spliterator<E> spliterator() {
+				return new NodeSpliterator<E>(edgeList, NodeSpliterator.POSITIVE);
+			}
 		};
 	}
 	
@@ -550,6 +1367,10 @@ public class HalfEdgeDataStructure <
 			public Iterator<E> iterator() {
 				return new SignatureEdgeIterator(false);
 			}
+			@Override
+			public Spliterator<E> spliterator() {
+				return new NodeSpliterator<E>(edgeList, NodeSpliterator.NEGATIVE);
+			}
 		};
 	}
 	
@@ -617,7 +1438,28 @@ public class HalfEdgeDataStructure <
 		return HalfEdgeUtils.isValidSurface(this, printReasonForFailureToSystemErr);
 	}
 	
-	public void clear() {
+	/**
+	 * Remove all vertices, edges, and faces.
+	 * @throws RuntimeException if a transaction is open
+	 */
+	public void clear() throws RuntimeException {
+		if (transaction != null) {
+			throw new RuntimeException("Cannot clear " + this + " while a transaction is open.");
+		}
+		if (journal != null) {
+			journal.write(Journal.CLEAR);
+		}
+		modifyVertices(null, null);
+		modifyEdges(null, null, null, null);
+		modifyFaces(null, null);
+		if (changes != null) {
+			for (V v : vertexList) changes.removed(v);
+			for (E e : edgeList) changes.removed(e);
+			for (F f : faceList) changes.removed(f);
+			changes.reindexed(StructureChange.VERTEX);
+			changes.reindexed(StructureChange.EDGE);
+			changes.reindexed(StructureChange.FACE);
+		}
 		for (V v : vertexList) {
 			v.setHalfEdgeDataStructure(null);
 		}
@@ -630,6 +1472,7 @@ public class HalfEdgeDataStructure <
 		vertexList.clear();
 		edgeList.clear();
 		faceList.clear();
+		afterModification();
 	}
 	
 	
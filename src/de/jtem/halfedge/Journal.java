@@ -0,0 +1,654 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+
+/**
+ * An append-only log of the structural modifications of a {@link HalfEdgeDataStructure}.
+ * <p>
+ * While a journal is {@linkplain HalfEdgeDataStructure#setJournal(Journal) attached}, every 
+ * structural operation, i.e., adding, removing, and permuting nodes, the link and set methods 
+ * of the edges, transactions, and the anchor repairs of vertices and faces, is written to the 
+ * channel as a record of one opcode byte followed by the node indices as variable length integers. 
+ * Runs of added nodes are written as one record. Node data are not recorded. 
+ * <p>
+ * A {@linkplain #checkpoint() checkpoint} marks a consistent state. {@link #replay(ReadableByteChannel, HalfEdgeDataStructure)} 
+ * applies the records up to the last complete checkpoint to a copy of the base state of the 
+ * journal and reconstructs the exact links, signatures, and anchors of the recorded 
+ * half-edge data structure, a torn record at the end of the log is ignored. 
+ * Snapshots and the compaction of a log into a new snapshot are handled by 
+ * {@link de.jtem.halfedge.util.JournalStore}.
+ * <p>
+ * Without an attached journal, the cost of the hooks is one field test per operation.
+ * 
+ * @see HalfEdgeDataStructure#setJournal(Journal)
+ */
+public final class Journal {
+
+	/** The first int of a journal, "HEDJ" */
+	public static final int 
+		MAGIC = 0x4845444a;
+	/** The version of the record encoding */
+	public static final int 
+		VERSION = 1;
+	
+	static final int
+		ADD_VERTICES = 1,
+		ADD_EDGES = 2,
+		ADD_FACES = 3,
+		REMOVE_VERTEX = 4,
+		REMOVE_EDGE = 5,
+		REMOVE_FACE = 6,
+		LINK_NEXT = 7,
+		LINK_PREVIOUS = 8,
+		LINK_OPPOSITE = 9,
+		SET_TARGET = 10,
+		SET_LEFT_FACE = 11,
+		SET_POSITIVE = 12,
+		SET_INCOMING = 13,
+		SET_BOUNDARY = 14,
+		EDGE = 15,
+		PERMUTE = 16,
+		CLEAR = 17,
+		BEGIN = 18,
+		COMMIT = 19,
+		ROLLBACK = 20,
+		CHECKPOINT = 21;
+	
+	private final WritableByteChannel
+		channel;
+	private final ByteBuffer
+		buffer = ByteBuffer.allocate(1 << 16);
+	HalfEdgeDataStructure<?, ?, ?>
+		hds = null;
+	private int
+		pendingOp = 0,
+		pendingCount = 0;
+	private long
+		numRecords = 0,
+		numBytes = 0;
+	
+	/**
+	 * Create a journal that writes to the given channel. 
+	 * @param channel the channel
+	 * @param append <code>true</code> if the channel continues an existing journal, 
+	 * <code>false</code> to write the journal header first
+	 */
+	public Journal(WritableByteChannel channel, boolean append) {
+		this.channel = channel;
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (!append) {
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+		}
+	}
+	
+	/**
+	 * Return the half-edge data structure this journal is attached to.
+	 * @return the half-edge data structure or <code>null</code>
+	 */
+	public HalfEdgeDataStructure<?, ?, ?> getHalfEdgeDataStructure() {
+		return hds;
+	}
+	
+	/**
+	 * Return the number of records written so far.
+	 * @return the number of records
+	 */
+	public synchronized long getNumRecords() {
+		return numRecords + (pendingCount > 0 ? 1 : 0);
+	}
+	
+	/**
+	 * Return the number of bytes written so far, including buffered bytes.
+	 * @return the number of bytes
+	 */
+	public synchronized long getNumBytes() {
+		return numBytes + buffer.position();
+	}
+	
+	/**
+	 * Write a checkpoint record and flush the journal. If the channel is a 
+	 * {@link FileChannel} it is forced to the storage device.
+	 * @throws IOException if the journal cannot be written
+	 * @throws RuntimeException if the journal is not attached or a transaction is open
+	 */
+	public synchronized void checkpoint() throws IOException, RuntimeException {
+		if (hds == null) {
+			throw new RuntimeException("The journal is not attached.");
+		}
+		if (hds.transaction != null) {
+			throw new RuntimeException("Cannot checkpoint " + hds + " while a transaction is open.");
+		}
+		record(CHECKPOINT);
+		putIndex(hds.numVertices());
+		putIndex(hds.numEdges());
+		putIndex(hds.numFaces());
+		flush();
+		if (channel instanceof FileChannel) {
+			((FileChannel)channel).force(false);
+		}
+	}
+	
+	/**
+	 * Write the buffered records to the channel.
+	 * @throws IOException if the journal cannot be written
+	 */
+	public synchronized void flush() throws IOException {
+		writePending();
+		drain();
+	}
+	
+	/**
+	 * Flush the journal, detach it, and close the channel. Records after the last 
+	 * checkpoint are written, but they are not replayed.
+	 * @throws IOException if the journal cannot be written
+	 */
+	public void close() throws IOException {
+		HalfEdgeDataStructure<?, ?, ?> h = hds;
+		if (h != null) {
+			h.setJournal(null);
+		}
+		synchronized (this) {
+			flush();
+			channel.close();
+		}
+	}
+	
+	private void drain() throws IOException {
+		buffer.flip();
+		numBytes += buffer.remaining();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	private void ensure(int n) {
+		if (buffer.remaining() < n) {
+			try {
+				drain();
+			} catch (IOException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+	}
+	
+	private void writePending() {
+		if (pendingCount > 0) {
+			int n = pendingCount;
+			pendingCount = 0;
+			record(pendingOp);
+			putIndex(n - 1);
+		}
+	}
+	
+	/**
+	 * Start a record, an opcode and up to seven operands fit.
+	 */
+	private void record(int op) {
+		writePending();
+		ensure(36);
+		buffer.put((byte)op);
+		numRecords++;
+	}
+	
+	/**
+	 * Write i + 1 as unsigned variable length integer, i >= -1.
+	 */
+	private void putIndex(int i) {
+		int v = i + 1;
+		while ((v & ~0x7f) != 0) {
+			buffer.put((byte)((v & 0x7f) | 0x80));
+			v >>>= 7;
+		}
+		buffer.put((byte)v);
+	}
+	
+	private static int index(Node<?, ?, ?> n) {
+		return n == null ? -1 : n.getIndex();
+	}
+	
+	synchronized void add(int op) {
+		if (pendingCount > 0 && pendingOp != op) {
+			writePending();
+		}
+		pendingOp = op;
+		pendingCount++;
+	}
+	
+	synchronized void write(int op, Node<?, ?, ?> n) {
+		record(op);
+		putIndex(index(n));
+	}
+	
+	synchronized void write(int op, Node<?, ?, ?> n1, Node<?, ?, ?> n2) {
+		record(op);
+		putIndex(index(n1));
+		putIndex(index(n2));
+	}
+	
+	synchronized void setIsPositive(Edge<?, ?, ?> e, boolean positive) {
+		record(SET_POSITIVE);
+		putIndex(e.getIndex());
+		putIndex(positive ? 1 : 0);
+	}
+	
+	/**
+	 * Record all links of an edge that were written directly.
+	 */
+	synchronized void edge(Edge<?, ?, ?> e) {
+		record(EDGE);
+		putIndex(e.getIndex());
+		putIndex(index(e.nextEdge));
+		putIndex(index(e.previousEdge));
+		putIndex(index(e.oppositeEdge));
+		putIndex(index(e.targetVertex));
+		putIndex(index(e.leftFace));
+		putIndex(e.isPositive ? 1 : 0);
+	}
+	
+	synchronized void permute(int[] vertexOrder, int[] edgeOrder, int[] faceOrder) {
+		record(PERMUTE);
+		putOrder(vertexOrder);
+		putOrder(edgeOrder);
+		putOrder(faceOrder);
+	}
+	
+	private void putOrder(int[] order) {
+		ensure(5);
+		if (order == null) {
+			putIndex(-1);
+			return;
+		}
+		putIndex(order.length);
+		for (int i : order) {
+			ensure(5);
+			putIndex(i);
+		}
+	}
+	
+	synchronized void write(int op) {
+		record(op);
+	}
+	
+	/**
+	 * Record a commit and the anchors that were repaired after the commit.
+	 */
+	synchronized void commit(Collection<? extends Node<?, ?, ?>> modified) {
+		record(COMMIT);
+		for (Node<?, ?, ?> n : modified) {
+			if (n.hds == hds && n instanceof Edge) {
+				Edge<?, ?, ?> e = (Edge<?, ?, ?>)n;
+				Vertex<?, ?, ?> v = e.targetVertex;
+				if (v != null && v.hds == hds) {
+					write(SET_INCOMING, v, v.incomingEdge);
+				}
+				Face<?, ?, ?> f = e.leftFace;
+				if (f != null && f.hds == hds) {
+					write(SET_BOUNDARY, f, f.boundaryEdge);
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Apply the records of a journal up to its last complete checkpoint to a half-edge data structure. 
+	 * The half-edge data structure must be in the state in which the journal was attached, 
+	 * e.g., restored from a snapshot with the same indices. 
+	 * 
+	 * @param channel the journal, starting with its header
+	 * @param hds the half-edge data structure to modify
+	 * @return the length of the journal up to the end of the last checkpoint, 
+	 * the position at which the journal can be continued
+	 * @throws IOException if the journal cannot be read, is corrupt, or does not match hds
+	 */
+	public static long replay(ReadableByteChannel channel, HalfEdgeDataStructure<?, ?, ?> hds) throws IOException {
+		ChannelInput in = new ChannelInput(channel);
+		int magic = 0, version = 0;
+		for (int i = 0; i < 4; i++) {
+			magic |= in.next() << (8 * i);
+		}
+		for (int i = 0; i < 4; i++) {
+			version |= in.next() << (8 * i);
+		}
+		if (magic != MAGIC) {
+			throw new IOException("Not a half-edge journal.");
+		}
+		if (version != VERSION) {
+			throw new IOException("Unsupported journal version " + version + ".");
+		}
+		long valid = in.length;
+		in.length = 0;
+		// scan the records of a segment and apply it when its checkpoint is complete
+		while (true) {
+			int op = in.read();
+			if (op < 0) {
+				break;
+			}
+			try {
+				apply(op, in, null);
+			} catch (EOFException e) {
+				break;
+			}
+			if (op == CHECKPOINT) {
+				ArrayInput segment = new ArrayInput(in.segment, in.length);
+				while (segment.position < segment.limit) {
+					apply(segment.read(), segment, hds);
+				}
+				valid += in.length;
+				in.length = 0;
+			}
+		}
+		return valid;
+	}
+	
+	/**
+	 * Read the operands of a record and apply it to hds if hds is not <code>null</code>.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void apply(int op, Input in, HalfEdgeDataStructure hds) throws IOException {
+		switch (op) {
+		case ADD_VERTICES: {
+			int n = readIndex(in) + 1;
+			if (hds != null) hds.addNewVertices(n);
+			break;
+		}
+		case ADD_EDGES: {
+			int n = readIndex(in) + 1;
+			if (hds != null) hds.addNewEdges(n);
+			break;
+		}
+		case ADD_FACES: {
+			int n = readIndex(in) + 1;
+			if (hds != null) hds.addNewFaces(n);
+			break;
+		}
+		case REMOVE_VERTEX: {
+			int v = readIndex(in);
+			if (hds != null) hds.removeVertex(vertex(hds, v));
+			break;
+		}
+		case REMOVE_EDGE: {
+			int e = readIndex(in);
+			if (hds != null) hds.removeEdge(edge(hds, e));
+			break;
+		}
+		case REMOVE_FACE: {
+			int f = readIndex(in);
+			if (hds != null) hds.removeFace(face(hds, f));
+			break;
+		}
+		case LINK_NEXT: {
+			int e = readIndex(in), x = readIndex(in);
+			if (hds != null) edge(hds, e).linkNextEdge(edge(hds, x));
+			break;
+		}
+		case LINK_PREVIOUS: {
+			int e = readIndex(in), x = readIndex(in);
+			if (hds != null) edge(hds, e).linkPreviousEdge(edge(hds, x));
+			break;
+		}
+		case LINK_OPPOSITE: {
+			int e = readIndex(in), x = readIndex(in);
+			if (hds != null) edge(hds, e).linkOppositeEdge(edge(hds, x));
+			break;
+		}
+		case SET_TARGET: {
+			int e = readIndex(in), v = readIndex(in);
+			if (hds != null) edge(hds, e).setTargetVertex(vertex(hds, v));
+			break;
+		}
+		case SET_LEFT_FACE: {
+			int e = readIndex(in), f = readIndex(in);
+			if (hds != null) edge(hds, e).setLeftFace(face(hds, f));
+			break;
+		}
+		case SET_POSITIVE: {
+			int e = readIndex(in), s = readIndex(in);
+			if (hds != null) edge(hds, e).setIsPositive(s != 0);
+			break;
+		}
+		case SET_INCOMING: {
+			int v = readIndex(in), e = readIndex(in);
+			if (hds != null) {
+				Vertex vv = vertex(hds, v);
+				vv.beforeChange();
+				vv.incomingEdge = edge(hds, e);
+			}
+			break;
+		}
+		case SET_BOUNDARY: {
+			int f = readIndex(in), e = readIndex(in);
+			if (hds != null) {
+				Face ff = face(hds, f);
+				ff.beforeChange();
+				ff.boundaryEdge = edge(hds, e);
+			}
+			break;
+		}
+		case EDGE: {
+			int e = readIndex(in), next = readIndex(in), previous = readIndex(in), opposite = readIndex(in), 
+				target = readIndex(in), face = readIndex(in), positive = readIndex(in);
+			if (hds != null) {
+				Edge ee = edge(hds, e);
+				ee.beforeChange();
+				ee.nextEdge = edge(hds, next);
+				ee.previousEdge = edge(hds, previous);
+				ee.oppositeEdge = edge(hds, opposite);
+				ee.targetVertex = vertex(hds, target);
+				ee.leftFace = face(hds, face);
+				ee.isPositive = positive != 0;
+			}
+			break;
+		}
+		case PERMUTE: {
+			int[] vertexOrder = readOrder(in), edgeOrder = readOrder(in), faceOrder = readOrder(in);
+			if (hds != null) hds.permute(vertexOrder, edgeOrder, faceOrder);
+			break;
+		}
+		case CLEAR:
+			if (hds != null) hds.clear();
+			break;
+		case BEGIN:
+			if (hds != null) hds.beginTransaction();
+			break;
+		case COMMIT:
+			if (hds != null) transaction(hds).commit();
+			break;
+		case ROLLBACK:
+			if (hds != null) transaction(hds).rollback();
+			break;
+		case CHECKPOINT: {
+			int nv = readIndex(in), ne = readIndex(in), nf = readIndex(in);
+			if (hds != null && (nv != hds.numVertices() || ne != hds.numEdges() || nf != hds.numFaces())) {
+				throw new IOException("The journal does not match " + hds + ".");
+			}
+			break;
+		}
+		default:
+			throw new IOException("Corrupt journal, unknown record " + op + ".");
+		}
+	}
+	
+	private static Transaction<?, ?, ?> transaction(HalfEdgeDataStructure<?, ?, ?> hds) throws IOException {
+		Transaction<?, ?, ?> t = hds.transaction;
+		if (t == null) {
+			throw new IOException("Corrupt journal, no transaction is open.");
+		}
+		return t;
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static Vertex vertex(HalfEdgeDataStructure<?, ?, ?> hds, int i) throws IOException {
+		if (i < 0) return null;
+		if (i >= hds.numVertices()) throw new IOException("The journal does not match " + hds + ", vertex " + i + ".");
+		return hds.getVertex(i);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static Edge edge(HalfEdgeDataStructure<?, ?, ?> hds, int i) throws IOException {
+		if (i < 0) return null;
+		if (i >= hds.numEdges()) throw new IOException("The journal does not match " + hds + ", edge " + i + ".");
+		return hds.getEdge(i);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static Face face(HalfEdgeDataStructure<?, ?, ?> hds, int i) throws IOException {
+		if (i < 0) return null;
+		if (i >= hds.numFaces()) throw new IOException("The journal does not match " + hds + ", face " + i + ".");
+		return hds.getFace(i);
+	}
+	
+	private static int readIndex(Input in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.next();
+			v |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return v - 1;
+			}
+		}
+		throw new IOException("Corrupt journal, integer too long.");
+	}
+	
+	private static int[] readOrder(Input in) throws IOException {
+		int n = readIndex(in);
+		if (n < 0) {
+			return null;
+		}
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = readIndex(in);
+		}
+		return order;
+	}
+	
+	
+	private static abstract class Input {
+		
+		/**
+		 * @return the next byte or -1 at the end of the input
+		 */
+		abstract int read() throws IOException;
+		
+		/**
+		 * @return the next byte
+		 * @throws EOFException at the end of the input
+		 */
+		int next() throws IOException {
+			int b = read();
+			if (b < 0) {
+				throw new EOFException("Truncated journal record.");
+			}
+			return b;
+		}
+		
+	}
+	
+	/**
+	 * Reads a channel and keeps the bytes of the current segment.
+	 */
+	private static final class ChannelInput extends Input {
+		
+		private final ReadableByteChannel
+			channel;
+		private final ByteBuffer
+			buffer = ByteBuffer.allocate(1 << 16);
+		byte[]
+			segment = new byte[1 << 12];
+		int
+			length = 0;
+		
+		ChannelInput(ReadableByteChannel channel) {
+			this.channel = channel;
+			buffer.limit(0);
+		}
+		
+		@Override
+		int read() throws IOException {
+			if (!buffer.hasRemaining()) {
+				buffer.clear();
+				int n = 0;
+				while (n == 0) {
+					n = channel.read(buffer);
+				}
+				buffer.flip();
+				if (n < 0) {
+					return -1;
+				}
+			}
+			if (length == segment.length) {
+				byte[] s = new byte[2 * length];
+				System.arraycopy(segment, 0, s, 0, length);
+				segment = s;
+			}
+			byte b = buffer.get();
+			segment[length++] = b;
+			return b & 0xff;
+		}
+		
+	}
+	
+	private static final class ArrayInput extends Input {
+		
+		private final byte[]
+			data;
+		final int
+			limit;
+		int 
+			position = 0;
+		
+		ArrayInput(byte[] data, int limit) {
+			this.data = data;
+			this.limit = limit;
+		}
+		
+		@Override
+		int read() {
+			return position < limit ? data[position++] & 0xff : -1;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,342 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * An estimate of the memory used by a half-edge data structure, see 
+ * {@link HalfEdgeDataStructure#memoryFootprint()}.
+ * <p>
+ * For each kind of node the footprint is split into
+ * <ul>
+ * <li>the node list: the list object and its backing array,</li>
+ * <li>the node objects with the fields declared by {@link Node}, {@link Vertex}, 
+ * {@link Edge}, and {@link Face},</li>
+ * <li>the fields declared by user subclasses of the node classes,</li>
+ * <li>the attributes: every distinct object that is referenced by a field of a user subclass, 
+ * except nodes and half-edge data structures. Attributes are measured shallow, i.e., 
+ * a <code>double[]</code> is counted completely, an object only with its own fields.</li>
+ * </ul>
+ * Object sizes are derived from the declared fields with the layout of the running 
+ * virtual machine (header size, compressed references, 8 byte alignment). 
+ * Attributes are found by one walk over the nodes. The spare capacity of the node 
+ * lists is not visible and not included, so the list sizes are lower bounds.
+ */
+public final class MemoryFootprint {
+
+	private static final int
+		REFERENCE,
+		HEADER,
+		ARRAY_HEADER,
+		ALIGNMENT = 8;
+	
+	static {
+		boolean is64 = !"32".equals(System.getProperty("sun.arch.data.model"));
+		boolean compressed = is64 && compressedReferences();
+		REFERENCE = is64 && !compressed ? 8 : 4;
+		HEADER = is64 ? (compressed ? 12 : 16) : 8;
+		ARRAY_HEADER = is64 ? (compressed ? 16 : 24) : 12;
+	}
+	
+	private static final Map<Class<?>, Long>
+		instanceSizes = new IdentityHashMap<Class<?>, Long>();
+	
+	/**
+	 * The footprint of the nodes of one kind.
+	 */
+	public static final class Part {
+		
+		private final int
+			count;
+		private final long
+			listBytes,
+			nodeBytes,
+			userFieldBytes,
+			attributeBytes;
+		
+		private Part(List<? extends Node<?,?,?>> list) {
+			count = list.size();
+			listBytes = instanceSize(list.getClass()) + arraySize(REFERENCE, count);
+			Class<?> last = null;
+			long nodeSize = 0, userSize = 0;
+			List<Field> attributeFields = null;
+			Map<Object, Boolean> attributes = new IdentityHashMap<Object, Boolean>();
+			long nodes = 0, user = 0, attr = 0;
+			for (Node<?,?,?> n : list) {
+				Class<?> c = n.getClass();
+				if (c != last) {
+					last = c;
+					nodeSize = align(HEADER + fieldBytes(c, true));
+					userSize = align(HEADER + fieldBytes(c, true) + fieldBytes(c, false)) - nodeSize;
+					attributeFields = attributeFields(c);
+				}
+				nodes += nodeSize;
+				user += userSize;
+				for (Field f : attributeFields) {
+					Object value = null;
+					try {
+						value = f.get(n);
+					} catch (IllegalAccessException e) {
+						continue;
+					}
+					if (value == null || value instanceof Node || value instanceof HalfEdgeDataStructure) {
+						continue;
+					}
+					if (attributes.put(value, Boolean.TRUE) == null) {
+						attr += shallowSize(value);
+					}
+				}
+			}
+			nodeBytes = nodes;
+			userFieldBytes = user;
+			attributeBytes = attr;
+		}
+		
+		/**
+		 * @return the number of nodes
+		 */
+		public int getCount() {
+			return count;
+		}
+		/**
+		 * @return the bytes of the node list object and its backing array
+		 */
+		public long getListBytes() {
+			return listBytes;
+		}
+		/**
+		 * @return the bytes of the node objects without the fields of user subclasses
+		 */
+		public long getNodeBytes() {
+			return nodeBytes;
+		}
+		/**
+		 * @return the bytes added to the node objects by the fields of user subclasses
+		 */
+		public long getUserFieldBytes() {
+			return userFieldBytes;
+		}
+		/**
+		 * @return the bytes of the distinct objects referenced by user subclass fields
+		 */
+		public long getAttributeBytes() {
+			return attributeBytes;
+		}
+		/**
+		 * @return the sum of all parts
+		 */
+		public long getTotalBytes() {
+			return listBytes + nodeBytes + userFieldBytes + attributeBytes;
+		}
+		/**
+		 * @return the total bytes divided by the number of nodes, or 0 if there are no nodes
+		 */
+		public double getBytesPerNode() {
+			return count == 0 ? 0 : getTotalBytes() / (double)count;
+		}
+		
+		public String toString() {
+			return count + " (" + String.format("%.1f", getBytesPerNode()) + " bytes each; " +
+				"list " + listBytes + ", nodes " + nodeBytes + ", user fields " + userFieldBytes + 
+				", attributes " + attributeBytes + ")";
+		}
+		
+	}
+	
+	private final Part
+		vertices,
+		edges,
+		faces;
+	
+	MemoryFootprint(List<? extends Vertex<?,?,?>> vertexList, List<? extends Edge<?,?,?>> edgeList, List<? extends Face<?,?,?>> faceList) {
+		vertices = new Part(vertexList);
+		edges = new Part(edgeList);
+		faces = new Part(faceList);
+	}
+	
+	/**
+	 * @return the footprint of the vertices
+	 */
+	public Part getVertexFootprint() {
+		return vertices;
+	}
+	/**
+	 * @return the footprint of the edges
+	 */
+	public Part getEdgeFootprint() {
+		return edges;
+	}
+	/**
+	 * @return the footprint of the faces
+	 */
+	public Part getFaceFootprint() {
+		return faces;
+	}
+	/**
+	 * @return the bytes of the three node lists
+	 */
+	public long getListBytes() {
+		return vertices.listBytes + edges.listBytes + faces.listBytes;
+	}
+	/**
+	 * @return the bytes of all node objects without the fields of user subclasses
+	 */
+	public long getNodeBytes() {
+		return vertices.nodeBytes + edges.nodeBytes + faces.nodeBytes;
+	}
+	/**
+	 * @return the bytes added to all node objects by the fields of user subclasses
+	 */
+	public long getUserFieldBytes() {
+		return vertices.userFieldBytes + edges.userFieldBytes + faces.userFieldBytes;
+	}
+	/**
+	 * @return the bytes of the attributes of all nodes
+	 */
+	public long getAttributeBytes() {
+		return vertices.attributeBytes + edges.attributeBytes + faces.attributeBytes;
+	}
+	/**
+	 * @return the total estimate in bytes
+	 */
+	public long getTotalBytes() {
+		return vertices.getTotalBytes() + edges.getTotalBytes() + faces.getTotalBytes();
+	}
+	
+	public String toString() {
+		return "vertices " + vertices + ", edges " + edges + ", faces " + faces + ", total " + getTotalBytes() + " bytes";
+	}
+	
+	
+	private static boolean compressedReferences() {
+		try {
+			HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+			return Boolean.parseBoolean(hotspot.getVMOption("UseCompressedOops").getValue());
+		} catch (Throwable t) {
+			// not a HotSpot virtual machine, compressed references are the default below 32 GB
+			return Runtime.getRuntime().maxMemory() < (32L << 30);
+		}
+	}
+	
+	private static long align(long bytes) {
+		return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+	
+	private static int size(Class<?> type) {
+		if (type == long.class || type == double.class) {
+			return 8;
+		} else if (type == int.class || type == float.class) {
+			return 4;
+		} else if (type == short.class || type == char.class) {
+			return 2;
+		} else if (type == byte.class || type == boolean.class) {
+			return 1;
+		} else {
+			return REFERENCE;
+		}
+	}
+	
+	private static boolean isLibraryClass(Class<?> c) {
+		return c == Node.class || c == Vertex.class || c == Edge.class || c == Face.class || c == Object.class;
+	}
+	
+	/**
+	 * Sums the sizes of the instance fields of c and its super classes, either 
+	 * those declared by the library classes or those declared by all others.
+	 */
+	private static long fieldBytes(Class<?> c, boolean library) {
+		long bytes = 0;
+		for (; c != null; c = c.getSuperclass()) {
+			if (isLibraryClass(c) != library) {
+				continue;
+			}
+			for (Field f : c.getDeclaredFields()) {
+				if (!Modifier.isStatic(f.getModifiers())) {
+					bytes += size(f.getType());
+				}
+			}
+		}
+		return bytes;
+	}
+	
+	private static List<Field> attributeFields(Class<?> c) {
+		List<Field> fields = new ArrayList<Field>();
+		for (; !isLibraryClass(c); c = c.getSuperclass()) {
+			for (Field f : c.getDeclaredFields()) {
+				if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) {
+					continue;
+				}
+				try {
+					f.setAccessible(true);
+					fields.add(f);
+				} catch (RuntimeException e) {
+					// not accessible, the attribute is not counted
+				}
+			}
+		}
+		return fields;
+	}
+	
+	private static long arraySize(int elementSize, int length) {
+		return align(ARRAY_HEADER + (long)elementSize * length);
+	}
+	
+	private static synchronized long instanceSize(Class<?> c) {
+		Long size = instanceSizes.get(c);
+		if (size == null) {
+			size = align(HEADER + fieldBytes(c, false) + fieldBytes(c, true));
+			instanceSizes.put(c, size);
+		}
+		return size;
+	}
+	
+	private static long shallowSize(Object o) {
+		Class<?> c = o.getClass();
+		if (c.isArray()) {
+			return arraySize(size(c.getComponentType()), Array.getLength(o));
+		}
+		return instanceSize(c);
+	}
+	
+}
@@ -0,0 +1,309 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters for the hot paths of a half-edge data structure. 
+ * Attach an instance with {@link HalfEdgeDataStructure#setMetrics(Metrics)}, 
+ * the same instance may be shared by several structures. Without metrics the 
+ * hot paths only pay a null check.
+ * <p>
+ * The counters cover
+ * <ul>
+ * <li>reindexing of the node lists: calls, elements touched, and time,</li>
+ * <li>the slow path of {@link Vertex#getIncomingEdge()} and {@link Face#getBoundaryEdge()} 
+ * that scans the edge list for a new anchor: calls, edges scanned, and time,</li>
+ * <li>removals from the node lists and the number of elements shifted by them,</li>
+ * <li>traversals in {@link de.jtem.halfedge.util.HalfEdgeUtils} that allocate a 
+ * result list: calls and elements collected.</li>
+ * </ul>
+ * Counters are {@link LongAdder}s and may be updated concurrently. Use {@link #snapshot()} 
+ * for a consistent copy, or {@link #register(String)} to expose them via JMX.
+ */
+public final class Metrics implements MetricsMBean {
+
+	/** The JMX domain of registered metrics */
+	public static final String
+		DOMAIN = "de.jtem.halfedge";
+	
+	private final LongAdder
+		reindexCount = new LongAdder(),
+		reindexedElements = new LongAdder(),
+		reindexNanos = new LongAdder(),
+		anchorScanCount = new LongAdder(),
+		anchorScannedElements = new LongAdder(),
+		anchorScanNanos = new LongAdder(),
+		removalCount = new LongAdder(),
+		removalShiftedElements = new LongAdder(),
+		traversalCount = new LongAdder(),
+		traversedElements = new LongAdder();
+	private ObjectName
+		name = null;
+	
+	void reindexed(int elements, long nanos) {
+		reindexCount.increment();
+		reindexedElements.add(elements);
+		reindexNanos.add(nanos);
+	}
+	
+	void anchorScanned(int elements, long nanos) {
+		anchorScanCount.increment();
+		anchorScannedElements.add(elements);
+		anchorScanNanos.add(nanos);
+	}
+	
+	void removed(int shifted) {
+		removalCount.increment();
+		removalShiftedElements.add(shifted);
+	}
+	
+	/**
+	 * Record a traversal that collected the given number of elements.
+	 * Called by the traversal methods of {@link de.jtem.halfedge.util.HalfEdgeUtils}.
+	 * @param elements the number of collected elements
+	 */
+	public void traversed(int elements) {
+		traversalCount.increment();
+		traversedElements.add(elements);
+	}
+	
+	@Override
+	public long getReindexCount() {
+		return reindexCount.sum();
+	}
+	
+	@Override
+	public long getReindexedElements() {
+		return reindexedElements.sum();
+	}
+	
+	@Override
+	public long getReindexNanos() {
+		return reindexNanos.sum();
+	}
+	
+	@Override
+	public long getAnchorScanCount() {
+		return anchorScanCount.sum();
+	}
+	
+	@Override
+	public long getAnchorScannedElements() {
+		return anchorScannedElements.sum();
+	}
+	
+	@Override
+	public long getAnchorScanNanos() {
+		return anchorScanNanos.sum();
+	}
+	
+	@Override
+	public long getRemovalCount() {
+		return removalCount.sum();
+	}
+	
+	@Override
+	public long getRemovalShiftedElements() {
+		return removalShiftedElements.sum();
+	}
+	
+	@Override
+	public long getTraversalCount() {
+		return traversalCount.sum();
+	}
+	
+	@Override
+	public long getTraversedElements() {
+		return traversedElements.sum();
+	}
+	
+	/**
+	 * Reset all counters to zero. Updates that run concurrently may or may not be counted.
+	 */
+	@Override
+	public void reset() {
+		reindexCount.reset();
+		reindexedElements.reset();
+		reindexNanos.reset();
+		anchorScanCount.reset();
+		anchorScannedElements.reset();
+		anchorScanNanos.reset();
+		removalCount.reset();
+		removalShiftedElements.reset();
+		traversalCount.reset();
+		traversedElements.reset();
+	}
+	
+	/**
+	 * Return a copy of the current counter values.
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+	
+	/**
+	 * Register these metrics with the platform MBean server under the 
+	 * object name <code>de.jtem.halfedge:type=Metrics,name=&lt;name&gt;</code>.
+	 * @param name the name property of the object name
+	 * @return the object name
+	 * @throws RuntimeException if these metrics are already registered, or the 
+	 * registration fails
+	 */
+	public synchronized ObjectName register(String name) throws RuntimeException {
+		if (this.name != null) {
+			throw new RuntimeException("Metrics are already registered as " + this.name + ".");
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName n = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(name));
+			server.registerMBean(this, n);
+			this.name = n;
+			return n;
+		} catch (JMException e) {
+			throw new RuntimeException("Could not register metrics as " + name + ".", e);
+		}
+	}
+	
+	/**
+	 * Unregister these metrics from the platform MBean server. 
+	 * Does nothing if they are not registered.
+	 */
+	public synchronized void unregister() {
+		if (name == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(name);
+		} catch (JMException e) {
+			throw new RuntimeException("Could not unregister metrics " + name + ".", e);
+		} finally {
+			name = null;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+	
+	
+	/**
+	 * An immutable copy of the counters of a {@link Metrics} instance.
+	 */
+	public static final class Snapshot {
+		
+		private final long
+			reindexCount,
+			reindexedElements,
+			reindexNanos,
+			anchorScanCount,
+			anchorScannedElements,
+			anchorScanNanos,
+			removalCount,
+			removalShiftedElements,
+			traversalCount,
+			traversedElements;
+		
+		private Snapshot(Metrics m) {
+			reindexCount = m.getReindexCount();
+			reindexedElements = m.getReindexedElements();
+			reindexNanos = m.getReindexNanos();
+			anchorScanCount = m.getAnchorScanCount();
+			anchorScannedElements = m.getAnchorScannedElements();
+			anchorScanNanos = m.getAnchorScanNanos();
+			removalCount = m.getRemovalCount();
+			removalShiftedElements = m.getRemovalShiftedElements();
+			traversalCount = m.getTraversalCount();
+			traversedElements = m.getTraversedElements();
+		}
+		
+		public long getReindexCount() {
+			return reindexCount;
+		}
+		
+		public long getReindexedElements() {
+			return reindexedElements;
+		}
+		
+		public long getReindexNanos() {
+			return reindexNanos;
+		}
+		
+		public long getAnchorScanCount() {
+			return anchorScanCount;
+		}
+		
+		public long getAnchorScannedElements() {
+			return anchorScannedElements;
+		}
+		
+		public long getAnchorScanNanos() {
+			return anchorScanNanos;
+		}
+		
+		public long getRemovalCount() {
+			return removalCount;
+		}
+		
+		public long getRemovalShiftedElements() {
+			return removalShiftedElements;
+		}
+		
+		public long getTraversalCount() {
+			return traversalCount;
+		}
+		
+		public long getTraversedElements() {
+			return traversedElements;
+		}
+		
+		@Override
+		public String toString() {
+			return "reindex " + reindexCount + " (" + reindexedElements + " elements, " + reindexNanos / 1000 + " us), " +
+				"anchor scans " + anchorScanCount + " (" + anchorScannedElements + " edges, " + anchorScanNanos / 1000 + " us), " +
+				"removals " + removalCount + " (" + removalShiftedElements + " shifted), " +
+				"traversals " + traversalCount + " (" + traversedElements + " elements)";
+		}
+		
+	}
+	
+}
@@ -69,6 +69,16 @@ abstract public class Node <
 	final void setIndex(int index) {
 		this.index = index;
 	}
+	
+	/**
+	 * Must be called before any field of this node is modified. Saves the state 
+	 * of this node if a {@link Transaction} is open.
+	 */
+	final void beforeChange() {
+		if (hds != null && hds.transaction != null) {
+			hds.transaction.save(this);
+		}
+	}
 
 	@Override
 	public String toString() {
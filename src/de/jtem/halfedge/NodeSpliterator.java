@@ -0,0 +1,153 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over an index range of a node list, optionally restricted to positive 
+ * or negative edges. Ranges are split in halves, so unfiltered spliterators are sized 
+ * exactly on all levels. The list is bound on the first traversal, split, or size query, 
+ * from then on every element is preceded by a check of the modification count.
+ * 
+ * @param <N> the node type
+ */
+final class NodeSpliterator<N extends Node<?,?,?>> implements Spliterator<N> {
+
+	static final int
+		ALL = 0,
+		POSITIVE = 1,
+		NEGATIVE = 2;
+	
+	private final NodeList<N>
+		list;
+	private final int
+		filter;
+	private int
+		index,
+		fence,
+		expectedVersion;
+	
+	NodeSpliterator(NodeList<N> list, int filter) {
+		this(list, 0, -1, 0, filter);
+	}
+	
+	private NodeSpliterator(NodeList<N> list, int origin, int fence, int expectedVersion, int filter) {
+		this.list = list;
+		this.index = origin;
+		this.fence = fence;
+		this.expectedVersion = expectedVersion;
+		this.filter = filter;
+	}
+	
+	private int getFence() {
+		if (fence < 0) {
+			expectedVersion = list.version();
+			fence = list.size();
+		}
+		return fence;
+	}
+	
+	private void checkVersion() throws ConcurrentModificationException {
+		if (list.version() != expectedVersion) {
+			throw new ConcurrentModificationException();
+		}
+	}
+	
+	private boolean accept(N n) {
+		return filter == ALL || ((Edge<?,?,?>)n).isPositive() == (filter == POSITIVE);
+	}
+	
+	@Override
+	public Spliterator<N> trySplit() {
+		int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+		if (lo >= mid) {
+			return null;
+		}
+		index = mid;
+		return new NodeSpliterator<N>(list, lo, mid, expectedVersion, filter);
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super N> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int hi = getFence();
+		while (index < hi) {
+			checkVersion();
+			N n = list.get(index++);
+			if (accept(n)) {
+				action.accept(n);
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void forEachRemaining(Consumer<? super N> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		int hi = getFence();
+		for (int i = index; i < hi; i++) {
+			checkVersion();
+			N n = list.get(i);
+			if (accept(n)) {
+				action.accept(n);
+			}
+		}
+		index = hi;
+		checkVersion();
+	}
+	
+	/**
+	 * The exact size if unfiltered, otherwise half of the range.
+	 */
+	@Override
+	public long estimateSize() {
+		int size = getFence() - index;
+		return filter == ALL ? size : size / 2;
+	}
+	
+	@Override
+	public int characteristics() {
+		int c = Spliterator.ORDERED | Spliterator.NONNULL;
+		return filter == ALL ? c | Spliterator.SIZED | Spliterator.SUBSIZED : c;
+	}
+	
+}
@@ -0,0 +1,315 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The coalesced structural changes of a {@link HalfEdgeDataStructure} during one batch. 
+ * <p>
+ * A batch is a {@linkplain HalfEdgeDataStructure#beginBatch() explicit batch}, a 
+ * {@linkplain Transaction transaction}, a bulk operation such as 
+ * {@link HalfEdgeDataStructure#addNewEdges(int)} or {@link HalfEdgeDataStructure#removeEdge(Edge)}, 
+ * or a single link or set method called outside of these. Each node is reported at most once:
+ * nodes added and removed within the batch are not reported, added nodes are not reported as 
+ * modified, and modified nodes are the nodes whose links or anchors changed, or which lost a 
+ * neighbor. The changes of a rolled back transaction are reported conservatively, i.e., 
+ * restored nodes may be reported as modified. 
+ * 
+ * @param <V> the vertex class of the half-edge data structure
+ * @param <E> the edge class of the half-edge data structure
+ * @param <F> the face class of the half-edge data structure
+ * @see HalfEdgeListener
+ */
+public final class StructureChange <
+	V extends Vertex<V, E, F>,
+	E extends Edge<V, E, F>,
+	F extends Face<V, E, F>
+> {
+
+	static final int
+		VERTEX = 0,
+		EDGE = 1,
+		FACE = 2;
+	
+	private final HalfEdgeDataStructure<V, E, F>
+		hds;
+	private final int[]
+		start = new int[3];
+	private final int[][]
+		order = new int[3][];
+	private final boolean[]
+		reindexed = new boolean[3],
+		unknownOrder = new boolean[3];
+	private final Set<Node<?, ?, ?>>
+		added = new LinkedHashSet<Node<?, ?, ?>>(),
+		removed = new LinkedHashSet<Node<?, ?, ?>>(),
+		modified = new LinkedHashSet<Node<?, ?, ?>>();
+	private final List<V>
+		addedVertices = new ArrayList<V>(),
+		removedVertices = new ArrayList<V>(),
+		modifiedVertices = new ArrayList<V>();
+	private final List<E>
+		addedEdges = new ArrayList<E>(),
+		removedEdges = new ArrayList<E>(),
+		modifiedEdges = new ArrayList<E>();
+	private final List<F>
+		addedFaces = new ArrayList<F>(),
+		removedFaces = new ArrayList<F>(),
+		modifiedFaces = new ArrayList<F>();
+	
+	StructureChange(HalfEdgeDataStructure<V, E, F> hds) {
+		this.hds = hds;
+		start[VERTEX] = hds.vertexList.size();
+		start[EDGE] = hds.edgeList.size();
+		start[FACE] = hds.faceList.size();
+	}
+	
+	synchronized void added(Node<?, ?, ?> n) {
+		added.add(n);
+	}
+	
+	synchronized void removed(Node<?, ?, ?> n) {
+		removed.add(n);
+	}
+	
+	/**
+	 * Record a node that is removed from its list.
+	 * @param shifted true if nodes behind n may be shifted
+	 */
+	synchronized void removed(Node<?, ?, ?> n, int kind, boolean shifted) {
+		removed.add(n);
+		if (shifted || order[kind] != null) {
+			reindexed(kind);
+		}
+	}
+	
+	synchronized void modified(Node<?, ?, ?> n1, Node<?, ?, ?> n2, Node<?, ?, ?> n3, Node<?, ?, ?> n4) {
+		if (n1 != null) modified.add(n1);
+		if (n2 != null) modified.add(n2);
+		if (n3 != null) modified.add(n3);
+		if (n4 != null) modified.add(n4);
+	}
+	
+	synchronized void modified(Collection<? extends Node<?, ?, ?>> nodes) {
+		modified.addAll(nodes);
+	}
+	
+	/**
+	 * The indices of the given kind have changed in an unknown way.
+	 */
+	synchronized void reindexed(int kind) {
+		reindexed[kind] = true;
+		unknownOrder[kind] = true;
+		order[kind] = null;
+	}
+	
+	/**
+	 * Compose the permutation of the given kind with the previous permutations.
+	 */
+	synchronized void permuted(int kind, int[] permutation) {
+		if (permutation == null) {
+			return;
+		}
+		reindexed[kind] = true;
+		if (unknownOrder[kind]) {
+			return;
+		}
+		int[] previous = order[kind];
+		int[] o = new int[permutation.length];
+		for (int i = 0; i < o.length; i++) {
+			int j = permutation[i];
+			if (previous == null) {
+				o[i] = j < start[kind] ? j : -1;
+			} else {
+				o[i] = j < previous.length ? previous[j] : -1;
+			}
+		}
+		order[kind] = o;
+	}
+	
+	/**
+	 * Sort the recorded nodes into the lists of valid added, removed, and modified nodes.
+	 * @return true if anything has changed
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized boolean seal() {
+		for (Node<?, ?, ?> n : added) {
+			if (n.hds == hds) {
+				list(n, addedVertices, addedEdges, addedFaces).add(n);
+			}
+		}
+		for (Node<?, ?, ?> n : removed) {
+			if (n.hds != hds && !added.contains(n)) {
+				list(n, removedVertices, removedEdges, removedFaces).add(n);
+			}
+		}
+		for (Node<?, ?, ?> n : modified) {
+			if (n.hds == hds && !added.contains(n)) {
+				list(n, modifiedVertices, modifiedEdges, modifiedFaces).add(n);
+			}
+		}
+		added.clear();
+		removed.clear();
+		modified.clear();
+		return reindexed[VERTEX] || reindexed[EDGE] || reindexed[FACE] 
+			|| !addedVertices.isEmpty() || !addedEdges.isEmpty() || !addedFaces.isEmpty()
+			|| !removedVertices.isEmpty() || !removedEdges.isEmpty() || !removedFaces.isEmpty()
+			|| !modifiedVertices.isEmpty() || !modifiedEdges.isEmpty() || !modifiedFaces.isEmpty();
+	}
+	
+	@SuppressWarnings("rawtypes")
+	private static List list(Node<?, ?, ?> n, List vertices, List edges, List faces) {
+		return n instanceof Vertex ? vertices : n instanceof Edge ? edges : faces;
+	}
+	
+	/**
+	 * Return the half-edge data structure that has changed.
+	 * @return the half-edge data structure
+	 */
+	public HalfEdgeDataStructure<V, E, F> getHalfEdgeDataStructure() {
+		return hds;
+	}
+	
+	/**
+	 * @return the vertices added in this batch
+	 */
+	public List<V> getAddedVertices() {
+		return Collections.unmodifiableList(addedVertices);
+	}
+	
+	/**
+	 * @return the edges added in this batch
+	 */
+	public List<E> getAddedEdges() {
+		return Collections.unmodifiableList(addedEdges);
+	}
+	
+	/**
+	 * @return the faces added in this batch
+	 */
+	public List<F> getAddedFaces() {
+		return Collections.unmodifiableList(addedFaces);
+	}
+	
+	/**
+	 * @return the vertices that existed before and were removed in this batch, they are invalid
+	 */
+	public List<V> getRemovedVertices() {
+		return Collections.unmodifiableList(removedVertices);
+	}
+	
+	/**
+	 * @return the edges that existed before and were removed in this batch, they are invalid
+	 */
+	public List<E> getRemovedEdges() {
+		return Collections.unmodifiableList(removedEdges);
+	}
+	
+	/**
+	 * @return the faces that existed before and were removed in this batch, they are invalid
+	 */
+	public List<F> getRemovedFaces() {
+		return Collections.unmodifiableList(removedFaces);
+	}
+	
+	/**
+	 * @return the vertices that existed before and whose incoming edges have changed
+	 */
+	public List<V> getModifiedVertices() {
+		return Collections.unmodifiableList(modifiedVertices);
+	}
+	
+	/**
+	 * @return the edges that existed before and whose links have changed
+	 */
+	public List<E> getModifiedEdges() {
+		return Collections.unmodifiableList(modifiedEdges);
+	}
+	
+	/**
+	 * @return the faces that existed before and whose boundary edges have changed
+	 */
+	public List<F> getModifiedFaces() {
+		return Collections.unmodifiableList(modifiedFaces);
+	}
+	
+	/**
+	 * Have the indices of nodes that existed before the batch changed? 
+	 * Removing a node shifts the indices of the nodes behind it.
+	 * @return true if the nodes were permuted or reindexed after removals
+	 */
+	public boolean isReindexed() {
+		return reindexed[VERTEX] || reindexed[EDGE] || reindexed[FACE];
+	}
+	
+	/**
+	 * If the vertices were permuted but not reindexed after removals, return the index 
+	 * before the batch of each vertex, -1 for vertices added before the permutation.
+	 * @return the old vertex indices indexed by new index, or null if the vertices were 
+	 * not permuted or the old indices are not known
+	 * @see HalfEdgeDataStructure#permute(int[], int[], int[])
+	 */
+	public int[] getVertexOrder() {
+		return order[VERTEX] == null ? null : order[VERTEX].clone();
+	}
+	
+	/**
+	 * If the edges were permuted but not reindexed after removals, return the index 
+	 * before the batch of each edge, -1 for edges added before the permutation.
+	 * @return the old edge indices indexed by new index, or null if the edges were 
+	 * not permuted or the old indices are not known
+	 * @see HalfEdgeDataStructure#permute(int[], int[], int[])
+	 */
+	public int[] getEdgeOrder() {
+		return order[EDGE] == null ? null : order[EDGE].clone();
+	}
+	
+	/**
+	 * If the faces were permuted but not reindexed after removals, return the index 
+	 * before the batch of each face, -1 for faces added before the permutation.
+	 * @return the old face indices indexed by new index, or null if the faces were 
+	 * not permuted or the old indices are not known
+	 * @see HalfEdgeDataStructure#permute(int[], int[], int[])
+	 */
+	public int[] getFaceOrder() {
+		return order[FACE] == null ? null : order[FACE].clone();
+	}
+	
+}
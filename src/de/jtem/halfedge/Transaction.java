@@ -0,0 +1,336 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of modifications of a {@link HalfEdgeDataStructure} that can be committed 
+ * or rolled back as a whole. 
+ * <p>
+ * A transaction records the state of each node before its first modification, 
+ * defers the removal of nodes from the node lists, and repairs the vertex and face anchors 
+ * of the modified edges on commit. 
+ * 
+ * @param <V> the vertex class of the half-edge data structure
+ * @param <E> the edge class of the half-edge data structure
+ * @param <F> the face class of the half-edge data structure
+ * @see HalfEdgeDataStructure#beginTransaction()
+ */
+public final class Transaction <
+	V extends Vertex<V, E, F>,
+	E extends Edge<V, E, F>,
+	F extends Face<V, E, F>
+> {
+
+	/**
+	 * The state of a node at the beginning of the transaction.
+	 */
+	private static final class State <
+		V extends Vertex<V, E, F>,
+		E extends Edge<V, E, F>,
+		F extends Face<V, E, F>
+	> {
+		
+		final Node<V, E, F>
+			node;
+		final HalfEdgeDataStructure<V, E, F>
+			hds;
+		final int 
+			index;
+		E	next = null,
+			previous = null,
+			opposite = null,
+			anchor = null;
+		V	target = null;
+		F	face = null;
+		boolean
+			positive = false;
+		
+		State(Node<V, E, F> node) {
+			this.node = node;
+			this.hds = node.hds;
+			this.index = node.index;
+			if (node instanceof Edge) {
+				Edge<V, E, F> e = (Edge<V, E, F>)node;
+				next = e.nextEdge;
+				previous = e.previousEdge;
+				opposite = e.oppositeEdge;
+				target = e.targetVertex;
+				face = e.leftFace;
+				positive = e.isPositive;
+			} else if (node instanceof Vertex) {
+				anchor = ((Vertex<V, E, F>)node).incomingEdge;
+			} else {
+				anchor = ((Face<V, E, F>)node).boundaryEdge;
+			}
+		}
+		
+		void restore() {
+			node.hds = hds;
+			node.index = index;
+			if (node instanceof Edge) {
+				Edge<V, E, F> e = (Edge<V, E, F>)node;
+				e.nextEdge = next;
+				e.previousEdge = previous;
+				e.oppositeEdge = opposite;
+				e.targetVertex = target;
+				e.leftFace = face;
+				e.isPositive = positive;
+			} else if (node instanceof Vertex) {
+				((Vertex<V, E, F>)node).incomingEdge = anchor;
+			} else {
+				((Face<V, E, F>)node).boundaryEdge = anchor;
+			}
+		}
+		
+	}
+	
+	private final HalfEdgeDataStructure<V, E, F>
+		hds;
+	private final int
+		numVertices,
+		numEdges,
+		numFaces;
+	private final Map<Node<V, E, F>, State<V, E, F>>
+		saved = new IdentityHashMap<Node<V, E, F>, State<V, E, F>>();
+	private boolean
+		open = true,
+		removals = false;
+	
+	Transaction(HalfEdgeDataStructure<V, E, F> hds) {
+		this.hds = hds;
+		this.numVertices = hds.vertexList.size();
+		this.numEdges = hds.edgeList.size();
+		this.numFaces = hds.faceList.size();
+	}
+	
+	/**
+	 * Save the state of n if it has not been saved before. 
+	 * @param n the node, may be null
+	 */
+	void save(Node<V, E, F> n) {
+		if (n != null && !saved.containsKey(n)) {
+			saved.put(n, new State<V, E, F>(n));
+		}
+	}
+	
+	void save(Node<V, E, F> n1, Node<V, E, F> n2, Node<V, E, F> n3, Node<V, E, F> n4) {
+		save(n1);
+		save(n2);
+		save(n3);
+		save(n4);
+	}
+	
+	@SuppressWarnings("unchecked")
+	void remove(Face<?, ?, ?> face) {
+		Face<V, E, F> f = (Face<V, E, F>)face;
+		save(f);
+		f.setBoundaryEdge(null);
+		f.setHalfEdgeDataStructure(null);
+		removals = true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	void remove(Edge<?, ?, ?> edge) {
+		Edge<V, E, F> e = (Edge<V, E, F>)edge;
+		save(e);
+		e.setLeftFace(null);
+		e.setTargetVertex(null);
+		e.linkOppositeEdge(null);
+		e.linkNextEdge(null);
+		e.linkPreviousEdge(null);
+		e.setHalfEdgeDataStructure(null);
+		removals = true;
+	}
+	
+	@SuppressWarnings("unchecked")
+	void remove(Vertex<?, ?, ?> vertex) {
+		Vertex<V, E, F> v = (Vertex<V, E, F>)vertex;
+		save(v);
+		v.setIncomingEdge(null);
+		v.setHalfEdgeDataStructure(null);
+		removals = true;
+	}
+	
+	/**
+	 * Return the half-edge data structure of this transaction.
+	 * @return the half-edge data structure
+	 */
+	public HalfEdgeDataStructure<V, E, F> getHalfEdgeDataStructure() {
+		return hds;
+	}
+	
+	/**
+	 * Is this transaction still open? 
+	 * @return <code>true</code> if it has neither been committed nor rolled back
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+	
+	/**
+	 * Return the number of nodes modified, added, or removed so far.
+	 * @return the number of recorded nodes 
+	 */
+	public int size() {
+		return saved.size() 
+			+ hds.vertexList.size() - numVertices 
+			+ hds.edgeList.size() - numEdges 
+			+ hds.faceList.size() - numFaces;
+	}
+	
+	private void checkOpen() throws RuntimeException {
+		if (!open) {
+			throw new RuntimeException("The transaction is closed.");
+		}
+	}
+	
+	/**
+	 * Keep all modifications. Removed nodes are dropped from the node lists and 
+	 * the nodes are reindexed if necessary. The vertex and face anchors of all 
+	 * modified edges are repaired.
+	 * @throws RuntimeException if the transaction is not open
+	 */
+	public void commit() throws RuntimeException {
+		synchronized (hds) {
+			checkOpen();
+			hds.transaction = null;
+			open = false;
+			if (removals) {
+				compact(hds.vertexList, StructureChange.VERTEX);
+				compact(hds.edgeList, StructureChange.EDGE);
+				compact(hds.faceList, StructureChange.FACE);
+				hds.vertexIndicesDirty = false;
+				hds.edgeIndicesDirty = false;
+				hds.faceIndicesDirty = false;
+			}
+			for (Node<V, E, F> n : saved.keySet()) {
+				if (n.hds == hds && n instanceof Edge) {
+					repairAnchors((Edge<V, E, F>)n);
+				}
+			}
+			if (hds.journal != null) {
+				hds.journal.commit(saved.keySet());
+			}
+			saved.clear();
+			hds.afterModification();
+		}
+	}
+	
+	private void repairAnchors(Edge<V, E, F> e) {
+		V v = e.targetVertex;
+		if (v != null && v.hds == hds) {
+			E a = v.incomingEdge;
+			if (a == null || a.hds != hds || a.targetVertex != v) {
+				v.incomingEdge = e.self;
+			}
+		}
+		F f = e.leftFace;
+		if (f != null) {
+			if (f.hds != hds) {
+				e.leftFace = null;
+			} else {
+				E a = f.boundaryEdge;
+				if (a == null || a.hds != hds || a.leftFace != f) {
+					f.boundaryEdge = e.self;
+				}
+			}
+		}
+	}
+	
+	private <N extends Node<?, ?, ?>> void compact(List<N> list, int kind) {
+		int j = 0;
+		for (int i = 0; i < list.size(); i++) {
+			N n = list.get(i);
+			if (n.hds != null) {
+				n.index = j;
+				list.set(j++, n);
+			}
+		}
+		if (j < list.size() && hds.changes != null) {
+			hds.changes.reindexed(kind);
+		}
+		list.subList(j, list.size()).clear();
+	}
+	
+	/**
+	 * Undo all modifications. Restores every recorded node, and invalidates and drops 
+	 * the nodes added during the transaction.
+	 * @throws RuntimeException if the transaction is not open
+	 */
+	public void rollback() throws RuntimeException {
+		synchronized (hds) {
+			checkOpen();
+			hds.transaction = null;
+			open = false;
+			for (State<V, E, F> s : saved.values()) {
+				s.restore();
+			}
+			truncate(hds.vertexList, numVertices);
+			truncate(hds.edgeList, numEdges);
+			truncate(hds.faceList, numFaces);
+			saved.clear();
+			if (hds.journal != null) {
+				hds.journal.write(Journal.ROLLBACK);
+			}
+			hds.modifyVertices(null, null);
+			hds.modifyEdges(null, null, null, null);
+			hds.modifyFaces(null, null);
+			hds.afterModification();
+		}
+	}
+	
+	private void truncate(List<? extends Node<V, E, F>> list, int size) {
+		for (int i = size; i < list.size(); i++) {
+			Node<V, E, F> n = list.get(i);
+			n.hds = null;
+			if (n instanceof Edge) {
+				Edge<V, E, F> e = (Edge<V, E, F>)n;
+				e.nextEdge = null;
+				e.previousEdge = null;
+				e.oppositeEdge = null;
+				e.targetVertex = null;
+				e.leftFace = null;
+			} else if (n instanceof Vertex) {
+				((Vertex<V, E, F>)n).incomingEdge = null;
+			} else {
+				((Face<V, E, F>)n).boundaryEdge = null;
+			}
+		}
+		list.subList(size, list.size()).clear();
+	}
+	
+}
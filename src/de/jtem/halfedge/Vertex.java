@@ -49,7 +49,7 @@ public abstract class Vertex <V extends Vertex<V, E, F>,
 	    					  E extends Edge<V, E, F>,
 	    					  F extends Face<V, E, F>> extends Node<V, E, F> {
 
-    private E incomingEdge = null;
+    E incomingEdge = null;
 
 	/**
 	 * A vertex class with no further properties or functionality.
@@ -71,19 +71,37 @@ public abstract class Vertex <V extends Vertex<V, E, F>,
 			return incomingEdge;
 		}
 		// look for an incoming edge.
+		beforeChange();
+		Metrics m = hds.metrics;
+		long t = m == null ? 0 : System.nanoTime();
+		int scanned = 0;
 		for (E e : hds.getEdges()) {
 			assert e != null;
+			scanned++;
 			if (this == e.getTargetVertex()) {
 				incomingEdge = e;
+				if (hds.journal != null) {
+					hds.journal.write(Journal.SET_INCOMING, this, e);
+				}
+				if (m != null) {
+					m.anchorScanned(scanned, System.nanoTime() - t);
+				}
 				return incomingEdge;
 			}
 		}
 		incomingEdge = null;
+		if (hds.journal != null) {
+			hds.journal.write(Journal.SET_INCOMING, this, null);
+		}
+		if (m != null) {
+			m.anchorScanned(scanned, System.nanoTime() - t);
+		}
 		return incomingEdge;
     }
 
 	final void setIncomingEdge(E e) {
 		checkHalfEdgeDataStructure(e);
+		beforeChange();
 		this.incomingEdge = e;
 	}
 	
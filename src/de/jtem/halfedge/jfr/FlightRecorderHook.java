@@ -0,0 +1,73 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * The {@link EventHook} that creates flight recorder events. Until a recording 
+ * has been created in this virtual machine no events are allocated. It is loaded 
+ * by {@link EventHook} if the runtime provides <code>jdk.jfr</code>.
+ */
+public final class FlightRecorderHook extends EventHook {
+
+	private static final EventHook.Operation
+		NO_OPERATION = new EventHook.Operation() {
+			@Override
+			public void end(HalfEdgeDataStructure<?, ?, ?> hds, String outcome, long result) {
+			}
+		};
+	private static final EventHook.Reindex
+		NO_REINDEX = new EventHook.Reindex() {
+			@Override
+			public void end(int start, int elements) {
+			}
+		};
+	
+	public FlightRecorderHook() {}
+	
+	@Override
+	protected EventHook.Operation operation(String name) {
+		return FlightRecorder.isInitialized() ? new MeshOperationEvent(name) : NO_OPERATION;
+	}
+	
+	@Override
+	protected EventHook.Reindex reindex(String nodeType) {
+		return FlightRecorder.isInitialized() ? new ReindexEvent(nodeType) : NO_REINDEX;
+	}
+	
+}
@@ -0,0 +1,105 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * Flight recorder event for a long-running operation on a half-edge data structure. 
+ * The event is created at the start of the operation by {@link EventHook#beginOperation(String)} 
+ * and ended with {@link #end(HalfEdgeDataStructure, String, long)}. It is only committed if it is 
+ * enabled in the recording and exceeds the threshold, so it can stay in place 
+ * permanently. New bulk operations should be reported with this event under their own 
+ * operation name.
+ */
+@Name("de.jtem.halfedge.MeshOperation")
+@Label("Mesh Operation")
+@Category({"halfedge"})
+@Description("A long-running operation on a half-edge data structure")
+@StackTrace(false)
+final class MeshOperationEvent extends Event implements EventHook.Operation {
+
+	@Label("Operation")
+	String operation;
+	@Label("Vertices")
+	@Description("Number of vertices after the operation")
+	int vertices;
+	@Label("Edges")
+	@Description("Number of edges after the operation")
+	int edges;
+	@Label("Faces")
+	@Description("Number of faces after the operation")
+	int faces;
+	@Label("Outcome")
+	String outcome;
+	@Label("Result")
+	@Description("An operation specific count, e.g. the number of holes filled")
+	long result;
+	
+	/**
+	 * Create the event and start timing the operation.
+	 * @param operation the name of the operation
+	 */
+	MeshOperationEvent(String operation) {
+		this.operation = operation;
+		begin();
+	}
+	
+	/**
+	 * Stop timing and commit the event if the recording requires it.
+	 * @param hds the half-edge data structure that was operated on, its sizes are recorded
+	 * @param outcome the outcome of the operation
+	 * @param result an operation specific count
+	 */
+	@Override
+	public void end(HalfEdgeDataStructure<?, ?, ?> hds, String outcome, long result) {
+		end();
+		if (shouldCommit()) {
+			vertices = hds.numVertices();
+			edges = hds.numEdges();
+			faces = hds.numFaces();
+			this.outcome = outcome;
+			this.result = result;
+			commit();
+		}
+	}
+	
+}
@@ -0,0 +1,91 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import de.jtem.halfedge.EventHook;
+
+/**
+ * Flight recorder event for the reindexing of a node list of a half-edge data structure. 
+ * Reindexing happens lazily after removals, so only runs that exceed the threshold, 
+ * 1 ms by default, are recorded.
+ */
+@Name("de.jtem.halfedge.Reindex")
+@Label("Reindex")
+@Category({"halfedge"})
+@Description("Reindexing of the vertex, edge, or face list of a half-edge data structure")
+@Threshold("1 ms")
+@StackTrace(true)
+final class ReindexEvent extends Event implements EventHook.Reindex {
+
+	@Label("Node Type")
+	String nodeType;
+	@Label("Start")
+	@Description("The first index that was reindexed")
+	int start;
+	@Label("Elements")
+	@Description("The number of reindexed nodes")
+	int elements;
+	
+	/**
+	 * Create the event and start timing.
+	 * @param nodeType the node type, vertex, edge, or face
+	 */
+	ReindexEvent(String nodeType) {
+		this.nodeType = nodeType;
+		begin();
+	}
+	
+	/**
+	 * Stop timing and commit the event if the recording requires it.
+	 * @param start the first index that was reindexed
+	 * @param elements the number of reindexed nodes
+	 */
+	@Override
+	public void end(int start, int elements) {
+		end();
+		if (shouldCommit()) {
+			this.start = start;
+			this.elements = elements;
+			commit();
+		}
+	}
+	
+}
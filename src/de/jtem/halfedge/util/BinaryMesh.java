@@ -0,0 +1,502 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * A compact binary file format for the combinatorics of a half-edge data structure 
+ * and optional attribute columns.
+ * <p>
+ * The file is little-endian and consists of
+ * <ul>
+ * <li>a header of eight ints: {@link #MAGIC}, {@link #VERSION}, the numbers of vertices, edges, 
+ * and faces, the number of attribute columns, and two reserved ints</li>
+ * <li>the next, previous, opposite, target vertex, and left face index of every edge, 
+ * one int array each, missing links are stored as -1</li>
+ * <li>the incoming edge of every vertex and the boundary edge of every face</li>
+ * <li>the signatures of the edges, one bit per edge, packed into ints</li>
+ * <li>the attribute columns, each with its kind, dimension, and name, followed by 
+ * the values as doubles aligned to eight bytes</li>
+ * </ul>
+ * Files are written with {@link #write(HalfEdgeDataStructure, File, Column...)} and 
+ * loaded with {@link #map(File)}. Loading maps the file into memory and only checks 
+ * that the links are in range, the loaded mesh is a {@link HalfEdgeView} that reads its links from the mapped file. 
+ * Use {@link #toHalfEdgeDataStructure(HalfEdgeDataStructure)} to obtain a half-edge data structure.
+ * Since a single mapping is limited to 2GB, so are the files.
+ */
+public final class BinaryMesh implements HalfEdgeView {
+
+	/**
+	 * The first int of every file, "HEDS" in ASCII.
+	 */
+	public static final int MAGIC = 0x48454453;
+	
+	/**
+	 * The format version written by this class.
+	 */
+	public static final int VERSION = 1;
+	
+	private static final int 
+		HEADER_INTS = 8;
+	private static final Charset
+		UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * The kind of nodes an attribute column belongs to.
+	 */
+	public static enum Kind {
+		VERTEX,
+		EDGE,
+		FACE
+	}
+	
+	/**
+	 * A named attribute column with a fixed number of doubles per node. 
+	 * The values of node i are stored at positions i * dimension to (i + 1) * dimension - 1.
+	 */
+	public static final class Column {
+		
+		private final String
+			name;
+		private final Kind
+			kind;
+		private final int
+			dimension;
+		private final DoubleBuffer
+			data;
+		
+		/**
+		 * @param name the name of the column
+		 * @param kind the kind of nodes the values belong to
+		 * @param dimension the number of values per node
+		 * @param data the values, the buffer is not copied
+		 * @throws IllegalArgumentException if the dimension is not positive
+		 */
+		public Column(String name, Kind kind, int dimension, DoubleBuffer data) throws IllegalArgumentException {
+			if (dimension <= 0) {
+				throw new IllegalArgumentException("Dimension of column " + name + " must be positive");
+			}
+			this.name = name;
+			this.kind = kind;
+			this.dimension = dimension;
+			this.data = data;
+		}
+		
+		/**
+		 * @see #Column(String, Kind, int, DoubleBuffer)
+		 */
+		public Column(String name, Kind kind, int dimension, double[] data) throws IllegalArgumentException {
+			this(name, kind, dimension, DoubleBuffer.wrap(data));
+		}
+		
+		public String getName() {
+			return name;
+		}
+		
+		public Kind getKind() {
+			return kind;
+		}
+		
+		public int getDimension() {
+			return dimension;
+		}
+		
+		/**
+		 * @return a read-only buffer of all values, starting at position zero
+		 */
+		public DoubleBuffer getData() {
+			DoubleBuffer d = data.asReadOnlyBuffer();
+			d.rewind();
+			return d;
+		}
+		
+	}
+	
+	private final int 
+		numVertices,
+		numEdges,
+		numFaces;
+	private final IntBuffer
+		next,
+		previous,
+		opposite,
+		target,
+		face,
+		incoming,
+		boundary,
+		signature;
+	private final List<Column>
+		columns;
+	
+	private BinaryMesh(ByteBuffer buffer, long fileSize) throws IOException {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (fileSize < 4 * HEADER_INTS || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a half-edge data structure file");
+		}
+		int version = buffer.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("Unsupported file version " + version + ", expected " + VERSION);
+		}
+		numVertices = buffer.getInt(8);
+		numEdges = buffer.getInt(12);
+		numFaces = buffer.getInt(16);
+		int numColumns = buffer.getInt(20);
+		if (numVertices < 0 || numEdges < 0 || numFaces < 0 || numColumns < 0) {
+			throw new IOException("Corrupt header");
+		}
+		long connectivityEnd = connectivityEnd(numVertices, numEdges, numFaces);
+		if (connectivityEnd > fileSize) {
+			throw new IOException("File is truncated");
+		}
+		int pos = 4 * HEADER_INTS;
+		next = slice(buffer, pos, numEdges); pos += 4 * numEdges;
+		previous = slice(buffer, pos, numEdges); pos += 4 * numEdges;
+		opposite = slice(buffer, pos, numEdges); pos += 4 * numEdges;
+		target = slice(buffer, pos, numEdges); pos += 4 * numEdges;
+		face = slice(buffer, pos, numEdges); pos += 4 * numEdges;
+		incoming = slice(buffer, pos, numVertices); pos += 4 * numVertices;
+		boundary = slice(buffer, pos, numFaces); pos += 4 * numFaces;
+		signature = slice(buffer, pos, signatureInts(numEdges));
+		checkIndices(next, numEdges, "next edge");
+		checkIndices(previous, numEdges, "previous edge");
+		checkIndices(opposite, numEdges, "opposite edge");
+		checkIndices(target, numVertices, "target vertex");
+		checkIndices(face, numFaces, "left face");
+		checkIndices(incoming, numEdges, "incoming edge");
+		checkIndices(boundary, numEdges, "boundary edge");
+		pos = (int)connectivityEnd;
+		List<Column> columnList = new ArrayList<Column>(numColumns);
+		for (int i = 0; i < numColumns; i++) {
+			if (pos + 12 > fileSize) {
+				throw new IOException("File is truncated");
+			}
+			int kindOrdinal = buffer.getInt(pos);
+			int dimension = buffer.getInt(pos + 4);
+			int nameLength = buffer.getInt(pos + 8);
+			if (kindOrdinal < 0 || kindOrdinal >= Kind.values().length || dimension <= 0 || nameLength < 0) {
+				throw new IOException("Corrupt column header");
+			}
+			Kind kind = Kind.values()[kindOrdinal];
+			long dataStart = align8(pos + 12L + nameLength);
+			long dataEnd = dataStart + 8L * dimension * count(kind);
+			if (dataEnd > fileSize) {
+				throw new IOException("File is truncated");
+			}
+			byte[] name = new byte[nameLength];
+			ByteBuffer nameBuffer = buffer.duplicate();
+			nameBuffer.position(pos + 12);
+			nameBuffer.get(name);
+			ByteBuffer data = buffer.duplicate();
+			data.position((int)dataStart);
+			data.limit((int)dataEnd);
+			DoubleBuffer values = data.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			columnList.add(new Column(new String(name, UTF8), kind, dimension, values));
+			pos = (int)dataEnd;
+		}
+		columns = Collections.unmodifiableList(columnList);
+	}
+	
+	private static IntBuffer slice(ByteBuffer buffer, int pos, int length) {
+		ByteBuffer b = buffer.duplicate();
+		b.position(pos);
+		b.limit(pos + 4 * length);
+		return b.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+	
+	/**
+	 * Check that all links are missing or indices of existing nodes, so that a corrupt file 
+	 * fails when it is loaded and not halfway through building a half-edge data structure.
+	 */
+	private static void checkIndices(IntBuffer links, int count, String link) throws IOException {
+		for (int i = 0; i < links.limit(); i++) {
+			int index = links.get(i);
+			if (index < -1 || index >= count) {
+				throw new IOException("Corrupt " + link + " index " + index + " at position " + i);
+			}
+		}
+	}
+	
+	private static int signatureInts(int numEdges) {
+		return (numEdges + 31) >>> 5;
+	}
+	
+	private static long align8(long pos) {
+		return (pos + 7) & ~7L;
+	}
+	
+	private static long connectivityEnd(int numVertices, int numEdges, int numFaces) {
+		return align8(4L * (HEADER_INTS + 5L * numEdges + numVertices + numFaces + signatureInts(numEdges)));
+	}
+	
+	private int count(Kind kind) {
+		switch (kind) {
+		case VERTEX: return numVertices;
+		case EDGE: return numEdges;
+		default: return numFaces;
+		}
+	}
+	
+	/**
+	 * Map a file written by {@link #write(HalfEdgeDataStructure, File, Column...)} into memory. 
+	 * The file is opened read-only and must not be modified while the mesh is in use.
+	 * @param file the file
+	 * @return the mapped mesh
+	 * @throws IOException if the file cannot be read, is not a half-edge data structure file, 
+	 * has an unsupported version, contains links to nonexistent nodes, or is larger than 2GB 
+	 */
+	public static BinaryMesh map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Cannot map files larger than 2GB");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			return new BinaryMesh(buffer, size);
+		} finally {
+			// the mapping stays valid after closing the channel
+			raf.close();
+		}
+	}
+	
+	/**
+	 * Read a mesh from a buffer holding the contents of a file. The buffer is not copied.
+	 * @param buffer the buffer, its position and limit are ignored
+	 * @return the mesh
+	 * @throws IOException if the buffer does not hold a supported file
+	 */
+	public static BinaryMesh wrap(ByteBuffer buffer) throws IOException {
+		ByteBuffer b = buffer.duplicate();
+		b.clear();
+		return new BinaryMesh(b.slice(), b.capacity());
+	}
+	
+	/**
+	 * Write the combinatorics of hds and the given columns to a file.
+	 * @see #write(HalfEdgeDataStructure, WritableByteChannel, Column...)
+	 * @param hds the half-edge data structure
+	 * @param file the file, it is overwritten
+	 * @param columns the attribute columns
+	 * @throws IOException if writing fails
+	 */
+	public static void write(HalfEdgeDataStructure<?,?,?> hds, File file, Column... columns) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			write(hds, out.getChannel(), columns);
+		} finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Write the combinatorics of hds and the given columns to a channel.
+	 * @param hds the half-edge data structure
+	 * @param channel the channel, it is not closed
+	 * @param columns the attribute columns
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if a column does not have dimension 
+	 * times the number of nodes of its kind values 
+	 */
+	public static void write(HalfEdgeDataStructure<?,?,?> hds, WritableByteChannel channel, Column... columns) throws IOException, IllegalArgumentException {
+		int nv = hds.numVertices();
+		int ne = hds.numEdges();
+		int nf = hds.numFaces();
+		for (Column c : columns) {
+			int n = c.getKind() == Kind.VERTEX ? nv : c.getKind() == Kind.EDGE ? ne : nf;
+			if (c.data.capacity() != (long)n * c.getDimension()) {
+				throw new IllegalArgumentException("Column " + c.getName() + " has " + c.data.capacity() + " values, expected " + (long)n * c.getDimension());
+			}
+		}
+		Connectivity.cleanIndices(hds);
+		ChannelWriter w = new ChannelWriter(channel);
+		w.putInt(MAGIC);
+		w.putInt(VERSION);
+		w.putInt(nv);
+		w.putInt(ne);
+		w.putInt(nf);
+		w.putInt(columns.length);
+		w.putInt(0);
+		w.putInt(0);
+		List<? extends Edge<?,?,?>> edges = hds.getEdges();
+		for (Edge<?,?,?> e : edges) w.putInt(Connectivity.index(e.getNextEdge()));
+		for (Edge<?,?,?> e : edges) w.putInt(Connectivity.index(e.getPreviousEdge()));
+		for (Edge<?,?,?> e : edges) w.putInt(Connectivity.index(e.getOppositeEdge()));
+		for (Edge<?,?,?> e : edges) w.putInt(Connectivity.index(e.getTargetVertex()));
+		for (Edge<?,?,?> e : edges) w.putInt(Connectivity.index(e.getLeftFace()));
+		for (Vertex<?,?,?> v : hds.getVertices()) w.putInt(Connectivity.index(v.getIncomingEdge()));
+		for (Face<?,?,?> f : hds.getFaces()) w.putInt(Connectivity.index(f.getBoundaryEdge()));
+		int bits = 0;
+		for (int i = 0; i < ne; i++) {
+			if (edges.get(i).isPositive()) {
+				bits |= 1 << (i & 31);
+			}
+			if ((i & 31) == 31 || i == ne - 1) {
+				w.putInt(bits);
+				bits = 0;
+			}
+		}
+		w.align8();
+		for (Column c : columns) {
+			byte[] name = c.getName().getBytes(UTF8);
+			w.putInt(c.getKind().ordinal());
+			w.putInt(c.getDimension());
+			w.putInt(name.length);
+			w.putBytes(name);
+			w.align8();
+			DoubleBuffer data = c.getData();
+			while (data.hasRemaining()) {
+				w.putDouble(data.get());
+			}
+		}
+		w.flush();
+	}
+	
+	/**
+	 * Append the combinatorics of this mesh to dst, with the vertex and face anchors 
+	 * stored in the file. Attribute columns are not copied.
+	 * @param dst the half-edge data structure to append to
+	 * @return dst
+	 */
+	public <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS toHalfEdgeDataStructure(HEDS dst) {
+		int[] incomingEdges = new int[numVertices];
+		int[] boundaryEdges = new int[numFaces];
+		incoming.duplicate().get(incomingEdges);
+		boundary.duplicate().get(boundaryEdges);
+		dst.appendCombinatoriallyEquivalentCopy(this, incomingEdges, boundaryEdges);
+		return dst;
+	}
+	
+	@Override
+	public int numVertices() {
+		return numVertices;
+	}
+	
+	@Override
+	public int numEdges() {
+		return numEdges;
+	}
+	
+	@Override
+	public int numFaces() {
+		return numFaces;
+	}
+	
+	@Override
+	public int getNextEdge(int e) {
+		return next.get(e);
+	}
+	
+	@Override
+	public int getPreviousEdge(int e) {
+		return previous.get(e);
+	}
+	
+	@Override
+	public int getOppositeEdge(int e) {
+		return opposite.get(e);
+	}
+	
+	@Override
+	public int getTargetVertex(int e) {
+		return target.get(e);
+	}
+	
+	@Override
+	public int getLeftFace(int e) {
+		return face.get(e);
+	}
+	
+	@Override
+	public boolean isPositive(int e) {
+		return ((signature.get(e >>> 5) >>> (e & 31)) & 1) != 0;
+	}
+	
+	/**
+	 * @param v a vertex index
+	 * @return the index of the stored incoming edge of v or -1
+	 */
+	public int getIncomingEdge(int v) {
+		return incoming.get(v);
+	}
+	
+	/**
+	 * @param f a face index
+	 * @return the index of the stored boundary edge of f or -1
+	 */
+	public int getBoundaryEdge(int f) {
+		return boundary.get(f);
+	}
+	
+	/**
+	 * @return the attribute columns in file order
+	 */
+	public List<Column> getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * @param name a column name
+	 * @return the first column with the given name or <code>null</code>
+	 */
+	public Column getColumn(String name) {
+		for (Column c : columns) {
+			if (c.getName().equals(name)) {
+				return c;
+			}
+		}
+		return null;
+	}
+	
+}
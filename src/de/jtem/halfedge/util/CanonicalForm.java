@@ -0,0 +1,676 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * A canonical form of the combinatorics of a half-edge data structure. Two half-edge data 
+ * structures have equal canonical forms if and only if they are combinatorially isomorphic, 
+ * i.e., there are bijections of the vertices, edges, and faces that preserve the next edge, 
+ * opposite edge, target vertex, and left face links. The orientation flags of the edges 
+ * are not part of the combinatorics. 
+ * <p>
+ * The canonical form is the smallest code of a breadth first traversal along the next, 
+ * opposite, and previous links, taken over all start edges of each component. 
+ * A traversal takes time linear in the number of edges. The start edges are restricted 
+ * to the rarest class of a few rounds of color refinement of the local combinatorics, 
+ * and start edges that are mapped to an already traversed start edge by an automorphism 
+ * found on the way are skipped. Traversals of large components run in parallel. 
+ * <p>
+ * Use the {@linkplain #getFingerprint() fingerprint} or the canonical form itself as key of 
+ * caches for results that only depend on the combinatorics. The canonical form holds four 
+ * ints per edge, and its {@link #equals(Object)} is exact.
+ * <p>
+ * Every vertex and face must be linked to edges of only one component of the next, 
+ * previous, and opposite links. Half-edge data structures built with the library operations 
+ * and all valid surfaces satisfy this.
+ */
+public final class CanonicalForm {
+
+	private static final int
+		NONE = -1,
+		ROUNDS = 4,
+		MIN_PARALLEL_WALK = 1 << 12;
+	
+	private final int[]
+		code,
+		vertexLabels,
+		edgeLabels,
+		faceLabels;
+	private final long
+		fingerprint;
+	
+	private CanonicalForm(int[] code, int[] vertexLabels, int[] edgeLabels, int[] faceLabels) {
+		this.code = code;
+		this.vertexLabels = vertexLabels;
+		this.edgeLabels = edgeLabels;
+		this.faceLabels = faceLabels;
+		long h = code.length;
+		for (int x : code) {
+			h = mix(h, x);
+		}
+		this.fingerprint = h;
+	}
+	
+	/**
+	 * A mapping of the nodes of one half-edge data structure to the nodes 
+	 * of a combinatorially isomorphic one.
+	 */
+	public static final class Mapping {
+		
+		private final int[]
+			vertexMap,
+			edgeMap,
+			faceMap;
+		
+		private Mapping(int[] vertexMap, int[] edgeMap, int[] faceMap) {
+			this.vertexMap = vertexMap;
+			this.edgeMap = edgeMap;
+			this.faceMap = faceMap;
+		}
+		
+		/**
+		 * Return the index of the image of each vertex, indexed by vertex index.
+		 * @return the vertex map
+		 */
+		public int[] getVertexMap() {
+			return vertexMap;
+		}
+		
+		/**
+		 * Return the index of the image of each edge, indexed by edge index.
+		 * @return the edge map
+		 */
+		public int[] getEdgeMap() {
+			return edgeMap;
+		}
+		
+		/**
+		 * Return the index of the image of each face, indexed by face index.
+		 * @return the face map
+		 */
+		public int[] getFaceMap() {
+			return faceMap;
+		}
+		
+	}
+	
+	/**
+	 * The result of a traversal of one component.
+	 */
+	private static final class Walk {
+		
+		final int[]
+			code,
+			edges,
+			vertices,
+			faces;
+		
+		Walk(int[] code, int[] edges, int[] vertices, int[] faces) {
+			this.code = code;
+			this.edges = edges;
+			this.vertices = vertices;
+			this.faces = faces;
+		}
+		
+	}
+	
+	/**
+	 * The scratch space of the traversals of one thread. 
+	 * All labels are reset to NONE after each traversal.
+	 */
+	private static final class Walker {
+		
+		private final int[]
+			next,
+			opposite,
+			previous,
+			target,
+			face,
+			edgeLabel,
+			vertexLabel,
+			faceLabel;
+		
+		Walker(Connectivity c, int[] previous) {
+			this.next = c.next;
+			this.opposite = c.opposite;
+			this.previous = previous;
+			this.target = c.target;
+			this.face = c.face;
+			edgeLabel = new int[c.numEdges];
+			vertexLabel = new int[c.numVertices];
+			faceLabel = new int[c.numFaces];
+			Arrays.fill(edgeLabel, NONE);
+			Arrays.fill(vertexLabel, NONE);
+			Arrays.fill(faceLabel, NONE);
+		}
+		
+		/**
+		 * Traverse the component of start. Edges are labeled in the order of discovery, 
+		 * the neighbors of an edge are visited in the order next, opposite, previous. 
+		 * The code lists the labels of the next edge, opposite edge, target vertex, and 
+		 * left face of each edge in label order.
+		 * @param start the start edge
+		 * @param size the number of edges of the component
+		 * @param bound the code to compare with, or null
+		 * @return the traversal, or null as soon as its code is known to be greater than bound
+		 */
+		Walk walk(int start, int size, int[] bound) {
+			int[] edges = new int[size];
+			int[] code = new int[4 * size];
+			int[] vertices = new int[size];
+			int[] faces = new int[size];
+			int n = 1, nv = 0, nf = 0;
+			int cmp = bound == null ? -1 : 0;
+			edges[0] = start;
+			edgeLabel[start] = 0;
+			try {
+				for (int i = 0; i < n; i++) {
+					int e = edges[i];
+					n = discover(next[e], edges, n);
+					n = discover(opposite[e], edges, n);
+					n = discover(previous[e], edges, n);
+					int v = target[e];
+					if (v >= 0 && vertexLabel[v] == NONE) {
+						vertexLabel[v] = nv;
+						vertices[nv++] = v;
+					}
+					int f = face[e];
+					if (f >= 0 && faceLabel[f] == NONE) {
+						faceLabel[f] = nf;
+						faces[nf++] = f;
+					}
+					int j = 4 * i;
+					code[j] = label(edgeLabel, next[e]);
+					code[j + 1] = label(edgeLabel, opposite[e]);
+					code[j + 2] = label(vertexLabel, v);
+					code[j + 3] = label(faceLabel, f);
+					for (int k = j; cmp == 0 && k < j + 4; k++) {
+						if (code[k] != bound[k]) {
+							cmp = code[k] < bound[k] ? -1 : 1;
+						}
+					}
+					if (cmp > 0) {
+						return null;
+					}
+				}
+				return new Walk(code, edges, Arrays.copyOf(vertices, nv), Arrays.copyOf(faces, nf));
+			} finally {
+				for (int i = 0; i < n; i++) {
+					edgeLabel[edges[i]] = NONE;
+				}
+				for (int i = 0; i < nv; i++) {
+					vertexLabel[vertices[i]] = NONE;
+				}
+				for (int i = 0; i < nf; i++) {
+					faceLabel[faces[i]] = NONE;
+				}
+			}
+		}
+		
+		private int discover(int e, int[] edges, int n) {
+			if (e >= 0 && edgeLabel[e] == NONE) {
+				edgeLabel[e] = n;
+				edges[n++] = e;
+			}
+			return n;
+		}
+		
+		private static int label(int[] labels, int i) {
+			return i < 0 ? NONE : labels[i];
+		}
+		
+	}
+	
+	/**
+	 * Compute the canonical form of a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @return the canonical form
+	 * @throws IllegalArgumentException if a vertex or face is linked to edges of different components
+	 */
+	public static CanonicalForm of(HalfEdgeDataStructure<?,?,?> hds) throws IllegalArgumentException {
+		EventHook.Operation event = EventHook.beginOperation("CanonicalForm.of");
+		String outcome = EventHook.FAILED;
+		int components = 0;
+		try {
+			Connectivity c = new Connectivity(hds);
+			int ne = c.numEdges;
+			int[] previous = new int[ne];
+			Arrays.fill(previous, NONE);
+			for (int e = 0; e < ne; e++) {
+				if (c.next[e] >= 0) {
+					previous[c.next[e]] = e;
+				}
+			}
+			long[] colors = colors(c, previous);
+			
+			// the components, members[start[k]] to members[start[k + 1] - 1] form component k
+			int[] members = new int[ne];
+			int[] start = new int[ne + 1];
+			boolean[] visited = new boolean[ne];
+			int n = 0;
+			for (int e = 0; e < ne; e++) {
+				if (visited[e]) {
+					continue;
+				}
+				start[components++] = n;
+				visited[e] = true;
+				members[n++] = e;
+				for (int i = n - 1; i < n; i++) {
+					int m = members[i];
+					int[] neighbors = {c.next[m], c.opposite[m], previous[m]};
+					for (int nb : neighbors) {
+						if (nb >= 0 && !visited[nb]) {
+							visited[nb] = true;
+							members[n++] = nb;
+						}
+					}
+				}
+			}
+			start[components] = n;
+			visited = null;
+			checkComponents(c, members, start, components);
+			
+			int[] orbits = new int[ne];
+			for (int e = 0; e < ne; e++) {
+				orbits[e] = e;
+			}
+			boolean[] done = new boolean[ne];
+			Walker[] walkers = new Walker[Parallel.parallelism()];
+			List<Walk> walks = new ArrayList<Walk>(components);
+			for (int k = 0; k < components; k++) {
+				walks.add(search(c, previous, colors, members, start[k], start[k + 1], orbits, done, walkers));
+			}
+			Collections.sort(walks, new Comparator<Walk>() {
+				@Override
+				public int compare(Walk a, Walk b) {
+					if (a.code.length != b.code.length) {
+						return a.code.length < b.code.length ? -1 : 1;
+					}
+					if (a.vertices.length != b.vertices.length) {
+						return a.vertices.length < b.vertices.length ? -1 : 1;
+					}
+					if (a.faces.length != b.faces.length) {
+						return a.faces.length < b.faces.length ? -1 : 1;
+					}
+					return CanonicalForm.compare(a.code, b.code);
+				}
+			});
+			
+			// header, then edges, vertices, faces, and code of each component
+			int length = 4;
+			for (Walk w : walks) {
+				length += 3 + w.code.length;
+			}
+			int[] code = new int[length];
+			code[0] = c.numVertices;
+			code[1] = ne;
+			code[2] = c.numFaces;
+			code[3] = components;
+			int[] vertexLabels = new int[c.numVertices];
+			int[] edgeLabels = new int[ne];
+			int[] faceLabels = new int[c.numFaces];
+			Arrays.fill(vertexLabels, NONE);
+			Arrays.fill(faceLabels, NONE);
+			int pos = 4, nv = 0, nf = 0;
+			n = 0;
+			for (Walk w : walks) {
+				code[pos++] = w.edges.length;
+				code[pos++] = w.vertices.length;
+				code[pos++] = w.faces.length;
+				System.arraycopy(w.code, 0, code, pos, w.code.length);
+				pos += w.code.length;
+				for (int e : w.edges) {
+					edgeLabels[e] = n++;
+				}
+				for (int v : w.vertices) {
+					vertexLabels[v] = nv++;
+				}
+				for (int f : w.faces) {
+					faceLabels[f] = nf++;
+				}
+			}
+			// isolated vertices and faces are interchangeable
+			for (int v = 0; v < vertexLabels.length; v++) {
+				if (vertexLabels[v] == NONE) {
+					vertexLabels[v] = nv++;
+				}
+			}
+			for (int f = 0; f < faceLabels.length; f++) {
+				if (faceLabels[f] == NONE) {
+					faceLabels[f] = nf++;
+				}
+			}
+			outcome = EventHook.OK;
+			return new CanonicalForm(code, vertexLabels, edgeLabels, faceLabels);
+		} finally {
+			event.end(hds, outcome, components);
+		}
+	}
+	
+	/**
+	 * Return the mapping of the nodes of a half-edge data structure a to the nodes of 
+	 * a combinatorially isomorphic half-edge data structure b.
+	 * @param a the first half-edge data structure
+	 * @param b the second half-edge data structure
+	 * @return the mapping from a to b, or null if a and b are not isomorphic
+	 * @throws IllegalArgumentException if the canonical form of a or b cannot be computed
+	 */
+	public static Mapping isomorphism(HalfEdgeDataStructure<?,?,?> a, HalfEdgeDataStructure<?,?,?> b) throws IllegalArgumentException {
+		if (a.numVertices() != b.numVertices() || a.numEdges() != b.numEdges() || a.numFaces() != b.numFaces()) {
+			return null;
+		}
+		return of(a).mapTo(of(b));
+	}
+	
+	/**
+	 * Return the mapping of the nodes of the half-edge data structure of this 
+	 * canonical form to the nodes of the half-edge data structure of target.
+	 * @param target the canonical form of the target
+	 * @return the mapping, or null if the canonical forms are not equal
+	 */
+	public Mapping mapTo(CanonicalForm target) {
+		if (!equals(target)) {
+			return null;
+		}
+		return new Mapping(
+			compose(vertexLabels, target.vertexLabels), 
+			compose(edgeLabels, target.edgeLabels), 
+			compose(faceLabels, target.faceLabels)
+		);
+	}
+	
+	private static int[] compose(int[] labels, int[] targetLabels) {
+		int[] nodeAt = new int[targetLabels.length];
+		for (int i = 0; i < targetLabels.length; i++) {
+			nodeAt[targetLabels[i]] = i;
+		}
+		int[] map = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			map[i] = nodeAt[labels[i]];
+		}
+		return map;
+	}
+	
+	/**
+	 * Find the smallest traversal code of the component members[from] to members[to - 1].
+	 */
+	private static Walk search(final Connectivity c, final int[] previous, long[] colors, int[] members, int from, int to, int[] orbits, boolean[] done, final Walker[] walkers) {
+		final int size = to - from;
+		int[] candidates = candidates(colors, members, from, to);
+		int batch = size < MIN_PARALLEL_WALK ? 1 : walkers.length;
+		final int[] starts = new int[batch];
+		final Walk[] results = new Walk[batch];
+		Walk best = null;
+		int next = 0;
+		while (next < candidates.length) {
+			int count = 0;
+			while (count < batch && next < candidates.length) {
+				int s = candidates[next++];
+				int root = find(orbits, s);
+				if (!done[root]) {
+					done[root] = true;
+					starts[count++] = s;
+				}
+			}
+			final int[] bound = best == null ? null : best.code;
+			Parallel.forEach(count, new Parallel.Range() {
+				@Override
+				public void run(int from, int to) {
+					if (walkers[from] == null) {
+						walkers[from] = new Walker(c, previous);
+					}
+					for (int i = from; i < to; i++) {
+						results[i] = walkers[from].walk(starts[i], size, bound);
+					}
+				}
+			});
+			for (int i = 0; i < count; i++) {
+				Walk w = results[i];
+				results[i] = null;
+				if (w == null) {
+					continue;
+				}
+				int cmp = best == null ? -1 : compare(w.code, best.code);
+				if (cmp < 0) {
+					best = w;
+				} else if (cmp == 0) {
+					// the traversals differ by an automorphism, join the orbits of all edges
+					for (int j = 0; j < size; j++) {
+						union(orbits, done, best.edges[j], w.edges[j]);
+					}
+				}
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Return the members of the rarest color class of a component, 
+	 * ties are broken by the smaller color.
+	 */
+	private static int[] candidates(long[] colors, int[] members, int from, int to) {
+		long[] sorted = new long[to - from];
+		for (int i = from; i < to; i++) {
+			sorted[i - from] = colors[members[i]];
+		}
+		Arrays.sort(sorted);
+		long color = sorted[0];
+		int count = Integer.MAX_VALUE;
+		for (int i = 0; i < sorted.length;) {
+			int j = i + 1;
+			while (j < sorted.length && sorted[j] == sorted[i]) {
+				j++;
+			}
+			if (j - i < count) {
+				count = j - i;
+				color = sorted[i];
+			}
+			i = j;
+		}
+		int[] candidates = new int[count];
+		int n = 0;
+		for (int i = from; i < to; i++) {
+			if (colors[members[i]] == color) {
+				candidates[n++] = members[i];
+			}
+		}
+		return candidates;
+	}
+	
+	/**
+	 * Color the edges by a few rounds of refinement of the degrees of their 
+	 * target vertices and left faces along the next, opposite, and previous links.
+	 * Colors do not depend on the indices of the nodes.
+	 */
+	private static long[] colors(Connectivity c, final int[] previous) {
+		final int[] next = c.next, opposite = c.opposite, target = c.target, face = c.face;
+		final int[] vertexDegree = new int[c.numVertices];
+		final int[] faceDegree = new int[c.numFaces];
+		for (int e = 0; e < c.numEdges; e++) {
+			if (target[e] >= 0) vertexDegree[target[e]]++;
+			if (face[e] >= 0) faceDegree[face[e]]++;
+		}
+		final long[] colors = new long[c.numEdges];
+		Parallel.forRange(c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					long h = mix(NONE, target[e] < 0 ? NONE : vertexDegree[target[e]]);
+					colors[e] = mix(h, face[e] < 0 ? NONE : faceDegree[face[e]]);
+				}
+			}
+		});
+		long[] current = colors;
+		for (int round = 0; round < ROUNDS; round++) {
+			final long[] in = current;
+			final long[] out = new long[in.length];
+			Parallel.forRange(c.numEdges, new Parallel.Range() {
+				@Override
+				public void run(int from, int to) {
+					for (int e = from; e < to; e++) {
+						long h = mix(in[e], next[e] < 0 ? NONE : in[next[e]]);
+						h = mix(h, opposite[e] < 0 ? NONE : in[opposite[e]]);
+						out[e] = mix(h, previous[e] < 0 ? NONE : in[previous[e]]);
+					}
+				}
+			});
+			current = out;
+		}
+		return current;
+	}
+	
+	private static void checkComponents(Connectivity c, int[] members, int[] start, int components) throws IllegalArgumentException {
+		int[] vertexComponent = new int[c.numVertices];
+		int[] faceComponent = new int[c.numFaces];
+		Arrays.fill(vertexComponent, NONE);
+		Arrays.fill(faceComponent, NONE);
+		for (int k = 0; k < components; k++) {
+			for (int i = start[k]; i < start[k + 1]; i++) {
+				int v = c.target[members[i]];
+				if (v >= 0) {
+					if (vertexComponent[v] != NONE && vertexComponent[v] != k) {
+						throw new IllegalArgumentException("Vertex " + v + " is linked to edges that are not connected by next, previous, or opposite links.");
+					}
+					vertexComponent[v] = k;
+				}
+				int f = c.face[members[i]];
+				if (f >= 0) {
+					if (faceComponent[f] != NONE && faceComponent[f] != k) {
+						throw new IllegalArgumentException("Face " + f + " is linked to edges that are not connected by next, previous, or opposite links.");
+					}
+					faceComponent[f] = k;
+				}
+			}
+		}
+	}
+	
+	private static int find(int[] parent, int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+	
+	private static void union(int[] parent, boolean[] done, int a, int b) {
+		a = find(parent, a);
+		b = find(parent, b);
+		if (a != b) {
+			parent[b] = a;
+			done[a] |= done[b];
+		}
+	}
+	
+	private static int compare(int[] a, int[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if (a[i] != b[i]) {
+				return a[i] < b[i] ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+	
+	private static long mix(long h, long x) {
+		h = (h ^ x) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 31);
+	}
+	
+	/**
+	 * Return a 64 bit hash of the canonical form. Isomorphic half-edge data 
+	 * structures have equal fingerprints.
+	 * @return the fingerprint
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Return the canonical index of each vertex, indexed by vertex index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the canonical vertex labels
+	 */
+	public int[] getVertexLabels() {
+		return vertexLabels;
+	}
+	
+	/**
+	 * Return the canonical index of each edge, indexed by edge index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the canonical edge labels
+	 */
+	public int[] getEdgeLabels() {
+		return edgeLabels;
+	}
+	
+	/**
+	 * Return the canonical index of each face, indexed by face index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the canonical face labels
+	 */
+	public int[] getFaceLabels() {
+		return faceLabels;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CanonicalForm)) {
+			return false;
+		}
+		CanonicalForm other = (CanonicalForm)obj;
+		return fingerprint == other.fingerprint && Arrays.equals(code, other.code);
+	}
+	
+	@Override
+	public int hashCode() {
+		return (int)(fingerprint ^ (fingerprint >>> 32));
+	}
+	
+	@Override
+	public String toString() {
+		return "CanonicalForm " + Long.toHexString(fingerprint) + " (" + code[0] + " vertices, " + code[1] + " edges, " + code[2] + " faces)";
+	}
+	
+}
@@ -0,0 +1,356 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered little-endian binary and ASCII input from a channel. 
+ * Numbers are parsed directly from the buffer without allocation, except 
+ * for decimal numbers that cannot be converted exactly from their digits.
+ */
+final class ChannelReader {
+
+	private static final double[]
+		POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+		}
+	}
+	
+	private final ReadableByteChannel
+		channel;
+	private final ByteBuffer
+		buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+	private final StringBuilder
+		token = new StringBuilder(32);
+	private boolean
+		eof = false;
+	private int
+		line = 1;
+	
+	ChannelReader(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.limit(0);
+	}
+	
+	/**
+	 * Make at least n bytes available, if the channel has that many.
+	 * @return whether n bytes are available
+	 */
+	private boolean fill(int n) throws IOException {
+		if (buffer.remaining() >= n) {
+			return true;
+		}
+		buffer.compact();
+		while (!eof && buffer.position() < n) {
+			if (channel.read(buffer) < 0) {
+				eof = true;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= n;
+	}
+	
+	private void require(int n) throws IOException {
+		if (!fill(n)) {
+			throw new EOFException("Unexpected end of input");
+		}
+	}
+	
+	/**
+	 * @return the line number of the current position in ASCII input
+	 */
+	int getLine() {
+		return line;
+	}
+	
+	/**
+	 * @return the next byte without consuming it or -1 at the end of the input
+	 */
+	int peek() throws IOException {
+		if (!buffer.hasRemaining() && !fill(1)) {
+			return -1;
+		}
+		return buffer.get(buffer.position()) & 0xff;
+	}
+	
+	/**
+	 * @return the next byte or -1 at the end of the input
+	 */
+	int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill(1)) {
+			return -1;
+		}
+		int b = buffer.get() & 0xff;
+		if (b == '\n') {
+			line++;
+		}
+		return b;
+	}
+	
+	// binary input
+	
+	int readByte() throws IOException {
+		require(1);
+		return buffer.get();
+	}
+	
+	int readUnsignedByte() throws IOException {
+		require(1);
+		return buffer.get() & 0xff;
+	}
+	
+	int readShort() throws IOException {
+		require(2);
+		return buffer.getShort();
+	}
+	
+	int readUnsignedShort() throws IOException {
+		require(2);
+		return buffer.getShort() & 0xffff;
+	}
+	
+	int readInt() throws IOException {
+		require(4);
+		return buffer.getInt();
+	}
+	
+	float readFloat() throws IOException {
+		require(4);
+		return buffer.getFloat();
+	}
+	
+	double readDouble() throws IOException {
+		require(8);
+		return buffer.getDouble();
+	}
+	
+	// ASCII input
+	
+	private static boolean isBlank(int b) {
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+	
+	/**
+	 * Skip spaces and tabs, but not line breaks.
+	 */
+	void skipBlanks() throws IOException {
+		while (isBlank(peek())) {
+			read();
+		}
+	}
+	
+	/**
+	 * Skip blanks, line breaks, and lines starting with comment.
+	 */
+	void skipWhitespace(int comment) throws IOException {
+		for (int b = peek(); ; b = peek()) {
+			if (isBlank(b) || b == '\n') {
+				read();
+			} else if (b == comment && b >= 0) {
+				skipLine();
+			} else {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Skip blanks and check for the end of the line.
+	 * @param comment a character that starts a comment or -1
+	 * @return true if the rest of the line is blank or a comment
+	 */
+	boolean atLineEnd(int comment) throws IOException {
+		skipBlanks();
+		int b = peek();
+		return b == '\n' || b < 0 || b == comment;
+	}
+	
+	/**
+	 * Consume the rest of the line including the line break.
+	 */
+	void skipLine() throws IOException {
+		for (int b = read(); b != '\n' && b >= 0; b = read());
+	}
+	
+	/**
+	 * @return whether the input is at its end
+	 */
+	boolean atEnd() throws IOException {
+		return peek() < 0;
+	}
+	
+	/**
+	 * Skip blanks and read the next word up to a blank or line break.
+	 * @return the word, empty at the end of a line
+	 */
+	String readWord() throws IOException {
+		skipBlanks();
+		token.setLength(0);
+		for (int b = peek(); b > ' '; b = peek()) {
+			token.append((char)read());
+		}
+		return token.toString();
+	}
+	
+	/**
+	 * Skip blanks and read the rest of the line without its line break.
+	 */
+	String readLine() throws IOException {
+		skipBlanks();
+		token.setLength(0);
+		for (int b = read(); b != '\n' && b >= 0; b = read()) {
+			if (b != '\r') token.append((char)b);
+		}
+		return token.toString();
+	}
+	
+	/**
+	 * Skip blanks and parse a decimal integer.
+	 * @throws IOException if there is no integer
+	 */
+	int readDecimalInt() throws IOException {
+		skipBlanks();
+		boolean negative = false;
+		int b = peek();
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			read();
+			b = peek();
+		}
+		if (b < '0' || b > '9') {
+			throw new IOException("Line " + line + ": integer expected");
+		}
+		long value = 0;
+		for (; b >= '0' && b <= '9'; b = peek()) {
+			value = 10 * value + (read() - '0');
+			if (value > 1L + Integer.MAX_VALUE) {
+				throw new IOException("Line " + line + ": integer too large");
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("Line " + line + ": integer too large");
+		}
+		return (int)value;
+	}
+	
+	/**
+	 * Skip blanks and parse a decimal floating point number.
+	 * @throws IOException if there is no number
+	 */
+	double readDecimalDouble() throws IOException {
+		skipBlanks();
+		token.setLength(0);
+		int b = peek();
+		boolean negative = false;
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			token.append((char)read());
+			b = peek();
+		}
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean any = false;
+		for (; b >= '0' && b <= '9'; b = peek()) {
+			any = true;
+			token.append((char)read());
+			if (mantissa == 0 && b == '0') continue;
+			if (digits < 18) {
+				mantissa = 10 * mantissa + (b - '0');
+				digits++;
+			} else {
+				exponent++;
+			}
+		}
+		if (b == '.') {
+			token.append((char)read());
+			for (b = peek(); b >= '0' && b <= '9'; b = peek()) {
+				any = true;
+				token.append((char)read());
+				if (digits < 18) {
+					if (mantissa != 0 || b != '0') {
+						mantissa = 10 * mantissa + (b - '0');
+						digits++;
+					}
+					exponent--;
+				}
+			}
+		}
+		if (any && (b == 'e' || b == 'E')) {
+			token.append((char)read());
+			b = peek();
+			boolean negativeExponent = false;
+			if (b == '-' || b == '+') {
+				negativeExponent = b == '-';
+				token.append((char)read());
+				b = peek();
+			}
+			int e = 0;
+			for (; b >= '0' && b <= '9'; b = peek()) {
+				token.append((char)read());
+				if (e < 10000) e = 10 * e + (b - '0');
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		if (!any) {
+			// nan, inf, or garbage
+			for (; b > ' ' && b != '/'; b = peek()) {
+				token.append((char)read());
+			}
+			return parseToken();
+		}
+		if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+			double d = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -d : d;
+		}
+		return parseToken();
+	}
+	
+	private double parseToken() throws IOException {
+		try {
+			return Double.parseDouble(token.toString());
+		} catch (NumberFormatException e) {
+			throw new IOException("Line " + line + ": number expected, found " + token);
+		}
+	}
+	
+}
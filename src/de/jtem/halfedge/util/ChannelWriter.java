@@ -0,0 +1,125 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered little-endian binary and ASCII output to a channel. 
+ * The put methods do not allocate.
+ */
+final class ChannelWriter {
+	
+	private final WritableByteChannel
+		channel;
+	private final ByteBuffer
+		buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+	private final StringBuilder
+		number = new StringBuilder(32);
+	private long
+		written = 0;
+	
+	ChannelWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+	
+	void putByte(int b) throws IOException {
+		if (!buffer.hasRemaining()) flush();
+		buffer.put((byte)b);
+	}
+	
+	void putInt(int i) throws IOException {
+		if (buffer.remaining() < 4) flush();
+		buffer.putInt(i);
+	}
+	
+	void putFloat(float f) throws IOException {
+		if (buffer.remaining() < 4) flush();
+		buffer.putFloat(f);
+	}
+	
+	void putDouble(double d) throws IOException {
+		if (buffer.remaining() < 8) flush();
+		buffer.putDouble(d);
+	}
+	
+	void putBytes(byte[] bytes) throws IOException {
+		for (byte b : bytes) {
+			putByte(b);
+		}
+	}
+	
+	/**
+	 * Write the characters of s as bytes, s must be ASCII.
+	 */
+	void putAscii(CharSequence s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			putByte(s.charAt(i));
+		}
+	}
+	
+	void putDecimal(int i) throws IOException {
+		number.setLength(0);
+		number.append(i);
+		putAscii(number);
+	}
+	
+	void putDecimal(double d) throws IOException {
+		number.setLength(0);
+		number.append(d);
+		putAscii(number);
+	}
+	
+	/**
+	 * Pad with zero bytes to a multiple of eight bytes since construction.
+	 */
+	void align8() throws IOException {
+		while (((written + buffer.position()) & 7) != 0) {
+			putByte(0);
+		}
+	}
+	
+	void flush() throws IOException {
+		buffer.flip();
+		written += buffer.remaining();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+}
@@ -0,0 +1,142 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.jtem.halfedge.util.BinaryMesh.Column;
+import de.jtem.halfedge.util.BinaryMesh.Kind;
+
+/**
+ * An {@link AttributeConsumer} that stores the values of each attribute in a growing 
+ * double array, one per kind and name. Values that were never delivered are NaN.
+ */
+public final class ColumnCollector implements AttributeConsumer {
+
+	private static final class Values {
+		
+		final Kind
+			kind;
+		final String
+			name;
+		final int
+			dimension;
+		double[]
+			data = new double[0];
+		int
+			count = 0;
+		
+		Values(Kind kind, String name, int dimension) {
+			this.kind = kind;
+			this.name = name;
+			this.dimension = dimension;
+		}
+		
+		double[] toArray(int n) {
+			double[] result = Arrays.copyOf(data, n * dimension);
+			if (count < n) {
+				Arrays.fill(result, count * dimension, n * dimension, Double.NaN);
+			}
+			return result;
+		}
+		
+	}
+	
+	private final Map<Kind, Map<String, Values>>
+		values = new EnumMap<Kind, Map<String, Values>>(Kind.class);
+	private final List<Values>
+		order = new ArrayList<Values>();
+	
+	public ColumnCollector() {
+		for (Kind kind : Kind.values()) {
+			values.put(kind, new HashMap<String, Values>());
+		}
+	}
+	
+	/**
+	 * @throws IllegalArgumentException if the dimension differs from earlier 
+	 * values of the same attribute
+	 */
+	@Override
+	public void attribute(Kind kind, String name, int index, double[] v, int dimension) throws IllegalArgumentException {
+		Values c = values.get(kind).get(name);
+		if (c == null) {
+			c = new Values(kind, name, dimension);
+			values.get(kind).put(name, c);
+			order.add(c);
+		}
+		if (c.dimension != dimension) {
+			throw new IllegalArgumentException("Attribute " + name + " has dimension " + c.dimension + ", got " + dimension);
+		}
+		int end = (index + 1) * dimension;
+		if (end > c.data.length) {
+			int length = Math.max(end, 2 * c.data.length);
+			int old = c.data.length;
+			c.data = Arrays.copyOf(c.data, length);
+			Arrays.fill(c.data, old, length, Double.NaN);
+		}
+		System.arraycopy(v, 0, c.data, index * dimension, dimension);
+		c.count = Math.max(c.count, index + 1);
+	}
+	
+	/**
+	 * @param kind a kind of node
+	 * @param name an attribute name
+	 * @param n the number of nodes
+	 * @return the values of n nodes or <code>null</code> if the attribute was never delivered 
+	 */
+	public double[] getValues(Kind kind, String name, int n) {
+		Values c = values.get(kind).get(name);
+		return c == null ? null : c.toArray(n);
+	}
+	
+	/**
+	 * @return the collected attributes as columns for the given numbers of nodes, in the 
+	 * order of their first delivery
+	 */
+	public List<Column> getColumns(int numVertices, int numEdges, int numFaces) {
+		List<Column> columns = new ArrayList<Column>(order.size());
+		for (Values c : order) {
+			int n = c.kind == Kind.VERTEX ? numVertices : c.kind == Kind.EDGE ? numEdges : numFaces;
+			columns.add(new Column(c.name, c.kind, c.dimension, c.toArray(n)));
+		}
+		return columns;
+	}
+	
+}
@@ -0,0 +1,290 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Labeling of the connected components of a half-edge data structure.
+ * <p>
+ * Two nodes belong to the same component if they are connected by a chain of 
+ * next edge, opposite edge, target vertex, and left face links. An isolated 
+ * vertex or face forms a component of its own.
+ * <p>
+ * The labels are computed with a lock-free concurrent union-find over the edge links, 
+ * so large half-edge data structures are labeled using all available processors.
+ * Components are numbered in the order of their first edge in the edge list, 
+ * components without edges follow in vertex list and then face list order.
+ */
+public final class ConnectedComponents {
+
+	private final int
+		numComponents;
+	private final int[]
+		vertexLabels,
+		edgeLabels,
+		faceLabels;
+	
+	private ConnectedComponents(int numComponents, int[] vertexLabels, int[] edgeLabels, int[] faceLabels) {
+		this.numComponents = numComponents;
+		this.vertexLabels = vertexLabels;
+		this.edgeLabels = edgeLabels;
+		this.faceLabels = faceLabels;
+	}
+	
+	/**
+	 * Label the connected components of a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @return the labeling
+	 */
+	public static ConnectedComponents label(HalfEdgeDataStructure<?, ?, ?> hds) {
+		Connectivity c = new Connectivity(hds);
+		final int ne = c.numEdges;
+		final int nv = c.numVertices;
+		final int n = ne + nv + c.numFaces;
+		// node i is edge i, vertex ne + i, or face ne + nv + i
+		final AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			parent.lazySet(i, i);
+		}
+		final int[] next = c.next, opposite = c.opposite, target = c.target, face = c.face;
+		Parallel.forRange(ne, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; i++) {
+					if (next[i] >= 0) union(parent, i, next[i]);
+					if (opposite[i] >= 0) union(parent, i, opposite[i]);
+					if (target[i] >= 0) union(parent, i, ne + target[i]);
+					if (face[i] >= 0) union(parent, i, ne + nv + face[i]);
+				}
+			}
+		});
+		// roots are the smallest nodes of their components 
+		final int[] labels = new int[n];
+		int numComponents = 0;
+		for (int i = 0; i < n; i++) {
+			int root = find(parent, i);
+			labels[i] = root == i ? numComponents++ : labels[root];
+		}
+		int[] edgeLabels = new int[ne];
+		int[] vertexLabels = new int[nv];
+		int[] faceLabels = new int[c.numFaces];
+		System.arraycopy(labels, 0, edgeLabels, 0, ne);
+		System.arraycopy(labels, ne, vertexLabels, 0, nv);
+		System.arraycopy(labels, ne + nv, faceLabels, 0, c.numFaces);
+		return new ConnectedComponents(numComponents, vertexLabels, edgeLabels, faceLabels);
+	}
+	
+	private static int find(AtomicIntegerArray parent, int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x) {
+				return x;
+			}
+			int gp = parent.get(p);
+			if (p != gp) {
+				// path halving, parents only ever decrease
+				parent.compareAndSet(x, p, gp);
+			}
+			x = gp;
+		}
+	}
+	
+	private static void union(AtomicIntegerArray parent, int a, int b) {
+		while (true) {
+			a = find(parent, a);
+			b = find(parent, b);
+			if (a == b) {
+				return;
+			}
+			if (a < b) {
+				int t = a; a = b; b = t;
+			}
+			// link the larger root below the smaller one, fails if a is no longer a root
+			if (parent.compareAndSet(a, a, b)) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Count the connected components of a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @return the number of components
+	 */
+	public static int count(HalfEdgeDataStructure<?, ?, ?> hds) {
+		return label(hds).getNumComponents();
+	}
+	
+	/**
+	 * Return the number of connected components.
+	 * @return the number of components
+	 */
+	public int getNumComponents() {
+		return numComponents;
+	}
+	
+	/**
+	 * Return the component labels of the vertices, indexed by vertex index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the vertex labels
+	 */
+	public int[] getVertexLabels() {
+		return vertexLabels;
+	}
+
+	/**
+	 * Return the component labels of the edges, indexed by edge index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the edge labels
+	 */
+	public int[] getEdgeLabels() {
+		return edgeLabels;
+	}
+	
+	/**
+	 * Return the component labels of the faces, indexed by face index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the face labels
+	 */
+	public int[] getFaceLabels() {
+		return faceLabels;
+	}
+	
+	/**
+	 * Copy each connected component of hds into its own half-edge data structure. 
+	 * The copies use the node classes of hds, and {@code copyData} is called for 
+	 * every copied vertex, edge, and face. The relative order of the nodes of 
+	 * a component is preserved.
+	 * @param hds the half-edge data structure, it must not have been modified since this labeling was computed
+	 * @return the list of components, the i-th entry contains the nodes with label i
+	 * @throws RuntimeException if the sizes of hds do not match this labeling
+	 */
+	public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> List<HalfEdgeDataStructure<V,E,F>> extractComponents(HalfEdgeDataStructure<V,E,F> hds) throws RuntimeException {
+		if (hds.numVertices() != vertexLabels.length 
+				|| hds.numEdges() != edgeLabels.length 
+				|| hds.numFaces() != faceLabels.length) {
+			throw new RuntimeException(hds + " has been modified after labeling.");
+		}
+		int[] nv = new int[numComponents];
+		int[] ne = new int[numComponents];
+		int[] nf = new int[numComponents];
+		int[] vertexMap = localIndices(vertexLabels, nv);
+		int[] edgeMap = localIndices(edgeLabels, ne);
+		int[] faceMap = localIndices(faceLabels, nf);
+		List<HalfEdgeDataStructure<V,E,F>> result = new ArrayList<HalfEdgeDataStructure<V,E,F>>(numComponents);
+		List<List<V>> vertices = new ArrayList<List<V>>(numComponents);
+		List<List<E>> edges = new ArrayList<List<E>>(numComponents);
+		List<List<F>> faces = new ArrayList<List<F>>(numComponents);
+		for (int i = 0; i < numComponents; i++) {
+			HalfEdgeDataStructure<V,E,F> c = new HalfEdgeDataStructure<V,E,F>(hds.getVertexClass(), hds.getEdgeClass(), hds.getFaceClass());
+			vertices.add(c.addNewVertices(nv[i]));
+			edges.add(c.addNewEdges(ne[i]));
+			faces.add(c.addNewFaces(nf[i]));
+			result.add(c);
+		}
+		for (V v : hds.getVertices()) {
+			int i = v.getIndex();
+			vertices.get(vertexLabels[i]).get(vertexMap[i]).copyData(v);
+		}
+		for (F f : hds.getFaces()) {
+			int i = f.getIndex();
+			faces.get(faceLabels[i]).get(faceMap[i]).copyData(f);
+		}
+		for (E e : hds.getEdges()) {
+			int i = e.getIndex();
+			int label = edgeLabels[i];
+			List<E> cEdges = edges.get(label);
+			E ee = cEdges.get(edgeMap[i]);
+			E eNext = e.getNextEdge();
+			E eOpp = e.getOppositeEdge();
+			F f = e.getLeftFace();
+			V v = e.getTargetVertex();
+			ee.copyData(e);
+			ee.setIsPositive(e.isPositive());
+			if (eNext != null) {
+				ee.linkNextEdge(cEdges.get(edgeMap[eNext.getIndex()]));
+			}
+			if (eOpp != null) {
+				ee.linkOppositeEdge(cEdges.get(edgeMap[eOpp.getIndex()]));
+			}
+			if (f != null) {
+				ee.setLeftFace(faces.get(label).get(faceMap[f.getIndex()]));
+			}
+			if (v != null) {
+				ee.setTargetVertex(vertices.get(label).get(vertexMap[v.getIndex()]));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Number the nodes of each component consecutively. 
+	 * @param labels the component labels
+	 * @param counts will contain the number of nodes per component
+	 * @return the index of each node within its component
+	 */
+	private static int[] localIndices(int[] labels, int[] counts) {
+		int[] local = new int[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			local[i] = counts[labels[i]]++;
+		}
+		return local;
+	}
+	
+	/**
+	 * Copy each connected component of hds into its own half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @return the list of components
+	 * @see #extractComponents(HalfEdgeDataStructure)
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> List<HalfEdgeDataStructure<V,E,F>> split(HalfEdgeDataStructure<V,E,F> hds) {
+		return label(hds).extractComponents(hds);
+	}
+	
+}
@@ -0,0 +1,124 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Node;
+
+/**
+ * An index based snapshot of the links of a half-edge data structure. 
+ * Missing links are stored as -1.
+ * <p>
+ * The snapshot does not follow later modifications of the half-edge data structure. 
+ */
+final class Connectivity {
+
+	final int
+		numVertices,
+		numEdges,
+		numFaces;
+	final int[]
+		next,
+		opposite,
+		target,
+		face;
+	
+	/**
+	 * Read the links of all edges of hds.
+	 * @param hds the half-edge data structure
+	 */
+	Connectivity(HalfEdgeDataStructure<?, ?, ?> hds) {
+		numVertices = hds.numVertices();
+		numEdges = hds.numEdges();
+		numFaces = hds.numFaces();
+		next = new int[numEdges];
+		opposite = new int[numEdges];
+		target = new int[numEdges];
+		face = new int[numEdges];
+		cleanIndices(hds);
+		final List<? extends Edge<?,?,?>> edges = hds.getEdges();
+		Parallel.forRange(numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; i++) {
+					Edge<?,?,?> e = edges.get(i);
+					next[i] = index(e.getNextEdge());
+					opposite[i] = index(e.getOppositeEdge());
+					target[i] = index(e.getTargetVertex());
+					face[i] = index(e.getLeftFace());
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Read the links of all edges of a view. The view is read sequentially, since 
+	 * views of half-edge data structures may reindex nodes.
+	 * @param view the view
+	 */
+	Connectivity(HalfEdgeView view) {
+		numVertices = view.numVertices();
+		numEdges = view.numEdges();
+		numFaces = view.numFaces();
+		next = new int[numEdges];
+		opposite = new int[numEdges];
+		target = new int[numEdges];
+		face = new int[numEdges];
+		for (int i = 0; i < numEdges; i++) {
+			next[i] = view.getNextEdge(i);
+			opposite[i] = view.getOppositeEdge(i);
+			target[i] = view.getTargetVertex(i);
+			face[i] = view.getLeftFace(i);
+		}
+	}
+	
+	/**
+	 * Make sure the node indices of hds are up to date, so that 
+	 * {@link de.jtem.halfedge.Node#getIndex()} does not reindex 
+	 * while other threads read indices.
+	 * @param hds the half-edge data structure
+	 */
+	static void cleanIndices(HalfEdgeDataStructure<?, ?, ?> hds) {
+		if (hds.numVertices() > 0) hds.getVertex(0);
+		if (hds.numEdges() > 0) hds.getEdge(0);
+		if (hds.numFaces() > 0) hds.getFace(0);
+	}
+	
+	static int index(Node<?,?,?> n) {
+		return n == null ? -1 : n.getIndex();
+	}
+	
+}
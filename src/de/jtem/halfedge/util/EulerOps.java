@@ -0,0 +1,422 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Local topological operations on half-edge data structures.
+ * <p>
+ * Each operation checks its preconditions before it modifies anything, so if it throws 
+ * an exception the half-edge data structure is unchanged. Applied to a 
+ * {@linkplain HalfEdgeUtils#isValidSurface(HalfEdgeDataStructure) valid surface}, 
+ * each operation results in a valid surface. Existing nodes are reused in place 
+ * wherever the operation permits, and the vertex and face anchors of the touched nodes 
+ * are updated explicitly, so that no later lookup has to scan the edge list. 
+ * <p>
+ * Apart from {@link #collapseEdge(Edge)}, which removes nodes, the cost of each operation is 
+ * proportional to the degrees of the faces and vertices involved. Removing a node costs 
+ * the same as {@link HalfEdgeDataStructure#removeEdge(Edge)} and its siblings.
+ */
+public final class EulerOps {
+
+	// Don't instatiate.
+	private EulerOps() {}
+	
+	/**
+	 * Rotate an interior edge forward within the union of its left and right faces.
+	 * <p>
+	 * If {@code e} goes from {@code a} to {@code b}, afterwards it goes from the target of 
+	 * {@code e.getOppositeEdge().getNextEdge()} to the target of {@code e.getNextEdge()}. 
+	 * For an edge between two triangles, this is the usual edge flip. 
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param e the edge, it must have a left and a right face
+	 * @return e
+	 * @throws IllegalArgumentException if e is a boundary edge, has the same face on both sides, 
+	 * 		if a face is not at least a triangle, or if the rotated edge would connect two vertices 
+	 * 		that are already connected
+	 */
+	static public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> E flipEdge(E e) throws IllegalArgumentException {
+		E o = e.getOppositeEdge();
+		F f = e.getLeftFace();
+		F g = e.getRightFace();
+		if (f == null || g == null) {
+			throw new IllegalArgumentException(e + " is not an interior edge.");
+		}
+		if (f == g) {
+			throw new IllegalArgumentException(e + " has " + f + " on both sides.");
+		}
+		E e1 = e.getNextEdge();
+		E e2 = e.getPreviousEdge();
+		E o1 = o.getNextEdge();
+		E o2 = o.getPreviousEdge();
+		checkCycle(e, e1, e2);
+		checkCycle(o, o1, o2);
+		V c = e1.getTargetVertex();
+		V d = o1.getTargetVertex();
+		if (c == d || HalfEdgeUtils.findEdgeBetweenVertices(d, c) != null) {
+			throw new IllegalArgumentException("Flipping " + e + " would create a double edge or a loop.");
+		}
+		V a = e2.getTargetVertex();
+		V b = o2.getTargetVertex();
+		E n1 = e1.getNextEdge();
+		E m1 = o1.getNextEdge();
+		// f: e2, o1, e, n1, ...   g: o2, e1, o, m1, ...
+		e2.linkNextEdge(o1);
+		o1.linkNextEdge(e);
+		e.linkNextEdge(n1);
+		o2.linkNextEdge(e1);
+		e1.linkNextEdge(o);
+		o.linkNextEdge(m1);
+		o1.setLeftFace(f);
+		e1.setLeftFace(g);
+		e.setLeftFace(f);
+		o.setLeftFace(g);
+		e.setTargetVertex(c);
+		o.setTargetVertex(d);
+		e2.setTargetVertex(a);
+		o2.setTargetVertex(b);
+		return e;
+	}
+	
+	/**
+	 * Insert a new vertex into an edge.
+	 * <p>
+	 * If {@code e} goes from {@code a} to {@code b}, afterwards it goes from {@code a} to the 
+	 * new vertex {@code v}, its opposite edge goes from {@code v} to {@code a}, and a new pair of edges 
+	 * connects {@code v} and {@code b}. The faces on both sides gain one edge.
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param e the edge, it must have an opposite edge and both must have next and previous edges
+	 * @return the new vertex
+	 * @throws IllegalArgumentException if links are missing
+	 */
+	static public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> V splitEdge(E e) throws IllegalArgumentException {
+		E o = e.getOppositeEdge();
+		if (o == null) {
+			throw new IllegalArgumentException(e + " has no opposite edge.");
+		}
+		E e1 = e.getNextEdge();
+		E o2 = o.getPreviousEdge();
+		if (e1 == null || o2 == null || e.getTargetVertex() == null) {
+			throw new IllegalArgumentException(e + " is not properly linked.");
+		}
+		HalfEdgeDataStructure<V,E,F> hds = e.getHalfEdgeDataStructure();
+		V b = e.getTargetVertex();
+		V v = hds.addNewVertex();
+		E n = hds.addNewEdge();
+		E no = hds.addNewEdge();
+		n.setIsPositive(e.isPositive());
+		n.linkOppositeEdge(no);
+		// f: e, n, e1, ...   g: o2, no, o, ... 
+		e.linkNextEdge(n);
+		n.linkNextEdge(e1);
+		o2.linkNextEdge(no);
+		no.linkNextEdge(o);
+		n.setLeftFace(e.getLeftFace());
+		no.setLeftFace(o.getLeftFace());
+		no.setTargetVertex(v);
+		e.setTargetVertex(v);
+		n.setTargetVertex(b);
+		return v;
+	}
+	
+	/**
+	 * Split a face by a new edge between the target vertices of two of its boundary edges. 
+	 * <p>
+	 * The new edge goes from the target of {@code eA} to the target of {@code eB} and keeps the 
+	 * face of {@code eA}. The edges from {@code eA.getNextEdge()} to {@code eB} get a new face.
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param eA an edge of the face
+	 * @param eB another edge of the face, neither the next nor the previous edge of eA
+	 * @return the new edge, its opposite edge has the new face as left face
+	 * @throws IllegalArgumentException if eA and eB do not have the same non-null left face 
+	 * 		or are adjacent in their face
+	 */
+	static public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> E splitFace(E eA, E eB) throws IllegalArgumentException {
+		F f = eA.getLeftFace();
+		if (f == null || f != eB.getLeftFace()) {
+			throw new IllegalArgumentException(eA + " and " + eB + " do not have the same non-null left face.");
+		}
+		if (eA == eB || eA.getNextEdge() == eB || eB.getNextEdge() == eA) {
+			throw new IllegalArgumentException(eA + " and " + eB + " are adjacent.");
+		}
+		E e = eA.getNextEdge();
+		while (e != eB) {
+			if (e == null || e == eA) {
+				throw new IllegalArgumentException(eB + " is not in the edge cycle of " + eA + ".");
+			}
+			e = e.getNextEdge();
+		}
+		HalfEdgeDataStructure<V,E,F> hds = eA.getHalfEdgeDataStructure();
+		E aNext = eA.getNextEdge();
+		E bNext = eB.getNextEdge();
+		E n = hds.addNewEdge();
+		E no = hds.addNewEdge();
+		n.setIsPositive(true);
+		n.linkOppositeEdge(no);
+		eA.linkNextEdge(n);
+		n.linkNextEdge(bNext);
+		eB.linkNextEdge(no);
+		no.linkNextEdge(aNext);
+		n.setTargetVertex(eB.getTargetVertex());
+		no.setTargetVertex(eA.getTargetVertex());
+		n.setLeftFace(f);
+		F h = hds.addNewFace();
+		e = no;
+		do {
+			e.setLeftFace(h);
+			e = e.getNextEdge();
+		} while (e != no);
+		return n;
+	}
+	
+	/**
+	 * Split a vertex into two vertices connected by a new pair of edges. This is the 
+	 * inverse of {@link #collapseEdge(Edge)}.
+	 * <p>
+	 * Both edges must have the same target vertex {@code v}. The incoming edges of {@code v} 
+	 * from {@code h1} up to but not including {@code h2}, in the clockwise order of 
+	 * {@link HalfEdgeUtils#incomingEdges(Vertex)}, are moved to a new vertex {@code w}. The 
+	 * new edge from {@code w} to {@code v} is inserted in the face between the last of the 
+	 * moved edges and {@code h2}, its opposite edge in the face between the last remaining 
+	 * edge and {@code h1}. 
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param h1 the first incoming edge that is moved to the new vertex
+	 * @param h2 the first incoming edge that remains at the old vertex
+	 * @return the new edge from the new vertex to the old one
+	 * @throws IllegalArgumentException if h1 and h2 are equal or are not incoming edges of the same vertex
+	 */
+	static public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> E splitVertex(E h1, E h2) throws IllegalArgumentException {
+		V v = h1.getTargetVertex();
+		if (h1 == h2 || v == null || v != h2.getTargetVertex()) {
+			throw new IllegalArgumentException(h1 + " and " + h2 + " are not distinct incoming edges of one vertex.");
+		}
+		List<E> star = HalfEdgeUtils.incomingEdges(v);
+		int i1 = star.indexOf(h1);
+		int i2 = star.indexOf(h2);
+		if (i1 < 0 || i2 < 0) {
+			throw new IllegalArgumentException(h1 + " and " + h2 + " are not in the same edge cocycle.");
+		}
+		int k = star.size();
+		E lastMoved = star.get((i2 + k - 1) % k);
+		E lastKept = star.get((i1 + k - 1) % k);
+		HalfEdgeDataStructure<V,E,F> hds = v.getHalfEdgeDataStructure();
+		V w = hds.addNewVertex();
+		E n = hds.addNewEdge();
+		E no = hds.addNewEdge();
+		n.setIsPositive(true);
+		n.linkOppositeEdge(no);
+		E lastMovedNext = lastMoved.getNextEdge();
+		E lastKeptNext = lastKept.getNextEdge();
+		for (int i = i1; i != i2; i = (i + 1) % k) {
+			star.get(i).setTargetVertex(w);
+		}
+		lastMoved.linkNextEdge(n);
+		n.linkNextEdge(lastMovedNext);
+		lastKept.linkNextEdge(no);
+		no.linkNextEdge(lastKeptNext);
+		n.setLeftFace(lastMoved.getLeftFace());
+		no.setLeftFace(lastKept.getLeftFace());
+		n.setTargetVertex(v);
+		no.setTargetVertex(w);
+		return n;
+	}
+	
+	/**
+	 * Collapse an edge by merging its start vertex into its target vertex.
+	 * <p>
+	 * The edge, its opposite, and its start vertex are removed. A triangle on either side of 
+	 * the edge degenerates and is removed together with one of its remaining edge pairs.
+	 * <p>
+	 * The relinking is local, it takes time proportional to the degrees of the two vertices. 
+	 * The removal of the nodes is not: outside of a {@linkplain de.jtem.halfedge.Transaction transaction} 
+	 * each removed node is taken out of its node list, which shifts the nodes behind it, so a collapse 
+	 * takes O(n) time in the number of nodes. Inside a transaction the removals are deferred, a 
+	 * collapse takes time proportional to the degrees only, and the node lists are compacted in 
+	 * one O(n) pass on commit. Collapse many edges in one transaction.
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param e the edge
+	 * @return the remaining vertex, the former target of e
+	 * @throws IllegalArgumentException if the collapse would result in a degenerate or 
+	 * 		non-manifold surface. This is the case if the start and target vertex have a common 
+	 * 		neighbor that is not opposite of e in an adjacent triangle, if both are boundary 
+	 * 		vertices but e is an interior edge, if both triangles adjacent to e have the same vertices, 
+	 * 		or if e is in a boundary cycle of length 3.
+	 */
+	static public <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> V collapseEdge(E e) throws IllegalArgumentException {
+		E o = e.getOppositeEdge();
+		if (o == null) {
+			throw new IllegalArgumentException(e + " has no opposite edge.");
+		}
+		E e1 = e.getNextEdge();
+		E e2 = e.getPreviousEdge();
+		E o1 = o.getNextEdge();
+		E o2 = o.getPreviousEdge();
+		checkCycle(e, e1, e2);
+		checkCycle(o, o1, o2);
+		V a = o.getTargetVertex();
+		V b = e.getTargetVertex();
+		if (a == null || b == null || a == b) {
+			throw new IllegalArgumentException(e + " is a loop or has no start or target vertex.");
+		}
+		F f = e.getLeftFace();
+		F g = o.getLeftFace();
+		boolean fTriangle = e1.getNextEdge() == e2;
+		boolean gTriangle = o1.getNextEdge() == o2;
+		if ((f == null && fTriangle) || (g == null && gTriangle)) {
+			throw new IllegalArgumentException("Collapsing " + e + " would create a boundary cycle of length 2.");
+		}
+		List<E> aIn = HalfEdgeUtils.incomingEdges(a);
+		List<E> bIn = HalfEdgeUtils.incomingEdges(b);
+		V c = fTriangle ? e1.getTargetVertex() : null;
+		V d = gTriangle ? o1.getTargetVertex() : null;
+		if (c != null && c == d) {
+			throw new IllegalArgumentException("The triangles on both sides of " + e + " have the same vertices.");
+		}
+		for (E x : aIn) {
+			V s = x.getStartVertex();
+			if (s == b) {
+				continue;
+			}
+			for (E y : bIn) {
+				if (s == y.getStartVertex() && s != c && s != d) {
+					throw new IllegalArgumentException("Collapsing " + e + " violates the link condition at " + s + ".");
+				}
+			}
+		}
+		if (f != null && g != null && hasBoundaryEdge(aIn) && hasBoundaryEdge(bIn)) {
+			throw new IllegalArgumentException("Collapsing the interior edge " + e + " would pinch the boundary.");
+		}
+		HalfEdgeDataStructure<V,E,F> hds = e.getHalfEdgeDataStructure();
+		for (E x : aIn) {
+			x.setTargetVertex(b);
+		}
+		e2.linkNextEdge(e1);
+		o2.linkNextEdge(o1);
+		hds.removeEdge(e);
+		hds.removeEdge(o);
+		hds.removeVertex(a);
+		if (fTriangle) {
+			removeDigon(hds, e1, e2);
+		} else {
+			e1.setLeftFace(f);
+			e2.setTargetVertex(b);
+		}
+		if (gTriangle) {
+			removeDigon(hds, o1, o2);
+		} else {
+			o1.setLeftFace(g);
+			o2.setTargetVertex(b);
+		}
+		return b;
+	}
+	
+	/**
+	 * Remove an edge cycle x1, x2 of length 2 and its face, and link the opposite edges 
+	 * of x1 and x2. The removals cost O(n) outside of a transaction, see {@link #collapseEdge(Edge)}.
+	 */
+	private static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> void removeDigon(HalfEdgeDataStructure<V,E,F> hds, E x1, E x2) {
+		E p = x1.getOppositeEdge();
+		E q = x2.getOppositeEdge();
+		V pTarget = p.getTargetVertex();
+		V qTarget = q.getTargetVertex();
+		F digon = x1.getLeftFace();
+		hds.removeEdge(x1);
+		hds.removeEdge(x2);
+		hds.removeFace(digon);
+		p.linkOppositeEdge(q);
+		p.setTargetVertex(pTarget);
+		q.setTargetVertex(qTarget);
+	}
+	
+	private static boolean hasBoundaryEdge(List<? extends Edge<?,?,?>> edges) {
+		for (Edge<?,?,?> e : edges) {
+			if (e.getLeftFace() == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Check that e is in an edge cycle of length at least 3.
+	 */
+	private static void checkCycle(Edge<?,?,?> e, Edge<?,?,?> next, Edge<?,?,?> previous) throws IllegalArgumentException {
+		if (next == null || previous == null) {
+			throw new IllegalArgumentException(e + " is not in a closed edge cycle.");
+		}
+		if (next == previous || next == e) {
+			throw new IllegalArgumentException(e + " is in an edge cycle of length less than 3.");
+		}
+	}
+	
+}
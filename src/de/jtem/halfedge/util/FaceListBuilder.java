@@ -0,0 +1,302 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.Arrays;
+
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * Bulk construction of a surface from a list of faces given by their vertex indices.
+ * <p>
+ * Faces are added one by one and stored in two flat int arrays, the corners of all faces 
+ * and the start of each face. {@link #build(HalfEdgeDataStructure)} matches opposite edges 
+ * through counting sorts of the edges by their pairs of end vertices, adds boundary edges, 
+ * and writes all links in one step with 
+ * {@link HalfEdgeDataStructure#appendCombinatoriallyEquivalentCopy(HalfEdgeView)}. 
+ * In contrast to {@link HalfEdgeUtils#constructFaceByVertices(HalfEdgeDataStructure, de.jtem.halfedge.Vertex...)} 
+ * the cost is linear in the number of corners and vertices.
+ * <p>
+ * The nodes are numbered as follows, relative to the sizes of the half-edge data structure before 
+ * the build: vertex i is vertex i of the face list, face i is the i-th added face, and edge c is 
+ * the edge of the face of corner c that has the vertex of corner c as target vertex. The boundary 
+ * edges follow after the edges of the faces.
+ */
+public final class FaceListBuilder {
+
+	private int
+		numVertices = 0,
+		numFaces = 0,
+		numCorners = 0;
+	private int[]
+		faceStart = new int[16],
+		corners = new int[64];
+	
+	/**
+	 * Make sure the surface has at least n vertices. Vertices that are referenced 
+	 * by faces are added automatically.
+	 * @param n the number of vertices
+	 */
+	public void ensureVertices(int n) {
+		numVertices = Math.max(numVertices, n);
+	}
+	
+	/**
+	 * Add a face.
+	 * @param vertices the vertex indices of the face in counterclockwise order
+	 * @return the index of the new face
+	 * @throws IllegalArgumentException if less than three vertices are given 
+	 * or an index is negative
+	 */
+	public int addFace(int... vertices) throws IllegalArgumentException {
+		return addFace(vertices, 0, vertices.length);
+	}
+	
+	/**
+	 * Add a face with the vertex indices vertices[offset] to vertices[offset + length - 1].
+	 * @return the index of the new face
+	 * @throws IllegalArgumentException if length is less than three or an index is negative
+	 */
+	public int addFace(int[] vertices, int offset, int length) throws IllegalArgumentException {
+		if (length < 3) {
+			throw new IllegalArgumentException("A face needs at least three vertices, got " + length);
+		}
+		if (numFaces + 1 >= faceStart.length) {
+			faceStart = Arrays.copyOf(faceStart, 2 * faceStart.length);
+		}
+		if (numCorners + length > corners.length) {
+			corners = Arrays.copyOf(corners, Math.max(2 * corners.length, numCorners + length));
+		}
+		for (int i = 0; i < length; i++) {
+			int v = vertices[offset + i];
+			if (v < 0) {
+				throw new IllegalArgumentException("Negative vertex index " + v);
+			}
+			if (v >= numVertices) {
+				numVertices = v + 1;
+			}
+			corners[numCorners + i] = v;
+		}
+		faceStart[numFaces] = numCorners;
+		numCorners += length;
+		faceStart[++numFaces] = numCorners;
+		return numFaces - 1;
+	}
+	
+	public int numVertices() {
+		return numVertices;
+	}
+	
+	public int numFaces() {
+		return numFaces;
+	}
+	
+	/**
+	 * @return the number of face corners, which is the number of edges that have a left face
+	 */
+	public int numCorners() {
+		return numCorners;
+	}
+	
+	/**
+	 * Remove all faces and vertices.
+	 */
+	public void clear() {
+		numVertices = numFaces = numCorners = 0;
+	}
+	
+	/**
+	 * Append the surface to dst.
+	 * @param dst the half-edge data structure to append to
+	 * @return dst
+	 * @throws IllegalArgumentException if the faces do not form an oriented surface, this 
+	 * is if there is more than one edge from one vertex to another or a face contains an edge twice 
+	 */
+	public <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS build(HEDS dst) throws IllegalArgumentException {
+		EventHook.Operation event = EventHook.beginOperation("FaceListBuilder.build");
+		String outcome = EventHook.FAILED;
+		try {
+			append(dst);
+			outcome = EventHook.OK;
+			return dst;
+		} finally {
+			event.end(dst, outcome, numFaces);
+		}
+	}
+	
+	/**
+	 * Stable counting sort of the indices in order, or of 0 to n - 1 if order is null, by their keys.
+	 */
+	private int[] countingSort(int[] order, int[] keys, int n) {
+		int[] start = new int[numVertices + 1];
+		for (int i = 0; i < n; i++) {
+			start[keys[i] + 1]++;
+		}
+		for (int v = 0; v < numVertices; v++) {
+			start[v + 1] += start[v];
+		}
+		int[] sorted = new int[n];
+		for (int i = 0; i < n; i++) {
+			int x = order == null ? i : order[i];
+			sorted[start[keys[x]]++] = x;
+		}
+		return sorted;
+	}
+	
+	private void append(HalfEdgeDataStructure<?,?,?> dst) throws IllegalArgumentException {
+		final int nc = numCorners;
+		final int[] face = new int[nc];
+		final int[] previous = new int[nc];
+		final int[] next = new int[nc];
+		for (int f = 0; f < numFaces; f++) {
+			int start = faceStart[f], end = faceStart[f + 1];
+			for (int c = start; c < end; c++) {
+				face[c] = f;
+				previous[c] = c == start ? end - 1 : c - 1;
+				next[c] = c == end - 1 ? start : c + 1;
+			}
+		}
+		// edges by unordered pair of end vertices, two stable counting sorts
+		int[] low = new int[nc];
+		int[] high = new int[nc];
+		for (int c = 0; c < nc; c++) {
+			int a = corners[previous[c]], b = corners[c];
+			if (a == b) {
+				throw new IllegalArgumentException("Face " + face[c] + " has an edge from vertex " + a + " to itself");
+			}
+			low[c] = Math.min(a, b);
+			high[c] = Math.max(a, b);
+		}
+		int[] byHigh = countingSort(null, high, nc);
+		int[] sorted = countingSort(byHigh, low, nc);
+		// opposite edges are adjacent in the sorted order
+		int[] opposite = new int[nc];
+		int numBoundary = 0;
+		for (int i = 0; i < nc;) {
+			int c = sorted[i], j = i + 1;
+			while (j < nc && low[sorted[j]] == low[c] && high[sorted[j]] == high[c]) {
+				j++;
+			}
+			int forward = -1, backward = -1;
+			for (int k = i; k < j; k++) {
+				int x = sorted[k];
+				boolean isForward = corners[x] == high[x];
+				if ((isForward ? forward : backward) >= 0) {
+					int a = corners[previous[x]];
+					throw new IllegalArgumentException("More than one edge from vertex " + a + " to vertex " + corners[x]);
+				}
+				if (isForward) {
+					forward = x;
+				} else {
+					backward = x;
+				}
+			}
+			if (forward >= 0 && backward >= 0) {
+				opposite[forward] = backward;
+				opposite[backward] = forward;
+			} else {
+				opposite[c] = -1;
+				numBoundary++;
+			}
+			i = j;
+		}
+		// boundary edges
+		final int ne = nc + numBoundary;
+		final int[] allNext = Arrays.copyOf(next, ne);
+		final int[] allPrevious = Arrays.copyOf(previous, ne);
+		final int[] allOpposite = Arrays.copyOf(opposite, ne);
+		final int[] allTarget = Arrays.copyOf(corners, ne);
+		int b = nc;
+		for (int c = 0; c < nc; c++) {
+			if (opposite[c] < 0) {
+				allOpposite[c] = b;
+				allOpposite[b] = c;
+				allTarget[b] = corners[previous[c]];
+				b++;
+			}
+		}
+		for (b = nc; b < ne; b++) {
+			// rotate around the target vertex to the outgoing boundary edge
+			int x = allOpposite[b];
+			int o = allOpposite[previous[x]];
+			while (o < nc) {
+				x = o;
+				o = allOpposite[previous[x]];
+			}
+			allNext[b] = o;
+			allPrevious[o] = b;
+		}
+		final int nv = numVertices, nf = numFaces;
+		dst.appendCombinatoriallyEquivalentCopy(new HalfEdgeView() {
+			@Override
+			public int numVertices() {
+				return nv;
+			}
+			@Override
+			public int numEdges() {
+				return ne;
+			}
+			@Override
+			public int numFaces() {
+				return nf;
+			}
+			@Override
+			public int getNextEdge(int e) {
+				return allNext[e];
+			}
+			@Override
+			public int getPreviousEdge(int e) {
+				return allPrevious[e];
+			}
+			@Override
+			public int getOppositeEdge(int e) {
+				return allOpposite[e];
+			}
+			@Override
+			public int getTargetVertex(int e) {
+				return allTarget[e];
+			}
+			@Override
+			public int getLeftFace(int e) {
+				return e < nc ? face[e] : -1;
+			}
+			@Override
+			public boolean isPositive(int e) {
+				return e > allOpposite[e];
+			}
+		});
+	}
+	
+}
@@ -35,14 +35,18 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.EventHook;
 import de.jtem.halfedge.Face;
 import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Metrics;
 import de.jtem.halfedge.Vertex;
 
 
@@ -107,6 +111,18 @@ public final class HalfEdgeUtils {
 	 * @return {@code true} if the half-edge data structure represents a valid surface, {@code false} otherwise
 	 */
 	static public boolean isValidSurface(HalfEdgeDataStructure<?,?,?> heds, boolean printReasonForFailureToSystemErr) {
+		EventHook.Operation event = EventHook.beginOperation("isValidSurface");
+		String outcome = EventHook.FAILED;
+		try {
+			boolean valid = checkSurface(heds, printReasonForFailureToSystemErr);
+			outcome = valid ? "valid" : "invalid";
+			return valid;
+		} finally {
+			event.end(heds, outcome, 0);
+		}
+	}
+	
+	private static boolean checkSurface(HalfEdgeDataStructure<?,?,?> heds, boolean printReasonForFailureToSystemErr) {
 
 		// must have at least one edge
 		if (heds.getEdges().isEmpty()) {
@@ -233,6 +249,151 @@ public final class HalfEdgeUtils {
 		// passed all tests
 		return true;
 	}
+	
+	/**
+	 * Test whether a view represents a valid surface. The same conditions as in 
+	 * {@link #isValidSurface(HalfEdgeDataStructure)} are checked, and additionally 
+	 * that the previous edge of the next edge of each edge is the edge itself.
+	 * @param view the view
+	 * @return {@code true} if the view represents a valid surface, {@code false} otherwise
+	 */
+	static public boolean isValidSurface(HalfEdgeView view) {
+		return isValidSurface(view, false);
+	}
+	
+	/**
+	 * Test whether a view represents a valid surface and, optionally, give a reason if it fails the test.
+	 * @see #isValidSurface(HalfEdgeView)
+	 * @see #isValidSurface(HalfEdgeDataStructure, boolean)
+	 * @param view the view
+	 * @param printReasonForFailureToSystemErr {@code true} if you want output to {@link System#err}.
+	 * @return {@code true} if the view represents a valid surface, {@code false} otherwise
+	 */
+	static public boolean isValidSurface(HalfEdgeView view, boolean printReasonForFailureToSystemErr) {
+		int ne = view.numEdges();
+		int nf = view.numFaces();
+		int nv = view.numVertices();
+		if (ne == 0) {
+			if (printReasonForFailureToSystemErr) System.err.println("numEdges() == 0");
+			return false;
+		}
+		boolean[] vertexMark = new boolean[nv];
+		boolean[] edgeMark = new boolean[ne];
+		boolean[] faceMark = new boolean[nf];
+		
+		// check for missing links
+		for (int e = 0; e < ne; e++) {
+			int next = view.getNextEdge(e);
+			int opp = view.getOppositeEdge(e);
+			if (next < 0) {
+				if (printReasonForFailureToSystemErr) System.err.println("getNextEdge() returns -1 for edge " + e);
+				return false;
+			}
+			if (view.getPreviousEdge(e) < 0) {
+				if (printReasonForFailureToSystemErr) System.err.println("getPreviousEdge() returns -1 for edge " + e);
+				return false;
+			}
+			if (view.getPreviousEdge(next) != e) {
+				if (printReasonForFailureToSystemErr) System.err.println("getPreviousEdge(getNextEdge(e)) != e for edge " + e);
+				return false;
+			}
+			if (opp < 0) {
+				if (printReasonForFailureToSystemErr) System.err.println("getOppositeEdge() returns -1 for edge " + e);
+				return false;
+			}
+			if (view.getTargetVertex(e) < 0) {
+				if (printReasonForFailureToSystemErr) System.err.println("getTargetVertex() returns -1 for edge " + e);
+				return false;
+			}
+			if (view.getLeftFace(e) < 0 && view.getLeftFace(opp) < 0) {
+				if (printReasonForFailureToSystemErr) System.err.println("Left face and right face are -1 for edge " + e);
+				return false;
+			}
+		}
+		
+		// Check if edges in a cycle have same left face and edges in a cocycle have same target vertex
+		for (int e = 0; e < ne; e++) {
+			int next = view.getNextEdge(e);
+			int f = view.getLeftFace(e);
+			int v = view.getTargetVertex(e);
+			if (f != view.getLeftFace(next)) {
+				if (printReasonForFailureToSystemErr) System.err.println("getLeftFace(e) != getLeftFace(getNextEdge(e)) for edge " + e);
+				return false;
+			}
+			if (v != view.getTargetVertex(view.getOppositeEdge(next))) {
+				if (printReasonForFailureToSystemErr) System.err.println("getTargetVertex(e) != getTargetVertex(getOppositeEdge(getNextEdge(e))) for edge " + e);
+				return false;
+			}
+			if (f >= 0) faceMark[f] = true;
+			vertexMark[v] = true;
+		}
+		
+		// check if every face has a boundary edge
+		for (int f = 0; f < nf; f++) {
+			if (!faceMark[f]) {
+				if (printReasonForFailureToSystemErr) System.err.println("Face " + f + " has no boundary edge.");
+				return false;
+			}
+			faceMark[f] = false;
+		}
+		
+		// check if every vertex has an incoming edge
+		for (int v = 0; v < nv; v++) {
+			if (!vertexMark[v]) {
+				if (printReasonForFailureToSystemErr) System.err.println("Vertex " + v + " has no incoming edge.");
+			}
+			vertexMark[v] = false;
+		}
+		
+		// check if each face corresponds to a unique edge cycle
+		for (int e = 0; e < ne; e++) {
+			if (edgeMark[e]) {
+				continue;
+			}
+			int f = view.getLeftFace(e);
+			if (f >= 0) {
+				if (faceMark[f]) {
+					if (printReasonForFailureToSystemErr) System.err.println("Face " + f + " is contained in more than one edge cycle. (Found out while looking at edge " + e + ")");
+					return false;
+				}
+				faceMark[f] = true;
+			}
+			edgeMark[e] = true;
+			for (int e1 = view.getNextEdge(e); e1 != e; e1 = view.getNextEdge(e1)) {
+				edgeMark[e1] = true;
+			}
+		}
+		
+		// check if each vertex corresponds to a unique edge cocycle 
+		// with at most one edge with left face -1
+		edgeMark = new boolean[ne];
+		for (int e = 0; e < ne; e++) {
+			if (edgeMark[e]) {
+				continue;
+			}
+			int v = view.getTargetVertex(e);
+			if (vertexMark[v]) {
+				if (printReasonForFailureToSystemErr) System.err.println("Vertex " + v + " is contained in more than one edge cocycle.");
+				return false;
+			}
+			vertexMark[v] = true;
+			edgeMark[e] = true;
+			boolean leftFaceNull = view.getLeftFace(e) < 0;
+			for (int e1 = view.getOppositeEdge(view.getNextEdge(e)); e1 != e; e1 = view.getOppositeEdge(view.getNextEdge(e1))) {
+				edgeMark[e1] = true;
+				if (view.getLeftFace(e1) < 0) {
+					if (leftFaceNull) {
+						if (printReasonForFailureToSystemErr) System.err.println("There is more than one edge with target vertex " + v + " and left face -1.");
+						return false;
+					}
+					leftFaceNull = true;
+				}
+			}
+		}
+		
+		// passed all tests
+		return true;
+	}
 		
 	
 	
@@ -328,9 +489,17 @@ public final class HalfEdgeUtils {
 				throw new RuntimeException("Some edge has null as next edge.");
 			}
 		} while (e != e0);
+		traversed(face.getHalfEdgeDataStructure(), result.size());
 		return result;
 	}
 	
+	private static void traversed(HalfEdgeDataStructure<?, ?, ?> hds, int elements) {
+		Metrics m = hds.getMetrics();
+		if (m != null) {
+			m.traversed(elements);
+		}
+	}
+	
 	/**
 	 * Returns a collection containing all edges of {@code heds} with left face equal to null.
 	 * @param <E> the edge type
@@ -344,6 +513,7 @@ public final class HalfEdgeUtils {
 				result.add(e);
 			}
 		}
+		traversed(heds, result.size());
 		return result;
 	}
 	
@@ -370,20 +540,28 @@ public final class HalfEdgeUtils {
 	 * @see boundaryEdges
 	 */
 	static public <E extends Edge<?,E,?>> List<List<E>> boundaryComponents(HalfEdgeDataStructure<?,E,?> hds) {
+		EventHook.Operation event = EventHook.beginOperation("boundaryComponents");
 		List<List<E>> result = new ArrayList<List<E>>();
-		Set<E> b = new TreeSet<E>(boundaryEdges(hds));
-		while (!b.isEmpty()) {
-			List<E> c = new LinkedList<E>();
-			E first = b.iterator().next();
-			E e = first;
-			do {
-				assert b.contains(e);
-				c.add(e);
-				b.remove(e);
-				e = e.getNextEdge();
-			} while (e != first);
-			result.add(c);
+		String outcome = EventHook.FAILED;
+		try {
+			Set<E> b = new TreeSet<E>(boundaryEdges(hds));
+			while (!b.isEmpty()) {
+				List<E> c = new LinkedList<E>();
+				E first = b.iterator().next();
+				E e = first;
+				do {
+					assert b.contains(e);
+					c.add(e);
+					b.remove(e);
+					e = e.getNextEdge();
+				} while (e != first);
+				result.add(c);
+			}
+			outcome = EventHook.OK;
+		} finally {
+			event.end(hds, outcome, result.size());
 		}
+		traversed(hds, result.size());
 		return result;
 	}
 	
@@ -402,6 +580,7 @@ public final class HalfEdgeUtils {
 				result.add(e.getTargetVertex());
 			}
 		}
+		traversed(surf, result.size());
 		return result;
 	}
 	
@@ -442,6 +621,7 @@ public final class HalfEdgeUtils {
 				throw new RuntimeException("Some edge has null as opposite edge.");
 			}
 		} while (e != e0);
+		traversed(vertex.getHalfEdgeDataStructure(), result.size());
 		return result;
 	}
 	
@@ -642,13 +822,204 @@ public final class HalfEdgeUtils {
 	static public <V extends Vertex<V,E,F>,
 	               E extends Edge<V,E,F>,
 	               F extends Face<V,E,F>> void fillAllHoles(HalfEdgeDataStructure<V,E,F> heds) {
-		for (E e : heds.getEdges()) {
-			if (e.getLeftFace() == null) {
-				fillHole(e);
+		EventHook.Operation event = EventHook.beginOperation("fillAllHoles");
+		String outcome = EventHook.FAILED;
+		int holes = 0;
+		try {
+			for (E e : heds.getEdges()) {
+				if (e.getLeftFace() == null) {
+					fillHole(e);
+					holes++;
+				}
 			}
+			outcome = EventHook.OK;
+		} finally {
+			event.end(heds, outcome, holes);
 		}
 	}
 	
+	/**
+	 * Triangulate all faces by fans.
+	 * @see #triangulate(HalfEdgeDataStructure, boolean)
+	 * @param heds the half-edge data structure
+	 * @return the number of new faces
+	 */
+	static public <V extends Vertex<V,E,F>,
+	               E extends Edge<V,E,F>,
+	               F extends Face<V,E,F>> int triangulate(HalfEdgeDataStructure<V,E,F> heds) {
+		return triangulate(heds, false);
+	}
+	
+	/**
+	 * Triangulate all faces by adding edges.
+	 * <p>
+	 * A face with n &gt; 3 edges is split into n - 2 triangles by n - 3 new edge pairs. Let v<sub>0</sub>, ..., 
+	 * v<sub>n-1</sub> be the vertices of the face, starting with the start vertex of 
+	 * {@link Face#getBoundaryEdge()}. A fan triangulation connects v<sub>0</sub> with all other vertices. 
+	 * A strip triangulation cuts triangles alternately from both ends, (v<sub>0</sub>, v<sub>1</sub>, v<sub>n-1</sub>), 
+	 * (v<sub>1</sub>, v<sub>n-2</sub>, v<sub>n-1</sub>), ..., which keeps vertex degrees low. The face keeps 
+	 * the last triangle, the other triangles are new faces. No faces or edges are removed.
+	 * <p>
+	 * The number of new edges and faces is computed first and they are added in one step. Then 
+	 * every face is rewired independently, for large structures in parallel as one 
+	 * {@linkplain HalfEdgeDataStructure#beginBulkUpdate() bulk update}. If a 
+	 * {@link de.jtem.halfedge.Transaction} is open, all work is done in the calling thread.
+	 * @param <V> the vertex type
+	 * @param <E> the edge type
+	 * @param <F> the face type
+	 * @param heds the half-edge data structure
+	 * @param strip strip triangulation if true, fan triangulation otherwise
+	 * @return the number of new faces
+	 * @throws RuntimeException if the boundary of a face is not a closed edge cycle
+	 */
+	static public <V extends Vertex<V,E,F>,
+	               E extends Edge<V,E,F>,
+	               F extends Face<V,E,F>> int triangulate(HalfEdgeDataStructure<V,E,F> heds, final boolean strip) throws RuntimeException {
+		final List<F> faces = new ArrayList<F>(heds.getFaces());
+		final int nf = faces.size();
+		final boolean parallel = heds.getTransaction() == null;
+		final int[] degree = new int[nf];
+		Parallel.Range countEdges = new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; i++) {
+					F f = faces.get(i);
+					if (!f.isValid()) {
+						continue;
+					}
+					E e0 = f.getBoundaryEdge();
+					E e = e0;
+					while (e != null) {
+						degree[i]++;
+						e = e.getNextEdge();
+						if (e == e0) {
+							break;
+						}
+					}
+					if (e0 != null && e == null) {
+						throw new RuntimeException("The boundary of " + f + " is not closed.");
+					}
+				}
+			}
+		};
+		if (parallel) {
+			Parallel.forRange(nf, countEdges);
+		} else {
+			countEdges.run(0, nf);
+		}
+		// offsets of the new faces per face, the new edges are twice that
+		final int[] offset = new int[nf + 1];
+		for (int i = 0; i < nf; i++) {
+			offset[i + 1] = offset[i] + Math.max(degree[i] - 3, 0);
+		}
+		final int numNew = offset[nf];
+		if (numNew == 0) {
+			return 0;
+		}
+		final List<E> newEdges = heds.addNewEdges(2 * numNew);
+		final List<F> newFaces = heds.addNewFaces(numNew);
+		Parallel.Range rewire = new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				List<E> cycle = new ArrayList<E>();
+				for (int i = from; i < to; i++) {
+					if (degree[i] <= 3) {
+						continue;
+					}
+					F f = faces.get(i);
+					cycle.clear();
+					E e0 = f.getBoundaryEdge();
+					E e = e0;
+					do {
+						cycle.add(e);
+						e = e.getNextEdge();
+					} while (e != e0);
+					// cut triangles off the polygon v_l, ..., v_r, which is closed by the edge v_r -> v_l
+					int n = cycle.size();
+					int l = 0, r = n - 1;
+					E closing = cycle.get(n - 1);
+					for (int k = 0; k < n - 3; k++) {
+						E inner = newEdges.get(2 * (offset[i] + k));
+						E outer = newEdges.get(2 * (offset[i] + k) + 1);
+						inner.setIsPositive(true);
+						inner.linkOppositeEdge(outer);
+						E a, b;
+						if (strip && k % 2 == 0) {
+							// triangle (v_l, v_l+1, v_r)
+							a = cycle.get(l);
+							b = outer;
+							outer.setTargetVertex(cycle.get(r - 1).getTargetVertex());
+							inner.setTargetVertex(cycle.get(l).getTargetVertex());
+							l++;
+						} else {
+							// triangle (v_l, v_r-1, v_r)
+							a = outer;
+							b = cycle.get(r - 1);
+							outer.setTargetVertex(cycle.get(r - 2).getTargetVertex());
+							inner.setTargetVertex(closing.getTargetVertex());
+							r--;
+						}
+						F t = newFaces.get(offset[i] + k);
+						a.linkNextEdge(b);
+						b.linkNextEdge(closing);
+						closing.linkNextEdge(a);
+						a.setLeftFace(t);
+						b.setLeftFace(t);
+						closing.setLeftFace(t);
+						closing = inner;
+					}
+					E a = cycle.get(l);
+					E b = cycle.get(l + 1);
+					a.linkNextEdge(b);
+					b.linkNextEdge(closing);
+					closing.linkNextEdge(a);
+					a.setLeftFace(f);
+					b.setLeftFace(f);
+					closing.setLeftFace(f);
+				}
+			}
+		};
+		if (!parallel) {
+			heds.beginBatch();
+			try {
+				rewire.run(0, nf);
+			} finally {
+				heds.endBatch();
+			}
+			return numNew;
+		}
+		// the triangles of the split faces contain the old and the new edges once each
+		List<F> split = new ArrayList<F>(numNew + nf);
+		List<E> edges = new ArrayList<E>();
+		List<V> vertices = new ArrayList<V>();
+		heds.beginBulkUpdate();
+		try {
+			Parallel.forRange(nf, rewire);
+			for (int i = 0; i < nf; i++) {
+				if (degree[i] > 3) {
+					split.add(faces.get(i));
+					split.addAll(newFaces.subList(offset[i], offset[i + 1]));
+				}
+			}
+			for (F t : split) {
+				E e = t.getBoundaryEdge();
+				edges.add(e);
+				edges.add(e.getNextEdge());
+				edges.add(e.getPreviousEdge());
+			}
+			for (E e : newEdges) {
+				// every vertex with a new incoming edge once
+				V v = e.getTargetVertex();
+				if (v.getIncomingEdge() == e) {
+					vertices.add(v);
+				}
+			}
+		} finally {
+			heds.endBulkUpdate(vertices, edges, split);
+		}
+		return numNew;
+	}
+	
 	/**
 	 * Add a new n-gon.
 	 * <p>
@@ -986,6 +1357,31 @@ public final class HalfEdgeUtils {
 		return (2 - X - r) / 2;
 	}
 	
+	/**
+	 * Calculates the genus of the 2-manifold represented by a view.
+	 * @see #getGenus(HalfEdgeDataStructure)
+	 * @param view a view of a 2-manifold
+	 * @return g
+	 */
+	public static int getGenus(HalfEdgeView view) {
+		int ne = view.numEdges();
+		boolean[] edgeMark = new boolean[ne];
+		int r = 0;
+		for (int e = 0; e < ne; e++) {
+			if (edgeMark[e] || view.getLeftFace(e) >= 0) {
+				continue;
+			}
+			r++;
+			int b = e;
+			do {
+				edgeMark[b] = true;
+				b = view.getNextEdge(b);
+			} while (b != e);
+		}
+		int X = view.numVertices() - ne / 2 + view.numFaces();
+		return (2 - X - r) / 2;
+	}
+	
 	
 	
 	/**
@@ -1011,6 +1407,7 @@ public final class HalfEdgeUtils {
 	
 	/**
 	 * Inserts the nodes of src into dst
+	 * @see HalfEdgeDataStructure#appendCombinatoriallyEquivalentCopy(HalfEdgeDataStructure)
 	 * @param src
 	 * @param dst
 	 * @return The vertex offset of the new vertices in dst
@@ -1025,34 +1422,277 @@ public final class HalfEdgeUtils {
 	    FF extends Face<VV,EE,FF>,
 	    HDSDST extends HalfEdgeDataStructure<VV, EE, FF>
 	> int copy(HDSSRC src, HDSDST dst) {
-		Set<E> srcEdges = new HashSet<E>(src.getEdges());
-		int vOffset = dst.numVertices();
-		int eOffset = dst.numEdges();
-		int fOffset = dst.numFaces();
-		dst.addNewVertices(src.numVertices());
-		dst.addNewEdges(src.numEdges());
-		dst.addNewFaces(src.numFaces());
-		for (E e : srcEdges) {
-			E eNext = e.getNextEdge();
-			E eOpp = e.getOppositeEdge();
-			F f = e.getLeftFace();
+		EventHook.Operation event = EventHook.beginOperation("copy");
+		String outcome = EventHook.FAILED;
+		try {
+			int vOffset = dst.numVertices();
+			dst.appendCombinatoriallyEquivalentCopy(src);
+			outcome = EventHook.OK;
+			return vOffset;
+		} finally {
+			event.end(dst, outcome, 0);
+		}
+	}
+	
+	/**
+	 * Inserts the nodes of src into dst and optionally copies the data of all nodes 
+	 * with {@link Vertex#copyData(Vertex)}, {@link Edge#copyData(Edge)}, and {@link Face#copyData(Face)}. 
+	 * For large structures the data are copied in parallel, so the copyData methods must 
+	 * not modify shared state.
+	 * @param src the source
+	 * @param dst the destination, with the same node types as src
+	 * @param copyData whether to copy the node data
+	 * @return The vertex offset of the new vertices in dst
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+	    E extends Edge<V,E,F>,
+	    F extends Face<V,E,F>
+	> int copy(HalfEdgeDataStructure<V,E,F> src, HalfEdgeDataStructure<V,E,F> dst, boolean copyData) {
+		EventHook.Operation event = EventHook.beginOperation("copy");
+		String outcome = EventHook.FAILED;
+		try {
+			int vOffset = copyNodes(src, dst, copyData);
+			outcome = EventHook.OK;
+			return vOffset;
+		} finally {
+			event.end(dst, outcome, 0);
+		}
+	}
+	
+	private static <
+		V extends Vertex<V,E,F>,
+	    E extends Edge<V,E,F>,
+	    F extends Face<V,E,F>
+	> int copyNodes(HalfEdgeDataStructure<V,E,F> src, HalfEdgeDataStructure<V,E,F> dst, boolean copyData) {
+		final int vOffset = dst.numVertices();
+		final int eOffset = dst.numEdges();
+		final int fOffset = dst.numFaces();
+		dst.appendCombinatoriallyEquivalentCopy(src);
+		if (!copyData) {
+			return vOffset;
+		}
+		final List<V> srcVertices = src.getVertices(), dstVertices = dst.getVertices();
+		final List<E> srcEdges = src.getEdges(), dstEdges = dst.getEdges();
+		final List<F> srcFaces = src.getFaces(), dstFaces = dst.getFaces();
+		final int nv = src.numVertices(), ne = src.numEdges(), nf = src.numFaces();
+		Connectivity.cleanIndices(src);
+		Connectivity.cleanIndices(dst);
+		Parallel.forRange(nv + ne + nf, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int i = from; i < to; i++) {
+					if (i < nv) {
+						dstVertices.get(vOffset + i).copyData(srcVertices.get(i));
+					} else if (i < nv + ne) {
+						dstEdges.get(eOffset + i - nv).copyData(srcEdges.get(i - nv));
+					} else {
+						dstFaces.get(fOffset + i - nv - ne).copyData(srcFaces.get(i - nv - ne));
+					}
+				}
+			}
+		});
+		return vOffset;
+	}
+	
+	/**
+	 * Construct the combinatorial dual of a surface.
+	 * <p>
+	 * The i-th face of src becomes the i-th vertex of dst, the i-th vertex of src becomes 
+	 * the i-th face of dst, and the i-th edge e of src becomes the i-th edge e* of dst, which 
+	 * crosses e from right to left: e* points from the right face to the left face of e, and 
+	 * its left face is the start vertex of e. Hence, (e*).getNextEdge() is the dual of 
+	 * e.getPreviousEdge().getOppositeEdge(), and the signature of e* is that of e.
+	 * <p>
+	 * Boundary policy: the holes of src are treated as faces. Every boundary component of src, 
+	 * i.e. every cycle of edges without left face, becomes an additional vertex of dst. These 
+	 * vertices follow the vertices of the faces, numbered in the order in which the boundary 
+	 * components are first met in the edge list. Thus dst is always a closed surface, and 
+	 * the dual of a surface with holes equals the dual of the surface with all holes filled 
+	 * by {@link #fillAllHoles(HalfEdgeDataStructure)}.
+	 * <p>
+	 * Runs in O(E) without lookups, for large structures in parallel over the edges 
+	 * as one {@linkplain HalfEdgeDataStructure#beginBulkUpdate() bulk update} of dst.
+	 * @param src a valid surface
+	 * @param dst an empty half-edge data structure without open transaction
+	 * @return dst
+	 * @throws RuntimeException if dst is not empty or some edge of src is not linked
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>,
+		HEDS extends HalfEdgeDataStructure<V,E,F>
+	> HEDS dual(HalfEdgeDataStructure<?,?,?> src, HEDS dst) throws RuntimeException {
+		if (dst.numVertices() != 0 || dst.numEdges() != 0 || dst.numFaces() != 0) {
+			throw new RuntimeException(dst + " is not empty.");
+		}
+		if (dst.getTransaction() != null) {
+			throw new RuntimeException(dst + " has an open transaction.");
+		}
+		final Connectivity c = new Connectivity(src);
+		final int[] prev = new int[c.numEdges];
+		final int[] dualVertex = new int[c.numEdges];
+		int numHoles = 0;
+		for (int e = 0; e < c.numEdges; e++) {
+			if (c.next[e] < 0 || c.opposite[e] < 0 || c.target[e] < 0) {
+				throw new RuntimeException("Edge " + e + " of " + src + " is not properly linked.");
+			}
+			prev[c.next[e]] = e;
+			dualVertex[e] = c.face[e];
+		}
+		for (int e = 0; e < c.numEdges; e++) {
+			if (dualVertex[e] < 0) {
+				// a new boundary component
+				int v = c.numFaces + numHoles++;
+				int b = e;
+				do {
+					dualVertex[b] = v;
+					b = c.next[b];
+				} while (b != e);
+			}
+		}
+		dst.addNewVertices(c.numFaces + numHoles);
+		dst.addNewEdges(c.numEdges);
+		dst.addNewFaces(c.numVertices);
+		final List<? extends Edge<?,?,?>> srcEdges = src.getEdges();
+		final List<V> vertices = dst.getVertices();
+		final List<E> edges = dst.getEdges();
+		final List<F> faces = dst.getFaces();
+		dst.beginBulkUpdate();
+		try {
+			Parallel.forRange(c.numEdges, new Parallel.Range() {
+				@Override
+				public void run(int from, int to) {
+					for (int e = from; e < to; e++) {
+						E d = edges.get(e);
+						int o = c.opposite[e];
+						d.linkNextEdge(edges.get(c.opposite[prev[e]]));
+						d.setTargetVertex(vertices.get(dualVertex[e]));
+						d.setLeftFace(faces.get(c.target[o]));
+						// each pair is linked from its smaller index only
+						if (e < o) {
+							d.setIsPositive(srcEdges.get(e).isPositive());
+							d.linkOppositeEdge(edges.get(o));
+						}
+					}
+				}
+			});
+		} finally {
+			dst.endBulkUpdate(vertices, edges, faces);
+		}
+		return dst;
+	}
+	
+	/**
+	 * Copy a set of faces, together with their boundary edges, the opposite edges of these, 
+	 * and their vertices, into an empty half-edge data structure.
+	 * <p>
+	 * Nodes are numbered in the order in which they are met while walking the boundaries of the 
+	 * selected faces. Edges of the parent whose left face is not selected become boundary edges 
+	 * of the submesh and are linked along the boundary of the selection. The submesh is a valid 
+	 * surface if the parent is and no vertex is touched by the selection in more than one fan 
+	 * of faces. 
+	 * <p>
+	 * The running time is proportional to the size of the selection and the degrees of its boundary 
+	 * vertices, independent of the size of hds.
+	 * @param hds the parent half-edge data structure
+	 * @param faceSelection faces of hds, duplicates are ignored
+	 * @param dst an empty half-edge data structure
+	 * @return the index maps from the submesh back to hds 
+	 * @throws RuntimeException if dst is not empty, or a face does not belong to hds
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>,
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>
+	> Submesh extractSubmesh(HalfEdgeDataStructure<V,E,F> hds, Collection<? extends F> faceSelection, HalfEdgeDataStructure<VV,EE,FF> dst) throws RuntimeException {
+		if (dst.numVertices() != 0 || dst.numEdges() != 0 || dst.numFaces() != 0) {
+			throw new RuntimeException(dst + " is not empty.");
+		}
+		Map<F, Integer> faceMap = new IdentityHashMap<F, Integer>();
+		Map<E, Integer> edgeMap = new IdentityHashMap<E, Integer>();
+		Map<V, Integer> vertexMap = new IdentityHashMap<V, Integer>();
+		List<F> faces = new ArrayList<F>();
+		List<E> edges = new ArrayList<E>();
+		List<V> vertices = new ArrayList<V>();
+		for (F f : faceSelection) {
+			if (f.getHalfEdgeDataStructure() != hds) {
+				throw new RuntimeException(f + " does not belong to " + hds + ".");
+			}
+			if (!faceMap.containsKey(f)) {
+				faceMap.put(f, faces.size());
+				faces.add(f);
+			}
+		}
+		for (F f : faces) {
+			E e0 = f.getBoundaryEdge();
+			E e = e0;
+			while (e != null) {
+				E o = e.getOppositeEdge();
+				if (!edgeMap.containsKey(e)) {
+					edgeMap.put(e, edges.size());
+					edges.add(e);
+				}
+				if (o != null && !edgeMap.containsKey(o)) {
+					edgeMap.put(o, edges.size());
+					edges.add(o);
+				}
+				V v = e.getTargetVertex();
+				if (v != null && !vertexMap.containsKey(v)) {
+					vertexMap.put(v, vertices.size());
+					vertices.add(v);
+				}
+				e = e.getNextEdge();
+				if (e == e0) {
+					break;
+				}
+			}
+		}
+		List<VV> newVertices = dst.addNewVertices(vertices.size());
+		List<EE> newEdges = dst.addNewEdges(edges.size());
+		List<FF> newFaces = dst.addNewFaces(faces.size());
+		for (int i = 0; i < edges.size(); i++) {
+			E e = edges.get(i);
+			EE ee = newEdges.get(i);
 			V v = e.getTargetVertex();
-			EE ee = dst.getEdge(eOffset + e.getIndex());
-			ee.setIsPositive(e.isPositive());
-			if (eNext != null) {
-				ee.linkNextEdge(dst.getEdge(eOffset + eNext.getIndex()));
+			if (v != null && vertexMap.containsKey(v)) {
+				ee.setTargetVertex(newVertices.get(vertexMap.get(v)));
 			}
-			if (eOpp != null) {
-				ee.linkOppositeEdge(dst.getEdge(eOffset + eOpp.getIndex()));
+			Integer o = edgeMap.get(e.getOppositeEdge());
+			if (o != null && i < o) {
+				ee.setIsPositive(e.isPositive());
+				ee.linkOppositeEdge(newEdges.get(o));
 			}
+			Integer f = faceMap.get(e.getLeftFace());
+			E next = e.getNextEdge();
 			if (f != null) {
-				ee.setLeftFace(dst.getFace(fOffset + f.getIndex()));
+				ee.setLeftFace(newFaces.get(f));
+			} else {
+				// find the next edge of the submesh boundary around the target vertex
+				while (next != null && !faceMap.containsKey(next.getRightFace())) {
+					E nextOpp = next.getOppositeEdge();
+					next = nextOpp == null ? null : nextOpp.getNextEdge();
+					if (next == e.getNextEdge()) {
+						next = null;
+					}
+				}
 			}
-			if (v != null) {
-				ee.setTargetVertex(dst.getVertex(vOffset + v.getIndex()));
+			Integer n = edgeMap.get(next);
+			if (n != null) {
+				ee.linkNextEdge(newEdges.get(n));
 			}
 		}
-		return vOffset;
+		int[] vMap = new int[vertices.size()];
+		int[] eMap = new int[edges.size()];
+		int[] fMap = new int[faces.size()];
+		for (int i = 0; i < vMap.length; i++) vMap[i] = vertices.get(i).getIndex();
+		for (int i = 0; i < eMap.length; i++) eMap[i] = edges.get(i).getIndex();
+		for (int i = 0; i < fMap.length; i++) fMap[i] = faces.get(i).getIndex();
+		return new Submesh(vMap, eMap, fMap);
 	}
 	
 }
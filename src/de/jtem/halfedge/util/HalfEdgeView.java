@@ -0,0 +1,88 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+/**
+ * Read-only, index based access to the combinatorics of a surface. Nodes are 
+ * identified by their indices, missing links are reported as -1.
+ * <p>
+ * Views do not copy the links they present. Use {@link HalfEdgeViews} to obtain 
+ * views of a {@link de.jtem.halfedge.HalfEdgeDataStructure}, of its dual, or of its 
+ * orientation reversal. Algorithms like {@link HalfEdgeUtils#isValidSurface(HalfEdgeView)}, 
+ * {@link HalfEdgeUtils#getGenus(HalfEdgeView)}, and {@link Traversal} accept views.
+ */
+public interface HalfEdgeView {
+
+	public int numVertices();
+	
+	public int numEdges();
+	
+	public int numFaces();
+	
+	/**
+	 * @param e an edge index
+	 * @return the index of the next edge or -1
+	 */
+	public int getNextEdge(int e);
+	
+	/**
+	 * @param e an edge index
+	 * @return the index of the previous edge or -1
+	 */
+	public int getPreviousEdge(int e);
+	
+	/**
+	 * @param e an edge index
+	 * @return the index of the opposite edge or -1
+	 */
+	public int getOppositeEdge(int e);
+	
+	/**
+	 * @param e an edge index
+	 * @return the index of the target vertex or -1
+	 */
+	public int getTargetVertex(int e);
+	
+	/**
+	 * @param e an edge index
+	 * @return the index of the left face or -1
+	 */
+	public int getLeftFace(int e);
+	
+	/**
+	 * @param e an edge index
+	 * @return the signature of the edge
+	 */
+	public boolean isPositive(int e);
+	
+}
@@ -0,0 +1,250 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * Factory methods for {@link HalfEdgeView}s. 
+ * <p>
+ * All views keep the edge indices of the viewed structure and translate queries 
+ * to the underlying links on the fly, so they follow later modifications. The only 
+ * exception is the numbering of the boundary components in {@link #dual(HalfEdgeView)}.
+ */
+public final class HalfEdgeViews {
+
+	// Don't instatiate.
+	private HalfEdgeViews() {}
+	
+	/**
+	 * A view of the links of a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @return the view
+	 */
+	public static HalfEdgeView of(final HalfEdgeDataStructure<?,?,?> hds) {
+		final List<? extends Edge<?,?,?>> edges = hds.getEdges();
+		return new HalfEdgeView() {
+			@Override
+			public int numVertices() {
+				return hds.numVertices();
+			}
+			@Override
+			public int numEdges() {
+				return hds.numEdges();
+			}
+			@Override
+			public int numFaces() {
+				return hds.numFaces();
+			}
+			@Override
+			public int getNextEdge(int e) {
+				return Connectivity.index(edges.get(e).getNextEdge());
+			}
+			@Override
+			public int getPreviousEdge(int e) {
+				return Connectivity.index(edges.get(e).getPreviousEdge());
+			}
+			@Override
+			public int getOppositeEdge(int e) {
+				return Connectivity.index(edges.get(e).getOppositeEdge());
+			}
+			@Override
+			public int getTargetVertex(int e) {
+				return Connectivity.index(edges.get(e).getTargetVertex());
+			}
+			@Override
+			public int getLeftFace(int e) {
+				return Connectivity.index(edges.get(e).getLeftFace());
+			}
+			@Override
+			public boolean isPositive(int e) {
+				return edges.get(e).isPositive();
+			}
+		};
+	}
+	
+	/**
+	 * A view of the combinatorial dual of a half-edge data structure.
+	 * @see #dual(HalfEdgeView)
+	 * @param hds the half-edge data structure
+	 * @return the view
+	 */
+	public static HalfEdgeView dual(HalfEdgeDataStructure<?,?,?> hds) {
+		return dual(of(hds));
+	}
+	
+	/**
+	 * A view of the orientation reversal of a half-edge data structure.
+	 * @see #reverse(HalfEdgeView)
+	 * @param hds the half-edge data structure
+	 * @return the view
+	 */
+	public static HalfEdgeView reverse(HalfEdgeDataStructure<?,?,?> hds) {
+		return reverse(of(hds));
+	}
+	
+	/**
+	 * A view of the combinatorial dual, with the same numbering as 
+	 * {@link HalfEdgeUtils#dual(HalfEdgeDataStructure, HalfEdgeDataStructure)}: face i becomes 
+	 * vertex i, vertex i becomes face i, and edge e becomes the edge crossing e from its right 
+	 * to its left face. Each boundary component becomes an additional vertex. 
+	 * <p>
+	 * The boundary components are numbered once, when the view is created. This takes O(E) time 
+	 * and, only if the surface has boundary, one int per edge. The dual of a view of a surface 
+	 * without boundary needs no memory besides the view itself.
+	 * @param view a view of a valid surface
+	 * @return the dual view
+	 */
+	public static HalfEdgeView dual(final HalfEdgeView view) {
+		final int ne = view.numEdges();
+		int[] labels = null;
+		int numHoles = 0;
+		for (int e = 0; e < ne; e++) {
+			if (view.getLeftFace(e) >= 0 || (labels != null && labels[e] >= 0)) {
+				continue;
+			}
+			if (labels == null) {
+				labels = new int[ne];
+				for (int i = 0; i < ne; i++) {
+					labels[i] = -1;
+				}
+			}
+			int b = e;
+			do {
+				labels[b] = numHoles;
+				b = view.getNextEdge(b);
+			} while (b != e && b >= 0);
+			numHoles++;
+		}
+		final int[] holes = labels;
+		final int numBoundaryComponents = numHoles;
+		return new HalfEdgeView() {
+			@Override
+			public int numVertices() {
+				return view.numFaces() + numBoundaryComponents;
+			}
+			@Override
+			public int numEdges() {
+				return view.numEdges();
+			}
+			@Override
+			public int numFaces() {
+				return view.numVertices();
+			}
+			@Override
+			public int getNextEdge(int e) {
+				int p = view.getPreviousEdge(e);
+				return p < 0 ? -1 : view.getOppositeEdge(p);
+			}
+			@Override
+			public int getPreviousEdge(int e) {
+				int o = view.getOppositeEdge(e);
+				return o < 0 ? -1 : view.getNextEdge(o);
+			}
+			@Override
+			public int getOppositeEdge(int e) {
+				return view.getOppositeEdge(e);
+			}
+			@Override
+			public int getTargetVertex(int e) {
+				int f = view.getLeftFace(e);
+				if (f >= 0) {
+					return f;
+				}
+				return holes == null || holes[e] < 0 ? -1 : view.numFaces() + holes[e];
+			}
+			@Override
+			public int getLeftFace(int e) {
+				int o = view.getOppositeEdge(e);
+				return o < 0 ? -1 : view.getTargetVertex(o);
+			}
+			@Override
+			public boolean isPositive(int e) {
+				return view.isPositive(e);
+			}
+		};
+	}
+	
+	/**
+	 * A view of the orientation reversal. Every edge is reversed: its target vertex is 
+	 * the start vertex of the original edge, its next and previous edges are exchanged. 
+	 * Faces, opposite edges, and signatures are unchanged.
+	 * @param view a view
+	 * @return the reversed view
+	 */
+	public static HalfEdgeView reverse(final HalfEdgeView view) {
+		return new HalfEdgeView() {
+			@Override
+			public int numVertices() {
+				return view.numVertices();
+			}
+			@Override
+			public int numEdges() {
+				return view.numEdges();
+			}
+			@Override
+			public int numFaces() {
+				return view.numFaces();
+			}
+			@Override
+			public int getNextEdge(int e) {
+				return view.getPreviousEdge(e);
+			}
+			@Override
+			public int getPreviousEdge(int e) {
+				return view.getNextEdge(e);
+			}
+			@Override
+			public int getOppositeEdge(int e) {
+				return view.getOppositeEdge(e);
+			}
+			@Override
+			public int getTargetVertex(int e) {
+				int o = view.getOppositeEdge(e);
+				return o < 0 ? -1 : view.getTargetVertex(o);
+			}
+			@Override
+			public int getLeftFace(int e) {
+				return view.getLeftFace(e);
+			}
+			@Override
+			public boolean isPositive(int e) {
+				return view.isPositive(e);
+			}
+		};
+	}
+	
+}
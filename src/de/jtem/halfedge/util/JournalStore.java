@@ -0,0 +1,318 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Journal;
+
+/**
+ * Incremental persistence of a {@link HalfEdgeDataStructure} as a {@link BinaryMesh} snapshot 
+ * and a {@link Journal} of the modifications since the snapshot.
+ * <p>
+ * A store is a directory with one generation of files, <code>snapshot-g.bin</code> and 
+ * <code>journal-g.log</code>. While the store is open, its journal is attached to the 
+ * half-edge data structure. {@link #checkpoint()} makes all modifications so far durable 
+ * at the cost of the journal records written since the last checkpoint. {@link #compact()} 
+ * writes the current state as the snapshot of the next generation, starts an empty 
+ * journal, and deletes the previous generation. A snapshot is written to a temporary file 
+ * and renamed when it is complete, so {@link #open(File, HalfEdgeDataStructure)} always finds 
+ * a complete generation and replays its journal up to the last checkpoint.
+ * <p>
+ * Only the combinatorics are stored, node data are not.
+ */
+public final class JournalStore {
+
+	private static final String
+		SNAPSHOT_PREFIX = "snapshot-",
+		SNAPSHOT_SUFFIX = ".bin",
+		JOURNAL_PREFIX = "journal-",
+		JOURNAL_SUFFIX = ".log";
+	
+	private final File
+		directory;
+	private final HalfEdgeDataStructure<?,?,?>
+		hds;
+	private int
+		generation;
+	private Journal
+		journal = null;
+	
+	private JournalStore(File directory, HalfEdgeDataStructure<?,?,?> hds, int generation) {
+		this.directory = directory;
+		this.hds = hds;
+		this.generation = generation;
+	}
+	
+	/**
+	 * Create a store with a snapshot of hds and attach its journal to hds. 
+	 * Existing store files in the directory are deleted.
+	 * @param directory the directory, it is created if necessary
+	 * @param hds the half-edge data structure
+	 * @return the open store
+	 * @throws IOException if the files cannot be written
+	 * @throws RuntimeException if a transaction is open or a journal is attached to hds
+	 */
+	public static JournalStore create(File directory, HalfEdgeDataStructure<?,?,?> hds) throws IOException, RuntimeException {
+		checkDetached(hds);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create " + directory);
+		}
+		int g = latestGeneration(directory) + 1;
+		JournalStore store = new JournalStore(directory, hds, g);
+		store.writeSnapshot(g);
+		store.startJournal(g);
+		store.deleteGenerationsBefore(g);
+		return store;
+	}
+	
+	/**
+	 * Open a store, i.e., clear hds, load the latest snapshot into hds, replay the 
+	 * journal up to its last checkpoint, and attach the journal to hds. Records after 
+	 * the last checkpoint are discarded.
+	 * @param directory the directory of the store
+	 * @param hds the half-edge data structure to load into
+	 * @return the open store
+	 * @throws IOException if the directory does not contain a store or the files cannot be read
+	 * @throws RuntimeException if a transaction is open or a journal is attached to hds
+	 */
+	public static JournalStore open(File directory, HalfEdgeDataStructure<?,?,?> hds) throws IOException, RuntimeException {
+		checkDetached(hds);
+		int g = latestGeneration(directory);
+		if (g < 0) {
+			throw new IOException("No snapshot found in " + directory);
+		}
+		hds.clear();
+		BinaryMesh.map(snapshotFile(directory, g)).toHalfEdgeDataStructure(hds);
+		JournalStore store = new JournalStore(directory, hds, g);
+		File log = journalFile(directory, g);
+		if (!log.exists()) {
+			store.startJournal(g);
+		} else {
+			RandomAccessFile raf = new RandomAccessFile(log, "rw");
+			boolean replayed = false;
+			try {
+				FileChannel channel = raf.getChannel();
+				long valid = Journal.replay(channel, hds);
+				channel.truncate(valid);
+				channel.position(valid);
+				replayed = true;
+			} finally {
+				if (!replayed) {
+					raf.close();
+				}
+			}
+			store.journal = new Journal(raf.getChannel(), true);
+			hds.setJournal(store.journal);
+		}
+		store.deleteGenerationsBefore(g);
+		return store;
+	}
+	
+	private static void checkDetached(HalfEdgeDataStructure<?,?,?> hds) throws RuntimeException {
+		if (hds.getJournal() != null) {
+			throw new RuntimeException("A journal is attached to " + hds + ".");
+		}
+		if (hds.getTransaction() != null) {
+			throw new RuntimeException("A transaction is open on " + hds + ".");
+		}
+	}
+	
+	/**
+	 * Return the half-edge data structure of this store.
+	 * @return the half-edge data structure
+	 */
+	public HalfEdgeDataStructure<?,?,?> getHalfEdgeDataStructure() {
+		return hds;
+	}
+	
+	/**
+	 * Return the generation of the current snapshot, it is incremented by {@link #compact()}.
+	 * @return the generation
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+	
+	/**
+	 * Return the journal of this store. It is replaced by {@link #compact()}.
+	 * @return the journal
+	 */
+	public Journal getJournal() {
+		return journal;
+	}
+	
+	/**
+	 * Return the size of the journal of the current generation in bytes.
+	 * @return the size, including records that are not flushed
+	 */
+	public long getJournalSize() {
+		return journal.getNumBytes();
+	}
+	
+	/**
+	 * Make all modifications durable.
+	 * @throws IOException if the journal cannot be written
+	 * @throws RuntimeException if the store is closed or a transaction is open
+	 */
+	public void checkpoint() throws IOException, RuntimeException {
+		checkOpen();
+		journal.checkpoint();
+	}
+	
+	/**
+	 * Write the current state as a new snapshot and start an empty journal. 
+	 * The files of the previous generation are deleted.
+	 * @throws IOException if the files cannot be written
+	 * @throws RuntimeException if the store is closed or a transaction is open
+	 */
+	public void compact() throws IOException, RuntimeException {
+		checkOpen();
+		if (hds.getTransaction() != null) {
+			throw new RuntimeException("Cannot compact " + hds + " while a transaction is open.");
+		}
+		int g = generation + 1;
+		writeSnapshot(g);
+		journal.close();
+		startJournal(g);
+		deleteGenerationsBefore(g);
+	}
+	
+	/**
+	 * Checkpoint the journal, detach it, and close the store.
+	 * @throws IOException if the journal cannot be written
+	 * @throws RuntimeException if a transaction is open
+	 */
+	public void close() throws IOException, RuntimeException {
+		if (journal == null) {
+			return;
+		}
+		journal.checkpoint();
+		journal.close();
+		journal = null;
+	}
+	
+	private void checkOpen() throws RuntimeException {
+		if (journal == null) {
+			throw new RuntimeException("The store is closed.");
+		}
+	}
+	
+	private void writeSnapshot(int g) throws IOException {
+		File tmp = new File(directory, SNAPSHOT_PREFIX + g + ".tmp");
+		RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+		try {
+			raf.setLength(0);
+			BinaryMesh.write(hds, raf.getChannel());
+			raf.getChannel().force(true);
+		} finally {
+			raf.close();
+		}
+		File snapshot = snapshotFile(directory, g);
+		if (!tmp.renameTo(snapshot)) {
+			throw new IOException("Cannot rename " + tmp + " to " + snapshot);
+		}
+		generation = g;
+	}
+	
+	private void startJournal(int g) throws IOException {
+		File log = journalFile(directory, g);
+		RandomAccessFile raf = new RandomAccessFile(log, "rw");
+		raf.setLength(0);
+		journal = new Journal(raf.getChannel(), false);
+		hds.setJournal(journal);
+		journal.checkpoint();
+	}
+	
+	private void deleteGenerationsBefore(int g) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File f : files) {
+			int fg = generation(f.getName());
+			if (fg >= 0 && fg < g) {
+				f.delete();
+			}
+		}
+	}
+	
+	private static int latestGeneration(File directory) {
+		int g = -1;
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return g;
+		}
+		for (File f : files) {
+			String name = f.getName();
+			if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+				g = Math.max(g, generation(name));
+			}
+		}
+		return g;
+	}
+	
+	/**
+	 * @return the generation of a store file name or -1
+	 */
+	private static int generation(String name) {
+		String prefix = name.startsWith(SNAPSHOT_PREFIX) ? SNAPSHOT_PREFIX : name.startsWith(JOURNAL_PREFIX) ? JOURNAL_PREFIX : null;
+		if (prefix == null) {
+			return -1;
+		}
+		int end = name.indexOf('.', prefix.length());
+		if (end < 0) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(name.substring(prefix.length(), end));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	private static File snapshotFile(File directory, int g) {
+		return new File(directory, SNAPSHOT_PREFIX + g + SNAPSHOT_SUFFIX);
+	}
+	
+	private static File journalFile(File directory, int g) {
+		return new File(directory, JOURNAL_PREFIX + g + JOURNAL_SUFFIX);
+	}
+	
+}
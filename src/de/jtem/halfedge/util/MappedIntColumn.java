@@ -0,0 +1,387 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A file backed int array that is mapped into memory in chunks of 2^chunkBits ints. 
+ * The chunks of all columns that share a {@link Pager} are limited in number, the least 
+ * recently used chunk is unmapped when a new one is needed. Not thread-safe.
+ * <p>
+ * Java has no API to unmap a file, chunks are unmapped through the cleaner of their buffer 
+ * where the runtime allows it and are otherwise released when their buffer is garbage collected. 
+ * Until then the operating system may keep their pages resident, but it can page them out 
+ * since they are backed by the file. Unmapping does not write a chunk 
+ * to disk, the operating system writes the pages of the shared mapping back on its own. 
+ * {@link Pager#forceAll()} makes all modifications durable.
+ */
+final class MappedIntColumn {
+
+	/**
+	 * Keeps track of the mapped chunks of several columns.
+	 */
+	static final class Pager {
+		
+		private final LinkedHashMap<Long, MappedIntColumn>
+			resident = new LinkedHashMap<Long, MappedIntColumn>(16, 0.75f, true);
+		private final List<MappedIntColumn>
+			columns = new ArrayList<MappedIntColumn>();
+		private int
+			maxResidentChunks,
+			maxDirtyChunks = Integer.MAX_VALUE,
+			numDirty = 0,
+			numColumns = 0;
+		private long
+			numLoads = 0,
+			clock = 0,
+			refreshed = 0;
+		
+		Pager(int maxResidentChunks) {
+			setMaxResidentChunks(maxResidentChunks);
+		}
+		
+		void setMaxResidentChunks(int max) {
+			maxResidentChunks = Math.max(1, max);
+			refresh();
+			evict();
+		}
+		
+		int getMaxResidentChunks() {
+			return maxResidentChunks;
+		}
+		
+		void setMaxDirtyChunks(int max) throws IOException {
+			maxDirtyChunks = Math.max(1, max);
+			if (numDirty >= maxDirtyChunks) {
+				forceAll();
+			}
+		}
+		
+		int getMaxDirtyChunks() {
+			return maxDirtyChunks;
+		}
+		
+		long getNumLoads() {
+			return numLoads;
+		}
+		
+		int getNumResident() {
+			return resident.size();
+		}
+		
+		private static Long key(MappedIntColumn column, int chunk) {
+			return ((long)column.id << 32) | chunk;
+		}
+		
+		void loaded(MappedIntColumn column, int chunk) {
+			numLoads++;
+			refresh();
+			resident.put(key(column, chunk), column);
+			evict();
+		}
+		
+		void touched(MappedIntColumn column, int chunk) {
+			resident.get(key(column, chunk));
+		}
+		
+		/**
+		 * Move the last chunks of the columns that were used since the previous refresh 
+		 * to the recently used end, in the order of their last use. Accesses to the last 
+		 * chunk of a column only set its access stamp, so the order is brought up to date 
+		 * here, before it is needed.
+		 */
+		private void refresh() {
+			long since = refreshed;
+			while (true) {
+				MappedIntColumn next = null;
+				for (MappedIntColumn c : columns) {
+					if (c.lastChunk >= 0 && c.lastAccess > since && (next == null || c.lastAccess < next.lastAccess)) {
+						next = c;
+					}
+				}
+				if (next == null) {
+					break;
+				}
+				resident.get(key(next, next.lastChunk));
+				since = next.lastAccess;
+			}
+			refreshed = clock;
+		}
+		
+		void dirtied() throws IOException {
+			if (++numDirty >= maxDirtyChunks) {
+				forceAll();
+			}
+		}
+		
+		private void evict() {
+			Iterator<Map.Entry<Long, MappedIntColumn>> it = resident.entrySet().iterator();
+			while (resident.size() > maxResidentChunks) {
+				Map.Entry<Long, MappedIntColumn> eldest = it.next();
+				it.remove();
+				eldest.getValue().release((int)eldest.getKey().longValue());
+			}
+		}
+		
+		/**
+		 * Write all dirty chunks to their files.
+		 */
+		void forceAll() throws IOException {
+			for (Map.Entry<Long, MappedIntColumn> e : resident.entrySet()) {
+				e.getValue().force((int)e.getKey().longValue());
+			}
+			for (MappedIntColumn c : columns) {
+				c.forceReleased();
+			}
+		}
+		
+		/**
+		 * Remove all chunks of a column.
+		 */
+		void remove(MappedIntColumn column) {
+			columns.remove(column);
+			Iterator<Map.Entry<Long, MappedIntColumn>> it = resident.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<Long, MappedIntColumn> e = it.next();
+				if (e.getValue() == column) {
+					it.remove();
+					column.release((int)e.getKey().longValue());
+				}
+			}
+		}
+		
+	}
+	
+	private final File
+		file;
+	private final RandomAccessFile
+		raf;
+	private final FileChannel
+		channel;
+	private final Pager
+		pager;
+	private final int
+		id,
+		chunkBits,
+		chunkMask;
+	private MappedByteBuffer[]
+		mapped = new MappedByteBuffer[0];
+	private IntBuffer[]
+		chunks = new IntBuffer[0];
+	private boolean[]
+		dirty = new boolean[0];
+	private int
+		lastChunk = -1;
+	private long
+		lastAccess = 0;
+	private boolean
+		unforced = false;
+	private IntBuffer
+		last = null;
+	
+	/**
+	 * Open or create a column file.
+	 * @param file the file
+	 * @param chunkBits the binary logarithm of the number of ints per chunk
+	 * @param pager the pager that limits the number of resident chunks
+	 */
+	MappedIntColumn(File file, int chunkBits, Pager pager) throws IOException {
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+		this.channel = raf.getChannel();
+		this.pager = pager;
+		this.id = pager.numColumns++;
+		pager.columns.add(this);
+		this.chunkBits = chunkBits;
+		this.chunkMask = (1 << chunkBits) - 1;
+	}
+	
+	private IntBuffer chunk(int c) throws IOException {
+		if (c == lastChunk) {
+			lastAccess = ++pager.clock;
+			return last;
+		}
+		if (c >= chunks.length) {
+			int n = Math.max(c + 1, 2 * chunks.length);
+			mapped = Arrays.copyOf(mapped, n);
+			chunks = Arrays.copyOf(chunks, n);
+			dirty = Arrays.copyOf(dirty, n);
+		}
+		IntBuffer b = chunks[c];
+		if (b == null) {
+			long bytes = 4L << chunkBits;
+			MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_WRITE, c * bytes, bytes);
+			m.order(ByteOrder.LITTLE_ENDIAN);
+			mapped[c] = m;
+			chunks[c] = b = m.asIntBuffer();
+			pager.loaded(this, c);
+		} else {
+			pager.touched(this, c);
+		}
+		lastChunk = c;
+		last = b;
+		lastAccess = ++pager.clock;
+		return b;
+	}
+	
+	int get(int i) throws IOException {
+		return chunk(i >>> chunkBits).get(i & chunkMask);
+	}
+	
+	void set(int i, int value) throws IOException {
+		int c = i >>> chunkBits;
+		IntBuffer b = chunk(c);
+		b.put(i & chunkMask, value);
+		if (!dirty[c]) {
+			dirty[c] = true;
+			pager.dirtied();
+		}
+	}
+	
+	private void force(int c) {
+		if (dirty[c]) {
+			mapped[c].force();
+			dirty[c] = false;
+			pager.numDirty--;
+		}
+	}
+	
+	/**
+	 * Unmap a buffer immediately if the runtime allows it, otherwise leave it to the 
+	 * garbage collector. Without this, frequent chunk loads exhaust the number of 
+	 * mappings the operating system allows per process before the collector runs. 
+	 * The buffer must not be used afterwards.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (UNSAFE != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			// not supported, the mapping is released by the garbage collector
+		}
+	}
+	
+	private static final Object
+		UNSAFE;
+	private static final Method
+		INVOKE_CLEANER;
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			// Java 9 and later
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field f = unsafeClass.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			unsafe = f.get(null);
+		} catch (Exception e) {
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+	
+	/**
+	 * Write chunks that were modified and unmapped since the last call to disk.
+	 */
+	private void forceReleased() throws IOException {
+		if (unforced) {
+			channel.force(false);
+			unforced = false;
+		}
+	}
+	
+	private void release(int c) {
+		// the operating system writes the pages of a shared mapping back, force() only adds durability
+		if (dirty[c]) {
+			dirty[c] = false;
+			pager.numDirty--;
+			unforced = true;
+		}
+		unmap(mapped[c]);
+		mapped[c] = null;
+		chunks[c] = null;
+		if (c == lastChunk) {
+			lastChunk = -1;
+			last = null;
+		}
+	}
+	
+	/**
+	 * Unmap all chunks and close the file, after writing modified chunks to disk.
+	 * @param delete delete the file after closing
+	 */
+	void close(boolean delete) throws IOException {
+		if (!delete) {
+			for (int c = 0; c < mapped.length; c++) {
+				if (mapped[c] != null) force(c);
+			}
+		}
+		pager.remove(this);
+		if (!delete) {
+			forceReleased();
+		}
+		raf.close();
+		if (delete) {
+			file.delete();
+		}
+	}
+	
+}
@@ -0,0 +1,735 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * A disk backed, index based surface for meshes that do not fit into memory.
+ * <p>
+ * The links are stored in one file per column in a directory: next, previous, opposite, 
+ * target vertex, and left face per edge, the incoming edge per vertex, the boundary edge per 
+ * face, and the edge signatures as bits. The columns are memory-mapped in chunks and paged by 
+ * the operating system. At most {@link #getMaxResidentBytes()} of chunks are mapped at a time, 
+ * the least recently used chunk is written back and unmapped first. Modified chunks are written 
+ * back when they are unmapped, on {@link #flush()}, and whenever {@link #getMaxDirtyChunks()} 
+ * chunks are modified. 
+ * <p>
+ * Reading follows {@link HalfEdgeView}, I/O errors are rethrown as {@link RuntimeException}s. 
+ * Local edits mirror the link methods of {@link de.jtem.halfedge.Edge}, nodes can be added 
+ * but not removed. Use {@link #reorder(File)} to obtain a copy whose nodes are in breadth-first 
+ * order, this keeps the number of chunk loads low during face and vertex star traversals. 
+ * Instances are not thread-safe.
+ */
+public final class MappedMesh implements HalfEdgeView {
+
+	/**
+	 * The first int of the header file, "HEDM" in ASCII.
+	 */
+	public static final int MAGIC = 0x4845444d;
+	
+	/**
+	 * The format version written by this class.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The default binary logarithm of the number of ints per chunk, 4MB chunks.
+	 */
+	public static final int DEFAULT_CHUNK_BITS = 20;
+	
+	/**
+	 * The default limit of mapped chunks, 1GB.
+	 */
+	public static final long DEFAULT_MAX_RESIDENT_BYTES = 1L << 30;
+	
+	private static final String
+		HEADER = "mesh.header";
+	private static final String[]
+		COLUMNS = {"next", "previous", "opposite", "target", "face", "incoming", "boundary", "signature"};
+	
+	private final File
+		directory;
+	private final int
+		chunkBits;
+	private final MappedIntColumn.Pager
+		pager;
+	private final MappedIntColumn
+		next,
+		previous,
+		opposite,
+		target,
+		face,
+		incoming,
+		boundary,
+		signature;
+	private int
+		numVertices,
+		numEdges,
+		numFaces;
+	private boolean
+		closed = false;
+	
+	private MappedMesh(File directory, int chunkBits, int nv, int ne, int nf) throws IOException {
+		this.directory = directory;
+		this.chunkBits = chunkBits;
+		this.numVertices = nv;
+		this.numEdges = ne;
+		this.numFaces = nf;
+		pager = new MappedIntColumn.Pager((int)Math.min(Integer.MAX_VALUE, DEFAULT_MAX_RESIDENT_BYTES >> (chunkBits + 2)));
+		MappedIntColumn[] c = new MappedIntColumn[COLUMNS.length];
+		for (int i = 0; i < c.length; i++) {
+			c[i] = new MappedIntColumn(new File(directory, COLUMNS[i] + ".col"), chunkBits, pager);
+		}
+		next = c[0];
+		previous = c[1];
+		opposite = c[2];
+		target = c[3];
+		face = c[4];
+		incoming = c[5];
+		boundary = c[6];
+		signature = c[7];
+	}
+	
+	/**
+	 * Create an empty mesh, existing mesh files in the directory are overwritten.
+	 * @param directory the directory, it is created if necessary
+	 * @param chunkBits the binary logarithm of the number of ints per chunk, between 10 and 28
+	 * @return the mesh
+	 * @throws IOException if the files cannot be created
+	 * @throws IllegalArgumentException if chunkBits is out of range
+	 */
+	public static MappedMesh create(File directory, int chunkBits) throws IOException, IllegalArgumentException {
+		if (chunkBits < 10 || chunkBits > 28) {
+			throw new IllegalArgumentException("chunkBits must be between 10 and 28, got " + chunkBits);
+		}
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create directory " + directory);
+		}
+		for (String name : COLUMNS) {
+			File f = new File(directory, name + ".col");
+			if (f.exists() && !f.delete()) {
+				throw new IOException("Cannot delete " + f);
+			}
+		}
+		MappedMesh mesh = new MappedMesh(directory, chunkBits, 0, 0, 0);
+		mesh.writeHeader();
+		return mesh;
+	}
+	
+	/**
+	 * Open a mesh that was created by {@link #create(File, int)} and flushed.
+	 * @param directory the directory of the mesh
+	 * @return the mesh
+	 * @throws IOException if the directory does not hold a supported mesh
+	 */
+	public static MappedMesh open(File directory) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		RandomAccessFile raf = new RandomAccessFile(new File(directory, HEADER), "r");
+		try {
+			while (header.hasRemaining()) {
+				if (raf.getChannel().read(header) < 0) {
+					throw new IOException("Truncated mesh header");
+				}
+			}
+		} finally {
+			raf.close();
+		}
+		if (header.getInt(0) != MAGIC) {
+			throw new IOException("Not a mapped mesh header");
+		}
+		if (header.getInt(4) != VERSION) {
+			throw new IOException("Unsupported mapped mesh version " + header.getInt(4) + ", expected " + VERSION);
+		}
+		return new MappedMesh(directory, header.getInt(8), header.getInt(12), header.getInt(16), header.getInt(20));
+	}
+	
+	/**
+	 * Copy the combinatorics of a half-edge data structure into a new mesh.
+	 * @see #create(File, int)
+	 */
+	public static MappedMesh copyOf(HalfEdgeDataStructure<?,?,?> hds, File directory, int chunkBits) throws IOException {
+		MappedMesh mesh = copyOf(HalfEdgeViews.of(hds), directory, chunkBits);
+		for (Vertex<?,?,?> v : hds.getVertices()) {
+			mesh.setIncomingEdge(v.getIndex(), Connectivity.index(v.getIncomingEdge()));
+		}
+		for (Face<?,?,?> f : hds.getFaces()) {
+			mesh.setBoundaryEdge(f.getIndex(), Connectivity.index(f.getBoundaryEdge()));
+		}
+		return mesh;
+	}
+	
+	/**
+	 * Copy a view into a new mesh. The anchors are the first incoming 
+	 * and boundary edges in index order.
+	 * @see #create(File, int)
+	 */
+	public static MappedMesh copyOf(HalfEdgeView view, File directory, int chunkBits) throws IOException {
+		MappedMesh mesh = create(directory, chunkBits);
+		mesh.addVertices(view.numVertices());
+		mesh.addEdges(view.numEdges());
+		mesh.addFaces(view.numFaces());
+		for (int e = 0; e < view.numEdges(); e++) {
+			mesh.next.set(e, view.getNextEdge(e));
+			mesh.previous.set(e, view.getPreviousEdge(e));
+			mesh.opposite.set(e, view.getOppositeEdge(e));
+			int v = view.getTargetVertex(e);
+			mesh.target.set(e, v);
+			if (v >= 0 && mesh.incoming.get(v) < 0) {
+				mesh.incoming.set(v, e);
+			}
+			int f = view.getLeftFace(e);
+			mesh.face.set(e, f);
+			if (f >= 0 && mesh.boundary.get(f) < 0) {
+				mesh.boundary.set(f, e);
+			}
+			mesh.setBit(e, view.isPositive(e));
+		}
+		return mesh;
+	}
+	
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(chunkBits).putInt(numVertices).putInt(numEdges).putInt(numFaces);
+		header.flip();
+		RandomAccessFile raf = new RandomAccessFile(new File(directory, HEADER), "rw");
+		try {
+			raf.setLength(0);
+			while (header.hasRemaining()) {
+				raf.getChannel().write(header);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+	
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Mapped mesh in " + directory + " is closed");
+		}
+	}
+	
+	/**
+	 * Write all modified chunks and the header to disk.
+	 * @throws IOException if writing fails
+	 */
+	public void flush() throws IOException {
+		checkOpen();
+		pager.forceAll();
+		writeHeader();
+	}
+	
+	/**
+	 * Flush and close all files. The mesh cannot be used afterwards.
+	 * @throws IOException if writing fails
+	 */
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		flush();
+		for (MappedIntColumn c : new MappedIntColumn[] {next, previous, opposite, target, face, incoming, boundary, signature}) {
+			c.close(false);
+		}
+		closed = true;
+	}
+	
+	/**
+	 * @return the directory of the mesh files
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+	
+	/**
+	 * Limit the memory of the mapped chunks. At least one chunk stays mapped.
+	 * @param bytes the maximum number of bytes 
+	 */
+	public void setMaxResidentBytes(long bytes) {
+		pager.setMaxResidentChunks((int)Math.min(Integer.MAX_VALUE, bytes >> (chunkBits + 2)));
+	}
+	
+	public long getMaxResidentBytes() {
+		return (long)pager.getMaxResidentChunks() << (chunkBits + 2);
+	}
+	
+	/**
+	 * Write back all modified chunks whenever the given number of chunks is modified. 
+	 * By default chunks are only written back when they are unmapped and on {@link #flush()}.
+	 * @param chunks the number of chunks, at least 1
+	 * @throws IOException if writing fails
+	 */
+	public void setMaxDirtyChunks(int chunks) throws IOException {
+		pager.setMaxDirtyChunks(chunks);
+	}
+	
+	public int getMaxDirtyChunks() {
+		return pager.getMaxDirtyChunks();
+	}
+	
+	/**
+	 * @return the number of chunks that were mapped since the mesh was opened, 
+	 * a measure of the locality of the accesses
+	 */
+	public long getNumChunkLoads() {
+		return pager.getNumLoads();
+	}
+	
+	/**
+	 * @return the number of currently mapped chunks
+	 */
+	public int getNumResidentChunks() {
+		return pager.getNumResident();
+	}
+	
+	private static RuntimeException wrap(IOException e) {
+		return new RuntimeException("I/O error in mapped mesh: " + e.getMessage(), e);
+	}
+	
+	private static int read(MappedIntColumn column, int i, int n) {
+		if (i < 0 || i >= n) {
+			throw new IndexOutOfBoundsException("Index " + i + ", size " + n);
+		}
+		try {
+			return column.get(i);
+		} catch (IOException e) {
+			throw wrap(e);
+		}
+	}
+	
+	private static void write(MappedIntColumn column, int i, int n, int value, int valueBound) {
+		if (i < 0 || i >= n) {
+			throw new IndexOutOfBoundsException("Index " + i + ", size " + n);
+		}
+		if (value < -1 || value >= valueBound) {
+			throw new IndexOutOfBoundsException("Link " + value + ", size " + valueBound);
+		}
+		try {
+			column.set(i, value);
+		} catch (IOException e) {
+			throw wrap(e);
+		}
+	}
+	
+	private void setBit(int e, boolean positive) throws IOException {
+		int bits = signature.get(e >>> 5);
+		int mask = 1 << (e & 31);
+		signature.set(e >>> 5, positive ? bits | mask : bits & ~mask);
+	}
+	
+	@Override
+	public int numVertices() {
+		return numVertices;
+	}
+	
+	@Override
+	public int numEdges() {
+		return numEdges;
+	}
+	
+	@Override
+	public int numFaces() {
+		return numFaces;
+	}
+	
+	@Override
+	public int getNextEdge(int e) {
+		return read(next, e, numEdges);
+	}
+	
+	@Override
+	public int getPreviousEdge(int e) {
+		return read(previous, e, numEdges);
+	}
+	
+	@Override
+	public int getOppositeEdge(int e) {
+		return read(opposite, e, numEdges);
+	}
+	
+	@Override
+	public int getTargetVertex(int e) {
+		return read(target, e, numEdges);
+	}
+	
+	@Override
+	public int getLeftFace(int e) {
+		return read(face, e, numEdges);
+	}
+	
+	@Override
+	public boolean isPositive(int e) {
+		if (e < 0 || e >= numEdges) {
+			throw new IndexOutOfBoundsException("Index " + e + ", size " + numEdges);
+		}
+		return ((read(signature, e >>> 5, (numEdges + 31) >>> 5) >>> (e & 31)) & 1) != 0;
+	}
+	
+	/**
+	 * @param v a vertex index
+	 * @return the incoming edge of v or -1
+	 */
+	public int getIncomingEdge(int v) {
+		return read(incoming, v, numVertices);
+	}
+	
+	/**
+	 * @param f a face index
+	 * @return the boundary edge of f or -1
+	 */
+	public int getBoundaryEdge(int f) {
+		return read(boundary, f, numFaces);
+	}
+	
+	/**
+	 * Add unlinked vertices.
+	 * @param n the number of vertices
+	 * @return the index of the first new vertex
+	 */
+	public int addVertices(int n) {
+		checkOpen();
+		int first = numVertices;
+		try {
+			for (int i = first; i < first + n; i++) {
+				incoming.set(i, -1);
+			}
+		} catch (IOException e) {
+			throw wrap(e);
+		}
+		numVertices += n;
+		return first;
+	}
+	
+	/**
+	 * Add unlinked, negative edges.
+	 * @param n the number of edges
+	 * @return the index of the first new edge
+	 */
+	public int addEdges(int n) {
+		checkOpen();
+		int first = numEdges;
+		try {
+			for (int i = first; i < first + n; i++) {
+				next.set(i, -1);
+				previous.set(i, -1);
+				opposite.set(i, -1);
+				target.set(i, -1);
+				face.set(i, -1);
+				setBit(i, false);
+			}
+		} catch (IOException e) {
+			throw wrap(e);
+		}
+		numEdges += n;
+		return first;
+	}
+	
+	/**
+	 * Add faces without boundary edge.
+	 * @param n the number of faces
+	 * @return the index of the first new face
+	 */
+	public int addFaces(int n) {
+		checkOpen();
+		int first = numFaces;
+		try {
+			for (int i = first; i < first + n; i++) {
+				boundary.set(i, -1);
+			}
+		} catch (IOException e) {
+			throw wrap(e);
+		}
+		numFaces += n;
+		return first;
+	}
+	
+	/**
+	 * Make n the next edge of e, as {@link de.jtem.halfedge.Edge#linkNextEdge(de.jtem.halfedge.Edge)}. 
+	 * The old previous edge of n and the old next edge of e are unlinked.
+	 * @param e an edge index
+	 * @param n an edge index or -1 to unlink the next edge of e
+	 */
+	public void linkNextEdge(int e, int n) {
+		int oldNext = getNextEdge(e);
+		if (oldNext >= 0) {
+			write(previous, oldNext, numEdges, -1, 0);
+		}
+		if (n >= 0) {
+			int oldPrevious = getPreviousEdge(n);
+			if (oldPrevious >= 0) {
+				write(next, oldPrevious, numEdges, -1, 0);
+			}
+			write(previous, n, numEdges, e, numEdges);
+		}
+		write(next, e, numEdges, n, numEdges);
+	}
+	
+	/**
+	 * Make o the opposite edge of e, as {@link de.jtem.halfedge.Edge#linkOppositeEdge(de.jtem.halfedge.Edge)}. 
+	 * The old opposite edges are unlinked and the signature of o becomes the opposite of the signature of e.
+	 * @param e an edge index
+	 * @param o an edge index or -1 to unlink the opposite edge of e
+	 */
+	public void linkOppositeEdge(int e, int o) {
+		int oldOpposite = getOppositeEdge(e);
+		if (oldOpposite >= 0) {
+			write(opposite, oldOpposite, numEdges, -1, 0);
+		}
+		if (o >= 0) {
+			int oldOppositeOfO = getOppositeEdge(o);
+			if (oldOppositeOfO >= 0) {
+				write(opposite, oldOppositeOfO, numEdges, -1, 0);
+			}
+			write(opposite, o, numEdges, e, numEdges);
+			setIsPositive(o, !isPositive(e));
+		}
+		write(opposite, e, numEdges, o, numEdges);
+	}
+	
+	/**
+	 * Set the target vertex of e. The vertex gets e as incoming edge if it has none.
+	 * @param e an edge index
+	 * @param v a vertex index or -1
+	 */
+	public void setTargetVertex(int e, int v) {
+		write(target, e, numEdges, v, numVertices);
+		if (v >= 0 && getIncomingEdge(v) < 0) {
+			setIncomingEdge(v, e);
+		}
+	}
+	
+	/**
+	 * Set the left face of e. The face gets e as boundary edge if it has none.
+	 * @param e an edge index
+	 * @param f a face index or -1
+	 */
+	public void setLeftFace(int e, int f) {
+		write(face, e, numEdges, f, numFaces);
+		if (f >= 0 && getBoundaryEdge(f) < 0) {
+			setBoundaryEdge(f, e);
+		}
+	}
+	
+	/**
+	 * Set the signature of e and the opposite signature of its opposite edge.
+	 * @param e an edge index
+	 * @param positive the signature
+	 */
+	public void setIsPositive(int e, boolean positive) {
+		if (e < 0 || e >= numEdges) {
+			throw new IndexOutOfBoundsException("Index " + e + ", size " + numEdges);
+		}
+		try {
+			setBit(e, positive);
+			int o = opposite.get(e);
+			if (o >= 0) {
+				setBit(o, !positive);
+			}
+		} catch (IOException ex) {
+			throw wrap(ex);
+		}
+	}
+	
+	/**
+	 * @param v a vertex index
+	 * @param e the new incoming edge of v or -1
+	 */
+	public void setIncomingEdge(int v, int e) {
+		write(incoming, v, numVertices, e, numEdges);
+	}
+	
+	/**
+	 * @param f a face index
+	 * @param e the new boundary edge of f or -1
+	 */
+	public void setBoundaryEdge(int f, int e) {
+		write(boundary, f, numFaces, e, numEdges);
+	}
+	
+	/**
+	 * Append the combinatorics to a half-edge data structure. The mesh must fit into memory.
+	 * @param dst the half-edge data structure to append to
+	 * @return dst
+	 */
+	public <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS toHalfEdgeDataStructure(HEDS dst) {
+		int[] incomingEdges = new int[numVertices];
+		int[] boundaryEdges = new int[numFaces];
+		for (int v = 0; v < numVertices; v++) incomingEdges[v] = getIncomingEdge(v);
+		for (int f = 0; f < numFaces; f++) boundaryEdges[f] = getBoundaryEdge(f);
+		dst.appendCombinatoriallyEquivalentCopy(this, incomingEdges, boundaryEdges);
+		return dst;
+	}
+	
+	/**
+	 * Write a copy of this mesh with its nodes in breadth-first order to another directory. 
+	 * The order is that of {@link Reordering#breadthFirst(HalfEdgeDataStructure)}: faces in 
+	 * breadth-first order, edges grouped by face, vertices in first touch order. 
+	 * All intermediate arrays are mapped files in the target directory, so this 
+	 * works for meshes that do not fit into memory.
+	 * @param directory the directory of the copy, must differ from the directory of this mesh
+	 * @return the reordered copy, with the resident memory limit of this mesh
+	 * @throws IOException if reading or writing fails
+	 */
+	public MappedMesh reorder(File directory) throws IOException {
+		checkOpen();
+		if (directory.getCanonicalFile().equals(this.directory.getCanonicalFile())) {
+			throw new IllegalArgumentException("Cannot reorder " + directory + " into itself");
+		}
+		MappedMesh result = create(directory, chunkBits);
+		result.setMaxResidentBytes(getMaxResidentBytes());
+		MappedIntColumn.Pager tmpPager = result.pager;
+		// new to old and old to new plus one, zero is unassigned
+		MappedIntColumn faceOrder = temporaryColumn(directory, "faceOrder", tmpPager);
+		MappedIntColumn newFace = temporaryColumn(directory, "newFace", tmpPager);
+		MappedIntColumn edgeOrder = temporaryColumn(directory, "edgeOrder", tmpPager);
+		MappedIntColumn newEdge = temporaryColumn(directory, "newEdge", tmpPager);
+		MappedIntColumn vertexOrder = temporaryColumn(directory, "vertexOrder", tmpPager);
+		MappedIntColumn newVertex = temporaryColumn(directory, "newVertex", tmpPager);
+		try {
+			// faces
+			int tail = 0;
+			for (int seed = 0; seed < numFaces; seed++) {
+				if (newFace.get(seed) != 0) {
+					continue;
+				}
+				newFace.set(seed, tail + 1);
+				faceOrder.set(tail++, seed);
+				for (int head = tail - 1; head < tail; head++) {
+					int e0 = boundary.get(faceOrder.get(head));
+					int e = e0;
+					while (e >= 0) {
+						int o = opposite.get(e);
+						int g = o < 0 ? -1 : face.get(o);
+						if (g >= 0 && newFace.get(g) == 0) {
+							newFace.set(g, tail + 1);
+							faceOrder.set(tail++, g);
+						}
+						e = next.get(e);
+						if (e == e0) break;
+					}
+				}
+			}
+			// edges grouped by face
+			tail = 0;
+			for (int i = 0; i < numFaces; i++) {
+				int e0 = boundary.get(faceOrder.get(i));
+				int start = tail;
+				for (int e = e0; e >= 0 && newEdge.get(e) == 0; e = next.get(e)) {
+					newEdge.set(e, tail + 1);
+					edgeOrder.set(tail++, e);
+				}
+				for (int j = start, end = tail; j < end; j++) {
+					int o = opposite.get(edgeOrder.get(j));
+					if (o >= 0 && face.get(o) < 0 && newEdge.get(o) == 0) {
+						newEdge.set(o, tail + 1);
+						edgeOrder.set(tail++, o);
+					}
+				}
+			}
+			for (int e = 0; e < numEdges; e++) {
+				if (newEdge.get(e) == 0) {
+					newEdge.set(e, tail + 1);
+					edgeOrder.set(tail++, e);
+				}
+			}
+			// vertices in first touch order
+			tail = 0;
+			for (int i = 0; i < numEdges; i++) {
+				int v = target.get(edgeOrder.get(i));
+				if (v >= 0 && newVertex.get(v) == 0) {
+					newVertex.set(v, tail + 1);
+					vertexOrder.set(tail++, v);
+				}
+			}
+			for (int v = 0; v < numVertices; v++) {
+				if (newVertex.get(v) == 0) {
+					newVertex.set(v, tail + 1);
+					vertexOrder.set(tail++, v);
+				}
+			}
+			// write the copy
+			result.addVertices(numVertices);
+			result.addEdges(numEdges);
+			result.addFaces(numFaces);
+			for (int i = 0; i < numEdges; i++) {
+				int e = edgeOrder.get(i);
+				result.next.set(i, map(newEdge, next.get(e)));
+				result.previous.set(i, map(newEdge, previous.get(e)));
+				result.opposite.set(i, map(newEdge, opposite.get(e)));
+				result.target.set(i, map(newVertex, target.get(e)));
+				result.face.set(i, map(newFace, face.get(e)));
+				result.setBit(i, ((signature.get(e >>> 5) >>> (e & 31)) & 1) != 0);
+			}
+			for (int i = 0; i < numVertices; i++) {
+				result.incoming.set(i, map(newEdge, incoming.get(vertexOrder.get(i))));
+			}
+			for (int i = 0; i < numFaces; i++) {
+				result.boundary.set(i, map(newEdge, boundary.get(faceOrder.get(i))));
+			}
+		} finally {
+			faceOrder.close(true);
+			newFace.close(true);
+			edgeOrder.close(true);
+			newEdge.close(true);
+			vertexOrder.close(true);
+			newVertex.close(true);
+		}
+		result.flush();
+		return result;
+	}
+	
+	/**
+	 * A new column that is initially zero.
+	 */
+	private MappedIntColumn temporaryColumn(File directory, String name, MappedIntColumn.Pager pager) throws IOException {
+		File file = new File(directory, name + ".tmp");
+		if (file.exists() && !file.delete()) {
+			throw new IOException("Cannot delete " + file);
+		}
+		return new MappedIntColumn(file, chunkBits, pager);
+	}
+	
+	private static int map(MappedIntColumn newIndex, int old) throws IOException {
+		return old < 0 ? -1 : newIndex.get(old) - 1;
+	}
+	
+}
@@ -0,0 +1,736 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.util.BinaryMesh.Kind;
+
+/**
+ * Streaming readers and writers for the OBJ, OFF, and PLY polygon mesh formats. 
+ * <p>
+ * The readers parse their input directly from channel buffers and add the faces to a 
+ * {@link FaceListBuilder}, attribute values are passed to an optional {@link AttributeConsumer}. 
+ * Vertex positions, normals, and texture coordinates are delivered as "position", "normal", 
+ * and "uv", colors as "color". OBJ texture coordinates and normals are referenced by face 
+ * corners and therefore delivered as edge attributes, for the edge of the corner's face that has 
+ * the corner's vertex as target vertex. Indices are relative to the contents of the builder 
+ * before the call, so several files can be read into one builder. 
+ * PLY files may be ASCII or binary little-endian, other elements than vertices and faces are skipped.
+ * <p>
+ * The writers store the combinatorics and vertex positions of a half-edge data structure. 
+ * Faces are written in index order, each starting at the target vertex of its boundary edge. 
+ * <p>
+ * Throughput targets, as measured by the MeshFormatsBenchmark in src-bench: binary PLY is read at 
+ * 150 MB/s or more and written at about 180 MB/s, the ASCII formats are read at 40 to 100 MB/s and 
+ * written at about 60 MB/s. The bulk build of the half-edge data structure is not included in the 
+ * read rates, it is dominated by the allocation of the nodes.
+ */
+public final class MeshFormats {
+
+	// Don't instatiate.
+	private MeshFormats() {}
+	
+	private static String extension(File file) {
+		String name = file.getName();
+		return name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+	}
+	
+	/**
+	 * Read an OBJ, OFF, or PLY file, the format is determined by the file name extension.
+	 * @param file the file
+	 * @param builder the builder that receives the faces
+	 * @param consumer receives attribute values or <code>null</code>
+	 * @throws IOException if the file cannot be read or is malformed
+	 */
+	public static void read(File file, FaceListBuilder builder, AttributeConsumer consumer) throws IOException {
+		String extension = extension(file);
+		FileInputStream in = new FileInputStream(file);
+		try {
+			if (extension.equals("obj")) {
+				readObj(in.getChannel(), builder, consumer);
+			} else if (extension.equals("off")) {
+				readOff(in.getChannel(), builder, consumer);
+			} else if (extension.equals("ply")) {
+				readPly(in.getChannel(), builder, consumer);
+			} else {
+				throw new IOException("Unknown mesh format " + extension);
+			}
+		} finally {
+			in.close();
+		}
+	}
+	
+	/**
+	 * Write an OBJ, OFF, or binary PLY file, the format is determined by the file name extension.
+	 * @param hds the half-edge data structure
+	 * @param positions three coordinates per vertex
+	 * @param file the file, it is overwritten
+	 * @throws IOException if writing fails or the extension is unknown
+	 */
+	public static void write(HalfEdgeDataStructure<?,?,?> hds, double[] positions, File file) throws IOException {
+		String extension = extension(file);
+		if (!extension.equals("obj") && !extension.equals("off") && !extension.equals("ply")) {
+			throw new IOException("Unknown mesh format " + extension);
+		}
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			if (extension.equals("obj")) {
+				writeObj(hds, positions, out.getChannel());
+			} else if (extension.equals("off")) {
+				writeOff(hds, positions, out.getChannel());
+			} else {
+				writePly(hds, positions, out.getChannel(), true);
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	private static int[] grow(int[] array, int n) {
+		return n < array.length ? array : Arrays.copyOf(array, 2 * n);
+	}
+	
+	private static double[] grow(double[] array, int n) {
+		return n < array.length ? array : Arrays.copyOf(array, 2 * n);
+	}
+	
+	private static int addFace(FaceListBuilder builder, int[] vertices, int length, ChannelReader in) throws IOException {
+		try {
+			return builder.addFace(vertices, 0, length);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Line " + in.getLine() + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Read numbers up to the end of the line.
+	 * @return the number of values read, values beyond the buffer length are skipped
+	 */
+	private static int readNumbers(ChannelReader in, double[] values) throws IOException {
+		int n = 0;
+		while (!in.atLineEnd('#')) {
+			double d = in.readDecimalDouble();
+			if (n < values.length) {
+				values[n] = d;
+			}
+			n++;
+		}
+		return Math.min(n, values.length);
+	}
+	
+	private static int resolveObjIndex(int i, int count, ChannelReader in) throws IOException {
+		int r = i < 0 ? count + i : i - 1;
+		if (r < 0 || r >= count) {
+			throw new IOException("Line " + in.getLine() + ": index " + i + " out of range");
+		}
+		return r;
+	}
+	
+	/**
+	 * Read a Wavefront OBJ file. Vertices, texture coordinates, normals, and faces are read, 
+	 * all other statements are skipped. Vertex colors are read if a vertex has six or more values.
+	 * @param channel the input
+	 * @param builder the builder that receives the faces
+	 * @param consumer receives attribute values or <code>null</code>
+	 * @throws IOException if reading fails or the input is malformed
+	 */
+	public static void readObj(ReadableByteChannel channel, FaceListBuilder builder, AttributeConsumer consumer) throws IOException {
+		ChannelReader in = new ChannelReader(channel);
+		int vBase = builder.numVertices();
+		int numVertices = 0, numUvs = 0, numNormals = 0;
+		double[] values = new double[8];
+		double[] uvs = new double[64], normals = new double[64];
+		int[] face = new int[16], faceUv = new int[16], faceNormal = new int[16];
+		while (!in.atEnd()) {
+			in.skipBlanks();
+			int c0 = in.read();
+			if (c0 == '\n' || c0 < 0) {
+				continue;
+			}
+			int c1 = in.peek();
+			if (c0 == 'v' && (c1 == ' ' || c1 == '\t')) {
+				int n = readNumbers(in, values);
+				if (n < 3) {
+					throw new IOException("Line " + in.getLine() + ": vertex with less than three coordinates");
+				}
+				builder.ensureVertices(vBase + numVertices + 1);
+				if (consumer != null) {
+					consumer.attribute(Kind.VERTEX, "position", vBase + numVertices, values, 3);
+					if (n >= 6) {
+						System.arraycopy(values, 3, values, 0, 3);
+						consumer.attribute(Kind.VERTEX, "color", vBase + numVertices, values, 3);
+					}
+				}
+				numVertices++;
+			} else if (c0 == 'v' && c1 == 't') {
+				in.read();
+				int n = readNumbers(in, values);
+				uvs = grow(uvs, 2 * numUvs + 2);
+				uvs[2 * numUvs] = n > 0 ? values[0] : 0;
+				uvs[2 * numUvs + 1] = n > 1 ? values[1] : 0;
+				numUvs++;
+			} else if (c0 == 'v' && c1 == 'n') {
+				in.read();
+				if (readNumbers(in, values) < 3) {
+					throw new IOException("Line " + in.getLine() + ": normal with less than three coordinates");
+				}
+				normals = grow(normals, 3 * numNormals + 3);
+				System.arraycopy(values, 0, normals, 3 * numNormals, 3);
+				numNormals++;
+			} else if (c0 == 'f' && (c1 == ' ' || c1 == '\t')) {
+				int n = 0;
+				while (!in.atLineEnd('#')) {
+					face = grow(face, n + 1);
+					faceUv = grow(faceUv, n + 1);
+					faceNormal = grow(faceNormal, n + 1);
+					face[n] = vBase + resolveObjIndex(in.readDecimalInt(), numVertices, in);
+					faceUv[n] = faceNormal[n] = -1;
+					if (in.peek() == '/') {
+						in.read();
+						if (in.peek() != '/') {
+							faceUv[n] = resolveObjIndex(in.readDecimalInt(), numUvs, in);
+						}
+						if (in.peek() == '/') {
+							in.read();
+							faceNormal[n] = resolveObjIndex(in.readDecimalInt(), numNormals, in);
+						}
+					}
+					n++;
+				}
+				int edgeBase = builder.numCorners();
+				addFace(builder, face, n, in);
+				if (consumer != null) {
+					for (int i = 0; i < n; i++) {
+						if (faceUv[i] >= 0) {
+							System.arraycopy(uvs, 2 * faceUv[i], values, 0, 2);
+							consumer.attribute(Kind.EDGE, "uv", edgeBase + i, values, 2);
+						}
+						if (faceNormal[i] >= 0) {
+							System.arraycopy(normals, 3 * faceNormal[i], values, 0, 3);
+							consumer.attribute(Kind.EDGE, "normal", edgeBase + i, values, 3);
+						}
+					}
+				}
+			}
+			in.skipLine();
+		}
+	}
+	
+	/**
+	 * Read an OFF file. The header keywords OFF, COFF, NOFF, STOFF and their combinations 
+	 * are supported, face colors are read if present.
+	 * @param channel the input
+	 * @param builder the builder that receives the faces
+	 * @param consumer receives attribute values or <code>null</code>
+	 * @throws IOException if reading fails or the input is malformed
+	 */
+	public static void readOff(ReadableByteChannel channel, FaceListBuilder builder, AttributeConsumer consumer) throws IOException {
+		ChannelReader in = new ChannelReader(channel);
+		in.skipWhitespace('#');
+		String header = in.readWord();
+		boolean hasUvs = header.startsWith("ST");
+		if (hasUvs) header = header.substring(2);
+		boolean hasColors = header.startsWith("C");
+		if (hasColors) header = header.substring(1);
+		boolean hasNormals = header.startsWith("N");
+		if (hasNormals) header = header.substring(1);
+		if (!header.equals("OFF")) {
+			throw new IOException("Unsupported OFF header " + header);
+		}
+		in.skipWhitespace('#');
+		int nv = in.readDecimalInt();
+		in.skipWhitespace('#');
+		int nf = in.readDecimalInt();
+		in.skipWhitespace('#');
+		in.readDecimalInt();
+		in.skipLine();
+		int vBase = builder.numVertices();
+		builder.ensureVertices(vBase + nv);
+		double[] values = new double[16];
+		double[] attribute = new double[4];
+		for (int i = 0; i < nv; i++) {
+			in.skipWhitespace('#');
+			int n = readNumbers(in, values);
+			int end = hasUvs ? n - 2 : n;
+			int colorStart = hasNormals ? 6 : 3;
+			if (end < colorStart) {
+				throw new IOException("Line " + in.getLine() + ": too few values for a vertex");
+			}
+			if (consumer != null) {
+				consumer.attribute(Kind.VERTEX, "position", vBase + i, values, 3);
+				if (hasNormals) {
+					System.arraycopy(values, 3, attribute, 0, 3);
+					consumer.attribute(Kind.VERTEX, "normal", vBase + i, attribute, 3);
+				}
+				if (hasColors && end > colorStart) {
+					int dimension = Math.min(4, end - colorStart);
+					System.arraycopy(values, colorStart, attribute, 0, dimension);
+					consumer.attribute(Kind.VERTEX, "color", vBase + i, attribute, dimension);
+				}
+				if (hasUvs) {
+					System.arraycopy(values, end, attribute, 0, 2);
+					consumer.attribute(Kind.VERTEX, "uv", vBase + i, attribute, 2);
+				}
+			}
+			in.skipLine();
+		}
+		int[] face = new int[16];
+		for (int i = 0; i < nf; i++) {
+			in.skipWhitespace('#');
+			int n = in.readDecimalInt();
+			face = grow(face, n);
+			for (int j = 0; j < n; j++) {
+				int v = in.readDecimalInt();
+				if (v < 0 || v >= nv) {
+					throw new IOException("Line " + in.getLine() + ": vertex index " + v + " out of range");
+				}
+				face[j] = vBase + v;
+			}
+			int f = addFace(builder, face, n, in);
+			int m = readNumbers(in, values);
+			if (consumer != null && m > 0) {
+				consumer.attribute(Kind.FACE, "color", f, values, Math.min(4, m));
+			}
+			in.skipLine();
+		}
+	}
+	
+	// PLY scalar types
+	private static final int
+		CHAR = 0,
+		UCHAR = 1,
+		SHORT = 2,
+		USHORT = 3,
+		INT = 4,
+		UINT = 5,
+		FLOAT = 6,
+		DOUBLE = 7;
+	private static final String[][]
+		PLY_TYPES = {
+			{"char", "int8"}, 
+			{"uchar", "uint8"}, 
+			{"short", "int16"}, 
+			{"ushort", "uint16"}, 
+			{"int", "int32"}, 
+			{"uint", "uint32"}, 
+			{"float", "float32"}, 
+			{"double", "float64"}
+		};
+	/**
+	 * Attribute names and the PLY properties that form them.
+	 */
+	private static final String[][]
+		PLY_GROUPS = {
+			{"position", "x", "y", "z"},
+			{"normal", "nx", "ny", "nz"},
+			{"uv", "u", "v"},
+			{"uv", "s", "t"},
+			{"uv", "texture_u", "texture_v"},
+			{"uv", "texture_s", "texture_t"},
+			{"color", "red", "green", "blue", "alpha"}
+		};
+	
+	private static class PlyProperty {
+		String 
+			name;
+		int 
+			type,
+			countType = -1;
+	}
+	
+	private static class PlyElement {
+		String
+			name;
+		int
+			count;
+		List<PlyProperty>
+			properties = new ArrayList<PlyProperty>();
+		List<String>
+			groupNames = new ArrayList<String>();
+		List<int[]>
+			groups = new ArrayList<int[]>();
+		
+		int indexOf(String property) {
+			for (int i = 0; i < properties.size(); i++) {
+				PlyProperty p = properties.get(i);
+				if (p.countType < 0 && p.name.equals(property)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		
+		/**
+		 * Group the scalar properties into attributes.
+		 */
+		void group() {
+			boolean[] grouped = new boolean[properties.size()];
+			for (String[] g : PLY_GROUPS) {
+				if (indexOf(g[1]) < 0) {
+					continue;
+				}
+				int[] members = new int[g.length - 1];
+				int n = 0;
+				for (int i = 1; i < g.length; i++) {
+					int p = indexOf(g[i]);
+					if (p >= 0 && !grouped[p]) {
+						members[n++] = p;
+						grouped[p] = true;
+					}
+				}
+				groupNames.add(g[0]);
+				groups.add(Arrays.copyOf(members, n));
+			}
+			for (int p = 0; p < properties.size(); p++) {
+				if (!grouped[p] && properties.get(p).countType < 0) {
+					groupNames.add(properties.get(p).name);
+					groups.add(new int[] {p});
+				}
+			}
+		}
+	}
+	
+	private static int plyType(String name, ChannelReader in) throws IOException {
+		for (int i = 0; i < PLY_TYPES.length; i++) {
+			if (PLY_TYPES[i][0].equals(name) || PLY_TYPES[i][1].equals(name)) {
+				return i;
+			}
+		}
+		throw new IOException("Line " + in.getLine() + ": unknown PLY type " + name);
+	}
+	
+	private static double readPlyScalar(ChannelReader in, int type, boolean ascii) throws IOException {
+		if (ascii) {
+			in.skipWhitespace(-1);
+			return in.readDecimalDouble();
+		}
+		switch (type) {
+		case CHAR: return in.readByte();
+		case UCHAR: return in.readUnsignedByte();
+		case SHORT: return in.readShort();
+		case USHORT: return in.readUnsignedShort();
+		case INT: return in.readInt();
+		case UINT: return in.readInt() & 0xffffffffL;
+		case FLOAT: return in.readFloat();
+		default: return in.readDouble();
+		}
+	}
+	
+	private static int readPlyInt(ChannelReader in, int type, boolean ascii) throws IOException {
+		if (ascii) {
+			in.skipWhitespace(-1);
+			return in.readDecimalInt();
+		}
+		switch (type) {
+		case CHAR: return in.readByte();
+		case UCHAR: return in.readUnsignedByte();
+		case SHORT: return in.readShort();
+		case USHORT: return in.readUnsignedShort();
+		case INT: 
+		case UINT: return in.readInt();
+		case FLOAT: return (int)in.readFloat();
+		default: return (int)in.readDouble();
+		}
+	}
+	
+	/**
+	 * Read a PLY file in ASCII or binary little-endian format. Faces are read from the 
+	 * list property "vertex_indices" or "vertex_index" of the element "face". 
+	 * Scalar properties of vertices and faces are delivered to the consumer, 
+	 * grouped into "position", "normal", "uv", and "color" where applicable.
+	 * @param channel the input
+	 * @param builder the builder that receives the faces
+	 * @param consumer receives attribute values or <code>null</code>
+	 * @throws IOException if reading fails, the input is malformed, or the format is binary big-endian
+	 */
+	public static void readPly(ReadableByteChannel channel, FaceListBuilder builder, AttributeConsumer consumer) throws IOException {
+		ChannelReader in = new ChannelReader(channel);
+		if (!in.readLine().equals("ply")) {
+			throw new IOException("Not a PLY file");
+		}
+		boolean ascii = true;
+		List<PlyElement> elements = new ArrayList<PlyElement>();
+		PlyElement vertexElement = null;
+		for (String line = in.readLine(); !line.equals("end_header"); line = in.readLine()) {
+			if (in.atEnd()) {
+				throw new IOException("PLY header without end_header");
+			}
+			String[] words = line.split("\\s+");
+			if (words[0].equals("format")) {
+				if (words.length < 2 || (!words[1].equals("ascii") && !words[1].equals("binary_little_endian"))) {
+					throw new IOException("Unsupported PLY format " + line);
+				}
+				ascii = words[1].equals("ascii");
+			} else if (words[0].equals("element") && words.length == 3) {
+				PlyElement e = new PlyElement();
+				e.name = words[1];
+				try {
+					e.count = Integer.parseInt(words[2]);
+				} catch (NumberFormatException nfe) {
+					throw new IOException("Line " + (in.getLine() - 1) + ": invalid element count");
+				}
+				elements.add(e);
+				if (e.name.equals("vertex")) {
+					vertexElement = e;
+				}
+			} else if (words[0].equals("property") && !elements.isEmpty()) {
+				PlyProperty p = new PlyProperty();
+				if (words.length == 5 && words[1].equals("list")) {
+					p.countType = plyType(words[2], in);
+					p.type = plyType(words[3], in);
+					p.name = words[4];
+				} else if (words.length == 3) {
+					p.type = plyType(words[1], in);
+					p.name = words[2];
+				} else {
+					throw new IOException("Line " + (in.getLine() - 1) + ": invalid property " + line);
+				}
+				elements.get(elements.size() - 1).properties.add(p);
+			} else if (!words[0].equals("comment") && !words[0].equals("obj_info") && words[0].length() > 0) {
+				throw new IOException("Line " + (in.getLine() - 1) + ": unknown PLY header line " + line);
+			}
+		}
+		int vBase = builder.numVertices();
+		int nv = vertexElement == null ? 0 : vertexElement.count;
+		builder.ensureVertices(vBase + nv);
+		double[] values = new double[16];
+		double[] attribute = new double[16];
+		int[] face = new int[16];
+		for (PlyElement e : elements) {
+			e.group();
+			boolean isVertex = e == vertexElement;
+			boolean isFace = e.name.equals("face");
+			int numProperties = e.properties.size();
+			values = grow(values, numProperties);
+			for (int i = 0; i < e.count; i++) {
+				int n = -1;
+				for (int p = 0; p < numProperties; p++) {
+					PlyProperty property = e.properties.get(p);
+					if (property.countType < 0) {
+						values[p] = readPlyScalar(in, property.type, ascii);
+						continue;
+					}
+					int count = readPlyInt(in, property.countType, ascii);
+					if (count < 0) {
+						throw new IOException("Negative list length in element " + e.name);
+					}
+					boolean indices = isFace && n < 0 && (property.name.equals("vertex_indices") || property.name.equals("vertex_index"));
+					if (indices) {
+						face = grow(face, count);
+						n = count;
+					}
+					for (int j = 0; j < count; j++) {
+						if (indices) {
+							int v = readPlyInt(in, property.type, ascii);
+							if (v < 0 || v >= nv) {
+								throw new IOException("Vertex index " + v + " out of range in face " + i);
+							}
+							face[j] = vBase + v;
+						} else {
+							readPlyScalar(in, property.type, ascii);
+						}
+					}
+				}
+				int index = -1;
+				if (isVertex) {
+					index = vBase + i;
+				} else if (isFace && n >= 0) {
+					index = addFace(builder, face, n, in);
+				}
+				if (consumer == null || index < 0) {
+					continue;
+				}
+				for (int g = 0; g < e.groups.size(); g++) {
+					int[] members = e.groups.get(g);
+					for (int k = 0; k < members.length; k++) {
+						attribute[k] = values[members[k]];
+					}
+					consumer.attribute(isVertex ? Kind.VERTEX : Kind.FACE, e.groupNames.get(g), index, attribute, members.length);
+				}
+			}
+		}
+	}
+	
+	private static void checkPositions(HalfEdgeDataStructure<?,?,?> hds, double[] positions) throws IllegalArgumentException {
+		if (positions.length != 3 * hds.numVertices()) {
+			throw new IllegalArgumentException("Expected " + 3 * hds.numVertices() + " coordinates, got " + positions.length);
+		}
+		Connectivity.cleanIndices(hds);
+		for (Face<?,?,?> f : hds.getFaces()) {
+			if (f.getBoundaryEdge() == null) {
+				throw new IllegalArgumentException(f + " has no boundary edge");
+			}
+		}
+	}
+	
+	private static void putVertex(ChannelWriter w, double[] positions, int v) throws IOException {
+		w.putDecimal(positions[3 * v]);
+		w.putByte(' ');
+		w.putDecimal(positions[3 * v + 1]);
+		w.putByte(' ');
+		w.putDecimal(positions[3 * v + 2]);
+		w.putByte('\n');
+	}
+	
+	private static int degree(Face<?,?,?> f) {
+		Edge<?,?,?> e0 = f.getBoundaryEdge(), e = e0;
+		int n = 0;
+		do {
+			n++;
+			e = e.getNextEdge();
+		} while (e != e0);
+		return n;
+	}
+	
+	/**
+	 * Write the faces as lists of vertex indices with the given offset. 
+	 */
+	private static void putFaces(ChannelWriter w, HalfEdgeDataStructure<?,?,?> hds, String prefix, boolean writeDegree, int offset) throws IOException {
+		for (Face<?,?,?> f : hds.getFaces()) {
+			w.putAscii(prefix);
+			if (writeDegree) {
+				w.putDecimal(degree(f));
+			}
+			Edge<?,?,?> e0 = f.getBoundaryEdge(), e = e0;
+			do {
+				w.putByte(' ');
+				w.putDecimal(e.getTargetVertex().getIndex() + offset);
+				e = e.getNextEdge();
+			} while (e != e0);
+			w.putByte('\n');
+		}
+	}
+	
+	/**
+	 * Write vertex positions and faces in Wavefront OBJ format.
+	 * @param hds the half-edge data structure, every face must have a boundary edge
+	 * @param positions three coordinates per vertex
+	 * @param channel the output, it is not closed
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if the number of coordinates does not match or a face has no boundary edge
+	 */
+	public static void writeObj(HalfEdgeDataStructure<?,?,?> hds, double[] positions, WritableByteChannel channel) throws IOException, IllegalArgumentException {
+		checkPositions(hds, positions);
+		ChannelWriter w = new ChannelWriter(channel);
+		for (int v = 0; v < hds.numVertices(); v++) {
+			w.putAscii("v ");
+			putVertex(w, positions, v);
+		}
+		putFaces(w, hds, "f", false, 1);
+		w.flush();
+	}
+	
+	/**
+	 * Write vertex positions and faces in OFF format.
+	 * @see #writeObj(HalfEdgeDataStructure, double[], WritableByteChannel)
+	 */
+	public static void writeOff(HalfEdgeDataStructure<?,?,?> hds, double[] positions, WritableByteChannel channel) throws IOException, IllegalArgumentException {
+		checkPositions(hds, positions);
+		ChannelWriter w = new ChannelWriter(channel);
+		w.putAscii("OFF\n");
+		w.putDecimal(hds.numVertices());
+		w.putByte(' ');
+		w.putDecimal(hds.numFaces());
+		w.putByte(' ');
+		w.putDecimal(hds.numEdges() / 2);
+		w.putByte('\n');
+		for (int v = 0; v < hds.numVertices(); v++) {
+			putVertex(w, positions, v);
+		}
+		putFaces(w, hds, "", true, 0);
+		w.flush();
+	}
+	
+	/**
+	 * Write vertex positions as doubles and faces in PLY format. Face degrees are 
+	 * stored as uchar if no face has more than 255 vertices.
+	 * @param binary write binary little-endian if true, ASCII otherwise
+	 * @see #writeObj(HalfEdgeDataStructure, double[], WritableByteChannel)
+	 */
+	public static void writePly(HalfEdgeDataStructure<?,?,?> hds, double[] positions, WritableByteChannel channel, boolean binary) throws IOException, IllegalArgumentException {
+		checkPositions(hds, positions);
+		int maxDegree = 0;
+		for (Face<?,?,?> f : hds.getFaces()) {
+			maxDegree = Math.max(maxDegree, degree(f));
+		}
+		boolean byteDegree = maxDegree <= 255;
+		ChannelWriter w = new ChannelWriter(channel);
+		w.putAscii("ply\nformat ");
+		w.putAscii(binary ? "binary_little_endian" : "ascii");
+		w.putAscii(" 1.0\nelement vertex ");
+		w.putDecimal(hds.numVertices());
+		w.putAscii("\nproperty double x\nproperty double y\nproperty double z\nelement face ");
+		w.putDecimal(hds.numFaces());
+		w.putAscii(byteDegree ? "\nproperty list uchar int vertex_indices\n" : "\nproperty list int int vertex_indices\n");
+		w.putAscii("end_header\n");
+		if (!binary) {
+			for (int v = 0; v < hds.numVertices(); v++) {
+				putVertex(w, positions, v);
+			}
+			putFaces(w, hds, "", true, 0);
+			w.flush();
+			return;
+		}
+		for (double d : positions) {
+			w.putDouble(d);
+		}
+		for (Face<?,?,?> f : hds.getFaces()) {
+			int n = degree(f);
+			if (byteDegree) {
+				w.putByte(n);
+			} else {
+				w.putInt(n);
+			}
+			Edge<?,?,?> e0 = f.getBoundaryEdge(), e = e0;
+			do {
+				w.putInt(e.getTargetVertex().getIndex());
+				e = e.getNextEdge();
+			} while (e != e0);
+		}
+		w.flush();
+	}
+	
+}
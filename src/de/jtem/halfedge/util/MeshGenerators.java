@@ -0,0 +1,595 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.Random;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.EventHook;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Generators for surfaces of arbitrary size. In contrast to the fixed solids of 
+ * {@link HalfEdgeUtils} the surfaces are appended to the half-edge data structure 
+ * in one step with {@link HalfEdgeDataStructure#appendCombinatoriallyEquivalentCopy(HalfEdgeView, int[], int[])}, 
+ * so the cost is linear in the number of edges. Grids and tori are described by closed 
+ * formulas and need no memory besides the nodes.
+ * <p>
+ * All generators append to the given half-edge data structure and return it.
+ */
+public final class MeshGenerators {
+
+	private MeshGenerators() {
+	}
+	
+	/**
+	 * Append a disk made of n by m quads. Vertex (i, j), 0 &lt;= i &lt;= n, 0 &lt;= j &lt;= m, 
+	 * gets index i(m + 1) + j, quad (i, j) with the corners (i, j), (i, j + 1), (i + 1, j + 1), 
+	 * (i + 1, j) gets index im + j. The boundary edges follow after the 4nm edges of the quads. 
+	 * @param dst the half-edge data structure to append to
+	 * @param n the number of rows
+	 * @param m the number of columns
+	 * @return dst
+	 * @throws IllegalArgumentException if n or m is smaller than 1
+	 */
+	public static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS grid(HEDS dst, int n, int m) throws IllegalArgumentException {
+		if (n < 1 || m < 1) {
+			throw new IllegalArgumentException("A grid needs at least one row and column, got " + n + " x " + m);
+		}
+		return append(dst, new QuadView(n, m, false), "grid");
+	}
+	
+	/**
+	 * Append a torus made of n by m quads. Vertex (i, j) gets index im + j, quad (i, j) 
+	 * with the corners (i, j), (i, j + 1), (i + 1, j + 1), (i + 1, j) taken modulo (n, m) 
+	 * gets index im + j.
+	 * @param dst the half-edge data structure to append to
+	 * @param n the number of rows
+	 * @param m the number of columns
+	 * @return dst
+	 * @throws IllegalArgumentException if n or m is smaller than 3
+	 */
+	public static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS torus(HEDS dst, int n, int m) throws IllegalArgumentException {
+		if (n < 3 || m < 3) {
+			throw new IllegalArgumentException("A torus needs at least three rows and columns, got " + n + " x " + m);
+		}
+		return append(dst, new QuadView(n, m, true), "torus");
+	}
+	
+	/**
+	 * Append a closed surface of genus g made of quads. The surface is the double of 
+	 * an n by m grid with g square holes in its middle row: the second copy has the 
+	 * opposite orientation and shares the boundary vertices with the first. 
+	 * @param dst the half-edge data structure to append to
+	 * @param g the genus
+	 * @param n the number of rows of the grid
+	 * @param m the number of columns of the grid
+	 * @return dst
+	 * @throws IllegalArgumentException if g is negative, n &lt; 5, or m &lt; 3g + 2
+	 */
+	public static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS genusSurface(HEDS dst, int g, int n, int m) throws IllegalArgumentException {
+		if (g < 0 || n < 5 || m < Math.max(3 * g + 2, 1)) {
+			throw new IllegalArgumentException("Cannot fit " + g + " holes into a " + n + " x " + m + " grid, need at least 5 x (3g + 2)");
+		}
+		EventHook.Operation event = EventHook.beginOperation("MeshGenerators.genusSurface");
+		String outcome = EventHook.FAILED;
+		try {
+			// holes are the quads (r, 2 + 3k), they have disjoint corners and no edges to the outer boundary 
+			int r = n / 2;
+			int nv = (n + 1) * (m + 1);
+			boolean[] hole = new boolean[n * m];
+			for (int k = 0; k < g; k++) {
+				hole[r * m + 2 + 3 * k] = true;
+			}
+			// the second copy shares the vertices on the outer boundary and the hole boundaries
+			int[] mirror = new int[nv];
+			for (int i = 0; i <= n; i++) {
+				for (int j = 0; j <= m; j++) {
+					mirror[i * (m + 1) + j] = i == 0 || i == n || j == 0 || j == m ? -1 : 0;
+				}
+			}
+			for (int q = 0; q < hole.length; q++) {
+				if (hole[q]) {
+					int v = q / m * (m + 1) + q % m;
+					mirror[v] = mirror[v + 1] = mirror[v + m + 1] = mirror[v + m + 2] = -1;
+				}
+			}
+			int numVertices = nv;
+			for (int v = 0; v < nv; v++) {
+				mirror[v] = mirror[v] < 0 ? v : numVertices++;
+			}
+			FaceListBuilder b = new FaceListBuilder();
+			b.ensureVertices(numVertices);
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < m; j++) {
+					if (!hole[i * m + j]) {
+						int v = i * (m + 1) + j;
+						b.addFace(v, v + 1, v + m + 2, v + m + 1);
+					}
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < m; j++) {
+					if (!hole[i * m + j]) {
+						int v = i * (m + 1) + j;
+						b.addFace(mirror[v], mirror[v + m + 1], mirror[v + m + 2], mirror[v + 1]);
+					}
+				}
+			}
+			b.build(dst);
+			outcome = EventHook.OK;
+			return dst;
+		} finally {
+			event.end(dst, outcome, g);
+		}
+	}
+	
+	/**
+	 * Append a geodesic sphere: the icosahedron refined by the given number of 
+	 * {@linkplain Subdivision#loop(HalfEdgeDataStructure, HalfEdgeDataStructure) Loop subdivisions}. 
+	 * The result has 10 * 4<sup>levels</sup> + 2 vertices and 20 * 4<sup>levels</sup> triangles. 
+	 * Only the combinatorics is created, vertex positions can be computed with 
+	 * {@link Subdivision#loop(HalfEdgeDataStructure, double[], int)} and a projection to the sphere.
+	 * @param dst the half-edge data structure to append to
+	 * @param levels the number of subdivision steps
+	 * @return dst
+	 * @throws IllegalArgumentException if levels is negative
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>,
+		HEDS extends HalfEdgeDataStructure<V,E,F>
+	> HEDS geodesicSphere(HEDS dst, int levels) throws IllegalArgumentException {
+		if (levels < 0) {
+			throw new IllegalArgumentException("Negative number of subdivision levels " + levels);
+		}
+		EventHook.Operation event = EventHook.beginOperation("MeshGenerators.geodesicSphere");
+		String outcome = EventHook.FAILED;
+		try {
+			HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> s = create();
+			HalfEdgeUtils.addIcosahedron(s);
+			for (int l = 0; l < levels - 1; l++) {
+				s = Subdivision.loop(s, create());
+			}
+			if (levels > 0 && dst.numVertices() + dst.numEdges() + dst.numFaces() == 0) {
+				// the last step writes directly into dst
+				Subdivision.loop(s, dst);
+			} else {
+				if (levels > 0) {
+					s = Subdivision.loop(s, create());
+				}
+				dst.appendCombinatoriallyEquivalentCopy(HalfEdgeViews.of(s));
+			}
+			outcome = EventHook.OK;
+			return dst;
+		} finally {
+			event.end(dst, outcome, levels);
+		}
+	}
+	
+	/**
+	 * Append a random triangulation of the sphere with the given number of vertices. 
+	 * Starting from a tetrahedron, random faces are split at a new vertex until all vertices 
+	 * are inserted. After each split the edges of the split face are flipped if this lowers 
+	 * the degrees of their vertices, which keeps the vertex degrees small. Finally as many random 
+	 * edges as there are vertices are flipped, skipping the flips that would create a double edge. 
+	 * The result has 2V - 4 faces and 6V - 12 edges and depends only on the number of vertices 
+	 * and the seed.
+	 * @param dst the half-edge data structure to append to
+	 * @param numVertices the number of vertices V
+	 * @param seed the seed of the random number generator
+	 * @return dst
+	 * @throws IllegalArgumentException if numVertices is smaller than 4
+	 */
+	public static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS randomTriangulation(HEDS dst, int numVertices, long seed) throws IllegalArgumentException {
+		if (numVertices < 4) {
+			throw new IllegalArgumentException("A triangulation of the sphere needs at least 4 vertices, got " + numVertices);
+		}
+		EventHook.Operation event = EventHook.beginOperation("MeshGenerators.randomTriangulation");
+		String outcome = EventHook.FAILED;
+		try {
+			RandomTriangulation t = new RandomTriangulation(numVertices, new Random(seed));
+			dst.appendCombinatoriallyEquivalentCopy(t, t.vertexEdge, t.faceEdge);
+			outcome = EventHook.OK;
+			return dst;
+		} finally {
+			event.end(dst, outcome, seed);
+		}
+	}
+	
+	private static HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked> create() {
+		return new HalfEdgeDataStructure<Vertex.Naked, Edge.Naked, Face.Naked>(Vertex.Naked.class, Edge.Naked.class, Face.Naked.class);
+	}
+	
+	private static <HEDS extends HalfEdgeDataStructure<?,?,?>> HEDS append(HEDS dst, HalfEdgeView view, String name) {
+		EventHook.Operation event = EventHook.beginOperation("MeshGenerators." + name);
+		String outcome = EventHook.FAILED;
+		try {
+			dst.appendCombinatoriallyEquivalentCopy(view);
+			outcome = EventHook.OK;
+			return dst;
+		} finally {
+			event.end(dst, outcome, 0);
+		}
+	}
+	
+	
+	/**
+	 * Grid or torus of quads. The edge 4q + k of quad q = im + j ends at corner k + 1 
+	 * of the quad, the corners are (i, j), (i, j + 1), (i + 1, j + 1), (i + 1, j).
+	 * The boundary edges of the grid are numbered backwards along the boundary: the 
+	 * boundary edge 4nm + t is opposite to the t-th quad edge on the boundary in 
+	 * counterclockwise order and ends at its start vertex.
+	 */
+	private static final class QuadView implements HalfEdgeView {
+		
+		private final int
+			n,
+			m,
+			numCorners,
+			numBoundary;
+		private final boolean
+			periodic;
+		
+		QuadView(int n, int m, boolean periodic) {
+			this.n = n;
+			this.m = m;
+			this.periodic = periodic;
+			this.numCorners = 4 * n * m;
+			this.numBoundary = periodic ? 0 : 2 * (n + m);
+		}
+		
+		@Override
+		public int numVertices() {
+			return periodic ? n * m : (n + 1) * (m + 1);
+		}
+		
+		@Override
+		public int numEdges() {
+			return numCorners + numBoundary;
+		}
+		
+		@Override
+		public int numFaces() {
+			return n * m;
+		}
+		
+		private int vertex(int i, int j) {
+			if (periodic) {
+				return i % n * m + j % m;
+			}
+			return i * (m + 1) + j;
+		}
+		
+		private int edge(int i, int j, int k) {
+			return 4 * (i * m + j) + k;
+		}
+		
+		/**
+		 * @return the quad edge on the boundary with boundary number t
+		 */
+		private int boundaryCorner(int t) {
+			if (t < m) {
+				return edge(0, t, 0);
+			}
+			t -= m;
+			if (t < n) {
+				return edge(t, m - 1, 1);
+			}
+			t -= n;
+			if (t < m) {
+				return edge(n - 1, m - 1 - t, 2);
+			}
+			t -= m;
+			return edge(n - 1 - t, 0, 3);
+		}
+		
+		@Override
+		public int getNextEdge(int e) {
+			if (e < numCorners) {
+				return e - e % 4 + (e + 1) % 4;
+			}
+			int t = e - numCorners;
+			return numCorners + (t + numBoundary - 1) % numBoundary;
+		}
+		
+		@Override
+		public int getPreviousEdge(int e) {
+			if (e < numCorners) {
+				return e - e % 4 + (e + 3) % 4;
+			}
+			int t = e - numCorners;
+			return numCorners + (t + 1) % numBoundary;
+		}
+		
+		@Override
+		public int getOppositeEdge(int e) {
+			if (e >= numCorners) {
+				return boundaryCorner(e - numCorners);
+			}
+			int q = e / 4, i = q / m, j = q % m;
+			switch (e % 4) {
+			case 0:
+				if (i > 0) return edge(i - 1, j, 2);
+				if (periodic) return edge(n - 1, j, 2);
+				return numCorners + j;
+			case 1:
+				if (j < m - 1) return edge(i, j + 1, 3);
+				if (periodic) return edge(i, 0, 3);
+				return numCorners + m + i;
+			case 2:
+				if (i < n - 1) return edge(i + 1, j, 0);
+				if (periodic) return edge(0, j, 0);
+				return numCorners + 2 * m + n - 1 - j;
+			default:
+				if (j > 0) return edge(i, j - 1, 1);
+				if (periodic) return edge(i, m - 1, 1);
+				return numCorners + 2 * m + 2 * n - 1 - i;
+			}
+		}
+		
+		@Override
+		public int getTargetVertex(int e) {
+			if (e >= numCorners) {
+				return getTargetVertex(getPreviousEdge(boundaryCorner(e - numCorners)));
+			}
+			int q = e / 4, i = q / m, j = q % m;
+			switch (e % 4) {
+			case 0:
+				return vertex(i, j + 1);
+			case 1:
+				return vertex(i + 1, j + 1);
+			case 2:
+				return vertex(i + 1, j);
+			default:
+				return vertex(i, j);
+			}
+		}
+		
+		@Override
+		public int getLeftFace(int e) {
+			return e < numCorners ? e / 4 : -1;
+		}
+		
+		@Override
+		public boolean isPositive(int e) {
+			return e > getOppositeEdge(e);
+		}
+		
+	}
+	
+	
+	/**
+	 * Random triangulation of the sphere in flat arrays, see 
+	 * {@link MeshGenerators#randomTriangulation(HalfEdgeDataStructure, int, long)}.
+	 */
+	private static final class RandomTriangulation implements HalfEdgeView {
+		
+		private final int[]
+			next,
+			opposite,
+			target,
+			face,
+			degree,
+			vertexEdge,
+			faceEdge;
+		private int
+			numVertices = 0,
+			numEdges = 0,
+			numFaces = 0;
+		
+		RandomTriangulation(int nv, Random rnd) {
+			int ne = 6 * nv - 12, nf = 2 * nv - 4;
+			next = new int[ne];
+			opposite = new int[ne];
+			target = new int[ne];
+			face = new int[ne];
+			degree = new int[nv];
+			vertexEdge = new int[nv];
+			faceEdge = new int[nf];
+			// tetrahedron
+			numVertices = 4;
+			triangle(0, 2, 1);
+			triangle(0, 1, 3);
+			triangle(0, 3, 2);
+			triangle(1, 2, 3);
+			for (int e = 0; e < 12; e++) {
+				int a = target[next[next[e]]], b = target[e];
+				for (int o = 0; o < 12; o++) {
+					if (target[o] == a && target[next[next[o]]] == b) {
+						opposite[e] = o;
+					}
+				}
+			}
+			while (numVertices < nv) {
+				int e0 = faceEdge[rnd.nextInt(numFaces)], e1 = next[e0], e2 = next[e1];
+				split(e0);
+				balance(e0);
+				balance(e1);
+				balance(e2);
+			}
+			for (int i = 0; i < nv; i++) {
+				flip(rnd.nextInt(ne));
+			}
+		}
+		
+		private void triangle(int a, int b, int c) {
+			int e = numEdges, f = numFaces++;
+			numEdges += 3;
+			link(e, e + 1, e + 2, f);
+			target[e] = b;
+			target[e + 1] = c;
+			target[e + 2] = a;
+			vertexEdge[a] = e + 2;
+			vertexEdge[b] = e;
+			vertexEdge[c] = e + 1;
+			degree[a]++;
+			degree[b]++;
+			degree[c]++;
+		}
+		
+		private void link(int e0, int e1, int e2, int f) {
+			next[e0] = e1;
+			next[e1] = e2;
+			next[e2] = e0;
+			face[e0] = face[e1] = face[e2] = f;
+			faceEdge[f] = e0;
+		}
+		
+		/**
+		 * Split the face of e0 into three triangles at a new vertex.
+		 */
+		private void split(int e0) {
+			int f = face[e0], e1 = next[e0], e2 = next[e1];
+			int t0 = target[e0], t1 = target[e1], t2 = target[e2];
+			int x = numVertices++;
+			int a = numEdges, b = numEdges + 3;
+			numEdges += 6;
+			int f1 = numFaces++, f2 = numFaces++;
+			link(e0, a, b, f);
+			link(e1, a + 1, b + 1, f1);
+			link(e2, a + 2, b + 2, f2);
+			target[a] = target[a + 1] = target[a + 2] = x;
+			target[b] = t2;
+			target[b + 1] = t0;
+			target[b + 2] = t1;
+			opposite[a] = b + 1;
+			opposite[b + 1] = a;
+			opposite[a + 1] = b + 2;
+			opposite[b + 2] = a + 1;
+			opposite[a + 2] = b;
+			opposite[b] = a + 2;
+			vertexEdge[x] = a;
+			degree[t0]++;
+			degree[t1]++;
+			degree[t2]++;
+			degree[x] = 3;
+		}
+		
+		/**
+		 * Flip edge e if this lowers the degrees of its vertices.
+		 */
+		private void balance(int e) {
+			int o = opposite[e];
+			int a = target[o], b = target[e];
+			int c = target[next[e]], d = target[next[o]];
+			if (degree[a] + degree[b] > degree[c] + degree[d] + 2) {
+				flip(e);
+			}
+		}
+		
+		/**
+		 * Flip edge e unless the new edge already exists.
+		 */
+		private void flip(int e) {
+			int o = opposite[e];
+			int n1 = next[e], n2 = next[n1];
+			int m1 = next[o], m2 = next[m1];
+			int a = target[o], b = target[e];
+			int c = target[n1], d = target[m1];
+			// look for an edge from d to c
+			int h = vertexEdge[c];
+			do {
+				if (target[next[next[h]]] == d) {
+					return;
+				}
+				h = opposite[next[h]];
+			} while (h != vertexEdge[c]);
+			int fe = face[e], fo = face[o];
+			link(n2, m1, e, fe);
+			link(m2, n1, o, fo);
+			target[e] = c;
+			target[o] = d;
+			if (vertexEdge[b] == e) {
+				vertexEdge[b] = m2;
+			}
+			if (vertexEdge[a] == o) {
+				vertexEdge[a] = n2;
+			}
+			degree[a]--;
+			degree[b]--;
+			degree[c]++;
+			degree[d]++;
+		}
+		
+		@Override
+		public int numVertices() {
+			return numVertices;
+		}
+		
+		@Override
+		public int numEdges() {
+			return numEdges;
+		}
+		
+		@Override
+		public int numFaces() {
+			return numFaces;
+		}
+		
+		@Override
+		public int getNextEdge(int e) {
+			return next[e];
+		}
+		
+		@Override
+		public int getPreviousEdge(int e) {
+			return next[next[e]];
+		}
+		
+		@Override
+		public int getOppositeEdge(int e) {
+			return opposite[e];
+		}
+		
+		@Override
+		public int getTargetVertex(int e) {
+			return target[e];
+		}
+		
+		@Override
+		public int getLeftFace(int e) {
+			return face[e];
+		}
+		
+		@Override
+		public boolean isPositive(int e) {
+			return e > opposite[e];
+		}
+		
+	}
+	
+}
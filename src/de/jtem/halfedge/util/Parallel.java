@@ -0,0 +1,173 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Minimal chunked parallel loop used by the bulk algorithms of this package.
+ * <p>
+ * Index ranges below {@link #MIN_CHUNK} elements, single processor machines,
+ * and calls made from inside a worker thread are executed sequentially in 
+ * the calling thread.
+ */
+final class Parallel {
+
+	/**
+	 * The smallest range that is split into parallel chunks.
+	 */
+	static final int 
+		MIN_CHUNK = 1 << 14;
+	
+	private static final int 
+		THREADS = Runtime.getRuntime().availableProcessors();
+	
+	private static ExecutorService
+		executor = null;
+	
+	// Don't instatiate.
+	private Parallel() {}
+	
+	/**
+	 * A loop body operating on the index range [from, to).
+	 */
+	static interface Range {
+		void run(int from, int to);
+	}
+	
+	private static final class Worker extends Thread {
+		Worker(Runnable r) {
+			super(r, "halfedge-worker");
+			setDaemon(true);
+		}
+	}
+	
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					return new Worker(r);
+				}
+			});
+		}
+		return executor;
+	}
+	
+	/**
+	 * Return the number of chunks {@link #forRange(int, Range)} will use for a range of size n.
+	 * @param n the size of the range
+	 * @return the number of chunks, at least 1
+	 */
+	static int numChunks(int n) {
+		if (THREADS == 1 || n < 2 * MIN_CHUNK || Thread.currentThread() instanceof Worker) {
+			return 1;
+		}
+		return Math.min(4 * THREADS, n / MIN_CHUNK);
+	}
+	
+	/**
+	 * Run body on the range [0, n), possibly split into chunks that are processed 
+	 * in parallel. Returns when all chunks are done. 
+	 * @param n the size of the range
+	 * @param body the loop body
+	 * @throws RuntimeException if the body throws in any of the chunks
+	 */
+	static void forRange(int n, final Range body) throws RuntimeException {
+		run(n, numChunks(n), body);
+	}
+	
+	/**
+	 * Return the number of tasks {@link #forEach(int, Range)} runs concurrently.
+	 * @return the number of processors, or 1 when called from inside a worker thread
+	 */
+	static int parallelism() {
+		return Thread.currentThread() instanceof Worker ? 1 : THREADS;
+	}
+	
+	/**
+	 * Run body on the range [0, n) for a small number of expensive iterations. Unlike 
+	 * {@link #forRange(int, Range)} the range is split into up to {@link #parallelism()} 
+	 * chunks regardless of its size. Returns when all chunks are done.
+	 * @param n the size of the range
+	 * @param body the loop body
+	 * @throws RuntimeException if the body throws in any of the chunks
+	 */
+	static void forEach(int n, final Range body) throws RuntimeException {
+		run(n, Math.max(1, Math.min(n, parallelism())), body);
+	}
+	
+	private static void run(int n, int chunks, final Range body) throws RuntimeException {
+		if (chunks == 1) {
+			body.run(0, n);
+			return;
+		}
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			final int from = (int)((long)n * i / chunks);
+			final int to = (int)((long)n * (i + 1) / chunks);
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					body.run(from, to);
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Object> f : getExecutor().invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e.getMessage(), e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause.getMessage(), cause);
+		}
+	}
+	
+}
@@ -0,0 +1,373 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * A partition of the faces of a half-edge data structure into balanced patches, each 
+ * copied into its own half-edge data structure together with a one-ring halo.
+ * <p>
+ * The faces are ordered by breadth-first search over the face adjacency, one connected 
+ * component after the other, and the order is cut into k slices of equal size. Thus patches 
+ * are grown from seeds and have sizes that differ by at most one face. 
+ * <p>
+ * Every face belongs to exactly one patch. A vertex belongs to the patch with the smallest 
+ * index among its incident faces, an edge to the patch of its left face, or of its right face 
+ * if it has no left face. The halo of a patch consists of all other faces that share a vertex 
+ * with a face of the patch. Halo nodes are copies of nodes that belong to other patches.
+ * <p>
+ * The patches are independent half-edge data structures, so they can be processed on separate 
+ * threads. {@link #merge()} writes the data of the nodes that belong to each patch back to the 
+ * parent. The combinatorics of the patches must not be changed before merging.
+ */
+public final class Partition <
+	V extends Vertex<V,E,F>,
+	E extends Edge<V,E,F>,
+	F extends Face<V,E,F>
+> {
+
+	private final HalfEdgeDataStructure<V,E,F>
+		hds;
+	private final int[]
+		facePatches,
+		vertexPatches,
+		edgePatches;
+	private final List<HalfEdgeDataStructure<V,E,F>>
+		patches;
+	private final List<Submesh>
+		maps;
+	private final List<long[][]>
+		inverseMaps;
+	private final List<long[]>
+		patchModificationCounts;
+	private final long[]
+		modificationCounts;
+	
+	private Partition(HalfEdgeDataStructure<V,E,F> hds, int numPatches, int[] facePatches, int[] vertexPatches, int[] edgePatches) {
+		this.hds = hds;
+		this.facePatches = facePatches;
+		this.vertexPatches = vertexPatches;
+		this.edgePatches = edgePatches;
+		this.patches = new ArrayList<HalfEdgeDataStructure<V,E,F>>(numPatches);
+		this.maps = new ArrayList<Submesh>(numPatches);
+		this.inverseMaps = new ArrayList<long[][]>(numPatches);
+		this.patchModificationCounts = new ArrayList<long[]>(numPatches);
+		this.modificationCounts = modificationCounts(hds);
+	}
+	
+	private static long[] modificationCounts(HalfEdgeDataStructure<?,?,?> hds) {
+		return new long[] {
+			hds.getVertexModificationCount(), 
+			hds.getEdgeModificationCount(), 
+			hds.getFaceModificationCount()
+		};
+	}
+	
+	/**
+	 * Partition the faces of hds into k patches and create the patches. {@code copyData} 
+	 * is called for every node of every patch, including the halo nodes.
+	 * @param hds the half-edge data structure
+	 * @param k the number of patches, at least 1
+	 * @return the partition
+	 * @throws IllegalArgumentException if k &lt; 1 or hds has fewer than k faces
+	 */
+	public static <
+		V extends Vertex<V,E,F>,
+		E extends Edge<V,E,F>,
+		F extends Face<V,E,F>
+	> Partition<V,E,F> create(HalfEdgeDataStructure<V,E,F> hds, int k) throws IllegalArgumentException {
+		int nf = hds.numFaces();
+		if (k < 1 || nf < k) {
+			throw new IllegalArgumentException("Cannot partition " + nf + " faces into " + k + " patches.");
+		}
+		Connectivity c = new Connectivity(hds);
+		int[] faceAnchor = new int[nf];
+		for (int e = 0; e < c.numEdges; e++) {
+			if (c.face[e] >= 0) {
+				faceAnchor[c.face[e]] = e;
+			}
+		}
+		// breadth-first order of the faces
+		int[] order = new int[nf];
+		boolean[] visited = new boolean[nf];
+		int tail = 0;
+		for (int seed = 0; seed < nf; seed++) {
+			if (visited[seed]) {
+				continue;
+			}
+			visited[seed] = true;
+			order[tail++] = seed;
+			for (int head = tail - 1; head < tail; head++) {
+				int e0 = faceAnchor[order[head]];
+				int e = e0;
+				do {
+					int g = c.opposite[e] < 0 ? -1 : c.face[c.opposite[e]];
+					if (g >= 0 && !visited[g]) {
+						visited[g] = true;
+						order[tail++] = g;
+					}
+					e = c.next[e];
+				} while (e != e0 && e >= 0);
+			}
+		}
+		int[] facePatches = new int[nf];
+		for (int i = 0; i < nf; i++) {
+			facePatches[order[i]] = (int)((long)i * k / nf);
+		}
+		int[] vertexPatches = new int[c.numVertices];
+		Arrays.fill(vertexPatches, -1);
+		int[] edgePatches = new int[c.numEdges];
+		for (int e = 0; e < c.numEdges; e++) {
+			int f = c.face[e];
+			if (f < 0 && c.opposite[e] >= 0) {
+				f = c.face[c.opposite[e]];
+			}
+			edgePatches[e] = f < 0 ? -1 : facePatches[f];
+			if (c.face[e] >= 0 && c.target[e] >= 0) {
+				int v = c.target[e];
+				int p = facePatches[c.face[e]];
+				if (vertexPatches[v] < 0 || p < vertexPatches[v]) {
+					vertexPatches[v] = p;
+				}
+			}
+		}
+		Partition<V,E,F> partition = new Partition<V,E,F>(hds, k, facePatches, vertexPatches, edgePatches);
+		// faces of each patch, in breadth-first order
+		List<List<F>> selections = new ArrayList<List<F>>(k);
+		for (int p = 0; p < k; p++) {
+			selections.add(new ArrayList<F>());
+		}
+		for (int i = 0; i < nf; i++) {
+			selections.get(facePatches[order[i]]).add(hds.getFace(order[i]));
+		}
+		int[] stamp = new int[nf];
+		Arrays.fill(stamp, -1);
+		for (int p = 0; p < k; p++) {
+			List<F> selection = selections.get(p);
+			int size = selection.size();
+			for (int i = 0; i < size; i++) {
+				int e0 = faceAnchor[selection.get(i).getIndex()];
+				int e = e0;
+				do {
+					// the faces around the target vertex of e
+					int x = e;
+					do {
+						int g = c.face[x];
+						if (g >= 0 && facePatches[g] != p && stamp[g] != p) {
+							stamp[g] = p;
+							selection.add(hds.getFace(g));
+						}
+						x = c.next[x] < 0 ? -1 : c.opposite[c.next[x]];
+					} while (x != e && x >= 0);
+					e = c.next[e];
+				} while (e != e0 && e >= 0);
+			}
+			partition.addPatch(selection);
+		}
+		return partition;
+	}
+	
+	private void addPatch(List<F> selection) {
+		HalfEdgeDataStructure<V,E,F> patch = new HalfEdgeDataStructure<V,E,F>(hds.getVertexClass(), hds.getEdgeClass(), hds.getFaceClass());
+		Submesh map = HalfEdgeUtils.extractSubmesh(hds, selection, patch);
+		for (V v : patch.getVertices()) {
+			v.copyData(hds.getVertex(map.getVertexMap()[v.getIndex()]));
+		}
+		for (E e : patch.getEdges()) {
+			e.copyData(hds.getEdge(map.getEdgeMap()[e.getIndex()]));
+		}
+		for (F f : patch.getFaces()) {
+			f.copyData(hds.getFace(map.getFaceMap()[f.getIndex()]));
+		}
+		patches.add(patch);
+		maps.add(map);
+		inverseMaps.add(new long[][] {
+			invert(map.getVertexMap()), 
+			invert(map.getEdgeMap()), 
+			invert(map.getFaceMap())
+		});
+		patchModificationCounts.add(modificationCounts(patch));
+	}
+	
+	/**
+	 * Sorted pairs (global index, local index), packed into longs.
+	 */
+	private static long[] invert(int[] map) {
+		long[] pairs = new long[map.length];
+		for (int i = 0; i < map.length; i++) {
+			pairs[i] = ((long)map[i] << 32) | i;
+		}
+		Arrays.sort(pairs);
+		return pairs;
+	}
+	
+	private static int lookup(long[] pairs, int global) {
+		int i = Arrays.binarySearch(pairs, (long)global << 32);
+		if (i < 0) {
+			i = -i - 1;
+		}
+		if (i < pairs.length && (int)(pairs[i] >>> 32) == global) {
+			return (int)pairs[i];
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return the number of patches
+	 */
+	public int getNumPatches() {
+		return patches.size();
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @return the half-edge data structure of patch p
+	 */
+	public HalfEdgeDataStructure<V,E,F> getPatch(int p) {
+		return patches.get(p);
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @return the maps from the local indices of patch p to the indices of the parent
+	 */
+	public Submesh getLocalToGlobal(int p) {
+		return maps.get(p);
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param global a vertex index of the parent
+	 * @return the index of the vertex in patch p, or -1 if the patch does not contain it
+	 */
+	public int getLocalVertex(int p, int global) {
+		return lookup(inverseMaps.get(p)[0], global);
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param global an edge index of the parent
+	 * @return the index of the edge in patch p, or -1 if the patch does not contain it
+	 */
+	public int getLocalEdge(int p, int global) {
+		return lookup(inverseMaps.get(p)[1], global);
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param global a face index of the parent
+	 * @return the index of the face in patch p, or -1 if the patch does not contain it
+	 */
+	public int getLocalFace(int p, int global) {
+		return lookup(inverseMaps.get(p)[2], global);
+	}
+	
+	/**
+	 * Return the patches of the faces of the parent, indexed by face index. 
+	 * The returned array is not copied and must not be modified.
+	 * @return the patch indices
+	 */
+	public int[] getFacePatches() {
+		return facePatches;
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param local a vertex index of patch p
+	 * @return true if the vertex belongs to another patch
+	 */
+	public boolean isHaloVertex(int p, int local) {
+		return vertexPatches[maps.get(p).getVertexMap()[local]] != p;
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param local an edge index of patch p
+	 * @return true if the edge belongs to another patch
+	 */
+	public boolean isHaloEdge(int p, int local) {
+		return edgePatches[maps.get(p).getEdgeMap()[local]] != p;
+	}
+	
+	/**
+	 * @param p a patch index
+	 * @param local a face index of patch p
+	 * @return true if the face belongs to another patch
+	 */
+	public boolean isHaloFace(int p, int local) {
+		return facePatches[maps.get(p).getFaceMap()[local]] != p;
+	}
+	
+	/**
+	 * Copy the data of the nodes that belong to each patch back to the parent, using 
+	 * {@code copyData}. Halo nodes are skipped, so every node of the parent is written 
+	 * at most once. 
+	 * @throws RuntimeException if the parent or a patch has been modified since the partition was created
+	 */
+	public void merge() throws RuntimeException {
+		if (!Arrays.equals(modificationCounts, modificationCounts(hds))) {
+			throw new RuntimeException(hds + " has been modified after partitioning.");
+		}
+		for (int p = 0; p < patches.size(); p++) {
+			HalfEdgeDataStructure<V,E,F> patch = patches.get(p);
+			Submesh map = maps.get(p);
+			if (!Arrays.equals(patchModificationCounts.get(p), modificationCounts(patch))) {
+				throw new RuntimeException("Patch " + p + " has been modified.");
+			}
+			for (V v : patch.getVertices()) {
+				if (!isHaloVertex(p, v.getIndex())) {
+					hds.getVertex(map.getVertexMap()[v.getIndex()]).copyData(v);
+				}
+			}
+			for (E e : patch.getEdges()) {
+				if (!isHaloEdge(p, e.getIndex())) {
+					hds.getEdge(map.getEdgeMap()[e.getIndex()]).copyData(e);
+				}
+			}
+			for (F f : patch.getFaces()) {
+				if (!isHaloFace(p, f.getIndex())) {
+					hds.getFace(map.getFaceMap()[f.getIndex()]).copyData(f);
+				}
+			}
+		}
+	}
+	
+}
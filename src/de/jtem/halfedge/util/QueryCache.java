@@ -0,0 +1,490 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+
+package de.jtem.halfedge.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * A cache of quantities derived from the combinatorics of one half-edge data structure. 
+ * Values are computed on the first request and kept until the structure is modified, 
+ * as reported by the modification counts of the vertices, edges, and faces. The first 
+ * request after a modification drops all values, so stale values are never returned.
+ * <p>
+ * Values are keyed by their {@link Query}, the common queries are predefined. The total 
+ * estimated size of the values can be bounded, the least recently used values are evicted 
+ * first. Cached values are shared by all callers and must not be modified.
+ * <p>
+ * Typical use:<br>
+ * <br>
+ * {@code QueryCache cache = new QueryCache(hds);}<br>
+ * {@code int genus = cache.get(QueryCache.GENUS);}<br>
+ * {@code int[] valences = cache.get(QueryCache.VALENCES);}<br>
+ */
+public final class QueryCache {
+
+	/**
+	 * A quantity derived from the combinatorics of a half-edge data structure.
+	 * Queries are compared by identity.
+	 * @param <T> the type of the value
+	 */
+	public static interface Query<T> {
+		
+		/**
+		 * Compute the value, hds must not be modified.
+		 * @param hds the half-edge data structure
+		 * @return the value
+		 */
+		T compute(HalfEdgeDataStructure<?,?,?> hds);
+		
+		/**
+		 * Estimate the memory used by a value of this query.
+		 * @param value a value computed by this query
+		 * @return the size in bytes
+		 */
+		long estimateBytes(T value);
+		
+	}
+	
+	/**
+	 * The boundary loops of {@link HalfEdgeUtils#boundaryComponents(HalfEdgeDataStructure)}.
+	 */
+	public static final Query<List<? extends List<? extends Edge<?,?,?>>>>
+		BOUNDARY_LOOPS = new Query<List<? extends List<? extends Edge<?,?,?>>>>() {
+			@Override
+			public List<? extends List<? extends Edge<?,?,?>>> compute(HalfEdgeDataStructure<?,?,?> hds) {
+				return HalfEdgeUtils.boundaryComponents(hds);
+			}
+			@Override
+			public long estimateBytes(List<? extends List<? extends Edge<?,?,?>>> value) {
+				long bytes = listBytes(value.size());
+				for (List<?> loop : value) {
+					bytes += listBytes(loop.size());
+				}
+				return bytes;
+			}
+			@Override
+			public String toString() {
+				return "boundary loops";
+			}
+		};
+	
+	/**
+	 * The genus of {@link HalfEdgeUtils#getGenus(HalfEdgeDataStructure)}.
+	 */
+	public static final Query<Integer>
+		GENUS = new Query<Integer>() {
+			@Override
+			public Integer compute(HalfEdgeDataStructure<?,?,?> hds) {
+				return HalfEdgeUtils.getGenus(hds);
+			}
+			@Override
+			public long estimateBytes(Integer value) {
+				return 16;
+			}
+			@Override
+			public String toString() {
+				return "genus";
+			}
+		};
+	
+	/**
+	 * The number of incoming edges of each vertex, indexed by vertex index.
+	 */
+	public static final Query<int[]>
+		VALENCES = new Query<int[]>() {
+			@Override
+			public int[] compute(HalfEdgeDataStructure<?,?,?> hds) {
+				Connectivity c = new Connectivity(hds);
+				int[] valences = new int[c.numVertices];
+				for (int v : c.target) {
+					if (v >= 0) {
+						valences[v]++;
+					}
+				}
+				return valences;
+			}
+			@Override
+			public long estimateBytes(int[] value) {
+				return intArrayBytes(value.length);
+			}
+			@Override
+			public String toString() {
+				return "valences";
+			}
+		};
+	
+	/**
+	 * The vertex adjacency of {@link Traversal#vertices(HalfEdgeDataStructure)} in compressed 
+	 * sparse row form.
+	 */
+	public static final Query<Adjacency>
+		VERTEX_ADJACENCY = new Query<Adjacency>() {
+			@Override
+			public Adjacency compute(HalfEdgeDataStructure<?,?,?> hds) {
+				Traversal t = Traversal.vertices(hds);
+				return new Adjacency(t.size, t.offsets, t.adjacent);
+			}
+			@Override
+			public long estimateBytes(Adjacency value) {
+				return intArrayBytes(value.offsets.length) + intArrayBytes(value.adjacent.length) + 24;
+			}
+			@Override
+			public String toString() {
+				return "vertex adjacency";
+			}
+		};
+	
+	/**
+	 * The labels of {@link ConnectedComponents#label(HalfEdgeDataStructure)}.
+	 */
+	public static final Query<ConnectedComponents>
+		COMPONENTS = new Query<ConnectedComponents>() {
+			@Override
+			public ConnectedComponents compute(HalfEdgeDataStructure<?,?,?> hds) {
+				return ConnectedComponents.label(hds);
+			}
+			@Override
+			public long estimateBytes(ConnectedComponents value) {
+				return intArrayBytes(value.getVertexLabels().length) 
+					+ intArrayBytes(value.getEdgeLabels().length) 
+					+ intArrayBytes(value.getFaceLabels().length);
+			}
+			@Override
+			public String toString() {
+				return "components";
+			}
+		};
+	
+	/**
+	 * The {@link CanonicalForm}, e.g., as key of caches shared by isomorphic structures.
+	 */
+	public static final Query<CanonicalForm>
+		CANONICAL_FORM = new Query<CanonicalForm>() {
+			@Override
+			public CanonicalForm compute(HalfEdgeDataStructure<?,?,?> hds) {
+				return CanonicalForm.of(hds);
+			}
+			@Override
+			public long estimateBytes(CanonicalForm value) {
+				int nv = value.getVertexLabels().length;
+				int ne = value.getEdgeLabels().length;
+				int nf = value.getFaceLabels().length;
+				// the labels and a code of about four ints per edge
+				return intArrayBytes(nv) + intArrayBytes(ne) + intArrayBytes(nf) + intArrayBytes(4L * ne);
+			}
+			@Override
+			public String toString() {
+				return "canonical form";
+			}
+		};
+	
+	/**
+	 * Immutable adjacency lists in compressed sparse row form. Searches run on traversals 
+	 * created by {@link #traversal()}, which share the lists but have their own search state.
+	 */
+	public static final class Adjacency {
+		
+		private final int
+			size;
+		private final int[]
+			offsets,
+			adjacent;
+		
+		Adjacency(int size, int[] offsets, int[] adjacent) {
+			this.size = size;
+			this.offsets = offsets;
+			this.adjacent = adjacent;
+		}
+		
+		/**
+		 * @return the number of nodes
+		 */
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * @param node the node index
+		 * @return the number of neighbors of the node, counted with multiplicity
+		 */
+		public int getDegree(int node) {
+			return offsets[node + 1] - offsets[node];
+		}
+		
+		/**
+		 * @param node the node index
+		 * @param i the neighbor number, between 0 and {@link #getDegree(int)} - 1
+		 * @return the index of the i-th neighbor of the node
+		 */
+		public int getNeighbor(int node, int i) {
+			return adjacent[offsets[node] + i];
+		}
+		
+		/**
+		 * Create a traversal over these adjacency lists with its own search state.
+		 * @return the traversal
+		 */
+		public Traversal traversal() {
+			return new Traversal(size, offsets, adjacent);
+		}
+		
+	}
+	
+	private static final class Entry {
+		
+		final Object
+			value;
+		final long
+			bytes;
+		
+		Entry(Object value, long bytes) {
+			this.value = value;
+			this.bytes = bytes;
+		}
+		
+	}
+	
+	private final HalfEdgeDataStructure<?,?,?>
+		hds;
+	private final Map<Query<?>, Entry>
+		entries = new LinkedHashMap<Query<?>, Entry>(16, 0.75f, true);
+	private long
+		maxBytes = Long.MAX_VALUE,
+		bytes = 0,
+		version = -1,
+		hits = 0,
+		misses = 0,
+		evictions = 0,
+		invalidations = 0,
+		computeNanos = 0;
+	
+	/**
+	 * Create an unbounded cache for a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 */
+	public QueryCache(HalfEdgeDataStructure<?,?,?> hds) {
+		this(hds, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Create a cache for a half-edge data structure.
+	 * @param hds the half-edge data structure
+	 * @param maxBytes the bound of the total estimated size of the cached values
+	 * @throws IllegalArgumentException if maxBytes is negative
+	 */
+	public QueryCache(HalfEdgeDataStructure<?,?,?> hds, long maxBytes) throws IllegalArgumentException {
+		if (hds == null) {
+			throw new IllegalArgumentException("The half-edge data structure must not be null.");
+		}
+		this.hds = hds;
+		setMaxBytes(maxBytes);
+	}
+	
+	private static long intArrayBytes(long length) {
+		return (16 + 4 * length + 7) / 8 * 8;
+	}
+	
+	private static long listBytes(int size) {
+		return 24 + intArrayBytes(size);
+	}
+	
+	private long currentVersion() {
+		return hds.getVertexModificationCount() + hds.getEdgeModificationCount() + hds.getFaceModificationCount();
+	}
+	
+	/**
+	 * Return the value of a query for the current state of the half-edge data structure. 
+	 * The value is computed if it is not cached or the structure has been modified since 
+	 * it was computed.
+	 * @param <T> the type of the value
+	 * @param query the query
+	 * @return the value
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T get(Query<T> query) {
+		long v = currentVersion();
+		if (v != version) {
+			invalidations += entries.size();
+			entries.clear();
+			bytes = 0;
+			version = v;
+		}
+		Entry e = entries.get(query);
+		if (e != null) {
+			hits++;
+			return (T)e.value;
+		}
+		misses++;
+		long t = System.nanoTime();
+		T value = query.compute(hds);
+		computeNanos += System.nanoTime() - t;
+		e = new Entry(value, query.estimateBytes(value));
+		if (e.bytes > maxBytes) {
+			// caching it would evict all other values first
+			return value;
+		}
+		entries.put(query, e);
+		bytes += e.bytes;
+		evict();
+		return value;
+	}
+	
+	private void evict() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (bytes > maxBytes && it.hasNext()) {
+			bytes -= it.next().bytes;
+			it.remove();
+			evictions++;
+		}
+	}
+	
+	/**
+	 * Return whether the value of a query is cached and up to date.
+	 * @param query the query
+	 * @return true if {@link #get(Query)} would not compute the value
+	 */
+	public synchronized boolean contains(Query<?> query) {
+		return version == currentVersion() && entries.containsKey(query);
+	}
+	
+	/**
+	 * Drop all cached values.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+	
+	/**
+	 * Set the bound of the total estimated size of the cached values. Values that 
+	 * exceed the bound on their own are returned but not cached.
+	 * @param maxBytes the bound in bytes
+	 * @throws IllegalArgumentException if maxBytes is negative
+	 */
+	public synchronized void setMaxBytes(long maxBytes) throws IllegalArgumentException {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("The size bound must not be negative.");
+		}
+		this.maxBytes = maxBytes;
+		evict();
+	}
+	
+	/**
+	 * @return the bound of the total estimated size of the cached values
+	 */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+	
+	/**
+	 * @return the total estimated size of the cached values
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	
+	/**
+	 * @return the number of cached values
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * @return the half-edge data structure of this cache
+	 */
+	public HalfEdgeDataStructure<?,?,?> getHalfEdgeDataStructure() {
+		return hds;
+	}
+	
+	/**
+	 * @return the number of requests answered from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	
+	/**
+	 * @return the number of requests that computed the value
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	
+	/**
+	 * @return the number of values evicted to stay within the size bound
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+	
+	/**
+	 * @return the number of values dropped because the structure was modified
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidations;
+	}
+	
+	/**
+	 * @return the total time spent computing values in nanoseconds
+	 */
+	public synchronized long getComputeNanos() {
+		return computeNanos;
+	}
+	
+	/**
+	 * Set all statistics to zero.
+	 */
+	public synchronized void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		invalidations = 0;
+		computeNanos = 0;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "QueryCache " + entries.size() + " values (" + bytes + " of " + (maxBytes == Long.MAX_VALUE ? "unbounded" : maxBytes + " bytes") + "), " + 
+			"hits " + hits + ", misses " + misses + " (" + computeNanos / 1000 + " us), " + 
+			"evictions " + evictions + ", invalidations " + invalidations;
+	}
+	
+}
@@ -0,0 +1,272 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.Arrays;
+
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * Reordering of the node lists of a half-edge data structure for locality of reference.
+ * <p>
+ * Faces are put into breadth-first or reverse Cuthill-McKee order over the face adjacency. 
+ * The edges follow the faces: the boundary edges of each face in cycle order, starting with 
+ * {@link de.jtem.halfedge.Face#getBoundaryEdge()}, followed by those of their opposite edges 
+ * that have no left face. Vertices are numbered in the order of first occurrence as target 
+ * vertex in the new edge order. Nodes that are not reached this way keep their relative order 
+ * at the end of the lists.
+ * <p>
+ * The permutations map new indices to old indices and are meant for remapping attributes 
+ * that are stored outside of the nodes.
+ */
+public final class Reordering {
+
+	private final int[]
+		vertexOrder,
+		edgeOrder,
+		faceOrder;
+	
+	private Reordering(int[] vertexOrder, int[] edgeOrder, int[] faceOrder) {
+		this.vertexOrder = vertexOrder;
+		this.edgeOrder = edgeOrder;
+		this.faceOrder = faceOrder;
+	}
+	
+	/**
+	 * Reorder hds with faces in breadth-first order. Each connected component 
+	 * starts at its face with the smallest index.
+	 * @param hds the half-edge data structure
+	 * @return the permutations that were applied
+	 */
+	public static Reordering breadthFirst(HalfEdgeDataStructure<?,?,?> hds) {
+		return reorder(hds, false);
+	}
+	
+	/**
+	 * Reorder hds with faces in reverse Cuthill-McKee order. Each connected component 
+	 * starts at a face of minimal degree, neighbors are visited in order of increasing 
+	 * degree, and the resulting order is reversed. 
+	 * @param hds the half-edge data structure
+	 * @return the permutations that were applied
+	 */
+	public static Reordering reverseCuthillMcKee(HalfEdgeDataStructure<?,?,?> hds) {
+		return reorder(hds, true);
+	}
+	
+	private static Reordering reorder(HalfEdgeDataStructure<?,?,?> hds, boolean rcm) {
+		Connectivity c = new Connectivity(hds);
+		int nf = c.numFaces, ne = c.numEdges, nv = c.numVertices;
+		int[] anchor = new int[nf];
+		int[] degree = new int[nf];
+		Arrays.fill(anchor, -1);
+		for (int f = 0; f < nf; f++) {
+			if (hds.getFace(f).getBoundaryEdge() != null) {
+				anchor[f] = hds.getFace(f).getBoundaryEdge().getIndex();
+			}
+		}
+		for (int e = 0; e < ne; e++) {
+			int o = c.opposite[e];
+			if (c.face[e] >= 0 && o >= 0 && c.face[o] >= 0) {
+				degree[c.face[e]]++;
+			}
+		}
+		// face order
+		int[] faceOrder = new int[nf];
+		boolean[] visited = new boolean[nf];
+		Integer[] seeds = new Integer[nf];
+		for (int f = 0; f < nf; f++) {
+			seeds[f] = f;
+		}
+		if (rcm) {
+			final int[] d = degree;
+			Arrays.sort(seeds, new java.util.Comparator<Integer>() {
+				@Override
+				public int compare(Integer a, Integer b) {
+					return d[a] != d[b] ? d[a] - d[b] : a - b;
+				}
+			});
+		}
+		int tail = 0;
+		int[] neighbors = new int[16];
+		for (int s = 0; s < nf; s++) {
+			int seed = seeds[s];
+			if (visited[seed]) {
+				continue;
+			}
+			visited[seed] = true;
+			faceOrder[tail++] = seed;
+			for (int head = tail - 1; head < tail; head++) {
+				int f = faceOrder[head];
+				int e0 = anchor[f];
+				if (e0 < 0) {
+					continue;
+				}
+				int count = 0;
+				int e = e0;
+				do {
+					int o = c.opposite[e];
+					int g = o < 0 ? -1 : c.face[o];
+					if (g >= 0 && !visited[g]) {
+						visited[g] = true;
+						if (count == neighbors.length) {
+							neighbors = Arrays.copyOf(neighbors, 2 * count);
+						}
+						neighbors[count++] = g;
+					}
+					e = c.next[e];
+				} while (e != e0 && e >= 0);
+				if (rcm) {
+					// insertion sort by degree, faces have few neighbors
+					for (int i = 1; i < count; i++) {
+						int g = neighbors[i];
+						int j = i - 1;
+						for (; j >= 0 && degree[neighbors[j]] > degree[g]; j--) {
+							neighbors[j + 1] = neighbors[j];
+						}
+						neighbors[j + 1] = g;
+					}
+				}
+				System.arraycopy(neighbors, 0, faceOrder, tail, count);
+				tail += count;
+			}
+		}
+		if (rcm) {
+			for (int i = 0, j = nf - 1; i < j; i++, j--) {
+				int t = faceOrder[i];
+				faceOrder[i] = faceOrder[j];
+				faceOrder[j] = t;
+			}
+		}
+		// edges grouped by face
+		int[] edgeOrder = new int[ne];
+		boolean[] placed = new boolean[ne];
+		tail = 0;
+		for (int i = 0; i < nf; i++) {
+			int e0 = anchor[faceOrder[i]];
+			if (e0 < 0) {
+				continue;
+			}
+			int start = tail;
+			int e = e0;
+			do {
+				placed[e] = true;
+				edgeOrder[tail++] = e;
+				e = c.next[e];
+			} while (e != e0 && e >= 0 && !placed[e]);
+			for (int j = start, end = tail; j < end; j++) {
+				int o = c.opposite[edgeOrder[j]];
+				if (o >= 0 && c.face[o] < 0 && !placed[o]) {
+					placed[o] = true;
+					edgeOrder[tail++] = o;
+				}
+			}
+		}
+		for (int e = 0; e < ne; e++) {
+			if (!placed[e]) {
+				edgeOrder[tail++] = e;
+			}
+		}
+		// vertices in first touch order
+		int[] vertexOrder = new int[nv];
+		boolean[] touched = new boolean[nv];
+		tail = 0;
+		for (int i = 0; i < ne; i++) {
+			int v = c.target[edgeOrder[i]];
+			if (v >= 0 && !touched[v]) {
+				touched[v] = true;
+				vertexOrder[tail++] = v;
+			}
+		}
+		for (int v = 0; v < nv; v++) {
+			if (!touched[v]) {
+				vertexOrder[tail++] = v;
+			}
+		}
+		hds.permute(vertexOrder, edgeOrder, faceOrder);
+		return new Reordering(vertexOrder, edgeOrder, faceOrder);
+	}
+	
+	private static int[] invert(int[] order) {
+		int[] inverse = new int[order.length];
+		for (int i = 0; i < order.length; i++) {
+			inverse[order[i]] = i;
+		}
+		return inverse;
+	}
+	
+	/**
+	 * The returned array is not copied and must not be modified.
+	 * @return the old index of the vertex with new index i at position i
+	 */
+	public int[] getVertexOrder() {
+		return vertexOrder;
+	}
+	
+	/**
+	 * The returned array is not copied and must not be modified.
+	 * @return the old index of the edge with new index i at position i
+	 */
+	public int[] getEdgeOrder() {
+		return edgeOrder;
+	}
+	
+	/**
+	 * The returned array is not copied and must not be modified.
+	 * @return the old index of the face with new index i at position i
+	 */
+	public int[] getFaceOrder() {
+		return faceOrder;
+	}
+	
+	/**
+	 * @return the new index of the vertex with old index i at position i
+	 */
+	public int[] getInverseVertexOrder() {
+		return invert(vertexOrder);
+	}
+	
+	/**
+	 * @return the new index of the edge with old index i at position i
+	 */
+	public int[] getInverseEdgeOrder() {
+		return invert(edgeOrder);
+	}
+	
+	/**
+	 * @return the new index of the face with old index i at position i
+	 */
+	public int[] getInverseFaceOrder() {
+		return invert(faceOrder);
+	}
+	
+}
@@ -0,0 +1,674 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.List;
+
+import de.jtem.halfedge.Edge;
+import de.jtem.halfedge.Face;
+import de.jtem.halfedge.HalfEdgeDataStructure;
+import de.jtem.halfedge.Vertex;
+
+/**
+ * Combinatorial subdivision schemes that compute the refined half-edge data structure 
+ * directly from the source, without going through 
+ * {@link HalfEdgeUtils#constructFaceByVertices(HalfEdgeDataStructure, Vertex...)}.
+ * <p>
+ * The nodes of the refined structure are allocated in one step. Every source edge 
+ * determines a fixed block of refined edges by a closed index formula, so the 
+ * source edges are processed independently and in parallel. The refined vertices are 
+ * numbered as follows: the old vertices keep their indices, followed by one new vertex 
+ * per edge pair (ordered by the smaller edge index of the pair), followed by one new 
+ * vertex per face, as far as the scheme creates them.
+ * <p>
+ * For each scheme there is a stencil method that carries per-vertex data, like coordinates, 
+ * through the refinement. The data are passed as a column of {@code dim} doubles per vertex. 
+ * <p>
+ * The source must be a {@linkplain HalfEdgeUtils#isValidSurface(HalfEdgeDataStructure) valid surface}, 
+ * boundaries are allowed. The target must be empty and must not have an open transaction.
+ */
+public final class Subdivision {
+
+	// Don't instatiate.
+	private Subdivision() {}
+	
+	/**
+	 * Numbering of the source edges shared by all schemes. Corners are the edges with a 
+	 * left face, boundary edges the ones without.
+	 */
+	private static final class Numbering {
+		
+		final Connectivity 
+			c;
+		final int[]
+			prev,
+			corner,
+			boundary,
+			edgeId,
+			anchor;
+		final int
+			numCorners,
+			numBoundary,
+			numEdgePairs;
+		
+		Numbering(HalfEdgeDataStructure<?,?,?> src, boolean trianglesOnly) throws RuntimeException {
+			c = new Connectivity(src);
+			int ne = c.numEdges;
+			prev = new int[ne];
+			corner = new int[ne];
+			boundary = new int[ne];
+			edgeId = new int[ne];
+			anchor = new int[c.numVertices];
+			for (int v = 0; v < c.numVertices; v++) {
+				anchor[v] = -1;
+			}
+			int nc = 0, nb = 0, np = 0;
+			for (int e = 0; e < ne; e++) {
+				if (c.next[e] < 0 || c.opposite[e] < 0 || c.target[e] < 0) {
+					throw new RuntimeException("Edge " + e + " of " + src + " is not properly linked.");
+				}
+				if (c.face[e] < 0 && c.face[c.opposite[e]] < 0) {
+					throw new RuntimeException("Edge " + e + " of " + src + " has no face on either side.");
+				}
+				if (trianglesOnly && c.face[e] >= 0 && c.next[c.next[c.next[e]]] != e) {
+					throw new RuntimeException("Face " + c.face[e] + " of " + src + " is not a triangle.");
+				}
+				prev[c.next[e]] = e;
+				anchor[c.target[e]] = e;
+				if (c.face[e] >= 0) {
+					corner[e] = nc++;
+					boundary[e] = -1;
+				} else {
+					corner[e] = -1;
+					boundary[e] = nb++;
+				}
+				if (e < c.opposite[e]) {
+					edgeId[e] = np;
+					edgeId[c.opposite[e]] = np;
+					np++;
+				}
+			}
+			numCorners = nc;
+			numBoundary = nb;
+			numEdgePairs = np;
+		}
+		
+	}
+	
+	/**
+	 * Allocate the nodes of the refined structure.
+	 */
+	private static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>
+	> void allocate(HalfEdgeDataStructure<VV,EE,FF> dst, int nv, int ne, int nf) throws RuntimeException {
+		if (dst.numVertices() != 0 || dst.numEdges() != 0 || dst.numFaces() != 0) {
+			throw new RuntimeException(dst + " is not empty.");
+		}
+		if (dst.getTransaction() != null) {
+			throw new RuntimeException(dst + " has an open transaction.");
+		}
+		dst.addNewVertices(nv);
+		dst.addNewEdges(ne);
+		dst.addNewFaces(nf);
+	}
+	
+	/**
+	 * Run the wiring of the allocated nodes in parallel as one bulk update of dst. 
+	 * All nodes of dst are recorded as modified afterwards.
+	 */
+	private static void wire(HalfEdgeDataStructure<?,?,?> dst, int n, Parallel.Range range) {
+		dst.beginBulkUpdate();
+		try {
+			Parallel.forRange(n, range);
+		} finally {
+			dst.endBulkUpdate(dst.getVertices(), dst.getEdges(), dst.getFaces());
+		}
+	}
+	
+	/**
+	 * Link two edges as opposite edges. Every pair is passed twice, from both sides, 
+	 * and linked by the side with the smaller index only. Thus, each edge is written 
+	 * by exactly one thread. 
+	 */
+	private static <EE extends Edge<?,EE,?>> void linkOpposite(List<EE> edges, int a, int b) {
+		if (a < b) {
+			EE ea = edges.get(a);
+			ea.setIsPositive(true);
+			ea.linkOppositeEdge(edges.get(b));
+		}
+	}
+	
+	/**
+	 * Link the edges a0, a1, ..., a0 to a cycle with face f.
+	 */
+	private static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>
+	> void linkCycle(List<EE> edges, FF f, int... a) {
+		for (int i = 0; i < a.length; i++) {
+			EE e = edges.get(a[i]);
+			e.linkNextEdge(edges.get(a[(i + 1) % a.length]));
+			e.setLeftFace(f);
+		}
+	}
+	
+	/**
+	 * The refined edge from the start vertex of source edge h to its new edge vertex, 
+	 * for Catmull-Clark and Loop subdivision.
+	 */
+	private static int firstHalf(Numbering n, int h) {
+		if (n.corner[h] >= 0) {
+			return 4 * n.corner[n.prev[h]] + 1;
+		}
+		return 4 * n.numCorners + 2 * n.boundary[h];
+	}
+	
+	/**
+	 * The refined edge from the new edge vertex of source edge h to its target vertex, 
+	 * for Catmull-Clark and Loop subdivision.
+	 */
+	private static int secondHalf(Numbering n, int h) {
+		if (n.corner[h] >= 0) {
+			return 4 * n.corner[h];
+		}
+		return 4 * n.numCorners + 2 * n.boundary[h] + 1;
+	}
+	
+	/**
+	 * Link the refined edges of a source boundary edge, for Catmull-Clark and Loop subdivision.
+	 */
+	private static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>
+	> void splitBoundaryEdge(Numbering n, int e, List<VV> vertices, List<EE> edges) {
+		int[] opposite = n.c.opposite;
+		int x0 = firstHalf(n, e);
+		int x1 = secondHalf(n, e);
+		EE e0 = edges.get(x0);
+		EE e1 = edges.get(x1);
+		e0.linkNextEdge(e1);
+		e1.linkNextEdge(edges.get(firstHalf(n, n.c.next[e])));
+		e0.setTargetVertex(vertices.get(n.c.numVertices + n.edgeId[e]));
+		e1.setTargetVertex(vertices.get(n.c.target[e]));
+		linkOpposite(edges, x0, secondHalf(n, opposite[e]));
+		linkOpposite(edges, x1, firstHalf(n, opposite[e]));
+	}
+	
+	/**
+	 * Catmull-Clark subdivision. Every face with n edges is split into n quadrilaterals.
+	 * <p>
+	 * The refined structure has V + E/2 + F vertices, 4C + 2B edges, and C faces, 
+	 * where C is the number of edges with a left face and B the number of boundary edges of src.
+	 * The c-th corner (edge with a left face) in the edge list of src becomes face c.
+	 * @param src the source surface
+	 * @param dst an empty half-edge data structure that receives the refined surface
+	 * @return dst
+	 * @throws RuntimeException if src is not a valid surface or dst is not empty
+	 */
+	public static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>,
+		HEDS extends HalfEdgeDataStructure<VV,EE,FF>
+	> HEDS catmullClark(HalfEdgeDataStructure<?,?,?> src, HEDS dst) throws RuntimeException {
+		final Numbering n = new Numbering(src, false);
+		final int nv = n.c.numVertices;
+		final int np = n.numEdgePairs;
+		allocate(dst, nv + np + n.c.numFaces, 4 * n.numCorners + 2 * n.numBoundary, n.numCorners);
+		final List<VV> vertices = dst.getVertices();
+		final List<EE> edges = dst.getEdges();
+		final List<FF> faces = dst.getFaces();
+		final int[] next = n.c.next, opposite = n.c.opposite, target = n.c.target, face = n.c.face;
+		wire(dst, n.c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					if (n.corner[e] < 0) {
+						splitBoundaryEdge(n, e, vertices, edges);
+						continue;
+					}
+					int q = 4 * n.corner[e];
+					linkCycle(edges, faces.get(n.corner[e]), q, q + 1, q + 2, q + 3);
+					edges.get(q).setTargetVertex(vertices.get(target[e]));
+					edges.get(q + 1).setTargetVertex(vertices.get(nv + n.edgeId[next[e]]));
+					edges.get(q + 2).setTargetVertex(vertices.get(nv + np + face[e]));
+					edges.get(q + 3).setTargetVertex(vertices.get(nv + n.edgeId[e]));
+					linkOpposite(edges, q, firstHalf(n, opposite[e]));
+					linkOpposite(edges, q + 1, secondHalf(n, opposite[next[e]]));
+					linkOpposite(edges, q + 2, 4 * n.corner[next[e]] + 3);
+					linkOpposite(edges, q + 3, 4 * n.corner[n.prev[e]] + 2);
+				}
+			}
+		});
+		return dst;
+	}
+	
+	/**
+	 * Loop subdivision. Every triangle is split into four triangles.
+	 * <p>
+	 * The refined structure has V + E/2 vertices, 4C + 2B edges, and C + F faces, 
+	 * where C is the number of edges with a left face and B the number of boundary edges of src.
+	 * The c-th corner (edge with a left face) in the edge list of src becomes the corner 
+	 * triangle c at its target vertex, face f of src becomes the center triangle C + f.
+	 * @param src the source surface, all faces must be triangles
+	 * @param dst an empty half-edge data structure that receives the refined surface
+	 * @return dst
+	 * @throws RuntimeException if src is not a valid triangulated surface or dst is not empty
+	 */
+	public static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>,
+		HEDS extends HalfEdgeDataStructure<VV,EE,FF>
+	> HEDS loop(HalfEdgeDataStructure<?,?,?> src, HEDS dst) throws RuntimeException {
+		final Numbering n = new Numbering(src, true);
+		final int nv = n.c.numVertices;
+		final int nc = n.numCorners;
+		allocate(dst, nv + n.numEdgePairs, 4 * nc + 2 * n.numBoundary, nc + n.c.numFaces);
+		final List<VV> vertices = dst.getVertices();
+		final List<EE> edges = dst.getEdges();
+		final List<FF> faces = dst.getFaces();
+		final int[] next = n.c.next, opposite = n.c.opposite, target = n.c.target, face = n.c.face;
+		wire(dst, n.c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					if (n.corner[e] < 0) {
+						splitBoundaryEdge(n, e, vertices, edges);
+						continue;
+					}
+					int q = 4 * n.corner[e];
+					linkCycle(edges, faces.get(n.corner[e]), q, q + 1, q + 2);
+					EE center = edges.get(q + 3);
+					center.linkNextEdge(edges.get(4 * n.corner[next[e]] + 3));
+					center.setLeftFace(faces.get(nc + face[e]));
+					edges.get(q).setTargetVertex(vertices.get(target[e]));
+					edges.get(q + 1).setTargetVertex(vertices.get(nv + n.edgeId[next[e]]));
+					edges.get(q + 2).setTargetVertex(vertices.get(nv + n.edgeId[e]));
+					center.setTargetVertex(vertices.get(nv + n.edgeId[next[e]]));
+					linkOpposite(edges, q, firstHalf(n, opposite[e]));
+					linkOpposite(edges, q + 1, secondHalf(n, opposite[next[e]]));
+					linkOpposite(edges, q + 2, q + 3);
+					linkOpposite(edges, q + 3, q + 2);
+				}
+			}
+		});
+		return dst;
+	}
+	
+	/**
+	 * sqrt(3) subdivision. A new vertex is inserted into every face and connected to 
+	 * the vertices of the face, then all interior edges of src are flipped. Boundary 
+	 * edges are not flipped. Faces need not be triangles, the result is a triangulation.
+	 * <p>
+	 * The refined structure has V + F vertices, 3C + B edges, and C faces, 
+	 * where C is the number of edges with a left face and B the number of boundary edges of src.
+	 * The c-th corner (edge with a left face) in the edge list of src becomes face c, 
+	 * which contains the target vertex of the corner.
+	 * @param src the source surface
+	 * @param dst an empty half-edge data structure that receives the refined surface
+	 * @return dst
+	 * @throws RuntimeException if src is not a valid surface or dst is not empty
+	 */
+	public static <
+		VV extends Vertex<VV,EE,FF>,
+		EE extends Edge<VV,EE,FF>,
+		FF extends Face<VV,EE,FF>,
+		HEDS extends HalfEdgeDataStructure<VV,EE,FF>
+	> HEDS sqrt3(HalfEdgeDataStructure<?,?,?> src, HEDS dst) throws RuntimeException {
+		final Numbering n = new Numbering(src, false);
+		final int nv = n.c.numVertices;
+		final int nc = n.numCorners;
+		allocate(dst, nv + n.c.numFaces, 3 * nc + n.numBoundary, nc);
+		final List<VV> vertices = dst.getVertices();
+		final List<EE> edges = dst.getEdges();
+		final List<FF> faces = dst.getFaces();
+		final int[] next = n.c.next, opposite = n.c.opposite, target = n.c.target, face = n.c.face;
+		wire(dst, n.c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					int o = opposite[e];
+					if (n.corner[e] < 0) {
+						int x = 3 * nc + n.boundary[e];
+						EE b = edges.get(x);
+						b.linkNextEdge(edges.get(3 * nc + n.boundary[next[e]]));
+						b.setTargetVertex(vertices.get(target[e]));
+						linkOpposite(edges, x, 3 * n.corner[o]);
+						continue;
+					}
+					int q = 3 * n.corner[e];
+					linkCycle(edges, faces.get(n.corner[e]), q, q + 1, q + 2);
+					edges.get(q).setTargetVertex(vertices.get(target[e]));
+					edges.get(q + 1).setTargetVertex(vertices.get(nv + face[e]));
+					// the spoke from the new vertex of the face to the target vertex
+					int on = opposite[next[e]];
+					linkOpposite(edges, q + 1, face[on] >= 0 ? 3 * n.corner[on] : 3 * n.corner[next[e]] + 2);
+					if (face[o] >= 0) {
+						// flipped edge between the new vertices of both faces
+						edges.get(q + 2).setTargetVertex(vertices.get(nv + face[o]));
+						linkOpposite(edges, q, 3 * n.corner[n.prev[o]] + 1);
+						linkOpposite(edges, q + 2, 3 * n.corner[o] + 2);
+					} else {
+						// triangle on an unflipped boundary edge
+						edges.get(q + 2).setTargetVertex(vertices.get(target[o]));
+						linkOpposite(edges, q, 3 * nc + n.boundary[o]);
+						linkOpposite(edges, q + 2, 3 * n.corner[n.prev[e]] + 1);
+					}
+				}
+			}
+		});
+		return dst;
+	}
+	
+	/**
+	 * Check the size of a data column.
+	 */
+	private static void checkData(Numbering n, double[] data, int dim) throws RuntimeException {
+		if (dim < 1 || data.length != n.c.numVertices * dim) {
+			throw new RuntimeException("The data column must contain " + dim + " values per vertex.");
+		}
+	}
+	
+	/**
+	 * Compute the face centroids into out, starting at vertex offset.
+	 */
+	private static void faceCentroids(final Numbering n, final double[] data, final int dim, final double[] out, final int offset) {
+		final int[] faceAnchor = new int[n.c.numFaces];
+		for (int e = 0; e < n.c.numEdges; e++) {
+			if (n.c.face[e] >= 0) {
+				faceAnchor[n.c.face[e]] = e;
+			}
+		}
+		Parallel.forRange(n.c.numFaces, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int f = from; f < to; f++) {
+					int e0 = faceAnchor[f];
+					int e = e0;
+					int degree = 0;
+					int o = (offset + f) * dim;
+					do {
+						int v = n.c.target[e] * dim;
+						for (int k = 0; k < dim; k++) {
+							out[o + k] += data[v + k];
+						}
+						degree++;
+						e = n.c.next[e];
+					} while (e != e0);
+					for (int k = 0; k < dim; k++) {
+						out[o + k] /= degree;
+					}
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Apply the vertex rule of a scheme to all old vertices. 
+	 */
+	private static abstract class VertexRule implements Parallel.Range {
+		
+		final Numbering n;
+		final double[] data, out;
+		final int dim;
+		
+		VertexRule(Numbering n, double[] data, int dim, double[] out) {
+			this.n = n;
+			this.data = data;
+			this.dim = dim;
+			this.out = out;
+		}
+		
+		@Override
+		public void run(int from, int to) {
+			int[] opposite = n.c.opposite;
+			double[] sum = new double[dim];
+			for (int v = from; v < to; v++) {
+				int e0 = n.anchor[v];
+				if (e0 < 0) {
+					// isolated vertex
+					System.arraycopy(data, v * dim, out, v * dim, dim);
+					continue;
+				}
+				int boundaryIn = -1;
+				int valence = 0;
+				int e = e0;
+				for (int k = 0; k < dim; k++) {
+					sum[k] = 0;
+				}
+				do {
+					if (n.c.face[e] < 0) {
+						boundaryIn = e;
+					}
+					int s = n.c.target[opposite[e]] * dim;
+					for (int k = 0; k < dim; k++) {
+						sum[k] += data[s + k];
+					}
+					valence++;
+					e = opposite[n.c.next[e]];
+				} while (e != e0);
+				if (boundaryIn >= 0) {
+					int s1 = n.c.target[opposite[boundaryIn]];
+					int s2 = n.c.target[n.c.next[boundaryIn]];
+					boundary(v, s1, s2);
+				} else {
+					interior(v, e0, valence, sum);
+				}
+			}
+		}
+		
+		/**
+		 * @param v the vertex
+		 * @param e0 an incoming edge
+		 * @param valence the number of incoming edges
+		 * @param sum the sum of the data of the neighbors
+		 */
+		abstract void interior(int v, int e0, int valence, double[] sum);
+		
+		/**
+		 * @param v the vertex
+		 * @param s1 the previous vertex on the boundary
+		 * @param s2 the next vertex on the boundary
+		 */
+		abstract void boundary(int v, int s1, int s2);
+		
+	}
+	
+	/**
+	 * Catmull-Clark stencil. Face points are the centroids of the faces, edge points the 
+	 * average of the end points and the adjacent face points, old vertices move to 
+	 * (Q + 2R + (n - 3)S)/n. On the boundary, edge points are edge midpoints and 
+	 * vertices move to (P1 + 6S + P2)/8.
+	 * @param src the source surface, it must not have been modified since the refinement
+	 * @param data the source column, dim values per vertex
+	 * @param dim the number of values per vertex
+	 * @return the refined column, in the vertex order of {@link #catmullClark(HalfEdgeDataStructure, HalfEdgeDataStructure)}
+	 * @throws RuntimeException if src is not a valid surface or the column has the wrong size
+	 */
+	public static double[] catmullClark(HalfEdgeDataStructure<?,?,?> src, final double[] data, final int dim) throws RuntimeException {
+		final Numbering n = new Numbering(src, false);
+		checkData(n, data, dim);
+		final int nv = n.c.numVertices;
+		final int np = n.numEdgePairs;
+		final double[] out = new double[(nv + np + n.c.numFaces) * dim];
+		final int[] opposite = n.c.opposite, target = n.c.target, face = n.c.face;
+		faceCentroids(n, data, dim, out, nv + np);
+		Parallel.forRange(n.c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					int o = opposite[e];
+					if (o < e) {
+						continue;
+					}
+					int p = (nv + n.edgeId[e]) * dim;
+					int a = target[o] * dim, b = target[e] * dim;
+					if (face[e] >= 0 && face[o] >= 0) {
+						int f = (nv + np + face[e]) * dim, g = (nv + np + face[o]) * dim;
+						for (int k = 0; k < dim; k++) {
+							out[p + k] = (data[a + k] + data[b + k] + out[f + k] + out[g + k]) / 4;
+						}
+					} else {
+						for (int k = 0; k < dim; k++) {
+							out[p + k] = (data[a + k] + data[b + k]) / 2;
+						}
+					}
+				}
+			}
+		});
+		Parallel.forRange(nv, new VertexRule(n, data, dim, out) {
+			@Override
+			void interior(int v, int e0, int valence, double[] sum) {
+				// Q: average of face points, R: average of edge midpoints
+				double[] q = new double[dim];
+				int e = e0;
+				do {
+					int f = (nv + np + face[e]) * dim;
+					for (int k = 0; k < dim; k++) {
+						q[k] += out[f + k];
+					}
+					e = opposite[n.c.next[e]];
+				} while (e != e0);
+				for (int k = 0; k < dim; k++) {
+					double s = data[v * dim + k];
+					double r = (sum[k] / valence + s) / 2;
+					out[v * dim + k] = (q[k] / valence + 2 * r + (valence - 3) * s) / valence;
+				}
+			}
+			@Override
+			void boundary(int v, int s1, int s2) {
+				for (int k = 0; k < dim; k++) {
+					out[v * dim + k] = (data[s1 * dim + k] + 6 * data[v * dim + k] + data[s2 * dim + k]) / 8;
+				}
+			}
+		});
+		return out;
+	}
+	
+	/**
+	 * Loop stencil. Edge points are 3/8 of the end points plus 1/8 of the opposite 
+	 * vertices, old vertices with valence n move to (1 - n&beta;)S + &beta; times the sum of 
+	 * their neighbors, with Loop's &beta;. On the boundary, edge points are edge midpoints and 
+	 * vertices move to (P1 + 6S + P2)/8.
+	 * @param src the source surface, it must not have been modified since the refinement
+	 * @param data the source column, dim values per vertex
+	 * @param dim the number of values per vertex
+	 * @return the refined column, in the vertex order of {@link #loop(HalfEdgeDataStructure, HalfEdgeDataStructure)}
+	 * @throws RuntimeException if src is not a valid triangulated surface or the column has the wrong size
+	 */
+	public static double[] loop(HalfEdgeDataStructure<?,?,?> src, final double[] data, final int dim) throws RuntimeException {
+		final Numbering n = new Numbering(src, true);
+		checkData(n, data, dim);
+		final int nv = n.c.numVertices;
+		final double[] out = new double[(nv + n.numEdgePairs) * dim];
+		final int[] next = n.c.next, opposite = n.c.opposite, target = n.c.target, face = n.c.face;
+		Parallel.forRange(n.c.numEdges, new Parallel.Range() {
+			@Override
+			public void run(int from, int to) {
+				for (int e = from; e < to; e++) {
+					int o = opposite[e];
+					if (o < e) {
+						continue;
+					}
+					int p = (nv + n.edgeId[e]) * dim;
+					int a = target[o] * dim, b = target[e] * dim;
+					if (face[e] >= 0 && face[o] >= 0) {
+						int c = target[next[e]] * dim, d = target[next[o]] * dim;
+						for (int k = 0; k < dim; k++) {
+							out[p + k] = 3 * (data[a + k] + data[b + k]) / 8 + (data[c + k] + data[d + k]) / 8;
+						}
+					} else {
+						for (int k = 0; k < dim; k++) {
+							out[p + k] = (data[a + k] + data[b + k]) / 2;
+						}
+					}
+				}
+			}
+		});
+		Parallel.forRange(nv, new VertexRule(n, data, dim, out) {
+			@Override
+			void interior(int v, int e0, int valence, double[] sum) {
+				double t = 3.0 / 8 + Math.cos(2 * Math.PI / valence) / 4;
+				double beta = (5.0 / 8 - t * t) / valence;
+				for (int k = 0; k < dim; k++) {
+					out[v * dim + k] = (1 - valence * beta) * data[v * dim + k] + beta * sum[k];
+				}
+			}
+			@Override
+			void boundary(int v, int s1, int s2) {
+				for (int k = 0; k < dim; k++) {
+					out[v * dim + k] = (data[s1 * dim + k] + 6 * data[v * dim + k] + data[s2 * dim + k]) / 8;
+				}
+			}
+		});
+		return out;
+	}
+	
+	/**
+	 * sqrt(3) stencil. New vertices are the face centroids, old vertices with valence n 
+	 * move to (1 - &alpha;)S + &alpha;/n times the sum of their neighbors, with 
+	 * &alpha; = (4 - 2cos(2&pi;/n))/9. Boundary vertices do not move.
+	 * @param src the source surface, it must not have been modified since the refinement
+	 * @param data the source column, dim values per vertex
+	 * @param dim the number of values per vertex
+	 * @return the refined column, in the vertex order of {@link #sqrt3(HalfEdgeDataStructure, HalfEdgeDataStructure)}
+	 * @throws RuntimeException if src is not a valid surface or the column has the wrong size
+	 */
+	public static double[] sqrt3(HalfEdgeDataStructure<?,?,?> src, final double[] data, final int dim) throws RuntimeException {
+		final Numbering n = new Numbering(src, false);
+		checkData(n, data, dim);
+		final int nv = n.c.numVertices;
+		final double[] out = new double[(nv + n.c.numFaces) * dim];
+		faceCentroids(n, data, dim, out, nv);
+		Parallel.forRange(nv, new VertexRule(n, data, dim, out) {
+			@Override
+			void interior(int v, int e0, int valence, double[] sum) {
+				double alpha = (4 - 2 * Math.cos(2 * Math.PI / valence)) / 9;
+				for (int k = 0; k < dim; k++) {
+					out[v * dim + k] = (1 - alpha) * data[v * dim + k] + alpha * sum[k] / valence;
+				}
+			}
+			@Override
+			void boundary(int v, int s1, int s2) {
+				System.arraycopy(data, v * dim, out, v * dim, dim);
+			}
+		});
+		return out;
+	}
+	
+}
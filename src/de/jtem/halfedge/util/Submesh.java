@@ -0,0 +1,78 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+/**
+ * The index maps of a submesh created by 
+ * {@link HalfEdgeUtils#extractSubmesh(HalfEdgeDataStructure, java.util.Collection, HalfEdgeDataStructure)}. 
+ * Each map takes the index of a node in the submesh to the index of the node in the parent 
+ * half-edge data structure it was copied from.
+ * <p>
+ * The maps refer to the indices at the time of extraction, they become invalid when nodes 
+ * are removed from the parent.
+ */
+public final class Submesh {
+
+	private final int[]
+		vertexMap,
+		edgeMap,
+		faceMap;
+	
+	Submesh(int[] vertexMap, int[] edgeMap, int[] faceMap) {
+		this.vertexMap = vertexMap;
+		this.edgeMap = edgeMap;
+		this.faceMap = faceMap;
+	}
+	
+	/**
+	 * @return the parent indices of the vertices of the submesh
+	 */
+	public int[] getVertexMap() {
+		return vertexMap;
+	}
+	
+	/**
+	 * @return the parent indices of the edges of the submesh
+	 */
+	public int[] getEdgeMap() {
+		return edgeMap;
+	}
+	
+	/**
+	 * @return the parent indices of the faces of the submesh
+	 */
+	public int[] getFaceMap() {
+		return faceMap;
+	}
+	
+}
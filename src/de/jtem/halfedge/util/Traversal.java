@@ -0,0 +1,511 @@
+/**
+This file is part of a jTEM project.
+All jTEM projects are licensed under the FreeBSD license 
+or 2-clause BSD license (see http://www.opensource.org/licenses/bsd-license.php). 
+
+Copyright (c) 2006-2010, Technische Universität Berlin, jTEM
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification, 
+are permitted provided that the following conditions are met:
+
+-	Redistributions of source code must retain the above copyright notice, 
+	this list of conditions and the following disclaimer.
+
+-	Redistributions in binary form must reproduce the above copyright notice, 
+	this list of conditions and the following disclaimer in the documentation 
+	and/or other materials provided with the distribution.
+ 
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" 
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, 
+THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE 
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS 
+BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, 
+OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT 
+OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, 
+STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING 
+IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY 
+OF SUCH DAMAGE.
+**/
+
+
+package de.jtem.halfedge.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import de.jtem.halfedge.HalfEdgeDataStructure;
+
+/**
+ * Breadth first and depth first traversal of the vertices, faces, or edges 
+ * of a half-edge data structure.
+ * <p>
+ * A traversal object takes an index based snapshot of the adjacency of one kind of nodes
+ * and can then be used for any number of searches. Nodes are given and returned by their 
+ * {@linkplain de.jtem.halfedge.Node#getIndex() index}.
+ * Two vertices are adjacent if they are connected by an edge, two faces are adjacent if they 
+ * share an edge, and an edge is adjacent to its next, previous, and opposite edge. 
+ * <p>
+ * Searches reuse the work arrays of the traversal object and do not allocate per visited node.
+ * The cost of a search is proportional to the number of nodes it visits, plus the number of 
+ * nodes visited by the previous search. Breadth first levels with large frontiers are 
+ * expanded in parallel. In this case the parent of a node and the order of the nodes 
+ * within one level may differ between runs, the distances do not.
+ * <p>
+ * A traversal object is not thread-safe, and it does not follow modifications 
+ * of the half-edge data structure. Its searches may call the given {@link Filter filters} 
+ * from several threads, see there.
+ */
+public final class Traversal {
+
+	/**
+	 * A condition on nodes that are reached during a search.
+	 * <p>
+	 * Breadth first searches call the filters of a parallel level from several worker 
+	 * threads at once, in no particular order. Filters must therefore be thread-safe 
+	 * and should not depend on the order of the calls, e.g., read only data that 
+	 * does not change during the search.
+	 */
+	public static interface Filter {
+		
+		/**
+		 * @param node the index of the node
+		 * @param distance the hop distance of the node from the seeds
+		 * @return whether the condition holds for this node
+		 */
+		boolean accept(int node, int distance);
+		
+	}
+	
+	private static final int
+		BUFFER_SIZE = 1024;
+	
+	final int
+		size;
+	final int[]
+		offsets,
+		adjacent;
+	private final int[]
+		distances,
+		parents,
+		order;
+	private final AtomicLongArray
+		visited;
+	private int[]
+		stack = null;
+	private int
+		numVisited = 0;
+	private volatile boolean
+		stopped = false;
+	
+	Traversal(int size, int[] offsets, int[] adjacent) {
+		this.size = size;
+		this.offsets = offsets;
+		this.adjacent = adjacent;
+		distances = new int[size];
+		parents = new int[size];
+		order = new int[size];
+		visited = new AtomicLongArray((size + 63) >>> 6);
+		for (int i = 0; i < size; i++) {
+			distances[i] = -1;
+			parents[i] = -1;
+		}
+	}
+	
+	/**
+	 * Create a traversal of the vertices of hds. The neighbors of a vertex are 
+	 * the start vertices of its incoming edges.
+	 * @param hds the half-edge data structure
+	 * @return the traversal
+	 */
+	public static Traversal vertices(HalfEdgeDataStructure<?, ?, ?> hds) {
+		return vertices(new Connectivity(hds));
+	}
+	
+	/**
+	 * Create a traversal of the vertices of a view.
+	 * @see #vertices(HalfEdgeDataStructure)
+	 * @param view the view
+	 * @return the traversal
+	 */
+	public static Traversal vertices(HalfEdgeView view) {
+		return vertices(new Connectivity(view));
+	}
+	
+	private static Traversal vertices(Connectivity c) {
+		int[] from = new int[c.numEdges];
+		int[] to = new int[c.numEdges];
+		for (int e = 0; e < c.numEdges; e++) {
+			int opp = c.opposite[e];
+			from[e] = c.target[e];
+			to[e] = opp < 0 ? -1 : c.target[opp];
+		}
+		return create(c.numVertices, from, to);
+	}
+	
+	/**
+	 * Create a traversal of the faces of hds. The neighbors of a face are 
+	 * the right faces of its boundary edges.
+	 * @param hds the half-edge data structure
+	 * @return the traversal
+	 */
+	public static Traversal faces(HalfEdgeDataStructure<?, ?, ?> hds) {
+		return faces(new Connectivity(hds));
+	}
+	
+	/**
+	 * Create a traversal of the faces of a view.
+	 * @see #faces(HalfEdgeDataStructure)
+	 * @param view the view
+	 * @return the traversal
+	 */
+	public static Traversal faces(HalfEdgeView view) {
+		return faces(new Connectivity(view));
+	}
+	
+	private static Traversal faces(Connectivity c) {
+		int[] from = new int[c.numEdges];
+		int[] to = new int[c.numEdges];
+		for (int e = 0; e < c.numEdges; e++) {
+			int opp = c.opposite[e];
+			from[e] = c.face[e];
+			to[e] = opp < 0 ? -1 : c.face[opp];
+		}
+		return create(c.numFaces, from, to);
+	}
+	
+	/**
+	 * Create a traversal of the edges of hds. The neighbors of an edge are 
+	 * its next, previous, and opposite edges.
+	 * @param hds the half-edge data structure
+	 * @return the traversal
+	 */
+	public static Traversal edges(HalfEdgeDataStructure<?, ?, ?> hds) {
+		return edges(new Connectivity(hds));
+	}
+	
+	/**
+	 * Create a traversal of the edges of a view.
+	 * @see #edges(HalfEdgeDataStructure)
+	 * @param view the view
+	 * @return the traversal
+	 */
+	public static Traversal edges(HalfEdgeView view) {
+		return edges(new Connectivity(view));
+	}
+	
+	private static Traversal edges(Connectivity c) {
+		int ne = c.numEdges;
+		int[] from = new int[3 * ne];
+		int[] to = new int[3 * ne];
+		for (int e = 0; e < ne; e++) {
+			from[3 * e] = e;
+			to[3 * e] = c.next[e];
+			from[3 * e + 1] = e;
+			to[3 * e + 1] = c.opposite[e];
+			// the previous edge of next[e] is e
+			from[3 * e + 2] = c.next[e];
+			to[3 * e + 2] = c.next[e] < 0 ? -1 : e;
+		}
+		return create(ne, from, to);
+	}
+	
+	/**
+	 * Build the compressed adjacency lists of a directed graph, pairs containing -1 are skipped.
+	 */
+	private static Traversal create(int size, int[] from, int[] to) {
+		int[] offsets = new int[size + 1];
+		for (int i = 0; i < from.length; i++) {
+			if (from[i] >= 0 && to[i] >= 0) {
+				offsets[from[i] + 1]++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] fill = new int[size];
+		int[] adjacent = new int[offsets[size]];
+		for (int i = 0; i < from.length; i++) {
+			if (from[i] >= 0 && to[i] >= 0) {
+				adjacent[offsets[from[i]] + fill[from[i]]++] = to[i];
+			}
+		}
+		return new Traversal(size, offsets, adjacent);
+	}
+	
+	/**
+	 * Return the number of nodes of this traversal.
+	 * @return the number of nodes
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Return the number of neighbors of a node. Neighbors are counted with multiplicity.
+	 * @param node the node index
+	 * @return the number of neighbors
+	 */
+	public int getDegree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+	
+	/**
+	 * Return the i-th neighbor of a node.
+	 * @param node the node index
+	 * @param i the neighbor number, between 0 and {@link #getDegree(int)} - 1
+	 * @return the index of the neighbor
+	 */
+	public int getNeighbor(int node, int i) {
+		return adjacent[offsets[node] + i];
+	}
+	
+	/**
+	 * Breadth first search from the given seeds over all nodes.
+	 * @param seeds the start nodes
+	 * @return the number of visited nodes
+	 * @see #bfs(int[], int, Filter, Filter)
+	 */
+	public int bfs(int... seeds) {
+		return bfs(seeds, Integer.MAX_VALUE, null, null);
+	}
+	
+	/**
+	 * Breadth first search from the given seeds.
+	 * <p>
+	 * All seeds are visited with distance 0. A node that is reached from a visited node is 
+	 * visited if its distance does not exceed maxDistance and enter accepts it.
+	 * If stop accepts a visited node, the search ends. In a parallel level, the level 
+	 * is completed first, and enter and stop are called concurrently from several threads.
+	 * @param seeds the start nodes
+	 * @param maxDistance the maximum hop distance, e.g., k for a k-ring
+	 * @param enter decides whether a node may be visited, or null to visit all nodes
+	 * @param stop decides whether the search ends at a node, or null to never stop early
+	 * @return the number of visited nodes
+	 */
+	public int bfs(int[] seeds, int maxDistance, Filter enter, Filter stop) {
+		reset();
+		int tail = 0;
+		for (int s : seeds) {
+			if (mark(s)) {
+				distances[s] = 0;
+				order[tail++] = s;
+				if (stop != null && stop.accept(s, 0)) {
+					stopped = true;
+					break;
+				}
+			}
+		}
+		int head = 0;
+		for (int level = 0; level < maxDistance && head < tail && !stopped; level++) {
+			int levelEnd = tail;
+			if (Parallel.numChunks(levelEnd - head) > 1) {
+				tail = expandLevel(head, levelEnd, level + 1, enter, stop);
+				head = levelEnd;
+				continue;
+			}
+			expansion : while (head < levelEnd) {
+				int u = order[head++];
+				for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+					int w = adjacent[j];
+					if (isMarked(w) || (enter != null && !enter.accept(w, level + 1)) || !mark(w)) {
+						continue;
+					}
+					distances[w] = level + 1;
+					parents[w] = u;
+					order[tail++] = w;
+					if (stop != null && stop.accept(w, level + 1)) {
+						stopped = true;
+						break expansion;
+					}
+				}
+			}
+		}
+		numVisited = tail;
+		return numVisited;
+	}
+	
+	/**
+	 * Expand the level order[from, to) in parallel.
+	 * @return the new end of the queue
+	 */
+	private int expandLevel(final int from, int to, final int distance, final Filter enter, final Filter stop) {
+		final AtomicInteger tail = new AtomicInteger(to);
+		Parallel.forRange(to - from, new Parallel.Range() {
+			@Override
+			public void run(int start, int end) {
+				int[] buffer = new int[BUFFER_SIZE];
+				int length = 0;
+				for (int k = from + start; k < from + end; k++) {
+					int u = order[k];
+					for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+						int w = adjacent[j];
+						if (isMarked(w) || (enter != null && !enter.accept(w, distance)) || !mark(w)) {
+							continue;
+						}
+						distances[w] = distance;
+						parents[w] = u;
+						if (stop != null && stop.accept(w, distance)) {
+							stopped = true;
+						}
+						buffer[length++] = w;
+						if (length == BUFFER_SIZE) {
+							System.arraycopy(buffer, 0, order, tail.getAndAdd(length), length);
+							length = 0;
+						}
+					}
+				}
+				System.arraycopy(buffer, 0, order, tail.getAndAdd(length), length);
+			}
+		});
+		return tail.get();
+	}
+	
+	/**
+	 * Depth first search from the given seeds over all nodes.
+	 * @param seeds the start nodes
+	 * @return the number of visited nodes
+	 * @see #dfs(int[], Filter, Filter)
+	 */
+	public int dfs(int... seeds) {
+		return dfs(seeds, null, null);
+	}
+	
+	/**
+	 * Depth first search from the given seeds. The seeds are searched one after the other.
+	 * The distance of a node is its depth in the search tree, which is not its hop distance 
+	 * in general.
+	 * @param seeds the start nodes
+	 * @param enter decides whether a node may be visited, or null to visit all nodes
+	 * @param stop decides whether the search ends at a node, or null to never stop early
+	 * @return the number of visited nodes
+	 */
+	public int dfs(int[] seeds, Filter enter, Filter stop) {
+		reset();
+		if (stack == null) {
+			// pairs of node and parent, every adjacency is pushed at most once
+			stack = new int[2 * (adjacent.length + 1)];
+		}
+		int count = 0;
+		for (int s : seeds) {
+			if (isMarked(s)) {
+				continue;
+			}
+			int top = 0;
+			stack[top++] = s;
+			stack[top++] = -1;
+			while (top > 0 && !stopped) {
+				int p = stack[--top];
+				int u = stack[--top];
+				if (!mark(u)) {
+					continue;
+				}
+				int d = p < 0 ? 0 : distances[p] + 1;
+				distances[u] = d;
+				parents[u] = p;
+				order[count++] = u;
+				if (stop != null && stop.accept(u, d)) {
+					stopped = true;
+					break;
+				}
+				// push in reverse order to visit neighbors in adjacency order
+				for (int j = offsets[u + 1] - 1; j >= offsets[u]; j--) {
+					int w = adjacent[j];
+					if (isMarked(w) || (enter != null && !enter.accept(w, d + 1))) {
+						continue;
+					}
+					stack[top++] = w;
+					stack[top++] = u;
+				}
+			}
+			if (stopped) {
+				break;
+			}
+		}
+		numVisited = count;
+		return numVisited;
+	}
+	
+	/**
+	 * Clear the marks of the previous search.
+	 */
+	private void reset() {
+		for (int i = 0; i < numVisited; i++) {
+			int n = order[i];
+			distances[n] = -1;
+			parents[n] = -1;
+			visited.set(n >>> 6, 0L);
+		}
+		numVisited = 0;
+		stopped = false;
+	}
+	
+	private boolean isMarked(int node) {
+		return (visited.get(node >>> 6) & (1L << node)) != 0;
+	}
+	
+	/**
+	 * Atomically mark a node as visited.
+	 * @return true if the node has not been marked before
+	 */
+	private boolean mark(int node) {
+		int word = node >>> 6;
+		long bit = 1L << node;
+		while (true) {
+			long old = visited.get(word);
+			if ((old & bit) != 0) {
+				return false;
+			}
+			if (visited.compareAndSet(word, old, old | bit)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Return the number of nodes visited by the last search.
+	 * @return the number of visited nodes
+	 */
+	public int getNumVisited() {
+		return numVisited;
+	}
+	
+	/**
+	 * Return the visited nodes of the last search in the order of their visit. Only the first
+	 * {@link #getNumVisited()} entries are valid. The array is reused by the next search 
+	 * and must not be modified.
+	 * @return the visited nodes
+	 */
+	public int[] getOrder() {
+		return order;
+	}
+
+	/**
+	 * Return the distances of the last search, indexed by node. The distance of a node that 
+	 * has not been visited is -1. The array is reused by the next search and must not be modified.
+	 * @return the distances
+	 */
+	public int[] getDistances() {
+		return distances;
+	}
+
+	/**
+	 * Return the parents of the last search, indexed by node. The parent of a seed 
+	 * or of a node that has not been visited is -1. The array is reused by the next search 
+	 * and must not be modified.
+	 * @return the parents
+	 */
+	public int[] getParents() {
+		return parents;
+	}
+
+	/**
+	 * Return whether the last search was ended by the stop condition.
+	 * @return true if the search stopped early
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+	
+}